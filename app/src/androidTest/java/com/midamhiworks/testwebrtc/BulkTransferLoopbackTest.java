@@ -0,0 +1,321 @@
+package com.midamhiworks.testwebrtc;
+
+import android.content.Context;
+
+import androidx.test.InstrumentationRegistry;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.webrtc.DataChannel;
+import org.webrtc.IceCandidate;
+import org.webrtc.MediaConstraints;
+import org.webrtc.MediaStream;
+import org.webrtc.PeerConnection;
+import org.webrtc.PeerConnectionFactory;
+import org.webrtc.RtpReceiver;
+import org.webrtc.SdpObserver;
+import org.webrtc.SessionDescription;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs a bulk transfer between two peer connections of this process, connected over loopback
+ * with a negotiated data channel.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BulkTransferLoopbackTest {
+    private static final int TRANSFER_SIZE = 8 * 1024 * 1024;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    // Forwards the ICE candidates of one peer connection to the other.
+    private static class LoopbackObserver implements PeerConnection.Observer {
+        PeerConnection remote;
+
+        @Override
+        public void onIceCandidate(IceCandidate candidate) {
+            remote.addIceCandidate(candidate);
+        }
+
+        @Override
+        public void onSignalingChange(PeerConnection.SignalingState state) {}
+
+        @Override
+        public void onIceConnectionChange(PeerConnection.IceConnectionState state) {}
+
+        @Override
+        public void onIceConnectionReceivingChange(boolean receiving) {}
+
+        @Override
+        public void onIceGatheringChange(PeerConnection.IceGatheringState state) {}
+
+        @Override
+        public void onIceCandidatesRemoved(IceCandidate[] candidates) {}
+
+        @Override
+        public void onAddStream(MediaStream stream) {}
+
+        @Override
+        public void onRemoveStream(MediaStream stream) {}
+
+        @Override
+        public void onDataChannel(DataChannel channel) {}
+
+        @Override
+        public void onRenegotiationNeeded() {}
+
+        @Override
+        public void onAddTrack(RtpReceiver receiver, MediaStream[] streams) {}
+    }
+
+    // Runs one SDP operation synchronously.
+    private static class SyncSdpObserver implements SdpObserver {
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<SessionDescription> description = new AtomicReference<>();
+        volatile String error;
+
+        @Override
+        public void onCreateSuccess(SessionDescription sdp) {
+            description.set(sdp);
+            done.countDown();
+        }
+
+        @Override
+        public void onSetSuccess() {
+            done.countDown();
+        }
+
+        @Override
+        public void onCreateFailure(String error) {
+            this.error = error;
+            done.countDown();
+        }
+
+        @Override
+        public void onSetFailure(String error) {
+            this.error = error;
+            done.countDown();
+        }
+
+        SessionDescription await() throws InterruptedException {
+            assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertNull(error, error);
+            return description.get();
+        }
+    }
+
+    // The transfer side of a data channel; the buffered amount is tracked for the assertions.
+    private static class LoopbackChannel implements BulkTransfer.Channel {
+        final DataChannel channel;
+        final AtomicLong maxBufferedAmount = new AtomicLong();
+
+        LoopbackChannel(DataChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public boolean send(ByteBuffer data) {
+            boolean sent = channel.send(new DataChannel.Buffer(data, true));
+            long buffered = channel.bufferedAmount();
+            if (buffered > maxBufferedAmount.get()) {
+                maxBufferedAmount.set(buffered);
+            }
+            return sent;
+        }
+
+        @Override
+        public long getBufferedAmount() {
+            return channel.bufferedAmount();
+        }
+    }
+
+    private PeerConnectionFactory factory;
+    private PeerConnection caller;
+    private PeerConnection callee;
+    private DataChannel callerChannel;
+    private DataChannel calleeChannel;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @Before
+    public void setUp() throws InterruptedException {
+        Context context = InstrumentationRegistry.getTargetContext();
+        PeerConnectionFactory.initialize(
+                PeerConnectionFactory.InitializationOptions.builder(context)
+                        .createInitializationOptions());
+        PeerConnectionFactory.Options options = new PeerConnectionFactory.Options();
+        // Loopback is ignored by default.
+        options.networkIgnoreMask = 0;
+        factory = PeerConnectionFactory.builder().setOptions(options).createPeerConnectionFactory();
+
+        PeerConnection.RTCConfiguration configuration =
+                new PeerConnection.RTCConfiguration(Collections.emptyList());
+        configuration.sdpSemantics = PeerConnection.SdpSemantics.UNIFIED_PLAN;
+        LoopbackObserver callerObserver = new LoopbackObserver();
+        LoopbackObserver calleeObserver = new LoopbackObserver();
+        caller = factory.createPeerConnection(configuration, callerObserver);
+        callee = factory.createPeerConnection(configuration, calleeObserver);
+        callerObserver.remote = callee;
+        calleeObserver.remote = caller;
+
+        DataChannel.Init init = new DataChannel.Init();
+        init.negotiated = true;
+        init.id = 0;
+        callerChannel = caller.createDataChannel("bulk", init);
+        calleeChannel = callee.createDataChannel("bulk", init);
+
+        SyncSdpObserver offer = new SyncSdpObserver();
+        caller.createOffer(offer, new MediaConstraints());
+        SessionDescription offerSdp = offer.await();
+        SyncSdpObserver setOffer = new SyncSdpObserver();
+        caller.setLocalDescription(setOffer, offerSdp);
+        setOffer.await();
+        SyncSdpObserver setRemoteOffer = new SyncSdpObserver();
+        callee.setRemoteDescription(setRemoteOffer, offerSdp);
+        setRemoteOffer.await();
+        SyncSdpObserver answer = new SyncSdpObserver();
+        callee.createAnswer(answer, new MediaConstraints());
+        SessionDescription answerSdp = answer.await();
+        SyncSdpObserver setAnswer = new SyncSdpObserver();
+        callee.setLocalDescription(setAnswer, answerSdp);
+        setAnswer.await();
+        SyncSdpObserver setRemoteAnswer = new SyncSdpObserver();
+        caller.setRemoteDescription(setRemoteAnswer, answerSdp);
+        setRemoteAnswer.await();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        callerChannel.unregisterObserver();
+        calleeChannel.unregisterObserver();
+        callerChannel.dispose();
+        calleeChannel.dispose();
+        caller.dispose();
+        callee.dispose();
+        factory.dispose();
+    }
+
+    @Test
+    public void send_transfersMegabytesWithinWatermarks() throws InterruptedException {
+        final byte[] data = new byte[TRANSFER_SIZE];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31 + i / 4096);
+        }
+        final byte[] received = new byte[TRANSFER_SIZE];
+        final CountDownLatch sent = new CountDownLatch(1);
+        final CountDownLatch written = new CountDownLatch(1);
+        final AtomicReference<String> error = new AtomicReference<>();
+
+        final LoopbackChannel senderChannel = new LoopbackChannel(callerChannel);
+        final BulkTransferSender sender = new BulkTransferSender(senderChannel, executor,
+                new BulkTransferSender.Listener() {
+                    @Override
+                    public void onProgress(int id, long acknowledged, long total, long rate) {}
+
+                    @Override
+                    public void onComplete(int id, long total) {
+                        sent.countDown();
+                    }
+
+                    @Override
+                    public void onError(int id, String description) {
+                        error.set(description);
+                        sent.countDown();
+                    }
+                });
+        final BulkTransferReceiver receiver = new BulkTransferReceiver(
+                new LoopbackChannel(calleeChannel), new BulkTransferReceiver.Sink() {
+                    @Override
+                    public void onStart(int id, long size) {}
+
+                    @Override
+                    public void write(int id, long offset, ByteBuffer data) {
+                        data.get(received, (int) offset, data.remaining());
+                    }
+
+                    @Override
+                    public void onComplete(int id, long size) {
+                        written.countDown();
+                    }
+
+                    @Override
+                    public void onError(int id, String description) {
+                        error.set(description);
+                        written.countDown();
+                    }
+                });
+
+        callerChannel.registerObserver(new DataChannel.Observer() {
+            @Override
+            public void onBufferedAmountChange(long previousAmount) {
+                sender.onBufferedAmountChange(callerChannel.bufferedAmount());
+            }
+
+            @Override
+            public void onStateChange() {
+                if (callerChannel.state() == DataChannel.State.OPEN) {
+                    sender.onChannelOpen();
+                } else {
+                    sender.onChannelClosed();
+                }
+            }
+
+            @Override
+            public void onMessage(DataChannel.Buffer buffer) {
+                sender.onMessage(buffer.data);
+            }
+        });
+        calleeChannel.registerObserver(new DataChannel.Observer() {
+            @Override
+            public void onBufferedAmountChange(long previousAmount) {}
+
+            @Override
+            public void onStateChange() {}
+
+            @Override
+            public void onMessage(DataChannel.Buffer buffer) {
+                receiver.onMessage(buffer.data);
+            }
+        });
+        if (callerChannel.state() == DataChannel.State.OPEN) {
+            sender.onChannelOpen();
+        }
+
+        sender.send(new BulkTransferSender.Source() {
+            @Override
+            public long size() {
+                return data.length;
+            }
+
+            @Override
+            public int read(long offset, ByteBuffer destination) {
+                int length = Math.min(destination.remaining(), data.length - (int) offset);
+                destination.put(data, (int) offset, length);
+                return length;
+            }
+
+            @Override
+            public void close() {}
+        });
+
+        assertTrue(written.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(sent.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertNull(error.get(), error.get());
+        assertArrayEquals(data, received);
+        // Sending paused at the high watermark; one chunk may have been in flight per check.
+        long limit = BulkTransferSender.DEFAULT_HIGH_WATERMARK
+                + 2 * BulkTransferSender.DEFAULT_CHUNK_SIZE;
+        assertTrue(senderChannel.maxBufferedAmount.get() <= limit);
+    }
+}
@@ -0,0 +1,204 @@
+package com.midamhiworks.testwebrtc;
+
+import android.content.Context;
+
+import androidx.test.InstrumentationRegistry;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.webrtc.EglBase;
+import org.webrtc.IceCandidate;
+import org.webrtc.PeerConnection;
+import org.webrtc.PeerConnectionFactory;
+import org.webrtc.SessionDescription;
+import org.webrtc.VideoSink;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Adds and removes the peers of a mesh call with {@link PeerConnectionClient#addPeer} and
+ * {@link PeerConnectionClient#removePeer}, negotiating with a second client of this process.
+ * Audio only and without connecting, so that no capture device or permission is needed.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PeerConnectionClientMeshTest {
+    private static final long TIMEOUT_SECONDS = 10;
+    // How long to wait for an event that must not come.
+    private static final long QUIET_MS = 2000;
+    private static final String GUEST_ID = "guest";
+    private static final List<VideoSink> NO_SINKS = Collections.emptyList();
+    private static final List<PeerConnection.IceServer> NO_ICE_SERVERS = Collections.emptyList();
+
+    private static class RecordingEvents implements PeerConnectionClient.PeerConnectionEvents {
+        final BlockingQueue<SessionDescription> descriptions = new LinkedBlockingQueue<>();
+        final BlockingQueue<IceCandidate> candidates = new LinkedBlockingQueue<>();
+        final CountDownLatch closed = new CountDownLatch(1);
+        volatile String error;
+
+        @Override
+        public void onLocalDescription(SessionDescription sdp) {
+            descriptions.add(sdp);
+        }
+
+        @Override
+        public void onIceCandidate(IceCandidate candidate) {
+            candidates.add(candidate);
+        }
+
+        @Override
+        public void onIceCandidatesRemoved(IceCandidate[] candidates) {}
+
+        @Override
+        public void onIceConnected() {}
+
+        @Override
+        public void onIceDisconnected() {}
+
+        @Override
+        public void onConnected() {}
+
+        @Override
+        public void onDisconnected() {}
+
+        @Override
+        public void onPeerConnectionClosed() {
+            closed.countDown();
+        }
+
+        @Override
+        public void onPeerConnectionStatsReady(StatsSnapshot stats) {}
+
+        @Override
+        public void onPeerConnectionError(String description) {
+            error = description;
+        }
+
+        SessionDescription awaitDescription(SessionDescription.Type type)
+                throws InterruptedException {
+            SessionDescription sdp = descriptions.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            assertNotNull("No " + type, sdp);
+            assertEquals(type, sdp.type);
+            return sdp;
+        }
+
+        void assertNoDescription() throws InterruptedException {
+            assertNull(descriptions.poll(QUIET_MS, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private final List<PeerConnectionClient> clients = new ArrayList<>();
+    private final List<RecordingEvents> clientEvents = new ArrayList<>();
+    private EglBase eglBase;
+
+    @Before
+    public void setUp() {
+        eglBase = EglBase.create();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        for (int i = 0; i < clients.size(); i++) {
+            clients.get(i).close();
+            assertTrue(clientEvents.get(i).closed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertNull(clientEvents.get(i).error, clientEvents.get(i).error);
+        }
+        eglBase.release();
+    }
+
+    // Creates a client with an audio-only default peer; |events| gets the default peer's events.
+    private PeerConnectionClient createClient(RecordingEvents events, boolean initiator) {
+        Context context = InstrumentationRegistry.getTargetContext();
+        PeerConnectionClient.PeerConnectionParameters parameters =
+                new PeerConnectionClient.PeerConnectionParameters(false /* videoCallEnabled */,
+                        true /* loopback */, false /* tracing */, 0, 0, 0, 0, "VP8",
+                        false /* videoCodecHwAcceleration */, false /* videoFlexfecEnabled */,
+                        0, "OPUS", false /* noAudioProcessing */, false /* aecDump */,
+                        false /* saveInputAudioToFile */, false /* useOpenSLES */,
+                        false /* disableBuiltInAEC */, false /* disableBuiltInAGC */,
+                        false /* disableBuiltInNS */, false /* disableWebRtcAGCAndHPF */,
+                        false /* enableRtcEventLog */, null /* dataChannelParameters */);
+        PeerConnectionClient client =
+                new PeerConnectionClient(context, eglBase, parameters, events);
+        PeerConnectionFactory.Options options = new PeerConnectionFactory.Options();
+        options.networkIgnoreMask = 0;
+        client.createPeerConnectionFactory(options);
+        client.createPeerConnection(null /* localRender */, NO_SINKS, null /* videoCapturer */,
+                new AppRTCClient.SignalingParameters(NO_ICE_SERVERS, initiator, "client", "",
+                        "", null, null));
+        clients.add(client);
+        clientEvents.add(events);
+        return client;
+    }
+
+    @Test
+    public void addPeer_negotiatesThroughItsOwnEvents() throws InterruptedException {
+        RecordingEvents hostEvents = new RecordingEvents();
+        PeerConnectionClient host = createClient(hostEvents, true);
+        RecordingEvents remoteEvents = new RecordingEvents();
+        PeerConnectionClient remote = createClient(remoteEvents, false);
+
+        RecordingEvents guestEvents = new RecordingEvents();
+        host.addPeer(GUEST_ID, NO_SINKS, NO_ICE_SERVERS, guestEvents);
+        host.createOffer(GUEST_ID);
+        SessionDescription offer = guestEvents.awaitDescription(SessionDescription.Type.OFFER);
+
+        remote.setRemoteDescription(offer);
+        remote.createAnswer();
+        SessionDescription answer = remoteEvents.awaitDescription(SessionDescription.Type.ANSWER);
+        host.setRemoteDescription(GUEST_ID, answer);
+
+        // Only the added peer negotiated, so only its events gather candidates.
+        assertNotNull(guestEvents.candidates.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        hostEvents.assertNoDescription();
+        assertTrue(hostEvents.candidates.isEmpty());
+        assertNull(guestEvents.error, guestEvents.error);
+    }
+
+    @Test
+    public void removePeer_closesOnlyThatPeer() throws InterruptedException {
+        RecordingEvents hostEvents = new RecordingEvents();
+        PeerConnectionClient host = createClient(hostEvents, true);
+        RecordingEvents guestEvents = new RecordingEvents();
+        host.addPeer(GUEST_ID, NO_SINKS, NO_ICE_SERVERS, guestEvents);
+
+        host.removePeer(GUEST_ID);
+        host.createOffer(GUEST_ID);
+        guestEvents.assertNoDescription();
+
+        // The default peer and the shared sources keep working.
+        host.createOffer();
+        hostEvents.awaitDescription(SessionDescription.Type.OFFER);
+
+        // The id can be used again.
+        RecordingEvents newGuestEvents = new RecordingEvents();
+        host.addPeer(GUEST_ID, NO_SINKS, NO_ICE_SERVERS, newGuestEvents);
+        host.createOffer(GUEST_ID);
+        newGuestEvents.awaitDescription(SessionDescription.Type.OFFER);
+        assertTrue(guestEvents.descriptions.isEmpty());
+    }
+
+    @Test
+    public void addPeer_keepsTheExistingPeerOfAnId() throws InterruptedException {
+        RecordingEvents hostEvents = new RecordingEvents();
+        PeerConnectionClient host = createClient(hostEvents, true);
+        RecordingEvents firstEvents = new RecordingEvents();
+        RecordingEvents secondEvents = new RecordingEvents();
+        host.addPeer(GUEST_ID, NO_SINKS, NO_ICE_SERVERS, firstEvents);
+        host.addPeer(GUEST_ID, NO_SINKS, NO_ICE_SERVERS, secondEvents);
+
+        host.createOffer(GUEST_ID);
+        firstEvents.awaitDescription(SessionDescription.Type.OFFER);
+        secondEvents.assertNoDescription();
+    }
+}
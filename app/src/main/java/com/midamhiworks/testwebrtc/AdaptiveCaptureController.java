@@ -0,0 +1,257 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import androidx.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.webrtc.CameraEnumerationAndroid.CaptureFormat;
+
+/**
+ * Picks the capture format from the send bandwidth the encoder gets and the CPU load.
+ *
+ * <p>The formats of {@link #FORMATS} form a ladder, from the start format of the call down to the
+ * smallest format at a reduced frame rate. Each stats interval the encoder budget, the target
+ * bitrate of the encoder capped by the bandwidth estimate, is compared with the bitrate each rung
+ * needs. The controller steps down after the budget stayed below the current rung for
+ * {@link #DOWNGRADE_SAMPLES} intervals, and steps up only after the budget covered the next rung
+ * with a margin for {@link #UPGRADE_SAMPLES} intervals, the format was held for a while and the
+ * CPU has room for more pixels.
+ *
+ * <p>Sustained CPU overuse, reported by {@link CpuOveruseDetector}, steps one rung down and caps
+ * the ladder there; each underuse event lifts the cap by one rung and steps back up if the
+ * bandwidth allows it.
+ *
+ * <p>A frame rate cap, e.g. from {@link PowerPolicy} on a low battery, lowers the frame rate of
+ * every rung without changing the ladder.
+ *
+ * <p>Every change comes with a maximum video bitrate just above what the next rung needs, so the
+ * encoder does not waste bandwidth the current format cannot use but can still probe for an
+ * upgrade. Stats and CPU events may arrive on different threads.
+ *
+ * 인코더가 받는 송신 대역폭과 CPU 부하를 기준으로 캡처 형식을 선택합니다. 대역폭이 현재 단계보다 낮으면
+ * 빠르게 내리고, 여유가 충분히 오래 유지되고 CPU 여유가 있을 때만 올립니다.
+ */
+public class AdaptiveCaptureController {
+  // Capture formats shared with the manual capture quality slider, largest first.
+  // 수동 캡처 품질 슬라이더와 공유하는 캡처 형식으로, 큰 형식부터 나열됩니다.
+  static final List<CaptureFormat> FORMATS =
+      Arrays.asList(new CaptureFormat(1280, 720, 0, 30000), new CaptureFormat(960, 540, 0, 30000),
+          new CaptureFormat(640, 480, 0, 30000), new CaptureFormat(480, 360, 0, 30000),
+          new CaptureFormat(320, 240, 0, 30000), new CaptureFormat(256, 144, 0, 30000));
+  private static final int DEFAULT_FRAMERATE = 30;
+  // Frame rate of the last rung, below which video is no longer fluent.
+  private static final int MIN_FRAMERATE = 15;
+  // Bits the encoder needs per pixel for an acceptable picture.
+  private static final double BITS_PER_PIXEL = 0.08;
+  // An upgrade needs this much more budget than the next rung.
+  private static final double UPGRADE_MARGIN = 1.3;
+  // The maximum bitrate leaves this headroom above the budget needed for an upgrade.
+  private static final double MAX_BITRATE_HEADROOM = 1.2;
+  static final int DOWNGRADE_SAMPLES = 2;
+  static final int UPGRADE_SAMPLES = 5;
+  // Minimum time between a change and the next upgrade.
+  static final long MIN_HOLD_MS = 10000;
+  // No upgrades while the CPU usage is above this.
+  static final int CPU_UPGRADE_LIMIT_PERCENT = 70;
+
+  /** A capture format and the maximum video bitrate that go with it. */
+  public static class Decision {
+    public final int width;
+    public final int height;
+    public final int framerate;
+    // Null means no limit.
+    @Nullable public final Integer maxBitrateKbps;
+
+    Decision(int width, int height, int framerate, @Nullable Integer maxBitrateKbps) {
+      this.width = width;
+      this.height = height;
+      this.framerate = framerate;
+      this.maxBitrateKbps = maxBitrateKbps;
+    }
+
+    @Override
+    public String toString() {
+      return width + "x" + height + "@" + framerate + ", max " + maxBitrateKbps + " kbps";
+    }
+  }
+
+  private static class Rung {
+    final int width;
+    final int height;
+    final int framerate;
+    final int requiredKbps;
+
+    Rung(int width, int height, int framerate) {
+      this.width = width;
+      this.height = height;
+      this.framerate = framerate;
+      this.requiredKbps = (int) (width * height * framerate * BITS_PER_PIXEL / 1000);
+    }
+  }
+
+  private final List<Rung> rungs = new ArrayList<>();
+  private final int userMaxBitrateKbps;
+  private int current;
+  // Highest rung the CPU allows; 0 unless the CPU was overused.
+  private int cpuLimitedRung;
+  // Frame rate cap of the power policy; 0 if none.
+  private int framerateCap;
+  private int lastBudgetKbps;
+  private int downgradeSamples;
+  private int upgradeSamples;
+  private long lastChangeMs;
+
+  /**
+   * Starts at the largest format not above |maxWidth| x |maxHeight| @ |maxFramerate|; 0 selects
+   * the default HD format and 30 fps. |userMaxBitrateKbps| caps every maximum bitrate, 0 if none.
+   */
+  public AdaptiveCaptureController(
+      int maxWidth, int maxHeight, int maxFramerate, int userMaxBitrateKbps, long nowMs) {
+    final CaptureFormat largest = FORMATS.get(0);
+    final long maxPixels = (maxWidth == 0 || maxHeight == 0)
+        ? largest.width * largest.height
+        : (long) maxWidth * maxHeight;
+    final int framerate = maxFramerate == 0 ? DEFAULT_FRAMERATE : maxFramerate;
+    for (CaptureFormat format : FORMATS) {
+      if ((long) format.width * format.height <= maxPixels) {
+        rungs.add(new Rung(format.width, format.height, framerate));
+      }
+    }
+    final CaptureFormat smallest = FORMATS.get(FORMATS.size() - 1);
+    if (rungs.isEmpty()) {
+      rungs.add(new Rung(smallest.width, smallest.height, framerate));
+    }
+    if (framerate > MIN_FRAMERATE) {
+      rungs.add(new Rung(smallest.width, smallest.height, MIN_FRAMERATE));
+    }
+    this.userMaxBitrateKbps = userMaxBitrateKbps;
+    this.lastChangeMs = nowMs;
+  }
+
+  /**
+   * Feeds the stats of one interval and the CPU usage in percent. Returns the new format and
+   * maximum bitrate if they should change, null otherwise.
+   */
+  public synchronized @Nullable Decision onStats(
+      StatsSnapshot stats, int cpuPercent, long nowMs) {
+    final int budgetKbps = getBudgetKbps(stats);
+    if (budgetKbps <= 0) {
+      return null;
+    }
+    lastBudgetKbps = budgetKbps;
+    if (budgetKbps < rungs.get(current).requiredKbps && current < rungs.size() - 1) {
+      upgradeSamples = 0;
+      if (++downgradeSamples >= DOWNGRADE_SAMPLES) {
+        // Go straight to the rung the budget fits, not one step at a time.
+        // 한 단계씩이 아니라 예산에 맞는 단계로 바로 내려갑니다.
+        int target = current + 1;
+        while (target < rungs.size() - 1 && budgetKbps < rungs.get(target).requiredKbps) {
+          target++;
+        }
+        return change(target, nowMs);
+      }
+      return null;
+    }
+    downgradeSamples = 0;
+    if (current > cpuLimitedRung && canUpgrade(budgetKbps)
+        && cpuPercent <= CPU_UPGRADE_LIMIT_PERCENT) {
+      if (++upgradeSamples >= UPGRADE_SAMPLES && nowMs - lastChangeMs >= MIN_HOLD_MS) {
+        return change(current - 1, nowMs);
+      }
+    } else {
+      upgradeSamples = 0;
+    }
+    return null;
+  }
+
+  /** Steps one rung down and keeps the format there until the CPU is underused. */
+  public synchronized @Nullable Decision onCpuOveruse(long nowMs) {
+    if (current >= rungs.size() - 1) {
+      return null;
+    }
+    cpuLimitedRung = current + 1;
+    return change(cpuLimitedRung, nowMs);
+  }
+
+  /** Allows one rung more and steps up to it if the bandwidth covers it. */
+  public synchronized @Nullable Decision onCpuUnderuse(long nowMs) {
+    if (cpuLimitedRung == 0) {
+      return null;
+    }
+    cpuLimitedRung--;
+    if (current > cpuLimitedRung && canUpgrade(lastBudgetKbps)) {
+      return change(current - 1, nowMs);
+    }
+    return null;
+  }
+
+  /**
+   * Caps the frame rate of every rung at |framerate|, 0 for no cap. Returns the new format if
+   * the frame rate of the current one changes, null otherwise.
+   */
+  public synchronized @Nullable Decision setFramerateCap(int framerate) {
+    final int oldFramerate = getFramerate(rungs.get(current));
+    framerateCap = framerate;
+    if (getFramerate(rungs.get(current)) == oldFramerate) {
+      return null;
+    }
+    return createDecision();
+  }
+
+  /** Returns the current format and maximum bitrate. */
+  public synchronized Decision getCurrent() {
+    return createDecision();
+  }
+
+  private boolean canUpgrade(int budgetKbps) {
+    return current > 0 && budgetKbps >= rungs.get(current - 1).requiredKbps * UPGRADE_MARGIN;
+  }
+
+  // The encoder can spend its target bitrate, but never more than the estimated bandwidth.
+  private static int getBudgetKbps(StatsSnapshot stats) {
+    final int targetKbps = stats.videoOutbound.targetBitrateKbps;
+    final int estimateKbps =
+        stats.candidatePair.present ? stats.candidatePair.availableOutgoingBitrateKbps : 0;
+    if (targetKbps > 0 && estimateKbps > 0) {
+      return Math.min(targetKbps, estimateKbps);
+    }
+    return Math.max(targetKbps, estimateKbps);
+  }
+
+  private Decision change(int rung, long nowMs) {
+    current = rung;
+    downgradeSamples = 0;
+    upgradeSamples = 0;
+    lastChangeMs = nowMs;
+    return createDecision();
+  }
+
+  private Decision createDecision() {
+    final Rung rung = rungs.get(current);
+    Integer maxBitrateKbps = null;
+    if (current > 0) {
+      maxBitrateKbps = (int) (rungs.get(current - 1).requiredKbps * UPGRADE_MARGIN
+          * MAX_BITRATE_HEADROOM);
+    }
+    if (userMaxBitrateKbps > 0) {
+      maxBitrateKbps = maxBitrateKbps == null
+          ? userMaxBitrateKbps
+          : Math.min(maxBitrateKbps, userMaxBitrateKbps);
+    }
+    return new Decision(rung.width, rung.height, getFramerate(rung), maxBitrateKbps);
+  }
+
+  private int getFramerate(Rung rung) {
+    return framerateCap > 0 ? Math.min(rung.framerate, framerateCap) : rung.framerate;
+  }
+}
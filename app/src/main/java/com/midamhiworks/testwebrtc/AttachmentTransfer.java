@@ -0,0 +1,238 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import org.webrtc.DataChannel;
+
+/**
+ * Sends files to a peer and stores the files it sends, over the bulk data channel of
+ * {@link PeerConnectionClient}.
+ *
+ * <p>Runs a {@link BulkTransferSender} and a {@link BulkTransferReceiver} on the binary messages of
+ * one peer. The scheduler of the client pauses the transfers while the other channels have a
+ * backlog. Received files are written to a directory as they arrive; the oldest are deleted
+ * before a new one starts, so that the directory keeps at most {@link #MAX_KEPT_FILES} files and
+ * {@link #MAX_KEPT_BYTES} bytes. Reading, sending, writing and the handling of received messages
+ * all run on one thread of their own, so that neither the signaling thread nor the UI waits for
+ * the disk; being serial, it is also the executor the sender needs.
+ *
+ * PeerConnectionClient 의 데이터 채널로 피어에게 파일을 보내고 피어가 보낸 파일을 저장합니다. 새 파일을
+ * 받기 전에 오래된 파일을 지워 디렉터리의 파일 수와 크기를 제한합니다. 읽기, 전송, 쓰기와 수신 메시지
+ * 처리는 모두 별도 스레드 하나에서 실행되어 시그널링 스레드나 UI 가 디스크를 기다리지 않습니다.
+ */
+class AttachmentTransfer implements PeerConnectionClient.DataChannelListener {
+  private static final String TAG = "AttachmentTransfer";
+  static final String DIRECTORY_NAME = "attachments";
+  static final int MAX_KEPT_FILES = 10;
+  static final long MAX_KEPT_BYTES = 64 * 1024 * 1024;
+
+  private final PeerConnectionClient client;
+  private final String peerId;
+  private final File directory;
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+  private final BulkTransfer.Channel channel = new BulkTransfer.Channel() {
+    @Override
+    public boolean send(ByteBuffer data) {
+      return client.sendData(peerId, DataChannelKind.BULK, data, true);
+    }
+
+    @Override
+    public long getBufferedAmount() {
+      return client.getDataChannelBufferedAmount(peerId, DataChannelKind.BULK);
+    }
+  };
+  private final BulkTransferSender sender;
+  private final BulkTransferReceiver receiver;
+  // Files being received by transfer id; only used on the executor.
+  private final Map<Integer, RandomAccessFile> files = new HashMap<>();
+
+  AttachmentTransfer(PeerConnectionClient client, String peerId, File directory) {
+    this.client = client;
+    this.peerId = peerId;
+    this.directory = directory;
+    this.sender = new BulkTransferSender(channel, executor, new BulkTransferSender.Listener() {
+      @Override
+      public void onProgress(int id, long acknowledged, long total, long bytesPerSecond) {
+        Log.d(TAG, "Sent " + acknowledged + "/" + total + " bytes of #" + id + " at "
+            + bytesPerSecond / 1024 + " KB/s");
+      }
+
+      @Override
+      public void onComplete(int id, long totalBytes) {
+        Log.i(TAG, "Sent #" + id + ", " + totalBytes + " bytes");
+      }
+
+      @Override
+      public void onError(int id, String description) {
+        Log.e(TAG, "Sending #" + id + " failed: " + description);
+      }
+    });
+    this.receiver = new BulkTransferReceiver(channel, new BulkTransferReceiver.Sink() {
+      @Override
+      public void onStart(int id, long size) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+          throw new IOException("Cannot create " + directory);
+        }
+        trimDirectory(directory, MAX_KEPT_FILES - 1, MAX_KEPT_BYTES - size);
+        final File file =
+            new File(directory, "attachment_" + System.currentTimeMillis() + "_" + id);
+        Log.d(TAG, "Receiving #" + id + ", " + size + " bytes, into " + file);
+        closeFile(id);
+        files.put(id, new RandomAccessFile(file, "rw"));
+      }
+
+      @Override
+      public void write(int id, long offset, ByteBuffer data) throws IOException {
+        final RandomAccessFile file = files.get(id);
+        if (file == null) {
+          throw new IOException("No file");
+        }
+        while (data.hasRemaining()) {
+          offset += file.getChannel().write(data, offset);
+        }
+      }
+
+      @Override
+      public void onComplete(int id, long size) {
+        closeFile(id);
+        Log.i(TAG, "Received #" + id + ", " + size + " bytes");
+      }
+
+      @Override
+      public void onError(int id, String description) {
+        closeFile(id);
+        Log.e(TAG, "Receiving #" + id + " failed: " + description);
+      }
+    });
+  }
+
+  /** Opens |file| on the transfer thread and queues it for sending. */
+  void sendFile(File file) {
+    try {
+      executor.execute(() -> {
+        try {
+          final int id = sender.send(BulkTransferSender.fileSource(file));
+          Log.d(TAG, "Sending " + file + " as #" + id);
+        } catch (IOException e) {
+          Log.e(TAG, "Cannot send " + file, e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      Log.w(TAG, "Closed, not sending " + file);
+    }
+  }
+
+  /** Stops all transfers. Partly received files are kept. */
+  void close() {
+    sender.cancelAll();
+    executor.execute(() -> {
+      for (RandomAccessFile file : files.values()) {
+        closeQuietly(file);
+      }
+      files.clear();
+    });
+    executor.shutdown();
+  }
+
+  @Override
+  public void onDataChannelMessage(String peerId, DataChannelKind kind,
+      ByteBufferPool.PooledBuffer message, boolean binary) {
+    if (!binary || kind != DataChannelKind.BULK || !this.peerId.equals(peerId)) {
+      message.release();
+      return;
+    }
+    try {
+      executor.execute(() -> {
+        try {
+          final ByteBuffer data = message.getData();
+          if (!receiver.onMessage(data) && !sender.onMessage(data)) {
+            Log.d(TAG, "Ignored binary message of " + data.remaining() + " bytes");
+          }
+        } finally {
+          message.release();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // Closed.
+      message.release();
+    }
+  }
+
+  @Override
+  public void onDataChannelStateChange(
+      String peerId, DataChannelKind kind, DataChannel.State state) {
+    if (kind != DataChannelKind.BULK || !this.peerId.equals(peerId)) {
+      return;
+    }
+    if (state == DataChannel.State.OPEN) {
+      sender.onChannelOpen();
+    } else {
+      sender.onChannelClosed();
+    }
+  }
+
+  @Override
+  public void onDataChannelBufferedAmountChange(
+      String peerId, DataChannelKind kind, long bufferedAmount) {
+    if (kind == DataChannelKind.BULK && this.peerId.equals(peerId)) {
+      sender.onBufferedAmountChange(bufferedAmount);
+    }
+  }
+
+  /**
+   * Deletes the oldest files in |directory| until at most |maxFiles| files of at most |maxBytes|
+   * bytes in total are left.
+   */
+  static void trimDirectory(File directory, int maxFiles, long maxBytes) {
+    final File[] existing = directory.listFiles();
+    if (existing == null) {
+      return;
+    }
+    // Newest first.
+    Arrays.sort(existing, (a, b) -> Long.compare(b.lastModified(), a.lastModified()));
+    int keptFiles = 0;
+    long keptBytes = 0;
+    for (File file : existing) {
+      if (keptFiles < maxFiles && keptBytes + file.length() <= maxBytes) {
+        keptFiles++;
+        keptBytes += file.length();
+      } else if (!file.delete()) {
+        Log.w(TAG, "Failed to delete " + file);
+      }
+    }
+  }
+
+  private void closeFile(int id) {
+    final RandomAccessFile file = files.remove(id);
+    if (file != null) {
+      closeQuietly(file);
+    }
+  }
+
+  private static void closeQuietly(RandomAccessFile file) {
+    try {
+      file.close();
+    } catch (IOException e) {
+      Log.e(TAG, "Failed to close a received file", e);
+    }
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The wire format of bulk transfers, shared by {@link BulkTransferSender} and
+ * {@link BulkTransferReceiver}.
+ *
+ * <p>Every message is binary and starts with a fixed header: {@link #MAGIC}, the message type,
+ * the transfer id and a 64-bit value, all big-endian. START announces a transfer and carries its
+ * size, CHUNK carries the data at the offset in the value, and ACK, sent back by the receiver,
+ * carries how many bytes from the start it wrote. Messages without the magic byte belong to
+ * someone else on the same channel.
+ *
+ * 대량 전송의 메시지 형식으로, BulkTransferSender 와 BulkTransferReceiver 가 공유합니다. 모든
+ * 메시지는 매직 바이트, 메시지 유형, 전송 id, 64비트 값으로 된 헤더로 시작합니다.
+ */
+public final class BulkTransfer {
+  static final byte MAGIC = (byte) 0xB7;
+  static final byte TYPE_START = 1;
+  static final byte TYPE_CHUNK = 2;
+  static final byte TYPE_ACK = 3;
+  static final int HEADER_SIZE = 14;
+
+  /** The data channel a transfer runs on. */
+  public interface Channel {
+    /** Sends the remaining bytes of |data| as a binary message. Returns false on failure. */
+    boolean send(ByteBuffer data);
+
+    /** Returns the bytes queued in the channel that were not sent yet. */
+    long getBufferedAmount();
+  }
+
+  private BulkTransfer() {}
+
+  /** Returns the type of |message| if it is a bulk transfer message, 0 otherwise. */
+  static byte getType(ByteBuffer message) {
+    final int start = message.position();
+    if (message.remaining() < HEADER_SIZE || message.get(start) != MAGIC) {
+      return 0;
+    }
+    return message.get(start + 1);
+  }
+
+  static int getId(ByteBuffer message) {
+    return message.getInt(message.position() + 2);
+  }
+
+  static long getValue(ByteBuffer message) {
+    return message.getLong(message.position() + 6);
+  }
+
+  /** Writes a header at the start of |buffer| and leaves the position after it. */
+  static void putHeader(ByteBuffer buffer, byte type, int id, long value) {
+    buffer.clear();
+    buffer.put(MAGIC).put(type).putInt(id).putLong(value);
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Receives the transfers of a {@link BulkTransferSender} and writes them to a {@link Sink}.
+ *
+ * <p>Chunks are expected in order, as on a reliable ordered channel. A chunk the sink already has,
+ * e.g. one sent again after a reconnect, is skipped. The receiver acknowledges every
+ * {@link #ACK_INTERVAL_BYTES}, at the end of a transfer and whenever a transfer is announced again,
+ * which lets the sender resume from there. Messages arrive on the data channel observer thread.
+ *
+ * BulkTransferSender 의 전송을 받아 Sink 에 기록합니다. 이미 받은 청크는 건너뛰고, 일정 바이트마다,
+ * 전송이 끝날 때, 그리고 전송이 다시 알려질 때 확인 응답을 보내 송신자가 그 지점부터 재개하게 합니다.
+ */
+public class BulkTransferReceiver {
+  public static final int ACK_INTERVAL_BYTES = 256 * 1024;
+
+  /** Stores the data of the transfers. */
+  public interface Sink {
+    void onStart(int id, long size) throws IOException;
+
+    /** Writes the remaining bytes of |data|, which are valid during the call only, at |offset|. */
+    void write(int id, long offset, ByteBuffer data) throws IOException;
+
+    void onComplete(int id, long size);
+
+    void onError(int id, String description);
+  }
+
+  private static class Transfer {
+    final long size;
+    long received;
+    long acknowledged;
+    boolean failed;
+
+    Transfer(long size) {
+      this.size = size;
+    }
+  }
+
+  private final BulkTransfer.Channel channel;
+  private final Sink sink;
+  private final Map<Integer, Transfer> transfers = new HashMap<>();
+  private final ByteBuffer ack = ByteBuffer.allocate(BulkTransfer.HEADER_SIZE);
+
+  public BulkTransferReceiver(BulkTransfer.Channel channel, Sink sink) {
+    this.channel = channel;
+    this.sink = sink;
+  }
+
+  /** Handles a START or CHUNK of the sender. Returns false if |message| is not one. */
+  public synchronized boolean onMessage(ByteBuffer message) {
+    final byte type = BulkTransfer.getType(message);
+    if (type == BulkTransfer.TYPE_START) {
+      onStart(BulkTransfer.getId(message), BulkTransfer.getValue(message));
+      return true;
+    }
+    if (type == BulkTransfer.TYPE_CHUNK) {
+      onChunk(BulkTransfer.getId(message), BulkTransfer.getValue(message), message);
+      return true;
+    }
+    return false;
+  }
+
+  private void onStart(int id, long size) {
+    Transfer transfer = transfers.get(id);
+    if (transfer == null || transfer.size != size) {
+      transfer = new Transfer(size);
+      transfers.put(id, transfer);
+      try {
+        sink.onStart(id, size);
+      } catch (IOException e) {
+        fail(id, transfer, "Start failed: " + e.getMessage());
+        return;
+      }
+      if (size == 0) {
+        sink.onComplete(id, 0);
+      }
+    }
+    // Tells a resuming sender where to continue.
+    sendAck(id, transfer);
+  }
+
+  private void onChunk(int id, long offset, ByteBuffer message) {
+    final Transfer transfer = transfers.get(id);
+    if (transfer == null || transfer.failed) {
+      return;
+    }
+    final int payloadStart = message.position() + BulkTransfer.HEADER_SIZE;
+    final long end = offset + message.limit() - payloadStart;
+    if (offset > transfer.received || end > transfer.size) {
+      // A gap or more than announced; let the sender know what is there.
+      sendAck(id, transfer);
+      return;
+    }
+    if (end <= transfer.received) {
+      return;
+    }
+    final int position = message.position();
+    message.position(payloadStart + (int) (transfer.received - offset));
+    try {
+      sink.write(id, transfer.received, message);
+    } catch (IOException e) {
+      fail(id, transfer, "Write failed: " + e.getMessage());
+      return;
+    } finally {
+      message.position(position);
+    }
+    transfer.received = end;
+    if (transfer.received == transfer.size) {
+      sendAck(id, transfer);
+      sink.onComplete(id, transfer.size);
+    } else if (transfer.received - transfer.acknowledged >= ACK_INTERVAL_BYTES) {
+      sendAck(id, transfer);
+    }
+  }
+
+  private void sendAck(int id, Transfer transfer) {
+    BulkTransfer.putHeader(ack, BulkTransfer.TYPE_ACK, id, transfer.received);
+    ack.flip();
+    if (channel.send(ack)) {
+      transfer.acknowledged = transfer.received;
+    }
+  }
+
+  private void fail(int id, Transfer transfer, String description) {
+    transfer.failed = true;
+    sink.onError(id, description);
+  }
+}
@@ -0,0 +1,335 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * Sends files and other sources over a data channel in chunks, paced by the buffered amount.
+ *
+ * <p>Chunks are sent while the buffered amount of the channel is below the high watermark; then
+ * sending pauses until {@link #onBufferedAmountChange} reports that it drained to the low
+ * watermark. The SCTP buffer therefore never holds much more than the high watermark, and audio
+ * and video are not stalled behind megabytes of data. Transfers run one after the other.
+ *
+ * <p>The receiver acknowledges what it wrote. When the channel opens again after a reconnect, the
+ * current transfer restarts from the last acknowledged byte; the receiver skips what it already
+ * has. Reading and sending run on |executor|, everything else may be called on any thread.
+ *
+ * <p>|executor| must be serial, i.e. run its tasks one at a time like a single thread executor.
+ * A new run of the pump may be scheduled while one is still running, and both would share one
+ * chunk buffer on a pool.
+ *
+ * 파일 등의 소스를 청크로 나누어 데이터 채널의 버퍼량에 맞춰 전송합니다. 버퍼량이 상한에 도달하면
+ * 전송을 멈추고 하한까지 줄면 다시 보내므로 SCTP 버퍼가 미디어를 막지 않습니다. 재연결되면 마지막으로
+ * 확인된 바이트부터 다시 보냅니다. 실행기는 작업을 하나씩 실행해야 합니다.
+ */
+public class BulkTransferSender {
+  // Messages up to 16 KB are delivered by every browser.
+  public static final int DEFAULT_CHUNK_SIZE = 16 * 1024;
+  public static final long DEFAULT_HIGH_WATERMARK = 1024 * 1024;
+  public static final long DEFAULT_LOW_WATERMARK = 256 * 1024;
+
+  /** The data of a transfer, read at any offset so that it can be resumed. */
+  public interface Source extends Closeable {
+    long size();
+
+    /** Reads up to the remaining bytes of |destination| at |offset|; returns how many. */
+    int read(long offset, ByteBuffer destination) throws IOException;
+  }
+
+  /** Receives the events of the transfers, on the executor or the thread of the ACK. */
+  public interface Listener {
+    void onProgress(int id, long acknowledgedBytes, long totalBytes, long bytesPerSecond);
+
+    void onComplete(int id, long totalBytes);
+
+    void onError(int id, String description);
+  }
+
+  private static class Transfer {
+    final int id;
+    final Source source;
+    final long size;
+    long startMs = -1;
+    boolean startSent;
+    long sendOffset;
+    long acknowledged;
+
+    Transfer(int id, Source source) {
+      this.id = id;
+      this.source = source;
+      this.size = source.size();
+    }
+  }
+
+  private final BulkTransfer.Channel channel;
+  private final Executor executor;
+  private final Listener listener;
+  private final long highWatermark;
+  private final long lowWatermark;
+  // Header and payload of the chunk being sent; only used by the pump.
+  private final ByteBuffer chunk;
+  private final Runnable pumpRunnable = this::pump;
+  private final ArrayDeque<Transfer> queue = new ArrayDeque<>();
+  private Transfer current;
+  private int nextId = 1;
+  private boolean open;
+  private boolean pumpScheduled;
+  // Changed whenever the send offset is moved by someone other than the pump.
+  private int generation;
+
+  public BulkTransferSender(BulkTransfer.Channel channel, Executor executor, Listener listener) {
+    this(channel, executor, listener, DEFAULT_CHUNK_SIZE, DEFAULT_HIGH_WATERMARK,
+        DEFAULT_LOW_WATERMARK);
+  }
+
+  public BulkTransferSender(BulkTransfer.Channel channel, Executor executor, Listener listener,
+      int chunkSize, long highWatermark, long lowWatermark) {
+    if (lowWatermark > highWatermark) {
+      throw new IllegalArgumentException(
+          "Low watermark " + lowWatermark + " above high watermark " + highWatermark);
+    }
+    this.channel = channel;
+    this.executor = executor;
+    this.listener = listener;
+    this.highWatermark = highWatermark;
+    this.lowWatermark = lowWatermark;
+    this.chunk = ByteBuffer.allocate(BulkTransfer.HEADER_SIZE + chunkSize);
+  }
+
+  /** Returns a source that reads |file|. */
+  public static Source fileSource(File file) throws IOException {
+    final FileInputStream stream = new FileInputStream(file);
+    final FileChannel fileChannel = stream.getChannel();
+    final long size = fileChannel.size();
+    return new Source() {
+      @Override
+      public long size() {
+        return size;
+      }
+
+      @Override
+      public int read(long offset, ByteBuffer destination) throws IOException {
+        return fileChannel.read(destination, offset);
+      }
+
+      @Override
+      public void close() throws IOException {
+        stream.close();
+      }
+    };
+  }
+
+  /** Queues |source| and returns the id of its transfer. The sender closes it when done. */
+  public synchronized int send(Source source) {
+    final Transfer transfer = new Transfer(nextId++, source);
+    if (current == null) {
+      current = transfer;
+    } else {
+      queue.add(transfer);
+    }
+    schedulePump();
+    return transfer.id;
+  }
+
+  /** Starts or resumes sending once the channel is open, also after a reconnect. */
+  public synchronized void onChannelOpen() {
+    open = true;
+    if (current != null) {
+      // Whatever was in flight when the channel closed may be lost.
+      current.sendOffset = current.acknowledged;
+      current.startSent = false;
+      generation++;
+    }
+    schedulePump();
+  }
+
+  public synchronized void onChannelClosed() {
+    open = false;
+  }
+
+  /** Resumes sending once the buffered amount of the channel drained to the low watermark. */
+  public synchronized void onBufferedAmountChange(long bufferedAmount) {
+    if (bufferedAmount <= lowWatermark) {
+      schedulePump();
+    }
+  }
+
+  /** Handles an ACK of the receiver. Returns false if |message| is not one. */
+  public boolean onMessage(ByteBuffer message) {
+    if (BulkTransfer.getType(message) != BulkTransfer.TYPE_ACK) {
+      return false;
+    }
+    final int id = BulkTransfer.getId(message);
+    final long acknowledged = BulkTransfer.getValue(message);
+    final Transfer transfer;
+    final long bytesPerSecond;
+    synchronized (this) {
+      transfer = current;
+      // An ACK of an empty transfer acknowledges nothing new but still completes it.
+      if (transfer == null || transfer.id != id || acknowledged < transfer.acknowledged
+          || (acknowledged == transfer.acknowledged && acknowledged < transfer.size)
+          || acknowledged > transfer.size) {
+        return true;
+      }
+      transfer.acknowledged = acknowledged;
+      if (transfer.sendOffset < acknowledged) {
+        // The receiver had more than was sent in this connection.
+        transfer.sendOffset = acknowledged;
+        generation++;
+      }
+      final long elapsedMs = nowMs() - transfer.startMs;
+      bytesPerSecond = elapsedMs > 0 ? acknowledged * 1000 / elapsedMs : 0;
+      if (acknowledged == transfer.size) {
+        startNext();
+      }
+    }
+    listener.onProgress(id, acknowledged, transfer.size, bytesPerSecond);
+    if (acknowledged == transfer.size) {
+      closeQuietly(transfer.source);
+      listener.onComplete(id, transfer.size);
+    }
+    return true;
+  }
+
+  /** Stops all transfers and closes their sources. */
+  public void cancelAll() {
+    final ArrayDeque<Transfer> cancelled = new ArrayDeque<>();
+    synchronized (this) {
+      if (current != null) {
+        cancelled.add(current);
+        current = null;
+      }
+      cancelled.addAll(queue);
+      queue.clear();
+    }
+    for (Transfer transfer : cancelled) {
+      closeQuietly(transfer.source);
+    }
+  }
+
+  private void schedulePump() {
+    if (!pumpScheduled && open && current != null) {
+      pumpScheduled = true;
+      executor.execute(pumpRunnable);
+    }
+  }
+
+  private void pump() {
+    synchronized (this) {
+      pumpScheduled = false;
+    }
+    while (true) {
+      final Transfer transfer;
+      final long offset;
+      final int pumpGeneration;
+      final boolean sendStart;
+      synchronized (this) {
+        transfer = current;
+        if (!open || transfer == null) {
+          return;
+        }
+        sendStart = !transfer.startSent;
+        offset = transfer.sendOffset;
+        pumpGeneration = generation;
+        if (!sendStart && offset >= transfer.size) {
+          // Everything is sent; the final ACK completes the transfer.
+          return;
+        }
+        if (transfer.startMs < 0) {
+          transfer.startMs = nowMs();
+        }
+      }
+      if (channel.getBufferedAmount() >= highWatermark) {
+        // onBufferedAmountChange() schedules the next run.
+        return;
+      }
+      final int length;
+      if (sendStart) {
+        BulkTransfer.putHeader(chunk, BulkTransfer.TYPE_START, transfer.id, transfer.size);
+        length = 0;
+      } else {
+        BulkTransfer.putHeader(chunk, BulkTransfer.TYPE_CHUNK, transfer.id, offset);
+        chunk.limit((int) Math.min(chunk.capacity(), chunk.position() + transfer.size - offset));
+        try {
+          length = readFully(transfer.source, offset, chunk);
+        } catch (IOException e) {
+          fail(transfer, "Read failed: " + e.getMessage());
+          continue;
+        }
+      }
+      chunk.flip();
+      if (!channel.send(chunk)) {
+        // The channel closed or is full; onChannelOpen() or the buffer drain resume sending.
+        return;
+      }
+      synchronized (this) {
+        if (current != transfer || generation != pumpGeneration) {
+          continue;
+        }
+        if (sendStart) {
+          transfer.startSent = true;
+        } else {
+          transfer.sendOffset = offset + length;
+        }
+      }
+    }
+  }
+
+  private static int readFully(Source source, long offset, ByteBuffer destination)
+      throws IOException {
+    int total = 0;
+    while (destination.hasRemaining()) {
+      final int read = source.read(offset + total, destination);
+      if (read <= 0) {
+        throw new IOException("Source ended at " + (offset + total));
+      }
+      total += read;
+    }
+    return total;
+  }
+
+  private void fail(Transfer transfer, String description) {
+    synchronized (this) {
+      if (current != transfer) {
+        return;
+      }
+      startNext();
+    }
+    closeQuietly(transfer.source);
+    listener.onError(transfer.id, description);
+  }
+
+  private void startNext() {
+    current = queue.poll();
+    schedulePump();
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException e) {
+      // The transfer is over either way.
+    }
+  }
+
+  private static long nowMs() {
+    return System.nanoTime() / 1000000;
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A pool of byte buffers in power of two sizes that are handed out with an explicit release.
+ *
+ * <p>Each {@link PooledBuffer} keeps its backing buffer and a read-only view of it for its whole
+ * life, so a steady stream of messages neither allocates buffers nor views once the pool is
+ * warm. Sizes above {@link #MAX_POOLED_CAPACITY} are allocated for each use and dropped on
+ * release. A released buffer must not be used anymore. Thread safe.
+ *
+ * 2의 거듭제곱 크기의 바이트 버퍼를 명시적 해제 방식으로 빌려주는 풀입니다. 각 버퍼는 읽기 전용 뷰를
+ * 평생 유지하므로, 풀이 채워진 뒤에는 메시지마다 버퍼나 뷰를 할당하지 않습니다.
+ */
+public class ByteBufferPool {
+  public static final int MIN_CAPACITY = 1024;
+  // The largest message the data channel implementations of browsers send by default.
+  public static final int MAX_POOLED_CAPACITY = 256 * 1024;
+  public static final int DEFAULT_MAX_FREE_PER_SIZE = 8;
+
+  /** A buffer borrowed from the pool. Its data is read-only to the borrower. */
+  public static final class PooledBuffer {
+    private final ByteBufferPool pool;
+    private final ByteBuffer buffer;
+    private final ByteBuffer view;
+    // Index of the size class, -1 if the buffer is not pooled.
+    private final int sizeClass;
+    private boolean inUse;
+
+    private PooledBuffer(ByteBufferPool pool, int capacity, int sizeClass) {
+      this.pool = pool;
+      this.buffer = ByteBuffer.allocate(capacity);
+      this.view = buffer.asReadOnlyBuffer();
+      this.sizeClass = sizeClass;
+    }
+
+    /** Returns the read-only data, from position 0 up to the limit. Valid until release. */
+    public ByteBuffer getData() {
+      return view;
+    }
+
+    public int capacity() {
+      return buffer.capacity();
+    }
+
+    /** Returns the buffer to the pool. */
+    public void release() {
+      pool.release(this);
+    }
+  }
+
+  private final int maxFreePerSize;
+  private final List<ArrayDeque<PooledBuffer>> freeBuffers = new ArrayList<>();
+  private int allocationCount;
+
+  public ByteBufferPool() {
+    this(DEFAULT_MAX_FREE_PER_SIZE);
+  }
+
+  public ByteBufferPool(int maxFreePerSize) {
+    this.maxFreePerSize = maxFreePerSize;
+    for (int capacity = MIN_CAPACITY; capacity <= MAX_POOLED_CAPACITY; capacity *= 2) {
+      freeBuffers.add(new ArrayDeque<PooledBuffer>());
+    }
+  }
+
+  /** Borrows a buffer whose data holds the remaining bytes of |source|, which is not changed. */
+  public PooledBuffer copyOf(ByteBuffer source) {
+    final PooledBuffer pooled = acquire(source.remaining());
+    final int position = source.position();
+    pooled.buffer.clear();
+    pooled.buffer.put(source);
+    source.position(position);
+    pooled.view.clear();
+    pooled.view.limit(pooled.buffer.position());
+    return pooled;
+  }
+
+  /** Returns how many buffers were allocated so far, i.e. how often the pool had none to reuse. */
+  public synchronized int getAllocationCount() {
+    return allocationCount;
+  }
+
+  private synchronized PooledBuffer acquire(int size) {
+    final int sizeClass = getSizeClass(size);
+    PooledBuffer pooled = null;
+    if (sizeClass >= 0) {
+      pooled = freeBuffers.get(sizeClass).pollFirst();
+    }
+    if (pooled == null) {
+      allocationCount++;
+      pooled = new PooledBuffer(
+          this, sizeClass >= 0 ? MIN_CAPACITY << sizeClass : size, sizeClass);
+    }
+    pooled.inUse = true;
+    return pooled;
+  }
+
+  private synchronized void release(PooledBuffer pooled) {
+    if (!pooled.inUse) {
+      throw new IllegalStateException("Buffer released twice");
+    }
+    pooled.inUse = false;
+    if (pooled.sizeClass < 0) {
+      return;
+    }
+    final ArrayDeque<PooledBuffer> free = freeBuffers.get(pooled.sizeClass);
+    if (free.size() < maxFreePerSize) {
+      // Reused first while it is still in the caches.
+      free.addFirst(pooled);
+    }
+  }
+
+  // Returns the index of the smallest pooled size that fits |size|, -1 if it is too large.
+  private static int getSizeClass(int size) {
+    int sizeClass = 0;
+    for (int capacity = MIN_CAPACITY; capacity <= MAX_POOLED_CAPACITY; capacity *= 2) {
+      if (size <= capacity) {
+        return sizeClass;
+      }
+      sizeClass++;
+    }
+    return -1;
+  }
+}
@@ -23,6 +23,9 @@ import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.SystemClock;
+import android.system.Os;
+import android.system.OsConstants;
 import android.util.DisplayMetrics;
 import android.util.Log;
 import android.view.View;
@@ -33,11 +36,17 @@ import android.widget.Toast;
 
 import androidx.annotation.Nullable;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.RuntimeException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import com.midamhiworks.testwebrtc.AppRTCAudioManager.AudioDevice;
 import com.midamhiworks.testwebrtc.AppRTCAudioManager.AudioManagerEvents;
@@ -56,7 +65,6 @@ import org.webrtc.PeerConnectionFactory;
 import org.webrtc.RendererCommon.ScalingType;
 import org.webrtc.ScreenCapturerAndroid;
 import org.webrtc.SessionDescription;
-import org.webrtc.StatsReport;
 import org.webrtc.SurfaceViewRenderer;
 import org.webrtc.VideoCapturer;
 import org.webrtc.VideoFileRenderer;
@@ -122,7 +130,10 @@ public class CallActivity extends Activity implements AppRTCClient.SignalingEven
   public static final String EXTRA_PROTOCOL = "com.midamhiworks.testwebrtc.PROTOCOL";
   public static final String EXTRA_NEGOTIATED = "com.midamhiworks.testwebrtc.NEGOTIATED";
   public static final String EXTRA_ID = "com.midamhiworks.testwebrtc.ID";
+  public static final String EXTRA_LATENCY_PROBE_INTERVAL_MS = "com.midamhiworks.testwebrtc.LATENCY_PROBE_INTERVAL_MS";
   public static final String EXTRA_ENABLE_RTCEVENTLOG = "com.midamhiworks.testwebrtc.ENABLE_RTCEVENTLOG";
+  public static final String EXTRA_RECORD_STATS = "com.midamhiworks.testwebrtc.RECORD_STATS";
+  public static final String EXTRA_SEND_FILE = "com.midamhiworks.testwebrtc.SEND_FILE";
 
   private static final int CAPTURE_PERMISSION_REQUEST_CODE = 1;
 
@@ -134,9 +145,27 @@ public class CallActivity extends Activity implements AppRTCClient.SignalingEven
   // Peer connection statistics callback period in ms.
   // 피어 연결 통계 콜백 기간(ms)입니다.
   private static final int STAT_CALLBACK_PERIOD = 1000;
+  // Stats periods when the HUD is hidden and when the call runs in the background. The client
+  // still needs some stats there to track the bandwidth estimate.
+  // HUD 가 숨겨져 있을 때와 통화가 백그라운드에서 실행될 때의 통계 주기입니다.
+  private static final int STAT_FOREGROUND_PERIOD = 5000;
+  private static final int STAT_BACKGROUND_PERIOD = 30000;
+  private static final String STATS_CONSUMER_HUD = "hud";
+  private static final String STATS_CONSUMER_FOREGROUND = "foreground";
+  // Asks for a sample every STAT_CALLBACK_PERIOD while the stats of a call in the foreground are
+  // recorded.
+  // 포그라운드 통화의 통계를 기록하는 동안 STAT_CALLBACK_PERIOD 마다 샘플을 요청합니다.
+  private static final String STATS_CONSUMER_RECORDER = "recorder";
+  // Per-thread CPU usage is written to the log this often.
+  // 스레드별 CPU 사용량을 이 주기로 로그에 기록합니다.
+  private static final int THREAD_CPU_LOG_PERIOD_MS = 10000;
+  // Resource use of the process is sampled this often during a call.
+  // 통화 중 프로세스의 자원 사용량을 이 주기로 샘플링합니다.
+  private static final int RESOURCE_SAMPLE_PERIOD_MS = 1000;
 
   private static class ProxyVideoSink implements VideoSink {
     private VideoSink target;
+    @Nullable private CallSetupTimeline callSetupTimeline;
 
     @Override
     synchronized public void onFrame(VideoFrame frame) {
@@ -146,11 +175,20 @@ public class CallActivity extends Activity implements AppRTCClient.SignalingEven
       }
 
       target.onFrame(frame);
+      if (callSetupTimeline != null) {
+        callSetupTimeline.mark(CallSetupTimeline.Milestone.FIRST_REMOTE_FRAME);
+      }
     }
 
     synchronized public void setTarget(VideoSink target) {
       this.target = target;
     }
+
+    // Marks the first rendered frame on |callSetupTimeline|.
+    // 첫 번째로 렌더링된 프레임을 |callSetupTimeline|에 기록합니다.
+    synchronized public void setCallSetupTimeline(@Nullable CallSetupTimeline callSetupTimeline) {
+      this.callSetupTimeline = callSetupTimeline;
+    }
   }
 
   private final ProxyVideoSink remoteProxyRenderer = new ProxyVideoSink();
@@ -178,6 +216,51 @@ public class CallActivity extends Activity implements AppRTCClient.SignalingEven
   private boolean isError;
   private boolean callControlFragmentVisible = true;
   private long callStartedTimeMs;
+  // Milestones of this call's setup, added to the statistics of all calls on disconnect.
+  // 이 통화 설정의 단계별 시각으로, 연결 종료 시 전체 통화 통계에 추가됩니다.
+  private final CallSetupTimeline callSetupTimeline = new CallSetupTimeline();
+  private CallSetupStats callSetupStats;
+  // Reads and writes the call setup statistics off the UI thread. Shared by all calls, so that a
+  // call only reads the file once the previous one wrote it.
+  // UI 스레드 밖에서 통화 설정 통계를 읽고 씁니다. 모든 통화가 공유하므로 이전 통화가 파일을 쓴 뒤에
+  // 다음 통화가 읽습니다.
+  private static final ExecutorService callSetupStatsExecutor =
+      Executors.newSingleThreadExecutor();
+  // Stats time series of this call, written to a file on disconnect if |recordStats| is set.
+  // 이 통화의 통계 시계열로, |recordStats| 가 설정되면 연결 종료 시 파일로 기록됩니다.
+  private final StatsRecorder statsRecorder = new StatsRecorder();
+  private boolean recordStats;
+  // Adapts the camera format to the send bandwidth; used on the stats thread. Null for audio
+  // calls, screen capture and once the user picks a format with the capture quality slider.
+  // 카메라 형식을 송신 대역폭에 맞춥니다. 통계 스레드에서 사용됩니다.
+  @Nullable private volatile AdaptiveCaptureController captureController;
+  // Steps the capture format down and back up when the CPU load stays high or low.
+  // CPU 부하가 계속 높거나 낮으면 캡처 형식을 낮추고 다시 올립니다.
+  private final CpuOveruseDetector.Listener cpuOveruseListener =
+      new CpuOveruseDetector.Listener() {
+        @Override
+        public void onCpuOveruse(int loadPercent) {
+          final AdaptiveCaptureController controller = captureController;
+          if (controller != null) {
+            Log.w(TAG, "CPU overuse, load " + loadPercent + "%");
+            applyCaptureDecision(controller.onCpuOveruse(SystemClock.elapsedRealtime()));
+          }
+        }
+
+        @Override
+        public void onCpuUnderuse(int loadPercent) {
+          final AdaptiveCaptureController controller = captureController;
+          if (controller != null) {
+            applyCaptureDecision(controller.onCpuUnderuse(SystemClock.elapsedRealtime()));
+          }
+        }
+      };
+  // Fed with the CPU load on the resource sampler thread.
+  // 자원 샘플러 스레드에서 CPU 부하를 전달받습니다.
+  private final CpuOveruseDetector cpuOveruseDetector = new CpuOveruseDetector(cpuOveruseListener);
+  // The last CPU load in percent of all cores, for the stats callback.
+  // 통계 콜백을 위한 모든 코어 기준의 마지막 CPU 부하입니다.
+  private volatile int cpuLoadPercent;
   private boolean micEnabled = true;
   private boolean screencaptureEnabled;
   private static Intent mediaProjectionPermissionResultData;
@@ -191,6 +274,30 @@ public class CallActivity extends Activity implements AppRTCClient.SignalingEven
   private CallFragment callFragment;
   private HudFragment hudFragment;
   private CpuMonitor cpuMonitor;
+  // Caches the battery state and lowers the frame rate on a low battery or a hot device.
+  // 배터리 상태를 캐시하고 배터리가 부족하거나 기기가 뜨거우면 프레임 레이트를 낮춥니다.
+  @Nullable private PowerMonitor powerMonitor;
+  // Sends and receives files over the data channel, if it is enabled.
+  // 데이터 채널이 활성화된 경우 파일을 주고받습니다.
+  @Nullable private AttachmentTransfer attachmentTransfer;
+  // Measures the round trip time and the clock offset to the peer over the data channel.
+  // 데이터 채널로 피어까지의 왕복 시간과 시계 오프셋을 측정합니다.
+  @Nullable private DataChannelLatencyProbe latencyProbe;
+  // Attributes the CPU time of this process to its threads; sampled by |resourceSampler|.
+  // 이 프로세스의 CPU 시간을 스레드별로 나눕니다. |resourceSampler| 가 샘플링합니다.
+  private final ThreadCpuSampler threadCpuSampler = new ThreadCpuSampler(
+      android.os.Process.myPid(), (int) Os.sysconf(OsConstants._SC_CLK_TCK));
+  private long lastThreadCpuLogMs;
+  // Memory and GC use of this process during the call; sampled by |resourceSampler|.
+  // 통화 중 이 프로세스의 메모리 및 GC 사용량입니다. |resourceSampler| 가 샘플링합니다.
+  private final MemoryMonitor memoryMonitor = new MemoryMonitor(new DebugMemoryReader());
+  // Samples the resource use of the process on a thread of its own while the call is connected.
+  // Reading the PSS and the stat files of all threads takes tens of ms, which the signaling
+  // thread, where the stats are delivered, must not wait for; the stats callback only reads the
+  // cached values.
+  // 통화가 연결된 동안 별도 스레드에서 프로세스의 자원 사용량을 샘플링합니다. PSS 와 모든 스레드의 stat
+  // 파일을 읽는 데 수십 ms 가 걸리므로 통계가 전달되는 시그널링 스레드에서는 캐시된 값만 읽습니다.
+  @Nullable private ScheduledExecutorService resourceSampler;
 
   @Override
   // TODO(bugs.webrtc.org/8580): LayoutParams.FLAG_TURN_SCREEN_ON and LayoutParams.FLAG_SHOW_WHEN_LOCKED are deprecated.
@@ -230,7 +337,9 @@ public class CallActivity extends Activity implements AppRTCClient.SignalingEven
     remoteSinks.add(remoteProxyRenderer);
 
     final Intent intent = getIntent();
-    final EglBase eglBase = EglBase.create();
+    // The root EGL context is shared across calls and kept alive by the factory owner.
+    // 루트 EGL 컨텍스트는 통화 간에 공유되며 팩토리 소유자가 유지합니다.
+    final EglBase eglBase = PeerConnectionFactoryOwner.get(this).getRootEglBase();
 
     // Create video renderers.
     // 비디오 렌더러를 만듭니다.
@@ -332,6 +441,7 @@ public class CallActivity extends Activity implements AppRTCClient.SignalingEven
             intent.getBooleanExtra(EXTRA_DISABLE_WEBRTC_AGC_AND_HPF, false),
             intent.getBooleanExtra(EXTRA_ENABLE_RTCEVENTLOG, false), dataChannelParameters);
     commandLineRun = intent.getBooleanExtra(EXTRA_CMDLINE, false);
+    recordStats = intent.getBooleanExtra(EXTRA_RECORD_STATS, false);
     int runTimeMs = intent.getIntExtra(EXTRA_RUNTIME, 0);
 
     Log.d(TAG, "VIDEO_FILE: '" + intent.getStringExtra(EXTRA_VIDEO_FILE_AS_CAMERA) + "'");
@@ -339,7 +449,7 @@ public class CallActivity extends Activity implements AppRTCClient.SignalingEven
     // Create connection client. Use DirectRTCClient if room name is an IP otherwise use the standard WebSocketRTCClient.
     // 연결 클라이언트를 만듭니다. 룸 이름이 IP인 경우 DirectRTCClient 를 사용합니다. 그렇지 않으면 표준 WebSocketRTCClient를 사용합니다.
     if (loopback || !DirectRTCClient.IP_PATTERN.matcher(roomId).matches()) {
-      appRtcClient = new WebSocketRTCClient(this);
+      appRtcClient = new WebSocketRTCClient(this, callSetupTimeline);
     } else {
       Log.i(TAG, "Using DirectRTCClient because room name looks like an IP.");
       appRtcClient = new DirectRTCClient(this);
@@ -350,12 +460,17 @@ public class CallActivity extends Activity implements AppRTCClient.SignalingEven
     roomConnectionParameters =
         new RoomConnectionParameters(roomUri.toString(), roomId, loopback, urlParameters);
 
-    // Create CPU monitor
-    // CPU 모니터를 생성합니다.
+    // Create power and CPU monitors
+    // 전원 및 CPU 모니터를 생성합니다.
+    powerMonitor = new PowerMonitor(this, this::onPowerModeChanged);
+    powerMonitor.start();
     if (CpuMonitor.isSupported()) {
       cpuMonitor = new CpuMonitor(this);
+      cpuMonitor.setPowerMonitor(powerMonitor);
       hudFragment.setCpuMonitor(cpuMonitor);
     }
+    hudFragment.setThreadCpuSampler(threadCpuSampler);
+    hudFragment.setMemoryMonitor(memoryMonitor);
 
     // Send intent arguments to fragments.
     // fragments 에 intent 인수를 보냅니다.
@@ -382,6 +497,26 @@ public class CallActivity extends Activity implements AppRTCClient.SignalingEven
       options.networkIgnoreMask = 0;
     }
     peerConnectionClient.createPeerConnectionFactory(options);
+    peerConnectionClient.setCallSetupTimeline(callSetupTimeline);
+    if (dataChannelParameters != null) {
+      attachmentTransfer = new AttachmentTransfer(peerConnectionClient,
+          PeerConnectionClient.DEFAULT_PEER_ID,
+          new File(getFilesDir(), AttachmentTransfer.DIRECTORY_NAME));
+      peerConnectionClient.setDataChannelListener(DataChannelKind.BULK, attachmentTransfer);
+      // Sent once the data channel opens.
+      // 데이터 채널이 열리면 전송됩니다.
+      final String sendFile = intent.getStringExtra(EXTRA_SEND_FILE);
+      if (sendFile != null) {
+        attachmentTransfer.sendFile(new File(sendFile));
+      }
+      latencyProbe = new DataChannelLatencyProbe(peerConnectionClient,
+          PeerConnectionClient.DEFAULT_PEER_ID,
+          intent.getIntExtra(EXTRA_LATENCY_PROBE_INTERVAL_MS, LatencyProbe.DEFAULT_INTERVAL_MS));
+      peerConnectionClient.setDataChannelListener(DataChannelKind.PROBE, latencyProbe);
+      hudFragment.setLatencyProbe(latencyProbe.getProbe());
+    }
+    remoteProxyRenderer.setCallSetupTimeline(callSetupTimeline);
+    callSetupStats = CallSetupStats.create(getApplicationContext());
 
     if (screencaptureEnabled) {
       startScreenCapture();
@@ -496,6 +631,7 @@ public class CallActivity extends Activity implements AppRTCClient.SignalingEven
     if (cpuMonitor != null) {
       cpuMonitor.pause();
     }
+    updateStatsConsumers();
   }
 
   @Override
@@ -510,6 +646,7 @@ public class CallActivity extends Activity implements AppRTCClient.SignalingEven
     if (cpuMonitor != null) {
       cpuMonitor.resume();
     }
+    updateStatsConsumers();
   }
 
   @Override
@@ -543,6 +680,9 @@ public class CallActivity extends Activity implements AppRTCClient.SignalingEven
 
   @Override
   public void onCaptureFormatChange(int width, int height, int framerate) {
+    // The format picked by the user is kept for the rest of the call.
+    // 사용자가 선택한 형식은 통화가 끝날 때까지 유지됩니다.
+    captureController = null;
     if (peerConnectionClient != null) {
       peerConnectionClient.changeCaptureFormat(width, height, framerate);
     }
@@ -574,6 +714,34 @@ public class CallActivity extends Activity implements AppRTCClient.SignalingEven
     }
     ft.setTransition(FragmentTransaction.TRANSIT_FRAGMENT_FADE);
     ft.commit();
+    updateStatsConsumers();
+  }
+
+  // Polls stats fast only while the HUD shows them or the recorder samples them, slowly in the
+  // foreground and rarely in the background.
+  // HUD 가 통계를 표시하거나 기록하는 동안에만 빠르게, 포그라운드에서는 느리게, 백그라운드에서는 드물게
+  // 폴링합니다.
+  private void updateStatsConsumers() {
+    if (peerConnectionClient == null) {
+      return;
+    }
+    final boolean hudVisible = activityRunning && callControlFragmentVisible
+        && getIntent().getBooleanExtra(EXTRA_DISPLAY_HUD, false);
+    if (hudVisible) {
+      peerConnectionClient.setStatsConsumer(STATS_CONSUMER_HUD, STAT_CALLBACK_PERIOD);
+    } else {
+      peerConnectionClient.removeStatsConsumer(STATS_CONSUMER_HUD);
+    }
+    if (activityRunning) {
+      peerConnectionClient.setStatsConsumer(STATS_CONSUMER_FOREGROUND, STAT_FOREGROUND_PERIOD);
+    } else {
+      peerConnectionClient.removeStatsConsumer(STATS_CONSUMER_FOREGROUND);
+    }
+    if (activityRunning && recordStats) {
+      peerConnectionClient.setStatsConsumer(STATS_CONSUMER_RECORDER, STAT_CALLBACK_PERIOD);
+    } else {
+      peerConnectionClient.removeStatsConsumer(STATS_CONSUMER_RECORDER);
+    }
   }
 
   private void startCall() {
@@ -582,11 +750,22 @@ public class CallActivity extends Activity implements AppRTCClient.SignalingEven
       return;
     }
     callStartedTimeMs = System.currentTimeMillis();
+    callSetupTimeline.mark(CallSetupTimeline.Milestone.CALL_STARTED);
 
     // Start room connection.
     logAndToast(getString(R.string.connecting_to, roomConnectionParameters.roomUrl));
     appRtcClient.connectToRoom(roomConnectionParameters);
 
+    // Open the camera, create the local tracks and start gathering candidates while the room
+    // request is in flight. The ICE servers are attached once the room is joined.
+    // 방 요청이 진행되는 동안 카메라를 열고 로컬 트랙을 만들고 후보 수집을 시작합니다. ICE 서버는 방에
+    // 참가한 후 추가됩니다.
+    VideoCapturer videoCapturer = null;
+    if (peerConnectionParameters.videoCallEnabled) {
+      videoCapturer = createVideoCapturer();
+    }
+    peerConnectionClient.startLocalMedia(localProxyVideoSink, remoteSinks, videoCapturer);
+
     // Create and audio manager that will take care of audio routing, audio modes, audio device enumeration etc.
     // 오디오 라우팅, 오디오 모드, 오디오 장치 열거 등을 처리할 오디오 관리자를 만듭니다.
     audioManager = AppRTCAudioManager.create(getApplicationContext());
@@ -606,11 +785,97 @@ public class CallActivity extends Activity implements AppRTCClient.SignalingEven
       Log.w(TAG, "Call is connected in closed or error state");
       return;
     }
+    final Intent intent = getIntent();
+    if (peerConnectionParameters.videoCallEnabled && !screencaptureEnabled
+        && !intent.getBooleanExtra(EXTRA_VIDEO_CAPTUREQUALITYSLIDER_ENABLED, false)) {
+      final AdaptiveCaptureController controller = new AdaptiveCaptureController(
+          peerConnectionParameters.videoWidth, peerConnectionParameters.videoHeight,
+          peerConnectionParameters.videoFps, peerConnectionParameters.videoMaxBitrate,
+          SystemClock.elapsedRealtime());
+      captureController = controller;
+      if (powerMonitor != null) {
+        applyCaptureDecision(controller.setFramerateCap(powerMonitor.getMode().framerateCap));
+      }
+    }
+    if (powerMonitor != null) {
+      powerMonitor.onCallStarted();
+    }
+    startResourceSampling();
     // Enable statistics callback.
-    peerConnectionClient.enableStatsEvents(true, STAT_CALLBACK_PERIOD);
+    peerConnectionClient.enableStatsEvents(true, STAT_BACKGROUND_PERIOD);
+    updateStatsConsumers();
     setSwappedFeeds(false /* isSwappedFeeds */);
   }
 
+  private void startResourceSampling() {
+    if (resourceSampler != null) {
+      return;
+    }
+    resourceSampler = Executors.newSingleThreadScheduledExecutor(
+        runnable -> new Thread(runnable, "ResourceSampler"));
+    @SuppressWarnings("unused") // Prevent downstream linter warnings.
+    Future<?> possiblyIgnoredError = resourceSampler.scheduleAtFixedRate(
+        this::sampleResources, 0, RESOURCE_SAMPLE_PERIOD_MS, TimeUnit.MILLISECONDS);
+  }
+
+  // Runs on the resource sampler thread.
+  private void sampleResources() {
+    final long nowMs = SystemClock.elapsedRealtime();
+    final boolean threadsSampled = threadCpuSampler.sample(nowMs);
+    memoryMonitor.sample(nowMs);
+    // The CPU time of the process can be read on all versions, unlike the system-wide load of
+    // CpuMonitor, which is only the fallback.
+    // 프로세스의 CPU 시간은 모든 버전에서 읽을 수 있으므로 CpuMonitor 의 시스템 전체 부하는 대체 값으로만
+    // 사용합니다.
+    final int loadPercent;
+    if (threadsSampled) {
+      loadPercent = threadCpuSampler.getProcessUsagePercent()
+          / Runtime.getRuntime().availableProcessors();
+    } else if (cpuMonitor != null) {
+      loadPercent = cpuMonitor.getTotalCpuUsageAverage();
+    } else {
+      loadPercent = -1;
+    }
+    if (loadPercent >= 0) {
+      cpuLoadPercent = loadPercent;
+      cpuOveruseDetector.onLoad(loadPercent, nowMs);
+    }
+    if (nowMs - lastThreadCpuLogMs >= THREAD_CPU_LOG_PERIOD_MS) {
+      lastThreadCpuLogMs = nowMs;
+      Log.d(TAG, threadCpuSampler.toString());
+      Log.d(TAG, memoryMonitor.toString());
+    }
+  }
+
+  // The thread CPU sampler is closed after the last sample, which keeps its stat files open.
+  // 스레드 CPU 샘플러는 stat 파일을 열어 두는 마지막 샘플 이후에 닫습니다.
+  private void stopResourceSampling() {
+    if (resourceSampler != null) {
+      resourceSampler.execute(threadCpuSampler::close);
+      resourceSampler.shutdown();
+      resourceSampler = null;
+    } else {
+      threadCpuSampler.close();
+    }
+  }
+
+  // Adds the setup of this call to the persisted statistics and exports them.
+  // 이 통화의 설정 시간을 저장된 통계에 추가하고 내보냅니다.
+  private void recordCallSetup() {
+    if (callSetupStats == null
+        || !callSetupTimeline.isReached(CallSetupTimeline.Milestone.CALL_STARTED)) {
+      return;
+    }
+    Log.i(TAG, "Call setup timeline: " + callSetupTimeline);
+    final CallSetupStats stats = callSetupStats;
+    callSetupStats = null;
+    callSetupStatsExecutor.execute(() -> {
+      stats.add(callSetupTimeline);
+      stats.export();
+      Log.i(TAG, stats.toString());
+    });
+  }
+
   // This method is called when the audio manager reports audio device change, e.g. from wired headset to speakerphone.
   // 이 방법은 오디오 관리자가 오디오 장치 변경을 보고할 때 호출됩니다(예: 유선 헤드셋에서 스피커폰으로).
   private void onAudioManagerDevicesChanged(
@@ -642,7 +907,18 @@ public class CallActivity extends Activity implements AppRTCClient.SignalingEven
       fullscreenRenderer.release();
       fullscreenRenderer = null;
     }
+    if (attachmentTransfer != null) {
+      attachmentTransfer.close();
+      attachmentTransfer = null;
+    }
+    if (latencyProbe != null) {
+      latencyProbe.close();
+      latencyProbe = null;
+    }
     if (peerConnectionClient != null) {
+      // The stats recording is written once the last stats callback ran, see
+      // onPeerConnectionClosed().
+      // 통계 기록 저장은 마지막 통계 콜백 이후 onPeerConnectionClosed() 에서 합니다.
       peerConnectionClient.close();
       peerConnectionClient = null;
     }
@@ -650,6 +926,17 @@ public class CallActivity extends Activity implements AppRTCClient.SignalingEven
       audioManager.stop();
       audioManager = null;
     }
+    stopResourceSampling();
+    recordCallSetup();
+    if (connected) {
+      Log.i(TAG, "Call memory summary. " + memoryMonitor.getSummary());
+    }
+    if (powerMonitor != null) {
+      if (connected) {
+        Log.i(TAG, "Call power summary. " + powerMonitor);
+      }
+      powerMonitor.stop();
+    }
     if (connected && !isError) {
       setResult(RESULT_OK);
     } else {
@@ -744,12 +1031,7 @@ public class CallActivity extends Activity implements AppRTCClient.SignalingEven
 
     signalingParameters = params;
     logAndToast("Creating peer connection, delay=" + delta + "ms");
-    VideoCapturer videoCapturer = null;
-    if (peerConnectionParameters.videoCallEnabled) {
-      videoCapturer = createVideoCapturer();
-    }
-    peerConnectionClient.createPeerConnection(
-        localProxyVideoSink, remoteSinks, videoCapturer, signalingParameters);
+    peerConnectionClient.createPeerConnection(signalingParameters);
 
     if (signalingParameters.initiator) {
       logAndToast("Creating OFFER...");
@@ -905,15 +1187,55 @@ public class CallActivity extends Activity implements AppRTCClient.SignalingEven
   }
 
   @Override
-  public void onPeerConnectionClosed() {}
+  public void onPeerConnectionClosed() {
+    // Runs on the executor of the client, after the peer connections and with them the stats
+    // callbacks are gone, so the recording is complete and the UI thread does not write it.
+    // 피어 연결과 함께 통계 콜백이 모두 끝난 뒤 클라이언트의 실행자 스레드에서 실행되므로 기록이 완전하고
+    // UI 스레드가 파일을 쓰지 않습니다.
+    statsRecorder.flush(new File(getFilesDir(), StatsRecorder.DIRECTORY_NAME),
+        StatsRecorder.DEFAULT_MAX_TOTAL_BYTES);
+  }
 
   @Override
-  public void onPeerConnectionStatsReady(final StatsReport[] reports) {
-    runOnUiThread(() -> {
-       if (!isError && connected) {
-        hudFragment.updateEncoderStatistics(reports);
-      }
-    });
+  public void onPeerConnectionStatsReady(final StatsSnapshot stats) {
+    // Recorded on the stats thread, before the snapshot is reused for a later report.
+    // 스냅샷이 다음 보고서에 재사용되기 전에 통계 스레드에서 기록합니다.
+    final int cpuPercent = cpuLoadPercent;
+    final long nowMs = SystemClock.elapsedRealtime();
+    if (recordStats) {
+      statsRecorder.record(stats, cpuPercent, nowMs);
+    }
+    adaptCaptureFormat(stats, cpuPercent, nowMs);
+    // The HUD formats on this thread too and posts only changed texts to the UI thread.
+    // HUD 도 이 스레드에서 포맷하고 변경된 텍스트만 UI 스레드에 게시합니다.
+    if (!isError && connected) {
+      hudFragment.updateEncoderStatistics(stats);
+    }
+  }
+
+  private void adaptCaptureFormat(StatsSnapshot stats, int cpuPercent, long nowMs) {
+    final AdaptiveCaptureController controller = captureController;
+    if (controller != null) {
+      applyCaptureDecision(controller.onStats(stats, cpuPercent, nowMs));
+    }
+  }
+
+  // Called on the main thread.
+  private void onPowerModeChanged(PowerPolicy.Mode mode) {
+    final AdaptiveCaptureController controller = captureController;
+    if (controller != null) {
+      applyCaptureDecision(controller.setFramerateCap(mode.framerateCap));
+    }
+  }
+
+  private void applyCaptureDecision(@Nullable AdaptiveCaptureController.Decision decision) {
+    final PeerConnectionClient client = peerConnectionClient;
+    if (decision == null || client == null) {
+      return;
+    }
+    Log.d(TAG, "Adapting capture format: " + decision);
+    client.changeCaptureFormat(decision.width, decision.height, decision.framerate);
+    client.setVideoMaxBitrate(decision.maxBitrateKbps);
   }
 
   @Override
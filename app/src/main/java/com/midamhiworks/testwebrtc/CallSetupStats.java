@@ -0,0 +1,252 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import android.content.Context;
+import android.util.Log;
+import androidx.annotation.Nullable;
+import com.midamhiworks.testwebrtc.CallSetupTimeline.Milestone;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Per-phase call setup latency histograms aggregated over all calls and persisted across app
+ * runs.
+ *
+ * <p>For every milestone two histograms are kept: the phase duration, which shows which step got
+ * slower, and the time since the call was started. {@link #export()} writes them as CSV to the
+ * app's external files directory, where they can be pulled with adb without root.
+ *
+ * 모든 통화에 걸쳐 단계별 통화 설정 지연 히스토그램을 누적하고 앱 재시작 후에도 유지합니다. 단계마다 단계 소요
+ * 시간과 통화 시작부터의 시간을 기록하며, export()는 이를 CSV 로 외부 파일 디렉터리에 씁니다.
+ */
+public class CallSetupStats {
+  private static final String TAG = "CallSetupStats";
+  // Bump when the file layout changes.
+  private static final int FORMAT_VERSION = 1;
+  private static final String FILE_NAME = "call_setup_stats.json";
+  private static final String EXPORT_FILE_NAME = "call_setup_stats.csv";
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final String KEY_VERSION = "version";
+  private static final String KEY_CALLS = "calls";
+  private static final String KEY_MILESTONES = "milestones";
+  private static final String KEY_PHASE = "phase";
+  private static final String KEY_TOTAL = "total";
+  private static final String KEY_BUCKETS = "buckets";
+  private static final String KEY_SUM = "sum";
+  private static final String KEY_MAX = "max";
+
+  private static final Milestone[] MILESTONES = Milestone.values();
+
+  private final File file;
+  @Nullable private final File exportFile;
+  private final LatencyHistogram[] phaseHistograms = new LatencyHistogram[MILESTONES.length];
+  private final LatencyHistogram[] totalHistograms = new LatencyHistogram[MILESTONES.length];
+  private long calls;
+  private boolean loaded;
+
+  CallSetupStats(File file, @Nullable File exportFile) {
+    this.file = file;
+    this.exportFile = exportFile;
+    for (Milestone milestone : MILESTONES) {
+      phaseHistograms[milestone.ordinal()] = new LatencyHistogram(milestone + " phase");
+      totalHistograms[milestone.ordinal()] = new LatencyHistogram(milestone + " total");
+    }
+  }
+
+  public static CallSetupStats create(Context context) {
+    final File exportDir = context.getExternalFilesDir(null);
+    return new CallSetupStats(new File(context.getFilesDir(), FILE_NAME),
+        exportDir != null ? new File(exportDir, EXPORT_FILE_NAME) : null);
+  }
+
+  /** Adds the milestones reached in |timeline| and writes the statistics file. */
+  public synchronized void add(CallSetupTimeline timeline) {
+    load();
+    for (Milestone milestone : MILESTONES) {
+      final long phaseMs = timeline.getPhaseMs(milestone);
+      if (phaseMs >= 0) {
+        phaseHistograms[milestone.ordinal()].record(phaseMs);
+      }
+      final long totalMs = timeline.getElapsedMs(milestone);
+      if (totalMs >= 0 && milestone != Milestone.CALL_STARTED) {
+        totalHistograms[milestone.ordinal()].record(totalMs);
+      }
+    }
+    calls++;
+    save();
+  }
+
+  public synchronized LatencyHistogram getPhaseHistogram(Milestone milestone) {
+    load();
+    return phaseHistograms[milestone.ordinal()];
+  }
+
+  public synchronized LatencyHistogram getTotalHistogram(Milestone milestone) {
+    load();
+    return totalHistograms[milestone.ordinal()];
+  }
+
+  /** Writes all histograms as CSV; returns the file or null if external storage is missing. */
+  public synchronized @Nullable File export() {
+    if (exportFile == null) {
+      Log.w(TAG, "External files directory is not available.");
+      return null;
+    }
+    load();
+    File tmpFile = new File(exportFile.getPath() + ".tmp");
+    try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmpFile), UTF_8)) {
+      writer.write("milestone,calls,phase_n,phase_mean_ms,phase_p50_ms,phase_p95_ms,phase_max_ms,"
+          + "total_n,total_mean_ms,total_p50_ms,total_p95_ms,total_max_ms\n");
+      for (Milestone milestone : MILESTONES) {
+        writer.write(milestone + "," + calls + "," + toCsv(phaseHistograms[milestone.ordinal()])
+            + "," + toCsv(totalHistograms[milestone.ordinal()]) + "\n");
+      }
+    } catch (IOException e) {
+      Log.w(TAG, "Failed to export call setup statistics: " + e);
+      return null;
+    }
+    if (!tmpFile.renameTo(exportFile)) {
+      Log.w(TAG, "Failed to rename " + tmpFile);
+      return null;
+    }
+    return exportFile;
+  }
+
+  private static String toCsv(LatencyHistogram histogram) {
+    return histogram.getCount() + "," + histogram.getMeanMs() + "," + histogram.getPercentileMs(50)
+        + "," + histogram.getPercentileMs(95) + "," + histogram.getMaxMs();
+  }
+
+  @Override
+  public synchronized String toString() {
+    load();
+    StringBuilder builder = new StringBuilder("Call setup over " + calls + " call(s):");
+    for (Milestone milestone : MILESTONES) {
+      LatencyHistogram phase = phaseHistograms[milestone.ordinal()];
+      if (phase.getCount() > 0) {
+        builder.append("\n  ").append(phase);
+      }
+    }
+    return builder.toString();
+  }
+
+  private void load() {
+    if (loaded) {
+      return;
+    }
+    loaded = true;
+    if (!file.exists()) {
+      return;
+    }
+    try {
+      JSONObject json = new JSONObject(readFile(file));
+      if (json.optInt(KEY_VERSION) != FORMAT_VERSION) {
+        Log.d(TAG, "Discarding call setup statistics of another version.");
+        return;
+      }
+      calls = json.getLong(KEY_CALLS);
+      JSONObject milestonesJson = json.getJSONObject(KEY_MILESTONES);
+      for (Milestone milestone : MILESTONES) {
+        JSONObject milestoneJson = milestonesJson.optJSONObject(milestone.name());
+        if (milestoneJson != null) {
+          restore(phaseHistograms[milestone.ordinal()], milestoneJson.getJSONObject(KEY_PHASE));
+          restore(totalHistograms[milestone.ordinal()], milestoneJson.getJSONObject(KEY_TOTAL));
+        }
+      }
+    } catch (IOException | JSONException e) {
+      Log.w(TAG, "Failed to read call setup statistics: " + e);
+      calls = 0;
+      for (int i = 0; i < MILESTONES.length; i++) {
+        phaseHistograms[i].reset();
+        totalHistograms[i].reset();
+      }
+    }
+  }
+
+  private void save() {
+    try {
+      JSONObject milestonesJson = new JSONObject();
+      for (Milestone milestone : MILESTONES) {
+        JSONObject milestoneJson = new JSONObject();
+        milestoneJson.put(KEY_PHASE, toJson(phaseHistograms[milestone.ordinal()]));
+        milestoneJson.put(KEY_TOTAL, toJson(totalHistograms[milestone.ordinal()]));
+        milestonesJson.put(milestone.name(), milestoneJson);
+      }
+      JSONObject json = new JSONObject();
+      json.put(KEY_VERSION, FORMAT_VERSION);
+      json.put(KEY_CALLS, calls);
+      json.put(KEY_MILESTONES, milestonesJson);
+      writeFile(file, json.toString());
+    } catch (IOException | JSONException e) {
+      Log.w(TAG, "Failed to write call setup statistics: " + e);
+    }
+  }
+
+  private static JSONObject toJson(LatencyHistogram histogram) throws JSONException {
+    JSONArray buckets = new JSONArray();
+    for (long count : histogram.getBucketCounts()) {
+      buckets.put(count);
+    }
+    JSONObject json = new JSONObject();
+    json.put(KEY_BUCKETS, buckets);
+    json.put(KEY_SUM, histogram.getSumMs());
+    json.put(KEY_MAX, histogram.getMaxMs());
+    return json;
+  }
+
+  private static void restore(LatencyHistogram histogram, JSONObject json) throws JSONException {
+    JSONArray buckets = json.getJSONArray(KEY_BUCKETS);
+    long[] counts = new long[buckets.length()];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = buckets.getLong(i);
+    }
+    histogram.restore(counts, json.getLong(KEY_SUM), json.getLong(KEY_MAX));
+  }
+
+  private static String readFile(File file) throws IOException {
+    byte[] data = new byte[(int) file.length()];
+    try (InputStream in = new FileInputStream(file)) {
+      int offset = 0;
+      while (offset < data.length) {
+        int read = in.read(data, offset, data.length - offset);
+        if (read < 0) {
+          throw new IOException("Unexpected end of " + file);
+        }
+        offset += read;
+      }
+    }
+    return new String(data, UTF_8);
+  }
+
+  // Writes to a temporary file first so that a crash never leaves a truncated file behind.
+  // 충돌 시 잘린 파일이 남지 않도록 먼저 임시 파일에 씁니다.
+  private static void writeFile(File file, String content) throws IOException {
+    File tmpFile = new File(file.getPath() + ".tmp");
+    try (OutputStream out = new FileOutputStream(tmpFile)) {
+      out.write(content.getBytes(UTF_8));
+    }
+    if (!tmpFile.renameTo(file)) {
+      throw new IOException("Failed to rename " + tmpFile);
+    }
+  }
+}
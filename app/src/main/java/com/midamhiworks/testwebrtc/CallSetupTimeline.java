@@ -0,0 +1,114 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Monotonic timestamps of the milestones of one call setup.
+ *
+ * <p>Each milestone keeps the time it was first reached, so it can be marked from any thread and
+ * on every frame without further checks. The duration of a phase is the time from the milestone
+ * reached just before it, which is the time the step added to the setup.
+ *
+ * 통화 설정 한 번의 단계별 단조 시간을 기록합니다. 각 단계는 처음 도달한 시각만 유지하므로 어느 스레드에서나,
+ * 매 프레임마다 호출해도 됩니다. 단계의 소요 시간은 바로 앞에 도달한 단계로부터의 시간입니다.
+ */
+public class CallSetupTimeline {
+  /** Call setup milestones in their usual order. */
+  public enum Milestone {
+    CALL_STARTED,
+    ROOM_REQUEST_SENT,
+    ROOM_RESPONSE_RECEIVED,
+    TURN_SERVERS_FETCHED,
+    WEBSOCKET_REGISTERED,
+    LOCAL_SDP_CREATED,
+    LOCAL_SDP_SET,
+    REMOTE_SDP_SET,
+    FIRST_LOCAL_CANDIDATE,
+    ICE_CONNECTED,
+    DTLS_CONNECTED,
+    FIRST_REMOTE_FRAME
+  }
+
+  private static final long NOT_REACHED = Long.MIN_VALUE;
+  private static final Milestone[] MILESTONES = Milestone.values();
+
+  private final AtomicLongArray timesNs = new AtomicLongArray(MILESTONES.length);
+
+  public CallSetupTimeline() {
+    for (int i = 0; i < MILESTONES.length; i++) {
+      timesNs.set(i, NOT_REACHED);
+    }
+  }
+
+  /** Records |milestone| now unless it was reached before. */
+  public void mark(Milestone milestone) {
+    if (timesNs.get(milestone.ordinal()) == NOT_REACHED) {
+      mark(milestone, System.nanoTime());
+    }
+  }
+
+  void mark(Milestone milestone, long timeNs) {
+    timesNs.compareAndSet(milestone.ordinal(), NOT_REACHED, timeNs);
+  }
+
+  public boolean isReached(Milestone milestone) {
+    return timesNs.get(milestone.ordinal()) != NOT_REACHED;
+  }
+
+  /** Returns the time from CALL_STARTED to |milestone| in ms, or -1 if either was not reached. */
+  public long getElapsedMs(Milestone milestone) {
+    final long startNs = timesNs.get(Milestone.CALL_STARTED.ordinal());
+    final long timeNs = timesNs.get(milestone.ordinal());
+    if (startNs == NOT_REACHED || timeNs == NOT_REACHED) {
+      return -1;
+    }
+    return TimeUnit.NANOSECONDS.toMillis(Math.max(0, timeNs - startNs));
+  }
+
+  /**
+   * Returns the time between |milestone| and the latest milestone reached before it in ms, or -1
+   * if |milestone| was not reached or is the first one.
+   */
+  public long getPhaseMs(Milestone milestone) {
+    final long timeNs = timesNs.get(milestone.ordinal());
+    if (timeNs == NOT_REACHED) {
+      return -1;
+    }
+    long previousNs = NOT_REACHED;
+    for (int i = 0; i < MILESTONES.length; i++) {
+      final long otherNs = timesNs.get(i);
+      // Ties are broken by order, so that milestones marked at the same time get a 0 ms phase.
+      final boolean isBefore = otherNs < timeNs || (otherNs == timeNs && i < milestone.ordinal());
+      if (i != milestone.ordinal() && otherNs != NOT_REACHED && isBefore && otherNs > previousNs) {
+        previousNs = otherNs;
+      }
+    }
+    return previousNs == NOT_REACHED ? -1 : TimeUnit.NANOSECONDS.toMillis(timeNs - previousNs);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    for (Milestone milestone : MILESTONES) {
+      final long elapsedMs = getElapsedMs(milestone);
+      if (elapsedMs >= 0) {
+        if (builder.length() > 0) {
+          builder.append(", ");
+        }
+        builder.append(milestone).append('=').append(elapsedMs);
+      }
+    }
+    return builder.append(" ms").toString();
+  }
+}
@@ -12,7 +12,6 @@ package com.midamhiworks.testwebrtc;
 
 import android.widget.SeekBar;
 import android.widget.TextView;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -32,10 +31,7 @@ CaptureQualityController (제거)
 - 실시간으로 화질 조정을 할 필요가 없어서 제거 함.
  */
 public class CaptureQualityController implements SeekBar.OnSeekBarChangeListener {
-  private final List<CaptureFormat> formats =
-      Arrays.asList(new CaptureFormat(1280, 720, 0, 30000), new CaptureFormat(960, 540, 0, 30000),
-          new CaptureFormat(640, 480, 0, 30000), new CaptureFormat(480, 360, 0, 30000),
-          new CaptureFormat(320, 240, 0, 30000), new CaptureFormat(256, 144, 0, 30000));
+  private final List<CaptureFormat> formats = AdaptiveCaptureController.FORMATS;
   // Prioritize framerate below this threshold and resolution above the threshold.
   // 이 임계값보다 낮은 프레임과 임계값보다 높은 분해능의 우선 순위를 지정합니다.
   private static final int FRAMERATE_THRESHOLD = 15;
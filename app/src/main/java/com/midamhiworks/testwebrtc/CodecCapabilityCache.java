@@ -0,0 +1,282 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.util.Log;
+import androidx.annotation.Nullable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.webrtc.VideoCodecInfo;
+import org.webrtc.VideoDecoder;
+import org.webrtc.VideoDecoderFactory;
+import org.webrtc.VideoEncoder;
+import org.webrtc.VideoEncoderFactory;
+
+/**
+ * Versioned on-disk cache of the video codecs supported by the encoder and decoder factories.
+ *
+ * <p>Listing the supported codecs walks the MediaCodec list and queries the capabilities of every
+ * codec, which takes hundreds of milliseconds on low-end devices. The result only changes when the
+ * system image or the app (and with it the bundled WebRTC library) is updated, so it is stored
+ * keyed by the build fingerprint and the app install time and reused for later factories.
+ *
+ * 코덱 목록 조회는 저사양 기기에서 수백 ms 가 걸리므로, 빌드 fingerprint 와 앱 설치 시각을 키로 하여
+ * 디스크에 저장하고 이후 팩토리 생성에 재사용합니다.
+ */
+class CodecCapabilityCache {
+  private static final String TAG = "CodecCapabilityCache";
+  // Bump when the file layout changes.
+  private static final int FORMAT_VERSION = 1;
+  private static final String FILE_NAME = "codec_capabilities.json";
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final String KEY_VERSION = "version";
+  private static final String KEY_BUILD = "build";
+  private static final String KEY_CONFIGURATIONS = "configurations";
+  private static final String KEY_ENCODERS = "encoders";
+  private static final String KEY_DECODERS = "decoders";
+  private static final String KEY_HARDWARE_ENCODERS = "hardwareEncoders";
+  private static final String KEY_NAME = "name";
+  private static final String KEY_PARAMS = "params";
+
+  /** Codecs reported by one encoder/decoder factory configuration. */
+  static class Capabilities {
+    final VideoCodecInfo[] encoderCodecs;
+    final VideoCodecInfo[] decoderCodecs;
+    // Codecs with a hardware encoder; empty if hardware acceleration is disabled.
+    final VideoCodecInfo[] hardwareEncoderCodecs;
+
+    Capabilities(VideoCodecInfo[] encoderCodecs, VideoCodecInfo[] decoderCodecs,
+        VideoCodecInfo[] hardwareEncoderCodecs) {
+      this.encoderCodecs = encoderCodecs;
+      this.decoderCodecs = decoderCodecs;
+      this.hardwareEncoderCodecs = hardwareEncoderCodecs;
+    }
+  }
+
+  private final File file;
+  private final String buildKey;
+  // Configuration name -> capabilities. Loaded lazily from |file|.
+  @Nullable private Map<String, Capabilities> configurations;
+
+  CodecCapabilityCache(File file, String buildKey) {
+    this.file = file;
+    this.buildKey = buildKey;
+  }
+
+  static CodecCapabilityCache create(Context context) {
+    return new CodecCapabilityCache(new File(context.getFilesDir(), FILE_NAME), getBuildKey(context));
+  }
+
+  // The WebRTC library is bundled with the app, so the app install time changes with its version.
+  // WebRTC 라이브러리는 앱에 포함되어 있으므로 앱 설치 시각이 WebRTC 버전과 함께 바뀝니다.
+  private static String getBuildKey(Context context) {
+    long lastUpdateTime = 0;
+    try {
+      PackageInfo packageInfo =
+          context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+      lastUpdateTime = packageInfo.lastUpdateTime;
+    } catch (PackageManager.NameNotFoundException e) {
+      Log.w(TAG, "Package info is not available: " + e);
+    }
+    return Build.FINGERPRINT + "|" + lastUpdateTime;
+  }
+
+  /** Returns the cached capabilities of |configuration|, or null on a cache miss. */
+  synchronized @Nullable Capabilities get(String configuration) {
+    if (configurations == null) {
+      configurations = load();
+    }
+    return configurations.get(configuration);
+  }
+
+  /** Stores |capabilities| for |configuration| and writes the cache file. */
+  synchronized void put(String configuration, Capabilities capabilities) {
+    if (configurations == null) {
+      configurations = load();
+    }
+    configurations.put(configuration, capabilities);
+    save();
+  }
+
+  private Map<String, Capabilities> load() {
+    final Map<String, Capabilities> result = new HashMap<>();
+    if (!file.exists()) {
+      return result;
+    }
+    try {
+      JSONObject json = new JSONObject(readFile(file));
+      if (json.optInt(KEY_VERSION) != FORMAT_VERSION || !buildKey.equals(json.optString(KEY_BUILD))) {
+        Log.d(TAG, "Discarding stale codec capability cache.");
+        return result;
+      }
+      JSONObject configurationsJson = json.getJSONObject(KEY_CONFIGURATIONS);
+      Iterator<String> names = configurationsJson.keys();
+      while (names.hasNext()) {
+        String name = names.next();
+        JSONObject capabilitiesJson = configurationsJson.getJSONObject(name);
+        result.put(name,
+            new Capabilities(toCodecInfos(capabilitiesJson.getJSONArray(KEY_ENCODERS)),
+                toCodecInfos(capabilitiesJson.getJSONArray(KEY_DECODERS)),
+                toCodecInfos(capabilitiesJson.getJSONArray(KEY_HARDWARE_ENCODERS))));
+      }
+      Log.d(TAG, "Loaded codec capabilities for " + result.keySet());
+    } catch (IOException | JSONException e) {
+      Log.w(TAG, "Failed to read codec capability cache: " + e);
+      result.clear();
+    }
+    return result;
+  }
+
+  private void save() {
+    try {
+      JSONObject configurationsJson = new JSONObject();
+      for (Map.Entry<String, Capabilities> entry : configurations.entrySet()) {
+        Capabilities capabilities = entry.getValue();
+        JSONObject capabilitiesJson = new JSONObject();
+        capabilitiesJson.put(KEY_ENCODERS, toJson(capabilities.encoderCodecs));
+        capabilitiesJson.put(KEY_DECODERS, toJson(capabilities.decoderCodecs));
+        capabilitiesJson.put(KEY_HARDWARE_ENCODERS, toJson(capabilities.hardwareEncoderCodecs));
+        configurationsJson.put(entry.getKey(), capabilitiesJson);
+      }
+      JSONObject json = new JSONObject();
+      json.put(KEY_VERSION, FORMAT_VERSION);
+      json.put(KEY_BUILD, buildKey);
+      json.put(KEY_CONFIGURATIONS, configurationsJson);
+      writeFile(file, json.toString());
+    } catch (IOException | JSONException e) {
+      Log.w(TAG, "Failed to write codec capability cache: " + e);
+    }
+  }
+
+  private static JSONArray toJson(VideoCodecInfo[] codecInfos) throws JSONException {
+    JSONArray array = new JSONArray();
+    for (VideoCodecInfo info : codecInfos) {
+      JSONObject params = new JSONObject();
+      for (Map.Entry<String, String> param : info.params.entrySet()) {
+        params.put(param.getKey(), param.getValue());
+      }
+      JSONObject codec = new JSONObject();
+      codec.put(KEY_NAME, info.name);
+      codec.put(KEY_PARAMS, params);
+      array.put(codec);
+    }
+    return array;
+  }
+
+  private static VideoCodecInfo[] toCodecInfos(JSONArray array) throws JSONException {
+    VideoCodecInfo[] codecInfos = new VideoCodecInfo[array.length()];
+    for (int i = 0; i < array.length(); i++) {
+      JSONObject codec = array.getJSONObject(i);
+      JSONObject paramsJson = codec.getJSONObject(KEY_PARAMS);
+      Map<String, String> params = new HashMap<>();
+      Iterator<String> keys = paramsJson.keys();
+      while (keys.hasNext()) {
+        String key = keys.next();
+        params.put(key, paramsJson.getString(key));
+      }
+      codecInfos[i] = new VideoCodecInfo(codec.getString(KEY_NAME), params);
+    }
+    return codecInfos;
+  }
+
+  private static String readFile(File file) throws IOException {
+    byte[] data = new byte[(int) file.length()];
+    try (InputStream in = new FileInputStream(file)) {
+      int offset = 0;
+      while (offset < data.length) {
+        int read = in.read(data, offset, data.length - offset);
+        if (read < 0) {
+          throw new IOException("Unexpected end of " + file);
+        }
+        offset += read;
+      }
+    }
+    return new String(data, UTF_8);
+  }
+
+  // Writes to a temporary file first so that a crash never leaves a truncated cache behind.
+  // 충돌 시 잘린 캐시가 남지 않도록 먼저 임시 파일에 씁니다.
+  private static void writeFile(File file, String content) throws IOException {
+    File tmpFile = new File(file.getPath() + ".tmp");
+    try (OutputStream out = new FileOutputStream(tmpFile)) {
+      out.write(content.getBytes(UTF_8));
+    }
+    if (!tmpFile.renameTo(file)) {
+      throw new IOException("Failed to rename " + tmpFile);
+    }
+  }
+
+  /**
+   * Encoder factory that reports cached codecs instead of probing |delegate|. Encoders are still
+   * created by |delegate|.
+   */
+  static class CachedVideoEncoderFactory implements VideoEncoderFactory {
+    private final VideoEncoderFactory delegate;
+    private final VideoCodecInfo[] supportedCodecs;
+
+    CachedVideoEncoderFactory(VideoEncoderFactory delegate, VideoCodecInfo[] supportedCodecs) {
+      this.delegate = delegate;
+      this.supportedCodecs = supportedCodecs;
+    }
+
+    @Nullable
+    @Override
+    public VideoEncoder createEncoder(VideoCodecInfo info) {
+      return delegate.createEncoder(info);
+    }
+
+    @Override
+    public VideoCodecInfo[] getSupportedCodecs() {
+      return supportedCodecs.clone();
+    }
+  }
+
+  /**
+   * Decoder factory that reports cached codecs instead of probing |delegate|. Decoders are still
+   * created by |delegate|.
+   */
+  static class CachedVideoDecoderFactory implements VideoDecoderFactory {
+    private final VideoDecoderFactory delegate;
+    private final VideoCodecInfo[] supportedCodecs;
+
+    CachedVideoDecoderFactory(VideoDecoderFactory delegate, VideoCodecInfo[] supportedCodecs) {
+      this.delegate = delegate;
+      this.supportedCodecs = supportedCodecs;
+    }
+
+    @Nullable
+    @Override
+    public VideoDecoder createDecoder(VideoCodecInfo info) {
+      return delegate.createDecoder(info);
+    }
+
+    @Override
+    public VideoCodecInfo[] getSupportedCodecs() {
+      return supportedCodecs.clone();
+    }
+  }
+}
@@ -165,6 +165,12 @@ public class ConnectActivity extends Activity {
     }
   }
 
+  @Override
+  public void onTrimMemory(int level) {
+    super.onTrimMemory(level);
+    PeerConnectionFactoryOwner.get(this).trimMemory(level);
+  }
+
   @Override
   public void onPause() {
     super.onPause();
@@ -179,6 +185,17 @@ public class ConnectActivity extends Activity {
   @Override
   public void onResume() {
     super.onResume();
+    // Load WebRTC with the field trials of the settings and create the EGL context while the user
+    // picks a room, so that the first call does not initialize again.
+    // 사용자가 방을 고르는 동안 설정의 필드 트라이얼로 WebRTC를 로드하고 EGL 컨텍스트를 생성하여 첫 통화에서
+    // 다시 초기화하지 않게 합니다.
+    boolean flexfecEnabled = sharedPrefGetBoolean(R.string.pref_flexfec_key,
+        CallActivity.EXTRA_FLEXFEC_ENABLED, R.string.pref_flexfec_default, false);
+    boolean disableWebRtcAGCAndHPF = sharedPrefGetBoolean(
+        R.string.pref_disable_webrtc_agc_and_hpf_key, CallActivity.EXTRA_DISABLE_WEBRTC_AGC_AND_HPF,
+        R.string.pref_disable_webrtc_agc_and_hpf_key, false);
+    PeerConnectionFactoryOwner.get(this).warmUp(
+        PeerConnectionClient.getFieldTrials(flexfecEnabled, disableWebRtcAGCAndHPF));
     String room = sharedPref.getString(keyprefRoom, "");
     roomEditText.setText(room);
     roomList = new ArrayList<>();
@@ -521,6 +538,10 @@ public class ConnectActivity extends Activity {
         CallActivity.EXTRA_ENABLE_RTCEVENTLOG, R.string.pref_enable_rtceventlog_default,
         useValuesFromIntent);
 
+    // Check Record stats.
+    boolean recordStats = sharedPrefGetBoolean(R.string.pref_record_stats_key,
+        CallActivity.EXTRA_RECORD_STATS, R.string.pref_record_stats_default, useValuesFromIntent);
+
     // Get datachannel options
     boolean dataChannelEnabled = sharedPrefGetBoolean(R.string.pref_enable_datachannel_key,
         CallActivity.EXTRA_DATA_CHANNEL_ENABLED, R.string.pref_enable_datachannel_default,
@@ -537,6 +558,9 @@ public class ConnectActivity extends Activity {
             R.string.pref_max_retransmits_default, useValuesFromIntent);
     int id = sharedPrefGetInteger(R.string.pref_data_id_key, CallActivity.EXTRA_ID,
         R.string.pref_data_id_default, useValuesFromIntent);
+    int latencyProbeIntervalMs = sharedPrefGetInteger(R.string.pref_latency_probe_interval_ms_key,
+        CallActivity.EXTRA_LATENCY_PROBE_INTERVAL_MS,
+        R.string.pref_latency_probe_interval_ms_default, useValuesFromIntent);
     String protocol = sharedPrefGetString(R.string.pref_data_protocol_key,
         CallActivity.EXTRA_PROTOCOL, R.string.pref_data_protocol_default, useValuesFromIntent);
 
@@ -573,6 +597,7 @@ public class ConnectActivity extends Activity {
       intent.putExtra(CallActivity.EXTRA_DISPLAY_HUD, displayHud);
       intent.putExtra(CallActivity.EXTRA_TRACING, tracing);
       intent.putExtra(CallActivity.EXTRA_ENABLE_RTCEVENTLOG, rtcEventLogEnabled);
+      intent.putExtra(CallActivity.EXTRA_RECORD_STATS, recordStats);
       intent.putExtra(CallActivity.EXTRA_CMDLINE, commandLineRun);
       intent.putExtra(CallActivity.EXTRA_RUNTIME, runTimeMs);
       intent.putExtra(CallActivity.EXTRA_DATA_CHANNEL_ENABLED, dataChannelEnabled);
@@ -584,6 +609,7 @@ public class ConnectActivity extends Activity {
         intent.putExtra(CallActivity.EXTRA_PROTOCOL, protocol);
         intent.putExtra(CallActivity.EXTRA_NEGOTIATED, negotiated);
         intent.putExtra(CallActivity.EXTRA_ID, id);
+        intent.putExtra(CallActivity.EXTRA_LATENCY_PROBE_INTERVAL_MS, latencyProbeIntervalMs);
       }
 
       if (useValuesFromIntent) {
@@ -610,6 +636,11 @@ public class ConnectActivity extends Activity {
               getIntent().getIntExtra(CallActivity.EXTRA_SAVE_REMOTE_VIDEO_TO_FILE_HEIGHT, 0);
           intent.putExtra(CallActivity.EXTRA_SAVE_REMOTE_VIDEO_TO_FILE_HEIGHT, videoOutHeight);
         }
+
+        if (getIntent().hasExtra(CallActivity.EXTRA_SEND_FILE)) {
+          String sendFile = getIntent().getStringExtra(CallActivity.EXTRA_SEND_FILE);
+          intent.putExtra(CallActivity.EXTRA_SEND_FILE, sendFile);
+        }
       }
 
       startActivityForResult(intent, CONNECTION_REQUEST);
@@ -12,24 +12,13 @@ package com.midamhiworks.testwebrtc;
 
 import android.annotation.TargetApi;
 import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
-import android.os.BatteryManager;
 import android.os.Build;
 import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.annotation.Nullable;
 
-import java.io.BufferedReader;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.Charset;
 import java.util.Arrays;
-import java.util.Scanner;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
@@ -90,7 +79,6 @@ class CpuMonitor {
   private static final int CPU_STAT_SAMPLE_PERIOD_MS = 2000;
   private static final int CPU_STAT_LOG_PERIOD_MS = 6000;
 
-  private final Context appContext;
   // User CPU usage at current frequency.
   private final MovingAverage userCpuUsage;
   // System CPU usage at current frequency.
@@ -108,23 +96,20 @@ class CpuMonitor {
   private int actualCpusPresent;
   private boolean initialized;
   private boolean cpuOveruse;
-  private String[] maxPath;
-  private String[] curPath;
+  // Source of the cached battery level in the stat string.
+  @Nullable
+  private PowerMonitor powerMonitor;
   private double[] curFreqScales;
+  // Reads /proc/stat and cpufreq through descriptors and buffers that are reused every sample.
   @Nullable
-  private ProcStat lastProcStat;
-
-  private static class ProcStat {
-    final long userTime;
-    final long systemTime;
-    final long idleTime;
-
-    ProcStat(long userTime, long systemTime, long idleTime) {
-      this.userTime = userTime;
-      this.systemTime = systemTime;
-      this.idleTime = idleTime;
-    }
-  }
+  private CpuStatSampler sampler;
+  private long lastUserTime;
+  private long lastSystemTime;
+  private long lastIdleTime;
+  private long[] lastCoreBusyTime;
+  private long[] lastCoreTotalTime;
+  // Utilization of each core over the last sample period, 0 for offline cores.
+  private double[] coreUsages;
 
   private static class MovingAverage {
     private final int size;
@@ -178,7 +163,6 @@ class CpuMonitor {
     }
 
     Log.d(TAG, "CpuMonitor ctor.");
-    appContext = context.getApplicationContext();
     userCpuUsage = new MovingAverage(MOVING_AVERAGE_SAMPLES);
     systemCpuUsage = new MovingAverage(MOVING_AVERAGE_SAMPLES);
     totalCpuUsage = new MovingAverage(MOVING_AVERAGE_SAMPLES);
@@ -193,6 +177,7 @@ class CpuMonitor {
       Log.d(TAG, "pause");
       executor.shutdownNow();
       executor = null;
+      closeStatFiles();
     }
   }
 
@@ -212,6 +197,13 @@ class CpuMonitor {
     }
   }
 
+  /** Adds the battery level cached by |monitor| to the logged stat string. */
+  // TODO(bugs.webrtc.org/8491): Remove NoSynchronizedMethodCheck suppression.
+  @SuppressWarnings("NoSynchronizedMethodCheck")
+  public synchronized void setPowerMonitor(@Nullable PowerMonitor monitor) {
+    powerMonitor = monitor;
+  }
+
   // TODO(bugs.webrtc.org/8491): Remove NoSynchronizedMethodCheck suppression.
   @SuppressWarnings("NoSynchronizedMethodCheck")
   public synchronized int getCpuUsageCurrent() {
@@ -224,12 +216,26 @@ class CpuMonitor {
     return doubleToPercent(userCpuUsage.getAverage() + systemCpuUsage.getAverage());
   }
 
+  /** Returns the average total load, i.e. the usage relative to the maximum frequency. */
+  // TODO(bugs.webrtc.org/8491): Remove NoSynchronizedMethodCheck suppression.
+  @SuppressWarnings("NoSynchronizedMethodCheck")
+  public synchronized int getTotalCpuUsageAverage() {
+    return doubleToPercent(totalCpuUsage.getAverage());
+  }
+
   // TODO(bugs.webrtc.org/8491): Remove NoSynchronizedMethodCheck suppression.
   @SuppressWarnings("NoSynchronizedMethodCheck")
   public synchronized int getFrequencyScaleAverage() {
     return doubleToPercent(frequencyScale.getAverage());
   }
 
+  // The descriptors are reopened by the next sample after resume().
+  private synchronized void closeStatFiles() {
+    if (sampler != null) {
+      sampler.close();
+    }
+  }
+
   private void scheduleCpuUtilizationTask() {
     if (executor != null) {
       executor.shutdownNow();
@@ -252,33 +258,17 @@ class CpuMonitor {
   }
 
   private void init() {
-    try (FileInputStream fin = new FileInputStream("/sys/devices/system/cpu/present");
-         InputStreamReader streamReader = new InputStreamReader(fin, Charset.forName("UTF-8"));
-         BufferedReader reader = new BufferedReader(streamReader);
-         Scanner scanner = new Scanner(reader).useDelimiter("[-\n]");) {
-      scanner.nextInt(); // Skip leading number 0.
-      cpusPresent = 1 + scanner.nextInt();
-      scanner.close();
-    } catch (FileNotFoundException e) {
+    cpusPresent = CpuStatSampler.readCpusPresent(CpuStatSampler.CPU_DIRECTORY);
+    if (cpusPresent == 0) {
       Log.e(TAG, "Cannot do CPU stats since /sys/devices/system/cpu/present is missing");
-    } catch (IOException e) {
-      Log.e(TAG, "Error closing file");
-    } catch (Exception e) {
-      Log.e(TAG, "Cannot do CPU stats due to /sys/devices/system/cpu/present parsing problem");
     }
 
+    sampler = new CpuStatSampler(cpusPresent);
     cpuFreqMax = new long[cpusPresent];
-    maxPath = new String[cpusPresent];
-    curPath = new String[cpusPresent];
     curFreqScales = new double[cpusPresent];
-    for (int i = 0; i < cpusPresent; i++) {
-      cpuFreqMax[i] = 0; // Frequency "not yet determined".
-      curFreqScales[i] = 0;
-      maxPath[i] = "/sys/devices/system/cpu/cpu" + i + "/cpufreq/cpuinfo_max_freq";
-      curPath[i] = "/sys/devices/system/cpu/cpu" + i + "/cpufreq/scaling_cur_freq";
-    }
-
-    lastProcStat = new ProcStat(0, 0, 0);
+    lastCoreBusyTime = new long[cpusPresent];
+    lastCoreTotalTime = new long[cpusPresent];
+    coreUsages = new double[cpusPresent];
     resetStat();
 
     initialized = true;
@@ -292,20 +282,6 @@ class CpuMonitor {
     lastStatLogTimeMs = SystemClock.elapsedRealtime();
   }
 
-  private int getBatteryLevel() {
-    // Use sticky broadcast with null receiver to read battery level once only.
-    Intent intent = appContext.registerReceiver(
-        null /* receiver */, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
-
-    int batteryLevel = 0;
-    int batteryScale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, 100);
-    if (batteryScale > 0) {
-      batteryLevel =
-          (int) (100f * intent.getIntExtra(BatteryManager.EXTRA_LEVEL, 0) / batteryScale);
-    }
-    return batteryLevel;
-  }
-
   /**
    * Re-measure CPU use.  Call this method at an interval of around 1/s.
    * This method returns true on success.  The fields
@@ -337,18 +313,17 @@ class CpuMonitor {
       curFreqScales[i] = 0;
       if (cpuFreqMax[i] == 0) {
         // We have never found this CPU's max frequency.  Attempt to read it.
-        long cpufreqMax = readFreqFromFile(maxPath[i]);
+        long cpufreqMax = sampler.readMaxFrequency(i);
         if (cpufreqMax > 0) {
           Log.d(TAG, "Core " + i + ". Max frequency: " + cpufreqMax);
           lastSeenMaxFreq = cpufreqMax;
           cpuFreqMax[i] = cpufreqMax;
-          maxPath[i] = null; // Kill path to free its memory.
         }
       } else {
         lastSeenMaxFreq = cpuFreqMax[i]; // A valid, previously read value.
       }
 
-      long cpuFreqCur = readFreqFromFile(curPath[i]);
+      long cpuFreqCur = sampler.readCurrentFrequency(i);
       if (cpuFreqCur == 0 && lastSeenMaxFreq == 0) {
         // No current frequency information for this CPU core - ignore it.
         continue;
@@ -387,14 +362,14 @@ class CpuMonitor {
       currentFrequencyScale = (frequencyScale.getCurrent() + currentFrequencyScale) * 0.5;
     }
 
-    ProcStat procStat = readProcStat();
-    if (procStat == null) {
+    if (!sampler.readProcStat()) {
+      Log.e(TAG, "Problems reading /proc/stat");
       return false;
     }
 
-    long diffUserTime = procStat.userTime - lastProcStat.userTime;
-    long diffSystemTime = procStat.systemTime - lastProcStat.systemTime;
-    long diffIdleTime = procStat.idleTime - lastProcStat.idleTime;
+    long diffUserTime = sampler.userTime - lastUserTime;
+    long diffSystemTime = sampler.systemTime - lastSystemTime;
+    long diffIdleTime = sampler.idleTime - lastIdleTime;
     long allTime = diffUserTime + diffSystemTime + diffIdleTime;
 
     if (currentFrequencyScale == 0 || allTime == 0) {
@@ -414,8 +389,21 @@ class CpuMonitor {
         (currentUserCpuUsage + currentSystemCpuUsage) * currentFrequencyScale;
     totalCpuUsage.addValue(currentTotalCpuUsage);
 
+    for (int i = 0; i < cpusPresent; i++) {
+      long coreTotalTime = sampler.coreTotalTime[i];
+      long diffCoreTotalTime = coreTotalTime - lastCoreTotalTime[i];
+      // Offline cores, and cores that just came online, have no usable delta.
+      coreUsages[i] = (coreTotalTime > 0 && lastCoreTotalTime[i] > 0 && diffCoreTotalTime > 0)
+          ? (sampler.coreBusyTime[i] - lastCoreBusyTime[i]) / (double) diffCoreTotalTime
+          : 0;
+      lastCoreBusyTime[i] = sampler.coreBusyTime[i];
+      lastCoreTotalTime[i] = coreTotalTime;
+    }
+
     // Save new measurements for next round's deltas.
-    lastProcStat = procStat;
+    lastUserTime = sampler.userTime;
+    lastSystemTime = sampler.systemTime;
+    lastIdleTime = sampler.idleTime;
 
     return true;
   }
@@ -448,80 +436,17 @@ class CpuMonitor {
     for (int i = 0; i < cpusPresent; i++) {
       stat.append(doubleToPercent(curFreqScales[i])).append(" ");
     }
-    stat.append("). Battery: ").append(getBatteryLevel());
+    stat.append("). Core usage: ( ");
+    for (int i = 0; i < cpusPresent; i++) {
+      stat.append(doubleToPercent(coreUsages[i])).append(" ");
+    }
+    stat.append(")");
+    if (powerMonitor != null) {
+      stat.append(". Battery: ").append(powerMonitor.getBatteryLevel());
+    }
     if (cpuOveruse) {
       stat.append(". Overuse.");
     }
     return stat.toString();
   }
-
-  /**
-   * Read a single integer value from the named file.  Return the read value
-   * or if an error occurs return 0.
-   */
-  private long readFreqFromFile(String fileName) {
-    long number = 0;
-    try (FileInputStream stream = new FileInputStream(fileName);
-         InputStreamReader streamReader = new InputStreamReader(stream, Charset.forName("UTF-8"));
-         BufferedReader reader = new BufferedReader(streamReader)) {
-      String line = reader.readLine();
-      number = parseLong(line);
-    } catch (FileNotFoundException e) {
-      // CPU core is off, so file with its scaling frequency .../cpufreq/scaling_cur_freq
-      // is not present. This is not an error.
-    } catch (IOException e) {
-      // CPU core is off, so file with its scaling frequency .../cpufreq/scaling_cur_freq
-      // is empty. This is not an error.
-    }
-    return number;
-  }
-
-  private static long parseLong(String value) {
-    long number = 0;
-    try {
-      number = Long.parseLong(value);
-    } catch (NumberFormatException e) {
-      Log.e(TAG, "parseLong error.", e);
-    }
-    return number;
-  }
-
-  /*
-   * Read the current utilization of all CPUs using the cumulative first line
-   * of /proc/stat.
-   */
-  @SuppressWarnings("StringSplitter")
-  private @Nullable ProcStat readProcStat() {
-    long userTime = 0;
-    long systemTime = 0;
-    long idleTime = 0;
-    try (FileInputStream stream = new FileInputStream("/proc/stat");
-         InputStreamReader streamReader = new InputStreamReader(stream, Charset.forName("UTF-8"));
-         BufferedReader reader = new BufferedReader(streamReader)) {
-      // line should contain something like this:
-      // cpu  5093818 271838 3512830 165934119 101374 447076 272086 0 0 0
-      //       user    nice  system     idle   iowait  irq   softirq
-      String line = reader.readLine();
-      String[] lines = line.split("\\s+");
-      int length = lines.length;
-      if (length >= 5) {
-        userTime = parseLong(lines[1]); // user
-        userTime += parseLong(lines[2]); // nice
-        systemTime = parseLong(lines[3]); // system
-        idleTime = parseLong(lines[4]); // idle
-      }
-      if (length >= 8) {
-        userTime += parseLong(lines[5]); // iowait
-        systemTime += parseLong(lines[6]); // irq
-        systemTime += parseLong(lines[7]); // softirq
-      }
-    } catch (FileNotFoundException e) {
-      Log.e(TAG, "Cannot open /proc/stat for reading", e);
-      return null;
-    } catch (Exception e) {
-      Log.e(TAG, "Problems parsing /proc/stat", e);
-      return null;
-    }
-    return new ProcStat(userTime, systemTime, idleTime);
-  }
 }
@@ -0,0 +1,104 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+/**
+ * Detects sustained CPU overuse and underuse from a load in percent of all cores.
+ *
+ * <p>The load is the CPU time of the process from {@link ThreadCpuSampler} over the wall time and
+ * the core count, which works on all Android versions; where it cannot be read the total load of
+ * {@link CpuMonitor}, i.e. relative to the maximum frequency, is used. Overuse is reported once the load stayed at or above the high
+ * watermark for the overuse dwell time, and again after every further dwell time, so each event
+ * can take one step down. Underuse is reported the same way below the low watermark, with a
+ * longer dwell time so a step back up does not immediately overheat the device again. Loads
+ * between the watermarks restart both timers.
+ *
+ * 모든 코어 기준의 부하로 지속적인 CPU 과사용과 저사용을 감지합니다. 상한 이상 또는 하한 이하의
+ * 부하가 유지 시간 동안 계속되면 이벤트를 보내고, 상한과 하한 사이의 부하는 두 타이머를 모두 초기화합니다.
+ */
+public class CpuOveruseDetector {
+  public static final int DEFAULT_HIGH_WATERMARK_PERCENT = 85;
+  public static final int DEFAULT_LOW_WATERMARK_PERCENT = 50;
+  public static final long DEFAULT_OVERUSE_DWELL_MS = 10000;
+  public static final long DEFAULT_UNDERUSE_DWELL_MS = 30000;
+
+  /** Receives the events on the thread that reports the load. */
+  public interface Listener {
+    void onCpuOveruse(int loadPercent);
+
+    void onCpuUnderuse(int loadPercent);
+  }
+
+  private final Listener listener;
+  private final int highWatermarkPercent;
+  private final int lowWatermarkPercent;
+  private final long overuseDwellMs;
+  private final long underuseDwellMs;
+  // Start of the current run of loads above or below the watermarks, -1 if none.
+  private long overuseStartMs = -1;
+  private long underuseStartMs = -1;
+  private boolean overusing;
+
+  public CpuOveruseDetector(Listener listener) {
+    this(listener, DEFAULT_HIGH_WATERMARK_PERCENT, DEFAULT_LOW_WATERMARK_PERCENT,
+        DEFAULT_OVERUSE_DWELL_MS, DEFAULT_UNDERUSE_DWELL_MS);
+  }
+
+  public CpuOveruseDetector(Listener listener, int highWatermarkPercent, int lowWatermarkPercent,
+      long overuseDwellMs, long underuseDwellMs) {
+    if (lowWatermarkPercent >= highWatermarkPercent) {
+      throw new IllegalArgumentException("Low watermark " + lowWatermarkPercent
+          + " must be below high watermark " + highWatermarkPercent);
+    }
+    this.listener = listener;
+    this.highWatermarkPercent = highWatermarkPercent;
+    this.lowWatermarkPercent = lowWatermarkPercent;
+    this.overuseDwellMs = overuseDwellMs;
+    this.underuseDwellMs = underuseDwellMs;
+  }
+
+  /** Feeds one load sample in percent, taken at |nowMs|. */
+  public void onLoad(int loadPercent, long nowMs) {
+    if (loadPercent >= highWatermarkPercent) {
+      underuseStartMs = -1;
+      if (overuseStartMs < 0) {
+        overuseStartMs = nowMs;
+      } else if (nowMs - overuseStartMs >= overuseDwellMs) {
+        overuseStartMs = nowMs;
+        overusing = true;
+        listener.onCpuOveruse(loadPercent);
+      }
+    } else if (loadPercent <= lowWatermarkPercent) {
+      overuseStartMs = -1;
+      overusing = false;
+      if (underuseStartMs < 0) {
+        underuseStartMs = nowMs;
+      } else if (nowMs - underuseStartMs >= underuseDwellMs) {
+        underuseStartMs = nowMs;
+        listener.onCpuUnderuse(loadPercent);
+      }
+    } else {
+      overuseStartMs = -1;
+      underuseStartMs = -1;
+    }
+  }
+
+  /** Returns true from an overuse event until the load drops below the low watermark. */
+  public boolean isOverusing() {
+    return overusing;
+  }
+
+  public void reset() {
+    overuseStartMs = -1;
+    underuseStartMs = -1;
+    overusing = false;
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import java.io.Closeable;
+import java.io.File;
+
+/**
+ * Samples the CPU times of /proc/stat and the core frequencies of cpufreq for {@link CpuMonitor}
+ * without allocating.
+ *
+ * <p>The files are kept open in {@link ProcFileReader}s and the results go into fields and
+ * arrays allocated once. The file locations are constructor arguments so tests can use fake
+ * files.
+ *
+ * CpuMonitor 를 위해 /proc/stat 의 CPU 시간과 cpufreq 의 코어 주파수를 메모리 할당 없이 샘플링합니다.
+ */
+class CpuStatSampler implements Closeable {
+  static final File PROC_STAT = new File("/proc/stat");
+  static final File CPU_DIRECTORY = new File("/sys/devices/system/cpu");
+  // /proc/stat also has one long interrupt line per boot; only the cpu lines at the top matter.
+  private static final int PROC_STAT_BUFFER_SIZE = 8192;
+  private static final int FREQUENCY_BUFFER_SIZE = 32;
+
+  private final ProcFileReader procStat;
+  private final ProcFileReader[] maxFrequencies;
+  private final ProcFileReader[] currentFrequencies;
+
+  // Aggregate times of all cores from the last readProcStat(), in clock ticks.
+  long userTime;
+  long systemTime;
+  long idleTime;
+  // Busy and total times per core; both 0 for cores that are offline.
+  final long[] coreBusyTime;
+  final long[] coreTotalTime;
+
+  CpuStatSampler(int cpuCount) {
+    this(PROC_STAT, CPU_DIRECTORY, cpuCount);
+  }
+
+  CpuStatSampler(File procStatFile, File cpuDirectory, int cpuCount) {
+    procStat = new ProcFileReader(procStatFile, PROC_STAT_BUFFER_SIZE);
+    maxFrequencies = new ProcFileReader[cpuCount];
+    currentFrequencies = new ProcFileReader[cpuCount];
+    for (int i = 0; i < cpuCount; i++) {
+      final File cpufreq = new File(cpuDirectory, "cpu" + i + "/cpufreq");
+      maxFrequencies[i] =
+          new ProcFileReader(new File(cpufreq, "cpuinfo_max_freq"), FREQUENCY_BUFFER_SIZE);
+      currentFrequencies[i] =
+          new ProcFileReader(new File(cpufreq, "scaling_cur_freq"), FREQUENCY_BUFFER_SIZE);
+    }
+    coreBusyTime = new long[cpuCount];
+    coreTotalTime = new long[cpuCount];
+  }
+
+  /** Returns the number of cores in the "present" file of |cpuDirectory|, e.g. 8 for "0-7". */
+  static int readCpusPresent(File cpuDirectory) {
+    final ProcFileReader reader =
+        new ProcFileReader(new File(cpuDirectory, "present"), FREQUENCY_BUFFER_SIZE);
+    try {
+      if (!reader.read()) {
+        return 0;
+      }
+      long last = reader.nextLong();
+      if (reader.peek() == '-') {
+        reader.skip(1);
+        last = reader.nextLong();
+      }
+      return last < 0 ? 0 : (int) last + 1;
+    } finally {
+      reader.close();
+    }
+  }
+
+  /** Reads the maximum frequency of |core|; 0 if unknown. Closes the file once it is known. */
+  long readMaxFrequency(int core) {
+    final long frequency = readFrequency(maxFrequencies[core]);
+    if (frequency > 0) {
+      maxFrequencies[core].close();
+    }
+    return frequency;
+  }
+
+  /** Reads the current frequency of |core|; 0 if the core is offline. */
+  long readCurrentFrequency(int core) {
+    return readFrequency(currentFrequencies[core]);
+  }
+
+  /**
+   * Reads the aggregate and per-core times. Iowait counts as user time, irq and softirq as
+   * system time. Returns false if the aggregate line could not be read.
+   */
+  boolean readProcStat() {
+    for (int i = 0; i < coreBusyTime.length; i++) {
+      coreBusyTime[i] = 0;
+      coreTotalTime[i] = 0;
+    }
+    if (!procStat.read()) {
+      return false;
+    }
+    boolean aggregateRead = false;
+    // Lines look like this, offline cores have no line:
+    // cpu  5093818 271838 3512830 165934119 101374 447076 272086 0 0 0
+    // cpu0 1283211 68229 879345 41365812 25481 123019 70412 0 0 0
+    //       user    nice  system     idle   iowait  irq   softirq
+    do {
+      if (!procStat.startsWith("cpu")) {
+        // The cpu lines come first.
+        break;
+      }
+      procStat.skip(3);
+      final boolean aggregate = procStat.peek() == ' ';
+      final long core = aggregate ? -1 : procStat.nextLong();
+      final long user = procStat.nextLong() + procStat.nextLong();
+      final long system = procStat.nextLong();
+      final long idle = procStat.nextLong();
+      if (user < 0 || system < 0 || idle < 0) {
+        continue;
+      }
+      final long iowait = Math.max(0, procStat.nextLong());
+      final long irq = Math.max(0, procStat.nextLong());
+      final long softirq = Math.max(0, procStat.nextLong());
+      if (aggregate) {
+        userTime = user + iowait;
+        systemTime = system + irq + softirq;
+        idleTime = idle;
+        aggregateRead = true;
+      } else if (core >= 0 && core < coreBusyTime.length) {
+        final int index = (int) core;
+        coreBusyTime[index] = user + iowait + system + irq + softirq;
+        coreTotalTime[index] = coreBusyTime[index] + idle;
+      }
+    } while (procStat.nextLine());
+    return aggregateRead;
+  }
+
+  @Override
+  public void close() {
+    procStat.close();
+    for (int i = 0; i < maxFrequencies.length; i++) {
+      maxFrequencies[i].close();
+      currentFrequencies[i].close();
+    }
+  }
+
+  private static long readFrequency(ProcFileReader reader) {
+    if (!reader.read()) {
+      return 0;
+    }
+    return Math.max(0, reader.nextLong());
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import android.util.Log;
+import java.nio.ByteBuffer;
+import org.webrtc.DataChannel;
+
+/**
+ * One data channel of a peer: delivers its messages in pooled buffers and sends from any thread.
+ *
+ * <p>The buffer of a received message points to native memory that is only valid during the
+ * observer callback, so it is copied once into a buffer of the {@link ByteBufferPool}, which the
+ * listener releases when done. A send racing with the end of the call fails instead of touching a
+ * disposed channel: disposing waits for the native calls in flight to return before it releases
+ * the channel. No lock is held across a native call, since these block on the signaling thread,
+ * where the observer callbacks run; a listener may therefore send from its callbacks.
+ *
+ * 피어의 데이터 채널 하나로, 수신 메시지를 풀 버퍼로 전달하고 어느 스레드에서든 전송합니다. 수신 버퍼는
+ * 콜백 중에만 유효한 네이티브 메모리이므로 풀 버퍼에 한 번만 복사하고, 리스너가 사용 후 해제합니다.
+ */
+class DataChannelEndpoint implements DataChannel.Observer {
+  private static final String TAG = "DataChannelEndpoint";
+
+  private final String peerId;
+  private final DataChannelKind kind;
+  private final DataChannel channel;
+  private final ByteBufferPool pool;
+  private final PeerConnectionClient.DataChannelListener listener;
+  // Only the channel created locally reports its state and buffered amount; the remote one only
+  // receives.
+  private final boolean reportState;
+  // Guarded by this. Native calls in flight, which disposing waits for.
+  private boolean disposed;
+  private int callsInFlight;
+
+  DataChannelEndpoint(String peerId, DataChannelKind kind, DataChannel channel,
+      ByteBufferPool pool, PeerConnectionClient.DataChannelListener listener,
+      boolean reportState) {
+    this.peerId = peerId;
+    this.kind = kind;
+    this.channel = channel;
+    this.pool = pool;
+    this.listener = listener;
+    this.reportState = reportState;
+    channel.registerObserver(this);
+  }
+
+  DataChannelKind getKind() {
+    return kind;
+  }
+
+  /**
+   * Sends the remaining bytes of |data|, consuming them. Returns false if the channel is not open
+   * or its send buffer is full.
+   */
+  boolean send(ByteBuffer data, boolean binary) {
+    if (!beginCall()) {
+      return false;
+    }
+    try {
+      return channel.state() == DataChannel.State.OPEN
+          && channel.send(new DataChannel.Buffer(data, binary));
+    } finally {
+      endCall();
+    }
+  }
+
+  /** Returns the bytes queued for sending, 0 once disposed. */
+  long getBufferedAmount() {
+    if (!beginCall()) {
+      return 0;
+    }
+    try {
+      return channel.bufferedAmount();
+    } finally {
+      endCall();
+    }
+  }
+
+  void dispose() {
+    synchronized (this) {
+      if (disposed) {
+        return;
+      }
+      disposed = true;
+      boolean interrupted = false;
+      while (callsInFlight > 0) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    channel.unregisterObserver();
+    channel.dispose();
+  }
+
+  // Returns false once disposed; otherwise the channel stays valid until endCall().
+  private synchronized boolean beginCall() {
+    if (disposed) {
+      return false;
+    }
+    callsInFlight++;
+    return true;
+  }
+
+  private synchronized void endCall() {
+    if (--callsInFlight == 0) {
+      notifyAll();
+    }
+  }
+
+  @Override
+  public void onBufferedAmountChange(long previousAmount) {
+    if (reportState) {
+      // The channel is not disposed before the observer is unregistered on this thread.
+      listener.onDataChannelBufferedAmountChange(peerId, kind, channel.bufferedAmount());
+    }
+  }
+
+  @Override
+  public void onStateChange() {
+    final DataChannel.State state = channel.state();
+    Log.d(TAG, "Data channel state changed: " + peerId + " " + kind.label + ": " + state);
+    if (reportState) {
+      listener.onDataChannelStateChange(peerId, kind, state);
+    }
+  }
+
+  @Override
+  public void onMessage(final DataChannel.Buffer buffer) {
+    listener.onDataChannelMessage(peerId, kind, pool.copyOf(buffer.data), buffer.binary);
+  }
+}
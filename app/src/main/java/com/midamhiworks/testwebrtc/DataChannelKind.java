@@ -0,0 +1,68 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import androidx.annotation.Nullable;
+
+/**
+ * The logical data channels opened to every peer, with their reliability and how
+ * {@link DataChannelScheduler} treats their messages.
+ *
+ * <p>The default channel keeps the reliability chosen in the settings. Control messages are
+ * ordered and reliable, telemetry and the probes of {@link LatencyProbe} are unordered and never
+ * retransmitted, and bulk data is reliable but yields to all other channels. With negotiated
+ * channels each kind uses the id of the settings plus its ordinal.
+ *
+ * 모든 피어에게 여는 논리 데이터 채널로, 각 채널의 신뢰성과 DataChannelScheduler 가 메시지를 다루는
+ * 방식을 정의합니다. 대량 데이터는 다른 모든 채널에 양보합니다.
+ */
+public enum DataChannelKind {
+  DEFAULT("ApprtcDemo data", true, false, false, -1),
+  CONTROL("control", true, false, true, -1),
+  TELEMETRY("telemetry", true, true, false, 0),
+  BULK("bulk", false, false, true, -1),
+  // Probes are not dropped: a probe that waits behind a backlog measures what the other messages
+  // wait.
+  PROBE("probe", true, false, false, 0);
+
+  public final String label;
+  // Sending of bulk data pauses while a latency sensitive channel has a backlog.
+  public final boolean latencySensitive;
+  private final boolean droppable;
+  // Set for channels whose settings are fixed; the default channel follows the settings.
+  final boolean ordered;
+  final int maxRetransmits;
+
+  DataChannelKind(String label, boolean latencySensitive, boolean droppable, boolean ordered,
+      int maxRetransmits) {
+    this.label = label;
+    this.latencySensitive = latencySensitive;
+    this.droppable = droppable;
+    this.ordered = ordered;
+    this.maxRetransmits = maxRetransmits;
+  }
+
+  /** Returns true if messages may be dropped instead of queued behind a backlog. */
+  public boolean isDroppable() {
+    return droppable;
+  }
+
+  /** Returns the kind of the channel labeled |label|, null if it is unknown. */
+  @Nullable
+  public static DataChannelKind fromLabel(String label) {
+    for (DataChannelKind kind : values()) {
+      if (kind.label.equals(label)) {
+        return kind;
+      }
+    }
+    return null;
+  }
+}
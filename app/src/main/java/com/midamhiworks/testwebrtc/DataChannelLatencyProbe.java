@@ -0,0 +1,113 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import android.util.Log;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.webrtc.DataChannel;
+
+/**
+ * Runs a {@link LatencyProbe} on the probe data channel of one peer of
+ * {@link PeerConnectionClient}.
+ *
+ * <p>Pings are sent every |intervalMs| while the channel is open; pings of the peer are always
+ * answered. The receive time of a message is taken in the observer callback, before the message
+ * waits for the probe thread, so that this wait is not counted as network time. Sending and the
+ * handling of messages run on one thread of their own: sending blocks on the signaling thread,
+ * where the callbacks run.
+ *
+ * PeerConnectionClient 의 한 피어의 프로브 데이터 채널에서 LatencyProbe 를 실행합니다. 채널이 열려 있는
+ * 동안 주기적으로 핑을 보내고 피어의 핑에는 항상 응답합니다. 수신 시각은 콜백에서 기록하여 프로브 스레드를
+ * 기다린 시간이 네트워크 시간에 포함되지 않게 합니다.
+ */
+class DataChannelLatencyProbe implements PeerConnectionClient.DataChannelListener {
+  private static final String TAG = "DataChannelLatencyProbe";
+
+  private final String peerId;
+  private final int intervalMs;
+  private final LatencyProbe.Clock clock = LatencyProbe.createSystemClock();
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+  private final LatencyProbe probe;
+  // Only used on the executor.
+  private ScheduledFuture<?> pingFuture;
+
+  /** Probes |peerId| every |intervalMs|; 0 only answers the pings of the peer. */
+  DataChannelLatencyProbe(PeerConnectionClient client, String peerId, int intervalMs) {
+    this.peerId = peerId;
+    this.intervalMs = intervalMs;
+    this.probe = new LatencyProbe(
+        message -> client.sendData(peerId, DataChannelKind.PROBE, message, true), clock);
+  }
+
+  LatencyProbe getProbe() {
+    return probe;
+  }
+
+  void close() {
+    executor.shutdownNow();
+    Log.d(TAG, "Probe of " + peerId + ": " + probe);
+  }
+
+  @Override
+  public void onDataChannelMessage(String peerId, DataChannelKind kind,
+      ByteBufferPool.PooledBuffer message, boolean binary) {
+    final long receivedMicros = clock.nowMicros();
+    if (!binary || !this.peerId.equals(peerId)) {
+      message.release();
+      return;
+    }
+    try {
+      executor.execute(() -> {
+        try {
+          if (!probe.onMessage(message.getData(), receivedMicros)) {
+            Log.d(TAG, "Ignored message of " + message.getData().remaining() + " bytes");
+          }
+        } finally {
+          message.release();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // Closed.
+      message.release();
+    }
+  }
+
+  @Override
+  public void onDataChannelStateChange(
+      String peerId, DataChannelKind kind, DataChannel.State state) {
+    if (!this.peerId.equals(peerId) || intervalMs <= 0) {
+      return;
+    }
+    final boolean open = state == DataChannel.State.OPEN;
+    try {
+      executor.execute(() -> {
+        if (pingFuture != null) {
+          pingFuture.cancel(false);
+          pingFuture = null;
+        }
+        if (open) {
+          pingFuture = executor.scheduleAtFixedRate(
+              probe::sendPing, 0, intervalMs, TimeUnit.MILLISECONDS);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // Closed.
+    }
+  }
+
+  @Override
+  public void onDataChannelBufferedAmountChange(
+      String peerId, DataChannelKind kind, long bufferedAmount) {}
+}
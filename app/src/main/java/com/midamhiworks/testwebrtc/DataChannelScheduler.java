@@ -0,0 +1,168 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decides which messages go out on the data channels of one peer, so that latency sensitive
+ * messages are not queued behind bulk data.
+ *
+ * <p>All channels of a peer share one SCTP association, and a message waits behind everything
+ * handed to it earlier, whatever its channel. The scheduler therefore tracks the buffered amount
+ * of every channel. Messages of latency sensitive channels are always sent right away. Droppable
+ * messages, e.g. telemetry, are dropped once the channels together buffer
+ * {@link #DEFAULT_DROP_THRESHOLD} bytes, since they would be stale when they arrive. Bulk data is
+ * paced by {@link #getBulkBufferedAmount}, which counts the backlog of all channels and reports
+ * the bulk channel as full while a latency sensitive channel has a backlog of its own.
+ *
+ * <p>Messages may be sent on any thread. The buffered amounts are reported on the signaling
+ * thread, and the lock is never held while calling a channel, which blocks on that thread.
+ *
+ * 한 피어의 데이터 채널로 나갈 메시지를 결정하여 지연에 민감한 메시지가 대량 데이터 뒤에서 기다리지 않게
+ * 합니다. 모든 채널이 SCTP 연결 하나를 공유하므로 채널별 버퍼량을 추적합니다. 지연에 민감한 메시지는 바로
+ * 보내고, 버려도 되는 메시지는 버퍼가 쌓이면 버리며, 대량 데이터는 다른 채널에 밀린 데이터가 있는 동안
+ * 멈춥니다.
+ */
+public class DataChannelScheduler {
+  public static final long DEFAULT_DROP_THRESHOLD = 64 * 1024;
+
+  /** The data channels of the peer. */
+  public interface Channels {
+    /** Sends the remaining bytes of |data|; returns false if the channel is not open or full. */
+    boolean send(DataChannelKind kind, ByteBuffer data, boolean binary);
+
+    long getBufferedAmount(DataChannelKind kind);
+  }
+
+  private static final DataChannelKind[] KINDS = DataChannelKind.values();
+
+  private final Channels channels;
+  private final long dropThreshold;
+  private final long[] bufferedAmounts = new long[KINDS.length];
+  private final long[] sentMessages = new long[KINDS.length];
+  private final long[] sentBytes = new long[KINDS.length];
+  private final long[] droppedMessages = new long[KINDS.length];
+  private final long[] failedMessages = new long[KINDS.length];
+
+  public DataChannelScheduler(Channels channels) {
+    this(channels, DEFAULT_DROP_THRESHOLD);
+  }
+
+  public DataChannelScheduler(Channels channels, long dropThreshold) {
+    this.channels = channels;
+    this.dropThreshold = dropThreshold;
+  }
+
+  /**
+   * Sends the remaining bytes of |data| on the channel of |kind|, unless it is droppable and the
+   * channels are backed up. Returns false if the message was not sent.
+   */
+  public boolean send(DataChannelKind kind, ByteBuffer data, boolean binary) {
+    final int index = kind.ordinal();
+    final int size = data.remaining();
+    synchronized (this) {
+      if (kind.isDroppable() && getTotalBufferedAmount() >= dropThreshold) {
+        droppedMessages[index]++;
+        return false;
+      }
+    }
+    final boolean sent = channels.send(kind, data, binary);
+    // Read after sending so that the next decision sees this message even before the channel
+    // reports it.
+    final long bufferedAmount = sent ? channels.getBufferedAmount(kind) : 0;
+    synchronized (this) {
+      if (!sent) {
+        failedMessages[index]++;
+        return false;
+      }
+      bufferedAmounts[index] = bufferedAmount;
+      sentMessages[index]++;
+      sentBytes[index] += size;
+    }
+    return true;
+  }
+
+  /** Updates the buffered amount of the channel of |kind|, as reported by the channel. */
+  public synchronized void onBufferedAmountChange(DataChannelKind kind, long bufferedAmount) {
+    bufferedAmounts[kind.ordinal()] = bufferedAmount;
+  }
+
+  /** Forgets the buffered amount of a closed channel. */
+  public synchronized void onChannelClosed(DataChannelKind kind) {
+    bufferedAmounts[kind.ordinal()] = 0;
+  }
+
+  /**
+   * Returns the buffered amount to pace bulk data by: that of all channels, or
+   * {@link Long#MAX_VALUE} while a latency sensitive channel has a backlog.
+   */
+  public synchronized long getBulkBufferedAmount() {
+    long total = 0;
+    for (DataChannelKind kind : KINDS) {
+      final long bufferedAmount = bufferedAmounts[kind.ordinal()];
+      if (kind.latencySensitive && bufferedAmount > 0) {
+        return Long.MAX_VALUE;
+      }
+      total += bufferedAmount;
+    }
+    return total;
+  }
+
+  /** Returns the last known buffered amount of the channel of |kind|. */
+  public synchronized long getBufferedAmount(DataChannelKind kind) {
+    return bufferedAmounts[kind.ordinal()];
+  }
+
+  public synchronized long getTotalBufferedAmount() {
+    long total = 0;
+    for (long bufferedAmount : bufferedAmounts) {
+      total += bufferedAmount;
+    }
+    return total;
+  }
+
+  public synchronized long getSentMessages(DataChannelKind kind) {
+    return sentMessages[kind.ordinal()];
+  }
+
+  public synchronized long getDroppedMessages(DataChannelKind kind) {
+    return droppedMessages[kind.ordinal()];
+  }
+
+  /** Returns the messages and bytes sent, dropped and failed per channel, e.g. for the log. */
+  @Override
+  public synchronized String toString() {
+    final StringBuilder builder = new StringBuilder();
+    for (DataChannelKind kind : KINDS) {
+      final int index = kind.ordinal();
+      if (sentMessages[index] == 0 && droppedMessages[index] == 0 && failedMessages[index] == 0) {
+        continue;
+      }
+      if (builder.length() > 0) {
+        builder.append(", ");
+      }
+      builder.append(kind.label)
+          .append(": sent ")
+          .append(sentMessages[index])
+          .append(" (")
+          .append(sentBytes[index] / 1024)
+          .append(" KB)");
+      if (droppedMessages[index] > 0) {
+        builder.append(" dropped ").append(droppedMessages[index]);
+      }
+      if (failedMessages[index] > 0) {
+        builder.append(" failed ").append(failedMessages[index]);
+      }
+    }
+    return builder.length() > 0 ? builder.toString() : "nothing sent";
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import android.os.Build;
+import android.os.Debug;
+
+/**
+ * Reads the memory values of this process for {@link MemoryMonitor} from the runtime and
+ * {@link Debug}. The GC and allocation counters of ART are only available on Android M and
+ * later.
+ *
+ * MemoryMonitor 를 위해 런타임과 Debug 에서 이 프로세스의 메모리 값을 읽습니다. ART 의 GC 및 할당
+ * 카운터는 Android M 이상에서만 사용할 수 있습니다.
+ */
+class DebugMemoryReader implements MemoryMonitor.Reader {
+  private final Runtime runtime = Runtime.getRuntime();
+
+  @Override
+  public void read(MemoryMonitor.Sample sample, boolean readPss) {
+    sample.javaHeapUsedBytes = runtime.totalMemory() - runtime.freeMemory();
+    sample.javaHeapMaxBytes = runtime.maxMemory();
+    sample.nativeHeapBytes = Debug.getNativeHeapAllocatedSize();
+    if (readPss) {
+      sample.pssKb = Debug.getPss();
+    }
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+      sample.gcCount = getRuntimeStat("art.gc.gc-count");
+      sample.gcTimeMs = getRuntimeStat("art.gc.gc-time");
+      sample.bytesAllocated = getRuntimeStat("art.gc.bytes-allocated");
+    }
+  }
+
+  private static long getRuntimeStat(String name) {
+    final String value = Debug.getRuntimeStat(name);
+    if (value == null) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+}
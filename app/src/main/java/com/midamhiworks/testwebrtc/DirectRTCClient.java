@@ -26,6 +26,11 @@ import org.webrtc.IceCandidate;
 import org.webrtc.PeerConnection;
 import org.webrtc.SessionDescription;
 
+import static com.midamhiworks.testwebrtc.SignalingJson.jsonPut;
+import static com.midamhiworks.testwebrtc.SignalingJson.toJavaCandidate;
+import static com.midamhiworks.testwebrtc.SignalingJson.toJsonCandidate;
+import static com.midamhiworks.testwebrtc.SignalingJson.toJsonSdp;
+
 /**
  * Implementation of AppRTCClient that uses direct TCP connection as the signaling channel.
  * This eliminates the need for an external server. This class does not support loopback connections.
@@ -162,9 +167,7 @@ public class DirectRTCClient implements AppRTCClient, TCPChannelClient.TCPChanne
         reportError("Sending offer SDP in non connected state.");
         return;
       }
-      JSONObject json = new JSONObject();
-      jsonPut(json, "sdp", sdp.description);
-      jsonPut(json, "type", "offer");
+      JSONObject json = toJsonSdp(sdp, "offer");
       sendMessage(json.toString());
     });
   }
@@ -172,9 +175,7 @@ public class DirectRTCClient implements AppRTCClient, TCPChannelClient.TCPChanne
   @Override
   public void sendAnswerSdp(final SessionDescription sdp) {
     executor.execute(() -> {
-      JSONObject json = new JSONObject();
-      jsonPut(json, "sdp", sdp.description);
-      jsonPut(json, "type", "answer");
+      JSONObject json = toJsonSdp(sdp, "answer");
       sendMessage(json.toString());
     });
   }
@@ -308,28 +309,4 @@ public class DirectRTCClient implements AppRTCClient, TCPChannelClient.TCPChanne
   private void sendMessage(final String message) {
     executor.execute(() -> tcpClient.send(message));
   }
-
-  // Put a |key|->|value| mapping in |json|.
-  private static void jsonPut(JSONObject json, String key, Object value) {
-    try {
-      json.put(key, value);
-    } catch (JSONException e) {
-      throw new RuntimeException(e);
-    }
-  }
-
-  // Converts a Java candidate to a JSONObject.
-  private static JSONObject toJsonCandidate(final IceCandidate candidate) {
-    JSONObject json = new JSONObject();
-    jsonPut(json, "label", candidate.sdpMLineIndex);
-    jsonPut(json, "id", candidate.sdpMid);
-    jsonPut(json, "candidate", candidate.sdp);
-    return json;
-  }
-
-  // Converts a JSON candidate to a Java object.
-  private static IceCandidate toJavaCandidate(JSONObject json) throws JSONException {
-    return new IceCandidate(
-        json.getString("id"), json.getInt("label"), json.getString("candidate"));
-  }
 }
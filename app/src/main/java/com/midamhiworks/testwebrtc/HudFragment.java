@@ -12,6 +12,9 @@ package com.midamhiworks.testwebrtc;
 
 import android.app.Fragment;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.TypedValue;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -19,11 +22,6 @@ import android.view.ViewGroup;
 import android.widget.ImageButton;
 import android.widget.TextView;
 
-import org.webrtc.StatsReport;
-
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Fragment for HUD statistics display.
  *
@@ -38,6 +36,10 @@ HudFragment (제거)
 - 디버깅과 관련된 클래스이므로 제거.
  */
 public class HudFragment extends Fragment {
+  // Stats are shown at most this often, however fast they arrive.
+  // 통계가 아무리 빨리 도착해도 이 주기보다 자주 표시하지 않습니다.
+  private static final int MIN_UPDATE_INTERVAL_MS = 500;
+
   private TextView encoderStatView;
   private TextView hudViewBwe;
   private TextView hudViewConnection;
@@ -47,7 +49,23 @@ public class HudFragment extends Fragment {
   private boolean videoCallEnabled;
   private boolean displayHud;
   private volatile boolean isRunning;
+  private volatile boolean hidden;
+  private volatile boolean hudViewsVisible;
   private CpuMonitor cpuMonitor;
+  private ThreadCpuSampler threadCpuSampler;
+  private MemoryMonitor memoryMonitor;
+  private LatencyProbe latencyProbe;
+
+  // Stats are formatted on the stats thread; the UI thread only sets the texts that changed.
+  // 통계는 통계 스레드에서 포맷되고, UI 스레드는 변경된 텍스트만 설정합니다.
+  private final Handler uiHandler = new Handler(Looper.getMainLooper());
+  private final Runnable applyTextsRunnable = this::applyTexts;
+  private final Object textLock = new Object();
+  private final TextView[] textViews = new TextView[HudStatsFormatter.FIELD_COUNT];
+  private final String[] appliedTexts = new String[HudStatsFormatter.FIELD_COUNT];
+  private HudStatsFormatter formatter;
+  private int pendingFields;
+  private long lastUpdateMs;
 
   @Override
   public View onCreateView(
@@ -61,12 +79,20 @@ public class HudFragment extends Fragment {
     hudViewVideoSend = controlView.findViewById(R.id.hud_stat_video_send);
     hudViewVideoRecv = controlView.findViewById(R.id.hud_stat_video_recv);
     toggleDebugButton = controlView.findViewById(R.id.button_toggle_debug);
+    textViews[HudStatsFormatter.FIELD_ENCODER] = encoderStatView;
+    textViews[HudStatsFormatter.FIELD_BWE] = hudViewBwe;
+    textViews[HudStatsFormatter.FIELD_CONNECTION] = hudViewConnection;
+    textViews[HudStatsFormatter.FIELD_VIDEO_SEND] = hudViewVideoSend;
+    textViews[HudStatsFormatter.FIELD_VIDEO_RECV] = hudViewVideoRecv;
+    // The text size never changes, so it is set once instead of on every toggle.
+    // 텍스트 크기는 바뀌지 않으므로 토글할 때마다가 아니라 한 번만 설정합니다.
+    for (int i = HudStatsFormatter.FIELD_BWE; i < HudStatsFormatter.FIELD_COUNT; i++) {
+      textViews[i].setTextSize(TypedValue.COMPLEX_UNIT_PT, 5);
+    }
 
     toggleDebugButton.setOnClickListener(view -> {
       if (displayHud) {
-        int visibility =
-            (hudViewBwe.getVisibility() == View.VISIBLE) ? View.INVISIBLE : View.VISIBLE;
-        hudViewsSetProperties(visibility);
+        hudViewsSetProperties(hudViewsVisible ? View.INVISIBLE : View.VISIBLE);
       }
     });
 
@@ -86,126 +112,106 @@ public class HudFragment extends Fragment {
     encoderStatView.setVisibility(visibility);
     toggleDebugButton.setVisibility(visibility);
     hudViewsSetProperties(View.INVISIBLE);
+    synchronized (textLock) {
+      // The views may have been recreated, so the next stats set all texts again.
+      // 뷰가 다시 생성되었을 수 있으므로 다음 통계에서 모든 텍스트를 다시 설정합니다.
+      formatter = new HudStatsFormatter(videoCallEnabled);
+      pendingFields = 0;
+      lastUpdateMs = 0;
+    }
     isRunning = true;
   }
 
   @Override
   public void onStop() {
     isRunning = false;
+    uiHandler.removeCallbacks(applyTextsRunnable);
+    synchronized (textLock) {
+      pendingFields = 0;
+    }
     super.onStop();
   }
 
+  @Override
+  public void onHiddenChanged(boolean hidden) {
+    super.onHiddenChanged(hidden);
+    this.hidden = hidden;
+  }
+
   public void setCpuMonitor(CpuMonitor cpuMonitor) {
     this.cpuMonitor = cpuMonitor;
   }
 
+  public void setThreadCpuSampler(ThreadCpuSampler threadCpuSampler) {
+    this.threadCpuSampler = threadCpuSampler;
+  }
+
+  public void setMemoryMonitor(MemoryMonitor memoryMonitor) {
+    this.memoryMonitor = memoryMonitor;
+  }
+
+  public void setLatencyProbe(LatencyProbe latencyProbe) {
+    this.latencyProbe = latencyProbe;
+  }
+
   private void hudViewsSetProperties(int visibility) {
     hudViewBwe.setVisibility(visibility);
     hudViewConnection.setVisibility(visibility);
     hudViewVideoSend.setVisibility(visibility);
     hudViewVideoRecv.setVisibility(visibility);
-    hudViewBwe.setTextSize(TypedValue.COMPLEX_UNIT_PT, 5);
-    hudViewConnection.setTextSize(TypedValue.COMPLEX_UNIT_PT, 5);
-    hudViewVideoSend.setTextSize(TypedValue.COMPLEX_UNIT_PT, 5);
-    hudViewVideoRecv.setTextSize(TypedValue.COMPLEX_UNIT_PT, 5);
+    // Invisible detail views are not formatted at all.
+    // 보이지 않는 상세 뷰는 포맷하지 않습니다.
+    hudViewsVisible = visibility == View.VISIBLE;
   }
 
-  private Map<String, String> getReportMap(StatsReport report) {
-    Map<String, String> reportMap = new HashMap<>();
-    for (StatsReport.Value value : report.values) {
-      reportMap.put(value.name, value.value);
-    }
-    return reportMap;
-  }
-
-  public void updateEncoderStatistics(final StatsReport[] reports) {
-    if (!isRunning || !displayHud) {
+  /**
+   * Formats |stats| on the calling thread and posts only the changed texts to the UI thread. May
+   * be called from any thread; |stats| is not used after the call returns.
+   */
+  public void updateEncoderStatistics(final StatsSnapshot stats) {
+    if (!isRunning || !displayHud || hidden) {
       return;
     }
-    StringBuilder encoderStat = new StringBuilder(128);
-    StringBuilder bweStat = new StringBuilder();
-    StringBuilder connectionStat = new StringBuilder();
-    StringBuilder videoSendStat = new StringBuilder();
-    StringBuilder videoRecvStat = new StringBuilder();
-    String fps = null;
-    String targetBitrate = null;
-    String actualBitrate = null;
-
-    for (StatsReport report : reports) {
-      if (report.type.equals("ssrc") && report.id.contains("ssrc") && report.id.contains("send")) {
-        // Send video statistics.
-        Map<String, String> reportMap = getReportMap(report);
-        String trackId = reportMap.get("googTrackId");
-        if (trackId != null && trackId.contains(PeerConnectionClient.VIDEO_TRACK_ID)) {
-          fps = reportMap.get("googFrameRateSent");
-          videoSendStat.append(report.id).append("\n");
-          for (StatsReport.Value value : report.values) {
-            String name = value.name.replace("goog", "");
-            videoSendStat.append(name).append("=").append(value.value).append("\n");
-          }
-        }
-      } else if (report.type.equals("ssrc") && report.id.contains("ssrc")
-          && report.id.contains("recv")) {
-        // Receive video statistics.
-        Map<String, String> reportMap = getReportMap(report);
-        // Check if this stat is for video track.
-        String frameWidth = reportMap.get("googFrameWidthReceived");
-        if (frameWidth != null) {
-          videoRecvStat.append(report.id).append("\n");
-          for (StatsReport.Value value : report.values) {
-            String name = value.name.replace("goog", "");
-            videoRecvStat.append(name).append("=").append(value.value).append("\n");
-          }
-        }
-      } else if (report.id.equals("bweforvideo")) {
-        // BWE statistics.
-        Map<String, String> reportMap = getReportMap(report);
-        targetBitrate = reportMap.get("googTargetEncBitrate");
-        actualBitrate = reportMap.get("googActualEncBitrate");
-
-        bweStat.append(report.id).append("\n");
-        for (StatsReport.Value value : report.values) {
-          String name = value.name.replace("goog", "").replace("Available", "");
-          bweStat.append(name).append("=").append(value.value).append("\n");
-        }
-      } else if (report.type.equals("googCandidatePair")) {
-        // Connection statistics.
-        Map<String, String> reportMap = getReportMap(report);
-        String activeConnection = reportMap.get("googActiveConnection");
-        if (activeConnection != null && activeConnection.equals("true")) {
-          connectionStat.append(report.id).append("\n");
-          for (StatsReport.Value value : report.values) {
-            String name = value.name.replace("goog", "");
-            connectionStat.append(name).append("=").append(value.value).append("\n");
-          }
-        }
-      }
-    }
-    hudViewBwe.setText(bweStat.toString());
-    hudViewConnection.setText(connectionStat.toString());
-    hudViewVideoSend.setText(videoSendStat.toString());
-    hudViewVideoRecv.setText(videoRecvStat.toString());
-
-    if (videoCallEnabled) {
-      if (fps != null) {
-        encoderStat.append("Fps:  ").append(fps).append("\n");
+    final long nowMs = SystemClock.elapsedRealtime();
+    synchronized (textLock) {
+      if (formatter == null || nowMs - lastUpdateMs < MIN_UPDATE_INTERVAL_MS) {
+        return;
       }
-      if (targetBitrate != null) {
-        encoderStat.append("Target BR: ").append(targetBitrate).append("\n");
+      lastUpdateMs = nowMs;
+      final int changed;
+      if (cpuMonitor != null) {
+        changed = formatter.format(stats, hudViewsVisible, cpuMonitor.getCpuUsageCurrent(),
+            cpuMonitor.getCpuUsageAverage(), cpuMonitor.getFrequencyScaleAverage(),
+            threadCpuSampler, memoryMonitor, latencyProbe);
+      } else {
+        changed = formatter.format(stats, hudViewsVisible, -1, 0, 0, threadCpuSampler,
+            memoryMonitor, latencyProbe);
       }
-      if (actualBitrate != null) {
-        encoderStat.append("Actual BR: ").append(actualBitrate).append("\n");
+      // A single update is pending at a time; later changes are merged into it.
+      // 대기 중인 갱신은 하나뿐이며, 이후 변경 사항은 여기에 합쳐집니다.
+      final boolean post = pendingFields == 0 && changed != 0;
+      pendingFields |= changed;
+      if (post) {
+        uiHandler.post(applyTextsRunnable);
       }
     }
+  }
 
-    if (cpuMonitor != null) {
-      encoderStat.append("CPU%: ")
-          .append(cpuMonitor.getCpuUsageCurrent())
-          .append("/")
-          .append(cpuMonitor.getCpuUsageAverage())
-          .append(". Freq: ")
-          .append(cpuMonitor.getFrequencyScaleAverage());
+  private void applyTexts() {
+    final int fields;
+    synchronized (textLock) {
+      fields = pendingFields;
+      pendingFields = 0;
+      for (int i = 0; i < HudStatsFormatter.FIELD_COUNT; i++) {
+        if ((fields & (1 << i)) != 0) {
+          appliedTexts[i] = formatter.getText(i);
+        }
+      }
+    }
+    for (int i = 0; i < HudStatsFormatter.FIELD_COUNT; i++) {
+      if ((fields & (1 << i)) != 0) {
+        textViews[i].setText(appliedTexts[i]);
+      }
     }
-    encoderStatView.setText(encoderStat.toString());
   }
 }
@@ -0,0 +1,168 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Formats a {@link StatsSnapshot} into the texts of the HUD and tracks which texts changed.
+ *
+ * <p>Texts are built in reusable buffers and compared with the last result; only a changed text
+ * is turned into a new String, so a steady call formats without allocating. Not thread safe;
+ * {@link HudFragment} guards it with its own lock.
+ *
+ * StatsSnapshot 을 HUD 텍스트로 포맷하고 변경된 텍스트를 추적합니다. 재사용 버퍼에 포맷한 후 이전 결과와
+ * 비교하여 바뀐 텍스트만 새 String 으로 만듭니다.
+ */
+public class HudStatsFormatter {
+  public static final int FIELD_ENCODER = 0;
+  public static final int FIELD_BWE = 1;
+  public static final int FIELD_CONNECTION = 2;
+  public static final int FIELD_VIDEO_SEND = 3;
+  public static final int FIELD_VIDEO_RECV = 4;
+  public static final int FIELD_COUNT = 5;
+
+  private final boolean videoCallEnabled;
+  private final StringBuilder[] buffers = new StringBuilder[FIELD_COUNT];
+  private final String[] texts = new String[FIELD_COUNT];
+  // Busiest thread groups shown in the encoder text.
+  private final ThreadCpuSampler.Group[] topThreadGroups = new ThreadCpuSampler.Group[3];
+
+  public HudStatsFormatter(boolean videoCallEnabled) {
+    this.videoCallEnabled = videoCallEnabled;
+    for (int i = 0; i < FIELD_COUNT; i++) {
+      buffers[i] = new StringBuilder(256);
+      texts[i] = "";
+    }
+  }
+
+  /**
+   * Formats |stats| and returns a bit mask, {@code 1 << FIELD_x}, of the texts that changed. The
+   * detailed fields are only formatted if |detailed| is set. A negative |cpuCurrent| means that
+   * no CPU usage is available; |threadCpu| adds the busiest thread groups, |memory| the memory
+   * use and |probe| the data channel round trip time to the connection text if set.
+   */
+  public int format(StatsSnapshot stats, boolean detailed, int cpuCurrent, int cpuAverage,
+      int frequencyScale, @Nullable ThreadCpuSampler threadCpu, @Nullable MemoryMonitor memory,
+      @Nullable LatencyProbe probe) {
+    int changed = 0;
+    final StatsSnapshot.CandidatePair pair = stats.candidatePair;
+    final StatsSnapshot.OutboundRtp send = stats.videoOutbound;
+
+    StringBuilder encoderStat = clear(FIELD_ENCODER);
+    if (videoCallEnabled && send.present) {
+      encoderStat.append("Fps:  ").append((int) send.encodedFps).append("\n");
+      encoderStat.append("Available BR: ").append(pair.availableOutgoingBitrateKbps).append("\n");
+      encoderStat.append("Actual BR: ").append(send.bitrateKbps).append("\n");
+    }
+    if (cpuCurrent >= 0) {
+      encoderStat.append("CPU%: ")
+          .append(cpuCurrent)
+          .append("/")
+          .append(cpuAverage)
+          .append(". Freq: ")
+          .append(frequencyScale);
+    }
+    if (threadCpu != null) {
+      newLine(encoderStat);
+      encoderStat.append("Threads: ");
+      threadCpu.appendTopGroups(encoderStat, topThreadGroups);
+    }
+    if (memory != null) {
+      newLine(encoderStat);
+      memory.appendTo(encoderStat);
+    }
+    changed |= commit(FIELD_ENCODER);
+
+    if (!detailed) {
+      return changed;
+    }
+
+    StringBuilder bweStat = clear(FIELD_BWE);
+    StringBuilder connectionStat = clear(FIELD_CONNECTION);
+    if (pair.present) {
+      bweStat.append("SendBandwidth=").append(pair.availableOutgoingBitrateKbps).append(" kbps\n")
+          .append("RecvBandwidth=").append(pair.availableIncomingBitrateKbps).append(" kbps\n");
+      connectionStat.append("State=").append(pair.state).append("\n")
+          .append("Rtt=").append((int) pair.roundTripTimeMs).append(" ms\n")
+          .append("Local=").append(pair.localCandidateType).append(' ').append(pair.protocol)
+          .append(' ').append(pair.networkType).append("\n")
+          .append("Remote=").append(pair.remoteCandidateType).append("\n")
+          .append("Send=").append(pair.sendBitrateKbps).append(" kbps\n")
+          .append("Recv=").append(pair.receiveBitrateKbps).append(" kbps\n");
+    }
+    if (probe != null) {
+      probe.appendTo(connectionStat);
+    }
+    changed |= commit(FIELD_BWE);
+    changed |= commit(FIELD_CONNECTION);
+
+    StringBuilder videoSendStat = clear(FIELD_VIDEO_SEND);
+    if (send.present) {
+      videoSendStat.append("Size=").append(send.frameWidth).append('x').append(send.frameHeight)
+          .append("\n")
+          .append("Fps=").append((int) send.encodedFps).append("\n")
+          .append("Bitrate=").append(send.bitrateKbps).append(" kbps\n")
+          .append("Retransmit=").append(send.retransmitBitrateKbps).append(" kbps\n")
+          .append("EncodeTime=").append((int) send.encodeTimeMsPerFrame).append(" ms\n")
+          .append("Limitation=").append(send.qualityLimitationReason).append("\n")
+          .append("Nacks=").append(send.nackCount).append(" Plis=").append(send.pliCount)
+          .append("\n");
+    }
+    final StatsSnapshot.MediaSource source = stats.videoSource;
+    if (source.present) {
+      videoSendStat.append("Capture=").append(source.width).append('x').append(source.height)
+          .append('@').append((int) source.framesPerSecond).append("\n");
+    }
+    changed |= commit(FIELD_VIDEO_SEND);
+
+    StringBuilder videoRecvStat = clear(FIELD_VIDEO_RECV);
+    final StatsSnapshot.InboundRtp recv = stats.videoInbound;
+    if (recv.present) {
+      videoRecvStat.append("Size=").append(recv.frameWidth).append('x').append(recv.frameHeight)
+          .append("\n")
+          .append("Fps=").append((int) recv.decodedFps).append("\n")
+          .append("Bitrate=").append(recv.bitrateKbps).append(" kbps\n")
+          .append("Loss=").append((int) recv.packetLossPercent).append(" %\n")
+          .append("Jitter=").append((int) recv.jitterMs).append(" ms\n")
+          .append("DecodeTime=").append((int) recv.decodeTimeMsPerFrame).append(" ms\n")
+          .append("Dropped=").append(recv.framesDropped).append(" Freezes=")
+          .append(recv.freezeCount).append("\n");
+    }
+    changed |= commit(FIELD_VIDEO_RECV);
+    return changed;
+  }
+
+  /** Returns the last formatted text of |field|. */
+  public String getText(int field) {
+    return texts[field];
+  }
+
+  private static void newLine(StringBuilder builder) {
+    if (builder.length() > 0 && builder.charAt(builder.length() - 1) != '\n') {
+      builder.append("\n");
+    }
+  }
+
+  private StringBuilder clear(int field) {
+    StringBuilder buffer = buffers[field];
+    buffer.setLength(0);
+    return buffer;
+  }
+
+  private int commit(int field) {
+    if (texts[field].contentEquals(buffers[field])) {
+      return 0;
+    }
+    texts[field] = buffers[field].toString();
+    return 1 << field;
+  }
+}
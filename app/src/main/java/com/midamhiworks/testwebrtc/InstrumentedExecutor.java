@@ -0,0 +1,107 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import android.util.Log;
+import androidx.annotation.Nullable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-thread executor with a named thread that measures how long tasks wait in the queue and
+ * how long they run, and warns about slow tasks.
+ *
+ * <p>Tasks submitted after shutdown are dropped with a log message instead of throwing, since
+ * WebRTC observers may still post work while the owner is closing.
+ *
+ * 이름 있는 스레드를 사용하는 단일 스레드 실행자로, 작업의 큐 대기 시간과 실행 시간을 측정하고 느린 작업을
+ * 경고합니다. 종료 후 제출된 작업은 예외 대신 로그를 남기고 버립니다.
+ */
+public class InstrumentedExecutor extends ThreadPoolExecutor {
+  private static final String TAG = "InstrumentedExecutor";
+
+  private final String name;
+  private final long slowTaskThresholdMs;
+  private final LatencyHistogram waitTimeHistogram;
+  private final LatencyHistogram runTimeHistogram;
+
+  // Records the queueing and run time of one task.
+  private class TimedTask implements Runnable {
+    @Nullable private final String taskName;
+    private final Runnable command;
+    private final long enqueueTimeNs = System.nanoTime();
+
+    TimedTask(@Nullable String taskName, Runnable command) {
+      this.taskName = taskName;
+      this.command = command;
+    }
+
+    @Override
+    public void run() {
+      final long startTimeNs = System.nanoTime();
+      try {
+        command.run();
+      } finally {
+        final long waitMs = TimeUnit.NANOSECONDS.toMillis(startTimeNs - enqueueTimeNs);
+        final long runMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTimeNs);
+        waitTimeHistogram.record(waitMs);
+        runTimeHistogram.record(runMs);
+        if (waitMs + runMs >= slowTaskThresholdMs) {
+          Log.w(TAG, name + ": slow task "
+              + (taskName != null ? taskName : command.getClass().getName()) + " waited "
+                  + waitMs + " ms, ran " + runMs + " ms, queue depth " + getQueueDepth());
+        }
+      }
+    }
+  }
+
+  public InstrumentedExecutor(final String name, long slowTaskThresholdMs) {
+    super(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+        runnable -> new Thread(runnable, name),
+        (runnable, executor) -> Log.d(TAG, name + ": dropping task after shutdown."));
+    this.name = name;
+    this.slowTaskThresholdMs = slowTaskThresholdMs;
+    this.waitTimeHistogram = new LatencyHistogram(name + " wait");
+    this.runTimeHistogram = new LatencyHistogram(name + " run");
+  }
+
+  /** Runs |command| on the executor thread; |taskName| is used in slow task warnings. */
+  public void execute(@Nullable String taskName, Runnable command) {
+    super.execute(new TimedTask(taskName, command));
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    execute(null, command);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /** Returns the number of tasks waiting to run. */
+  public int getQueueDepth() {
+    return getQueue().size();
+  }
+
+  public LatencyHistogram getWaitTimeHistogram() {
+    return waitTimeHistogram;
+  }
+
+  public LatencyHistogram getRunTimeHistogram() {
+    return runTimeHistogram;
+  }
+
+  public String getStatsSummary() {
+    return waitTimeHistogram + ", " + runTimeHistogram + ", queue depth " + getQueueDepth();
+  }
+}
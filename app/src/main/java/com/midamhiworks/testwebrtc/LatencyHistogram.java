@@ -0,0 +1,121 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+/**
+ * Fixed-size histogram of millisecond durations with power-of-two buckets.
+ *
+ * <p>Recording is a few arithmetic operations and never allocates, so it can be used on hot
+ * paths. Percentiles are reported as the upper bound of the bucket they fall in.
+ * This class is thread-safe.
+ *
+ * 2의 거듭제곱 버킷을 사용하는 고정 크기 밀리초 히스토그램입니다. 기록 시 메모리를 할당하지 않습니다.
+ */
+public class LatencyHistogram {
+  // Bucket 0 holds values below 1 ms, bucket i holds [2^(i-1), 2^i) ms; the last bucket is open.
+  private static final int BUCKET_COUNT = 18;
+
+  private final String name;
+  private final long[] counts = new long[BUCKET_COUNT];
+  private long count;
+  private long sumMs;
+  private long maxMs;
+
+  public LatencyHistogram(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public synchronized void record(long valueMs) {
+    final long value = Math.max(0, valueMs);
+    counts[bucketOf(value)]++;
+    count++;
+    sumMs += value;
+    maxMs = Math.max(maxMs, value);
+  }
+
+  public synchronized long getCount() {
+    return count;
+  }
+
+  public synchronized long getMaxMs() {
+    return maxMs;
+  }
+
+  public synchronized long getMeanMs() {
+    return count == 0 ? 0 : sumMs / count;
+  }
+
+  /** Returns an upper bound of the |percentile| (0-100) value, or 0 if nothing was recorded. */
+  public synchronized long getPercentileMs(double percentile) {
+    if (count == 0) {
+      return 0;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(maxMs, upperBoundOf(i));
+      }
+    }
+    return maxMs;
+  }
+
+  public synchronized void reset() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts[i] = 0;
+    }
+    count = 0;
+    sumMs = 0;
+    maxMs = 0;
+  }
+
+  /** Returns a copy of the bucket counts, e.g. to persist the histogram. */
+  public synchronized long[] getBucketCounts() {
+    return counts.clone();
+  }
+
+  public synchronized long getSumMs() {
+    return sumMs;
+  }
+
+  /**
+   * Replaces the content with values saved from getBucketCounts(), getSumMs() and getMaxMs().
+   * Extra or missing buckets of an older layout are ignored.
+   */
+  public synchronized void restore(long[] bucketCounts, long sumMs, long maxMs) {
+    reset();
+    for (int i = 0; i < Math.min(BUCKET_COUNT, bucketCounts.length); i++) {
+      counts[i] = bucketCounts[i];
+      count += bucketCounts[i];
+    }
+    this.sumMs = sumMs;
+    this.maxMs = maxMs;
+  }
+
+  private static int bucketOf(long valueMs) {
+    return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(valueMs));
+  }
+
+  private static long upperBoundOf(int bucket) {
+    return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return name + ": n=" + count + " mean=" + getMeanMs() + " p50=" + getPercentileMs(50)
+        + " p95=" + getPercentileMs(95) + " max=" + maxMs + " ms";
+  }
+}
@@ -0,0 +1,217 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Measures the round trip time to a peer and the offset of its clock with ping and pong messages,
+ * as NTP does.
+ *
+ * <p>A ping carries its send time t1. The peer answers with a pong that echoes t1 and adds the
+ * times t2 and t3 at which it received the ping and sent the pong; t4 is the time the pong
+ * arrived. The round trip time is (t4 - t1) - (t3 - t2) and the offset of the remote clock is
+ * ((t2 - t1) + (t3 - t4)) / 2. Queuing makes both paths asymmetric, so like NTP the offset is
+ * taken from the sample with the lowest round trip time of the last {@link #FILTER_SIZE}. Both
+ * peers answer pings, so either side can probe.
+ *
+ * <p>Messages are 30 bytes: a magic byte, the type, a sequence number and three 64-bit times in
+ * microseconds. Not thread safe beyond the getters; pings and messages are handled on one thread.
+ *
+ * NTP 처럼 핑과 퐁 메시지로 피어까지의 왕복 시간과 피어 시계의 오프셋을 측정합니다. 큐 대기로 경로가
+ * 비대칭이 되므로 오프셋은 최근 샘플 중 왕복 시간이 가장 짧은 샘플에서 구합니다.
+ */
+public class LatencyProbe {
+  public static final int DEFAULT_INTERVAL_MS = 1000;
+  static final int FILTER_SIZE = 8;
+  static final byte MAGIC = (byte) 0xB8;
+  static final byte TYPE_PING = 1;
+  static final byte TYPE_PONG = 2;
+  static final int MESSAGE_SIZE = 30;
+
+  /** The data channel the probes run on. */
+  public interface Channel {
+    /** Sends the remaining bytes of |message| as a binary message. Returns false on failure. */
+    boolean send(ByteBuffer message);
+  }
+
+  /** A wall clock in microseconds, which does not jump between two readings of a probe. */
+  public interface Clock {
+    long nowMicros();
+  }
+
+  /**
+   * Returns the wall clock at creation advanced by the monotonic clock, which has a finer
+   * resolution than {@link System#currentTimeMillis} and is not stepped by time updates.
+   */
+  public static Clock createSystemClock() {
+    final long baseMicros = System.currentTimeMillis() * 1000;
+    final long baseNanos = System.nanoTime();
+    return () -> baseMicros + (System.nanoTime() - baseNanos) / 1000;
+  }
+
+  private final Channel channel;
+  private final Clock clock;
+  private final LatencyHistogram rttHistogram = new LatencyHistogram("Probe RTT");
+  private final ByteBuffer message = ByteBuffer.allocate(MESSAGE_SIZE);
+  // Round trip times and clock offsets of the last samples, in turns.
+  private final long[] filterRttMicros = new long[FILTER_SIZE];
+  private final long[] filterOffsetMicros = new long[FILTER_SIZE];
+  private int filterCount;
+  private int nextSequence;
+  private long sentPings;
+  private long receivedPongs;
+  private long lastRttMicros = -1;
+  private long clockOffsetMicros;
+
+  public LatencyProbe(Channel channel, Clock clock) {
+    this.channel = channel;
+    this.clock = clock;
+  }
+
+  /** Sends a ping. Returns false if the channel did not take it. */
+  public boolean sendPing() {
+    putMessage(TYPE_PING, nextSequence++, clock.nowMicros(), 0, 0);
+    if (!channel.send(message)) {
+      return false;
+    }
+    synchronized (this) {
+      sentPings++;
+    }
+    return true;
+  }
+
+  /**
+   * Answers a ping or evaluates a pong, received at |receivedMicros| of the clock. Returns false if
+   * |data| is not a probe message.
+   */
+  public boolean onMessage(ByteBuffer data, long receivedMicros) {
+    final int start = data.position();
+    if (data.remaining() < MESSAGE_SIZE || data.get(start) != MAGIC) {
+      return false;
+    }
+    final byte type = data.get(start + 1);
+    final int sequence = data.getInt(start + 2);
+    final long t1 = data.getLong(start + 6);
+    if (type == TYPE_PING) {
+      putMessage(TYPE_PONG, sequence, t1, receivedMicros, clock.nowMicros());
+      channel.send(message);
+      return true;
+    }
+    if (type != TYPE_PONG) {
+      return false;
+    }
+    final long t2 = data.getLong(start + 14);
+    final long t3 = data.getLong(start + 22);
+    final long t4 = receivedMicros;
+    if (t1 > t4) {
+      // Not a pong to a ping of this clock.
+      return true;
+    }
+    // Negative if the peer's clock resolution is coarser than the round trip.
+    final long rttMicros = Math.max(0, (t4 - t1) - (t3 - t2));
+    final long offsetMicros = ((t2 - t1) + (t3 - t4)) / 2;
+    rttHistogram.record((rttMicros + 500) / 1000);
+    synchronized (this) {
+      receivedPongs++;
+      lastRttMicros = rttMicros;
+      final int index = filterCount++ % FILTER_SIZE;
+      filterRttMicros[index] = rttMicros;
+      filterOffsetMicros[index] = offsetMicros;
+      int best = 0;
+      for (int i = 1; i < Math.min(filterCount, FILTER_SIZE); i++) {
+        if (filterRttMicros[i] < filterRttMicros[best]) {
+          best = i;
+        }
+      }
+      clockOffsetMicros = filterOffsetMicros[best];
+    }
+    return true;
+  }
+
+  private void putMessage(byte type, int sequence, long t1, long t2, long t3) {
+    message.clear();
+    message.put(MAGIC).put(type).putInt(sequence).putLong(t1).putLong(t2).putLong(t3);
+    message.flip();
+  }
+
+  public LatencyHistogram getRttHistogram() {
+    return rttHistogram;
+  }
+
+  /** Returns the round trip time of the last pong, -1 before the first one. */
+  public synchronized long getLastRttMicros() {
+    return lastRttMicros;
+  }
+
+  public synchronized boolean hasClockOffset() {
+    return filterCount > 0;
+  }
+
+  /** Returns how far the clock of the peer is ahead of the local one, 0 before the first pong. */
+  public synchronized long getClockOffsetMicros() {
+    return clockOffsetMicros;
+  }
+
+  /** Converts a time of the peer's clock, e.g. of a message it sent, to the local clock. */
+  public synchronized long toLocalMicros(long remoteMicros) {
+    return remoteMicros - clockOffsetMicros;
+  }
+
+  public synchronized long getSentPings() {
+    return sentPings;
+  }
+
+  /** Returns the pongs received; the others are lost or still in flight. */
+  public synchronized long getReceivedPongs() {
+    return receivedPongs;
+  }
+
+  /** Appends the HUD text, e.g. "ProbeRtt=12 ms p50=16 p95=32\nClockOffset=-3.2 ms\n". */
+  public synchronized void appendTo(StringBuilder builder) {
+    if (lastRttMicros < 0) {
+      builder.append("ProbeRtt=- (").append(sentPings).append(" sent)\n");
+      return;
+    }
+    builder.append("ProbeRtt=")
+        .append((lastRttMicros + 500) / 1000)
+        .append(" ms p50=")
+        .append(rttHistogram.getPercentileMs(50))
+        .append(" p95=")
+        .append(rttHistogram.getPercentileMs(95))
+        .append("\n")
+        .append("ClockOffset=");
+    appendMillis(builder, clockOffsetMicros);
+    builder.append(" ms\n");
+  }
+
+  // Appends |micros| in milliseconds with one decimal.
+  private static void appendMillis(StringBuilder builder, long micros) {
+    final long tenths = Math.round(micros / 100.0);
+    if (tenths < 0) {
+      builder.append('-');
+    }
+    builder.append(Math.abs(tenths) / 10).append('.').append(Math.abs(tenths) % 10);
+  }
+
+  @Override
+  public synchronized String toString() {
+    final StringBuilder builder = new StringBuilder();
+    builder.append(rttHistogram)
+        .append(", pongs ")
+        .append(receivedPongs)
+        .append("/")
+        .append(sentPings)
+        .append(", clock offset ");
+    appendMillis(builder, clockOffsetMicros);
+    return builder.append(" ms").toString();
+  }
+}
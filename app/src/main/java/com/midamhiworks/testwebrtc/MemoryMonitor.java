@@ -0,0 +1,230 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+/**
+ * Tracks the memory use and garbage collection of this process during a call.
+ *
+ * <p>Each {@link #sample} reads the Java heap, the native heap and the cumulative GC and
+ * allocation counters through a {@link Reader}, and keeps the GC count, GC time and allocation
+ * rate of the interval since the previous sample next to the peaks and totals of the call. The
+ * PSS takes the kernel a walk over all mappings, so it is only read every
+ * {@link #DEFAULT_PSS_PERIOD_MS}, and samples should be taken on a thread of their own. The values
+ * are read without holding the lock, so the getters never wait for a sample. Values a device
+ * cannot report are -1 and left out.
+ *
+ * 통화 중 이 프로세스의 메모리 사용량과 가비지 컬렉션을 추적합니다. 샘플마다 Java 힙, 네이티브 힙,
+ * 누적 GC 및 할당 카운터를 읽고 구간별 GC 횟수, GC 시간, 할당 속도와 통화 전체의 최대값 및 합계를
+ * 유지합니다. PSS 는 읽는 비용이 커서 일정 주기로만 읽습니다.
+ */
+public class MemoryMonitor {
+  public static final long DEFAULT_PSS_PERIOD_MS = 10000;
+  private static final long BYTES_PER_MB = 1024 * 1024;
+
+  /** Raw memory values; -1 where not available. */
+  public static class Sample {
+    public long javaHeapUsedBytes = -1;
+    public long javaHeapMaxBytes = -1;
+    public long nativeHeapBytes = -1;
+    public long pssKb = -1;
+    // Cumulative counters since the process started.
+    public long gcCount = -1;
+    public long gcTimeMs = -1;
+    public long bytesAllocated = -1;
+
+    void copyFrom(Sample other) {
+      javaHeapUsedBytes = other.javaHeapUsedBytes;
+      javaHeapMaxBytes = other.javaHeapMaxBytes;
+      nativeHeapBytes = other.nativeHeapBytes;
+      pssKb = other.pssKb;
+      gcCount = other.gcCount;
+      gcTimeMs = other.gcTimeMs;
+      bytesAllocated = other.bytesAllocated;
+    }
+  }
+
+  /** Reads the memory values of the process. */
+  public interface Reader {
+    /** Fills |sample|. The PSS is only read, and otherwise left alone, if |readPss| is set. */
+    void read(Sample sample, boolean readPss);
+  }
+
+  private final Reader reader;
+  private final long pssPeriodMs;
+  // Filled by the reader outside the lock; only used by the sampling thread.
+  private final Sample reading = new Sample();
+  private final Sample current = new Sample();
+  private final Sample previous = new Sample();
+  private final Sample first = new Sample();
+  private long firstSampleMs = -1;
+  private long lastSampleMs = -1;
+  private long lastPssMs = -1;
+  // Values of the last interval.
+  private long intervalGcCount = -1;
+  private long intervalGcTimeMs = -1;
+  private long allocationRateKbPerSecond = -1;
+  // Peaks over the call.
+  private long peakJavaHeapBytes = -1;
+  private long peakNativeHeapBytes = -1;
+  private long peakPssKb = -1;
+
+  public MemoryMonitor(Reader reader) {
+    this(reader, DEFAULT_PSS_PERIOD_MS);
+  }
+
+  public MemoryMonitor(Reader reader, long pssPeriodMs) {
+    this.reader = reader;
+    this.pssPeriodMs = pssPeriodMs;
+  }
+
+  /**
+   * Reads the memory values and updates the interval values and the peaks. Must be called from
+   * one thread at a time.
+   */
+  public void sample(long nowMs) {
+    final boolean readPss;
+    synchronized (this) {
+      readPss = lastPssMs < 0 || nowMs - lastPssMs >= pssPeriodMs;
+    }
+    // Keeps the PSS of the last read if it is not read this time.
+    reader.read(reading, readPss);
+    synchronized (this) {
+      update(nowMs, readPss);
+    }
+  }
+
+  private void update(long nowMs, boolean pssRead) {
+    current.copyFrom(reading);
+    if (pssRead) {
+      lastPssMs = nowMs;
+    }
+    peakJavaHeapBytes = Math.max(peakJavaHeapBytes, current.javaHeapUsedBytes);
+    peakNativeHeapBytes = Math.max(peakNativeHeapBytes, current.nativeHeapBytes);
+    peakPssKb = Math.max(peakPssKb, current.pssKb);
+    if (firstSampleMs < 0) {
+      firstSampleMs = nowMs;
+      first.copyFrom(current);
+    } else {
+      intervalGcCount = delta(current.gcCount, previous.gcCount);
+      intervalGcTimeMs = delta(current.gcTimeMs, previous.gcTimeMs);
+      allocationRateKbPerSecond =
+          rate(delta(current.bytesAllocated, previous.bytesAllocated), nowMs - lastSampleMs);
+    }
+    lastSampleMs = nowMs;
+    previous.copyFrom(current);
+  }
+
+  public synchronized long getJavaHeapUsedBytes() {
+    return current.javaHeapUsedBytes;
+  }
+
+  public synchronized long getNativeHeapBytes() {
+    return current.nativeHeapBytes;
+  }
+
+  public synchronized long getPssKb() {
+    return current.pssKb;
+  }
+
+  /** Returns the number of collections in the last interval, -1 if not known. */
+  public synchronized long getIntervalGcCount() {
+    return intervalGcCount;
+  }
+
+  public synchronized long getIntervalGcTimeMs() {
+    return intervalGcTimeMs;
+  }
+
+  /** Returns the allocation rate of the Java heap in the last interval, -1 if not known. */
+  public synchronized long getAllocationRateKbPerSecond() {
+    return allocationRateKbPerSecond;
+  }
+
+  /**
+   * Appends the current values for the HUD, e.g. "Mem: Java 34/256 Native 80 PSS 190 MB\nGC 2
+   * 15 ms Alloc 1200 KB/s", to |builder| without allocating.
+   */
+  public synchronized void appendTo(StringBuilder builder) {
+    builder.append("Mem:");
+    if (current.javaHeapUsedBytes >= 0) {
+      builder.append(" Java ").append(current.javaHeapUsedBytes / BYTES_PER_MB);
+      if (current.javaHeapMaxBytes > 0) {
+        builder.append('/').append(current.javaHeapMaxBytes / BYTES_PER_MB);
+      }
+    }
+    if (current.nativeHeapBytes >= 0) {
+      builder.append(" Native ").append(current.nativeHeapBytes / BYTES_PER_MB);
+    }
+    if (current.pssKb >= 0) {
+      builder.append(" PSS ").append(current.pssKb / 1024);
+    }
+    builder.append(" MB");
+    if (intervalGcCount >= 0) {
+      builder.append("\nGC ").append(intervalGcCount);
+      if (intervalGcTimeMs >= 0) {
+        builder.append(' ').append(intervalGcTimeMs).append(" ms");
+      }
+    }
+    if (allocationRateKbPerSecond >= 0) {
+      builder.append(intervalGcCount >= 0 ? " " : "\n")
+          .append("Alloc ").append(allocationRateKbPerSecond).append(" KB/s");
+    }
+  }
+
+  /** Returns the peaks and totals since the first sample, for the log at the end of a call. */
+  public synchronized String getSummary() {
+    final long durationMs = lastSampleMs - firstSampleMs;
+    final StringBuilder builder = new StringBuilder("Memory over ")
+        .append(Math.max(0, durationMs) / 1000).append(" s: peak Java ")
+        .append(toMb(peakJavaHeapBytes)).append(" MB, native ").append(toMb(peakNativeHeapBytes))
+        .append(" MB, PSS ").append(peakPssKb < 0 ? -1 : peakPssKb / 1024).append(" MB");
+    final long gcCount = delta(current.gcCount, first.gcCount);
+    if (gcCount >= 0) {
+      builder.append(", GC ").append(gcCount).append(" times");
+      final long gcTimeMs = delta(current.gcTimeMs, first.gcTimeMs);
+      if (gcTimeMs >= 0) {
+        builder.append(" in ").append(gcTimeMs).append(" ms");
+      }
+    }
+    final long allocated = delta(current.bytesAllocated, first.bytesAllocated);
+    if (allocated >= 0) {
+      builder.append(", allocated ").append(allocated / BYTES_PER_MB).append(" MB at ")
+          .append(rate(allocated, durationMs)).append(" KB/s");
+    }
+    return builder.toString();
+  }
+
+  @Override
+  public synchronized String toString() {
+    final StringBuilder builder = new StringBuilder();
+    appendTo(builder);
+    return builder.toString().replace('\n', ' ');
+  }
+
+  private static long toMb(long bytes) {
+    return bytes < 0 ? -1 : bytes / BYTES_PER_MB;
+  }
+
+  // Counters that are not available, or went backwards, give -1.
+  private static long delta(long value, long previousValue) {
+    if (value < 0 || previousValue < 0 || value < previousValue) {
+      return -1;
+    }
+    return value - previousValue;
+  }
+
+  private static long rate(long bytes, long elapsedMs) {
+    if (bytes < 0 || elapsedMs <= 0) {
+      return -1;
+    }
+    return bytes * 1000 / (1024 * elapsedMs);
+  }
+}
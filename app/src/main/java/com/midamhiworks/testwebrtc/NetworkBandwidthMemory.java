@@ -0,0 +1,174 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+import android.net.wifi.WifiInfo;
+import android.net.wifi.WifiManager;
+import android.os.Build;
+import android.telephony.TelephonyManager;
+import android.util.Log;
+import androidx.annotation.Nullable;
+import java.util.Locale;
+
+/**
+ * Remembers the send bandwidth estimate that calls converged to, per network.
+ *
+ * <p>Networks are identified by a hash of the Wi-Fi SSID or by the cellular network type. Old
+ * estimates are trusted less: they decay with a half-life of {@link #HALF_LIFE_MS} and are dropped
+ * after {@link #MAX_AGE_MS}. A new estimate is blended with the decayed old one.
+ *
+ * 통화가 수렴한 송신 대역폭 추정치를 네트워크별로 기억합니다. 네트워크는 Wi-Fi SSID 의 해시 또는 셀룰러
+ * 네트워크 유형으로 구분하며, 오래된 추정치는 반감기에 따라 감쇠하고 일정 기간 후 삭제됩니다.
+ */
+public class NetworkBandwidthMemory {
+  private static final String TAG = "NetworkBandwidthMemory";
+  private static final String PREFERENCES_NAME = "network_bandwidth";
+  private static final long HALF_LIFE_MS = 7L * 24 * 60 * 60 * 1000;
+  private static final long MAX_AGE_MS = 30L * 24 * 60 * 60 * 1000;
+  // Weight of a new estimate when blending it with the remembered one.
+  private static final double NEW_ESTIMATE_WEIGHT = 0.7;
+
+  private final SharedPreferences preferences;
+
+  public NetworkBandwidthMemory(SharedPreferences preferences) {
+    this.preferences = preferences;
+  }
+
+  public static NetworkBandwidthMemory create(Context context) {
+    return new NetworkBandwidthMemory(
+        context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE));
+  }
+
+  /**
+   * Returns a key identifying the active network, e.g. "wifi:1a2b3c4d" or "cellular:13" for LTE,
+   * or null if there is no connected network.
+   */
+  public static @Nullable String getNetworkKey(Context context) {
+    ConnectivityManager connectivityManager =
+        (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+    if (connectivityManager == null) {
+      return null;
+    }
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+      return getNetworkKeyFromCapabilities(context, connectivityManager);
+    }
+    return getNetworkKeyFromNetworkInfo(context, connectivityManager);
+  }
+
+  @TargetApi(Build.VERSION_CODES.M)
+  private static @Nullable String getNetworkKeyFromCapabilities(
+      Context context, ConnectivityManager connectivityManager) {
+    Network network = connectivityManager.getActiveNetwork();
+    NetworkCapabilities capabilities =
+        network == null ? null : connectivityManager.getNetworkCapabilities(network);
+    if (capabilities == null) {
+      return null;
+    }
+    if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI)) {
+      return "wifi:" + getSsidHash(context);
+    }
+    if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)) {
+      TelephonyManager telephonyManager =
+          (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
+      return "cellular:"
+          + (telephonyManager == null ? TelephonyManager.NETWORK_TYPE_UNKNOWN
+                                      : telephonyManager.getNetworkType());
+    }
+    if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_ETHERNET)) {
+      return "ethernet";
+    }
+    if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_BLUETOOTH)) {
+      return "bluetooth";
+    }
+    return "other";
+  }
+
+  // NetworkInfo is deprecated but the only way to get the active network before Android M.
+  // NetworkInfo 는 더 이상 사용되지 않지만 Android M 이전에는 활성 네트워크를 얻는 유일한 방법입니다.
+  @SuppressWarnings("deprecation")
+  private static @Nullable String getNetworkKeyFromNetworkInfo(
+      Context context, ConnectivityManager connectivityManager) {
+    NetworkInfo networkInfo = connectivityManager.getActiveNetworkInfo();
+    if (networkInfo == null || !networkInfo.isConnected()) {
+      return null;
+    }
+    switch (networkInfo.getType()) {
+      case ConnectivityManager.TYPE_WIFI:
+        return "wifi:" + getSsidHash(context);
+      case ConnectivityManager.TYPE_MOBILE:
+        return "cellular:" + networkInfo.getSubtype();
+      default:
+        return networkInfo.getTypeName().toLowerCase(Locale.US);
+    }
+  }
+
+  // The SSID is hashed so that network names are not stored on disk. Without location permission
+  // newer Android versions report "<unknown ssid>", all such networks then share one entry.
+  // 네트워크 이름이 디스크에 저장되지 않도록 SSID 를 해시합니다.
+  private static String getSsidHash(Context context) {
+    WifiManager wifiManager =
+        (WifiManager) context.getApplicationContext().getSystemService(Context.WIFI_SERVICE);
+    WifiInfo wifiInfo = wifiManager == null ? null : wifiManager.getConnectionInfo();
+    String ssid = wifiInfo == null ? null : wifiInfo.getSSID();
+    return Integer.toHexString(ssid == null ? 0 : ssid.hashCode());
+  }
+
+  /** Returns the decayed estimate for |networkKey| in kbps, or 0 if none is remembered. */
+  public int getEstimateKbps(@Nullable String networkKey, long nowMs) {
+    if (networkKey == null) {
+      return 0;
+    }
+    String value = preferences.getString(networkKey, null);
+    if (value == null) {
+      return 0;
+    }
+    int separator = value.indexOf(',');
+    try {
+      int kbps = Integer.parseInt(value.substring(0, separator));
+      long timestampMs = Long.parseLong(value.substring(separator + 1));
+      return decay(kbps, nowMs - timestampMs);
+    } catch (NumberFormatException | IndexOutOfBoundsException e) {
+      Log.w(TAG, "Invalid entry for " + networkKey + ": " + value);
+      return 0;
+    }
+  }
+
+  /** Records the estimate that a call on |networkKey| converged to. */
+  public void record(@Nullable String networkKey, int kbps, long nowMs) {
+    if (networkKey == null || kbps <= 0) {
+      return;
+    }
+    int remembered = getEstimateKbps(networkKey, nowMs);
+    int blended = remembered > 0
+        ? (int) (kbps * NEW_ESTIMATE_WEIGHT + remembered * (1 - NEW_ESTIMATE_WEIGHT))
+        : kbps;
+    Log.d(TAG, "Remember " + blended + " kbps for " + networkKey);
+    preferences.edit().putString(networkKey, blended + "," + nowMs).apply();
+  }
+
+  // Halves the estimate every HALF_LIFE_MS and forgets it after MAX_AGE_MS.
+  static int decay(int kbps, long ageMs) {
+    if (ageMs > MAX_AGE_MS) {
+      return 0;
+    }
+    if (ageMs <= 0) {
+      return kbps;
+    }
+    return (int) (kbps * Math.pow(0.5, (double) ageMs / HALF_LIFE_MS));
+  }
+}
@@ -28,22 +28,21 @@ import androidx.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.charset.Charset;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import com.midamhiworks.testwebrtc.AppRTCClient.SignalingParameters;
 import com.midamhiworks.testwebrtc.RecordedAudioToFileController;
 import org.webrtc.AudioSource;
@@ -53,6 +52,7 @@ import org.webrtc.DataChannel;
 import org.webrtc.DefaultVideoDecoderFactory;
 import org.webrtc.DefaultVideoEncoderFactory;
 import org.webrtc.EglBase;
+import org.webrtc.HardwareVideoEncoderFactory;
 import org.webrtc.IceCandidate;
 import org.webrtc.Logging;
 import org.webrtc.MediaConstraints;
@@ -70,10 +70,9 @@ import org.webrtc.SdpObserver;
 import org.webrtc.SessionDescription;
 import org.webrtc.SoftwareVideoDecoderFactory;
 import org.webrtc.SoftwareVideoEncoderFactory;
-import org.webrtc.StatsObserver;
-import org.webrtc.StatsReport;
 import org.webrtc.SurfaceTextureHelper;
 import org.webrtc.VideoCapturer;
+import org.webrtc.VideoCodecInfo;
 import org.webrtc.VideoDecoderFactory;
 import org.webrtc.VideoEncoderFactory;
 import org.webrtc.VideoSink;
@@ -115,9 +114,22 @@ public class PeerConnectionClient {
   private static final String VIDEO_CODEC_H264 = "H264";
   private static final String VIDEO_CODEC_H264_BASELINE = "H264 Baseline";
   private static final String VIDEO_CODEC_H264_HIGH = "H264 High";
+  // Video codecs in the order they are tried when the selected codec is not supported by both the
+  // local encoder and decoder factories.
+  // 선택한 코덱을 로컬 인코더와 디코더 팩토리가 모두 지원하지 않을 때 시도하는 비디오 코덱의 순서입니다.
+  private static final List<String> VIDEO_CODEC_FALLBACK_ORDER = Collections.unmodifiableList(
+      Arrays.asList(VIDEO_CODEC_VP9, VIDEO_CODEC_H264_HIGH, VIDEO_CODEC_H264_BASELINE,
+          VIDEO_CODEC_VP8));
+  private static final String H264_PROFILE_IDC_BASELINE = "42";
+  private static final String H264_PROFILE_IDC_HIGH = "64";
+  private static final String H264_PROFILE_LEVEL_ID = "profile-level-id";
   private static final String AUDIO_CODEC_OPUS = "opus";
   private static final String AUDIO_CODEC_ISAC = "ISAC";
   private static final String VIDEO_CODEC_PARAM_START_BITRATE = "x-google-start-bitrate";
+  private static final String VIDEO_CODEC_PARAM_MIN_BITRATE = "x-google-min-bitrate";
+  private static final String VIDEO_CODEC_PARAM_MAX_BITRATE = "x-google-max-bitrate";
+  // The bandwidth estimate is only remembered once it had time to converge.
+  private static final long MIN_BANDWIDTH_ESTIMATE_DURATION_MS = 10000;
   private static final String VIDEO_FLEXFEC_FIELDTRIAL = "WebRTC-FlexFEC-03-Advertised/Enabled/WebRTC-FlexFEC-03/Enabled/";
   private static final String VIDEO_VP8_INTEL_HW_ENCODER_FIELDTRIAL = "WebRTC-IntelVP8/Enabled/";
   private static final String DISABLE_WEBRTC_AGC_FIELDTRIAL = "WebRTC-Audio-MinimizeResamplingOnMobile/Enabled/";
@@ -131,58 +143,74 @@ public class PeerConnectionClient {
   private static final int HD_VIDEO_HEIGHT = 720;
   private static final int BPS_IN_KBPS = 1000;
   private static final String RTCEVENTLOG_OUTPUT_DIR_NAME = "rtc_event_log";
-
-  // Executor thread is started once in private ctor and is used for all peer connection API calls to ensure new peer connection factory is
-  // created on the same thread as previously destroyed factory.
-  // 실행자 스레드는 개인 ctor에서 한 번 시작되며 모든 피어 연결 API 호출에 사용됩니다. 새 피어 연결 팩토리는 이전에 파괴된 공장과 동일한 스레드에 생성됩니다.
-
-  /*
-    실행자 스레드는 개인 ctor 에서 한 번 시작되며 모든 피어 연결 API 호출에 사용되어 이전에 파괴된 공장과 동일한 스레드에 새 피어 연결 팩토리가 생성됩니다.
-  */
-  private static final ExecutorService executor = Executors.newSingleThreadExecutor();
-
-  private final PCObserver pcObserver = new PCObserver();
-  private final SDPObserver sdpObserver = new SDPObserver();
-  private final Timer statsTimer = new Timer();
+  // Id of the peer created by createPeerConnection(). Its events go to the client events.
+  public static final String DEFAULT_PEER_ID = "default";
+
+  // Candidates gathered before the first offer or answer. One is enough with max-bundle.
+  private static final int ICE_CANDIDATE_POOL_SIZE = 1;
+  // Tasks that wait and run longer than this in total are logged as slow.
+  private static final long SLOW_TASK_THRESHOLD_MS = 100;
+  private static final AtomicInteger instanceCounter = new AtomicInteger();
+
+  // Each client owns its executor thread, which is used for all peer connection API calls and
+  // observer callbacks of that client. The factory is created or taken over from
+  // PeerConnectionFactoryOwner on this thread, and handed back or disposed on it on close; a
+  // reused factory was created on the thread of an earlier client.
+  // 각 클라이언트는 자신의 실행자 스레드를 소유하며, 해당 클라이언트의 모든 피어 연결 API 호출과 옵저버
+  // 콜백에 사용됩니다. 팩토리는 이 스레드에서 생성되거나 PeerConnectionFactoryOwner 에서 넘겨받고, 종료 시
+  // 이 스레드에서 반환되거나 해제됩니다.
+  private final InstrumentedExecutor executor;
+
+  private final StatsPollScheduler statsScheduler;
+  // The stats callbacks still expected from the current getStats() round. Each round has its own
+  // counter, so that late callbacks of a round the scheduler gave up on do not count towards the
+  // next one.
+  private final AtomicReference<AtomicInteger> pendingStatsCallbacks = new AtomicReference<>();
   private final EglBase rootEglBase;
   private final Context appContext;
+  private final CodecCapabilityCache codecCapabilityCache;
+  private final NetworkBandwidthMemory networkBandwidthMemory;
+  private final PeerConnectionFactoryOwner factoryOwner;
+  private final PeerConnectionFactoryOwner.AudioErrorListener audioErrorListener =
+      this::reportError;
   private final PeerConnectionParameters peerConnectionParameters;
   private final PeerConnectionEvents events;
+  // Receives the setup milestones of the default peer, if set.
+  @Nullable private volatile CallSetupTimeline callSetupTimeline;
 
   @Nullable
   private PeerConnectionFactory factory;
-  @Nullable
-  private PeerConnection peerConnection;
+  // Configuration of |factory|; null if the factory can not be reused by another client.
+  @Nullable private String factoryKey;
+  // Remote participants by peer id, in the order they were added. Only used on the executor.
+  // 피어 id 별 원격 참가자입니다. 실행자 스레드에서만 사용됩니다.
+  private final Map<String, RemotePeer> peers = new LinkedHashMap<>();
   @Nullable
   private AudioSource audioSource;
   @Nullable private SurfaceTextureHelper surfaceTextureHelper;
   @Nullable private VideoSource videoSource;
   private boolean preferIsac;
+  // Video codecs supported by the local factories, most preferred first.
+  private List<SdpSession.CodecSpec> videoCodecPreferences = Collections.emptyList();
+  // Send bandwidth estimate of a previous call in kbps, 0 if unknown.
+  private volatile int videoBandwidthEstimateKbps;
+  // Network of the current call and the send bandwidth estimate seen in its stats.
+  @Nullable private String networkKey;
+  private volatile int lastSendBandwidthKbps;
+  private volatile long firstSendBandwidthTimeMs;
   private boolean videoCapturerStopped;
   private boolean isError;
+  // Set by startLocalMedia(); createPeerConnection(SignalingParameters) then only adds ICE servers.
+  private boolean localMediaStarted;
   @Nullable
   private VideoSink localRender;
   @Nullable private List<VideoSink> remoteSinks;
-  private SignalingParameters signalingParameters;
+  @Nullable private SignalingParameters signalingParameters;
   private int videoWidth;
   private int videoHeight;
   private int videoFps;
   private MediaConstraints audioConstraints;
   private MediaConstraints sdpMediaConstraints;
-  // Queued remote ICE candidates are consumed only after both local and remote descriptions are set. Similarly local ICE candidates are sent to
-  // remote peer after both local and remote description are set.
-  // 대기 중인 원격 ICE 후보자는 로컬 및 원격 설명이 모두 설정된 후에만 소비됩니다. 마찬가지로 로컬 ICE 후보자들은 다음 주소로 전송됩니다.
-  // 로컬 및 원격 설명이 모두 설정된 후 원격 피어입니다.
-
-  /*
-  대기 중인 원격 ICE 후보자는 로컬 및 원격 설명이 모두 설정된 후에만 소비됩니다. 마찬가지로 로컬 ICE 후보자는 로컬 및 원격 설명을 모두 설정한 후 원격 피어로 전송됩니다.
-  */
-  @Nullable
-  private List<IceCandidate> queuedRemoteCandidates;
-  private boolean isInitiator;
-  @Nullable
-  private SessionDescription localSdp; // either offer or answer SDP
-  // SDP 를 제공하거나 응답합니다.
   @Nullable
   private VideoCapturer videoCapturer;
   // enableVideo is set to true if video should be rendered and sent.
@@ -190,18 +218,74 @@ public class PeerConnectionClient {
   private boolean renderVideo = true;
   @Nullable
   private VideoTrack localVideoTrack;
-  @Nullable
-  private VideoTrack remoteVideoTrack;
-  @Nullable
-  private RtpSender localVideoSender;
   // enableAudio is set to true if audio should be sent.
   // 오디오를 전송해야 하는 경우 오디오가 true 로 설정됩니다.
   private boolean enableAudio = true;
   @Nullable
   private AudioTrack localAudioTrack;
-  @Nullable
-  private DataChannel dataChannel;
   private final boolean dataChannelEnabled;
+  // Buffers of received data channel messages, shared by all peers.
+  // 모든 피어가 공유하는 데이터 채널 수신 메시지 버퍼입니다.
+  private final ByteBufferPool dataChannelBufferPool = new ByteBufferPool();
+  // Listeners by the ordinal of their DataChannelKind.
+  // DataChannelKind 의 순서 번호별 리스너입니다.
+  private final AtomicReferenceArray<DataChannelListener> dataChannelListeners =
+      new AtomicReferenceArray<>(DataChannelKind.values().length);
+  // Forwards data channel events to the listener of the channel; messages nobody takes are
+  // released.
+  private final DataChannelListener dataChannelDispatcher = new DataChannelListener() {
+    @Override
+    public void onDataChannelMessage(String peerId, DataChannelKind kind,
+        ByteBufferPool.PooledBuffer message, boolean binary) {
+      final DataChannelListener listener = dataChannelListeners.get(kind.ordinal());
+      if (listener != null) {
+        listener.onDataChannelMessage(peerId, kind, message, binary);
+      } else {
+        Log.d(TAG, "Dropped " + (binary ? "binary" : "text") + " message of "
+            + message.getData().remaining() + " bytes from " + peerId + " " + kind.label);
+        message.release();
+      }
+    }
+
+    @Override
+    public void onDataChannelStateChange(
+        String peerId, DataChannelKind kind, DataChannel.State state) {
+      final DataChannelScheduler scheduler = dataChannelSchedulers.get(peerId);
+      if (scheduler != null && state != DataChannel.State.OPEN) {
+        scheduler.onChannelClosed(kind);
+      }
+      final DataChannelListener listener = dataChannelListeners.get(kind.ordinal());
+      if (listener != null) {
+        listener.onDataChannelStateChange(peerId, kind, state);
+      }
+    }
+
+    @Override
+    public void onDataChannelBufferedAmountChange(
+        String peerId, DataChannelKind kind, long bufferedAmount) {
+      final DataChannelScheduler scheduler = dataChannelSchedulers.get(peerId);
+      if (scheduler == null) {
+        return;
+      }
+      scheduler.onBufferedAmountChange(kind, bufferedAmount);
+      final DataChannelListener listener = dataChannelListeners.get(kind.ordinal());
+      if (listener != null && kind != DataChannelKind.BULK) {
+        listener.onDataChannelBufferedAmountChange(peerId, kind, bufferedAmount);
+      }
+      // Bulk data is paced by the backlog of all channels, so any change may let it resume.
+      // 대량 데이터는 모든 채널의 밀린 양에 맞춰 보내므로 어느 채널이 바뀌어도 재개될 수 있습니다.
+      final DataChannelListener bulkListener =
+          dataChannelListeners.get(DataChannelKind.BULK.ordinal());
+      if (bulkListener != null) {
+        bulkListener.onDataChannelBufferedAmountChange(
+            peerId, DataChannelKind.BULK, scheduler.getBulkBufferedAmount());
+      }
+    }
+  };
+  // Schedulers of the locally created data channels by peer id, for sending from any thread.
+  // 어느 스레드에서든 전송할 수 있도록 피어 id 별로 로컬에서 생성한 데이터 채널의 스케줄러입니다.
+  private final Map<String, DataChannelScheduler> dataChannelSchedulers =
+      new ConcurrentHashMap<>();
   // Enable RtcEventLog.
   // RtcEventLog를 활성화합니다.
   @Nullable
@@ -210,6 +294,80 @@ public class PeerConnectionClient {
     // WebRtcAudioRecordSamplesReadyCallback 인터페이스를 구현하고 기록된 오디오 샘플을 출력 파일에 기록합니다.
   @Nullable private RecordedAudioToFileController saveRecordedAudioToFile;
 
+  // One remote participant: its own peer connection, senders, receivers and remote sinks. The
+  // factory, the capturer, the sources and the local tracks are shared by all peers, so capture
+  // runs once and only the encoders scale with the number of participants.
+  // 원격 참가자 하나의 피어 연결, 송신자, 수신자 및 원격 싱크입니다. 팩토리, 캡처러, 소스 및 로컬 트랙은
+  // 모든 피어가 공유하므로 캡처는 한 번만 실행되고 인코더만 참가자 수에 비례합니다.
+  private class RemotePeer {
+    final String id;
+    final PeerConnectionEvents events;
+    final List<VideoSink> remoteSinks;
+    final PCObserver pcObserver = new PCObserver(this);
+    final SDPObserver sdpObserver = new SDPObserver(this);
+    @Nullable PeerConnection peerConnection;
+    // Queued remote ICE candidates are consumed only after both local and remote descriptions are
+    // set. Similarly local ICE candidates are sent to remote peer after both local and remote
+    // description are set.
+    // 대기 중인 원격 ICE 후보자는 로컬 및 원격 설명이 모두 설정된 후에만 소비됩니다.
+    @Nullable List<IceCandidate> queuedRemoteCandidates;
+    boolean isInitiator;
+    @Nullable SessionDescription localSdp; // either offer or answer SDP
+    @Nullable VideoTrack remoteVideoTrack;
+    @Nullable RtpSender localVideoSender;
+    // The channels created here, which are sent on, and those the remote peer created, by kind.
+    final DataChannelEndpoint[] dataChannels =
+        new DataChannelEndpoint[DataChannelKind.values().length];
+    final DataChannelEndpoint[] remoteDataChannels =
+        new DataChannelEndpoint[DataChannelKind.values().length];
+    @Nullable DataChannelScheduler dataChannelScheduler;
+    boolean isError;
+    // Two snapshots used in turns, so that the one delivered last is not overwritten by the next
+    // report and rates can be computed against it. Only used on the stats callback thread.
+    // 두 스냅샷을 번갈아 사용하여 마지막으로 전달한 스냅샷을 덮어쓰지 않고 전송률 계산에 사용합니다.
+    StatsSnapshot lastStats = new StatsSnapshot();
+    StatsSnapshot spareStats = new StatsSnapshot();
+    boolean hasStats;
+
+    RemotePeer(String id, PeerConnectionEvents events, List<VideoSink> remoteSinks) {
+      this.id = id;
+      this.events = events;
+      this.remoteSinks = remoteSinks;
+    }
+
+    boolean isDefault() {
+      return DEFAULT_PEER_ID.equals(id);
+    }
+
+    boolean isUsable() {
+      return peerConnection != null && !isError && !PeerConnectionClient.this.isError;
+    }
+
+    void dispose() {
+      if (dataChannelScheduler != null) {
+        dataChannelSchedulers.remove(id, dataChannelScheduler);
+        Log.d(TAG, "Data channels of " + id + ": " + dataChannelScheduler);
+        dataChannelScheduler = null;
+      }
+      for (int i = 0; i < dataChannels.length; i++) {
+        if (dataChannels[i] != null) {
+          dataChannels[i].dispose();
+          dataChannels[i] = null;
+        }
+        if (remoteDataChannels[i] != null) {
+          remoteDataChannels[i].dispose();
+          remoteDataChannels[i] = null;
+        }
+      }
+      if (peerConnection != null) {
+        peerConnection.dispose();
+        peerConnection = null;
+      }
+      remoteVideoTrack = null;
+      localVideoSender = null;
+    }
+  }
+
   /**
    * Peer connection parameters.
    */
@@ -336,9 +494,10 @@ public class PeerConnectionClient {
     void onPeerConnectionClosed();
 
     /**
-     * Callback fired once peer connection statistics is ready.
+     * Callback fired once peer connection statistics is ready. |stats| is reused: it stays valid
+     * until the next callback returns and must not be kept or modified.
      */
-    void onPeerConnectionStatsReady(final StatsReport[] reports);
+    void onPeerConnectionStatsReady(final StatsSnapshot stats);
 
     /**
      * Callback fired once peer connection error happened.
@@ -347,27 +506,59 @@ public class PeerConnectionClient {
   }
 
   /**
-   * Create a PeerConnectionClient with the specified parameters. PeerConnectionClient takes ownership of |eglBase|.
+   * Data channel events, fired on the WebRTC signaling thread. A listener may send from its
+   * callbacks, e.g. to answer a message, but must not block on another thread that sends.
+   */
+  public interface DataChannelListener {
+    /**
+     * Callback fired for each message received from |peerId| on the channel of |kind|. The data
+     * of |message| is read-only and |message| must be released, on any thread, once it is
+     * consumed.
+     */
+    void onDataChannelMessage(String peerId, DataChannelKind kind,
+        ByteBufferPool.PooledBuffer message, boolean binary);
+
+    /**
+     * Callback fired when the data channel of |kind| to |peerId| changes its state, e.g. once it
+     * is open for sending.
+     */
+    void onDataChannelStateChange(String peerId, DataChannelKind kind, DataChannel.State state);
+
+    /**
+     * Callback fired when the bytes queued for sending to |peerId| change, e.g. to resume a
+     * paused bulk transfer once they drained. For {@link DataChannelKind#BULK} this is the
+     * amount of {@link DataChannelScheduler#getBulkBufferedAmount}.
+     */
+    void onDataChannelBufferedAmountChange(
+        String peerId, DataChannelKind kind, long bufferedAmount);
+  }
+
+  /**
+   * Create a PeerConnectionClient with the specified parameters. PeerConnectionClient takes ownership of |eglBase|,
+   * unless it is the shared context of {@link PeerConnectionFactoryOwner}.
    */
   public PeerConnectionClient(Context appContext, EglBase eglBase,
       PeerConnectionParameters peerConnectionParameters, PeerConnectionEvents events) {
     this.rootEglBase = eglBase;
     this.appContext = appContext;
+    final int instance = instanceCounter.incrementAndGet();
+    this.executor = new InstrumentedExecutor("PCClient-" + instance, SLOW_TASK_THRESHOLD_MS);
+    // Named apart from the executor, so that ThreadCpuSampler counts the polling on its own.
+    this.statsScheduler = new StatsPollScheduler(
+        "PCStats-" + instance, () -> executor.execute("getStats", this::getStats));
+    this.codecCapabilityCache = CodecCapabilityCache.create(appContext);
+    this.networkBandwidthMemory = NetworkBandwidthMemory.create(appContext);
+    this.factoryOwner = PeerConnectionFactoryOwner.get(appContext);
+    factoryOwner.onClientStarted();
     this.events = events;
     this.peerConnectionParameters = peerConnectionParameters;
     this.dataChannelEnabled = peerConnectionParameters.dataChannelParameters != null;
 
-    Log.d(TAG, "Preferred video codec: " + getSdpVideoCodecName(peerConnectionParameters));
+    Log.d(TAG, "Video codec preference order: "
+        + getVideoCodecPreferenceOrder(peerConnectionParameters));
 
     final String fieldTrials = getFieldTrials(peerConnectionParameters);
-    executor.execute(() -> {
-      Log.d(TAG, "Initialize WebRTC. Field trials: " + fieldTrials);
-      PeerConnectionFactory.initialize(
-          PeerConnectionFactory.InitializationOptions.builder(appContext)
-              .setFieldTrials(fieldTrials)
-              .setEnableInternalTracer(true)
-              .createInitializationOptions());
-    });
+    executor.execute(() -> factoryOwner.initializeForClient(fieldTrials));
   }
 
   /**
@@ -401,8 +592,11 @@ public class PeerConnectionClient {
     this.signalingParameters = signalingParameters;
     executor.execute(() -> {
       try {
+        loadNetworkBandwidthEstimate();
         createMediaConstraintsInternal();
-        createPeerConnectionInternal();
+        createLocalMediaInternal();
+        createPeerInternal(
+            DEFAULT_PEER_ID, events, remoteSinks, signalingParameters.iceServers);
         maybeCreateAndStartRtcEventLog();
       } catch (Exception e) {
         reportError("Failed to create peer connection: " + e.getMessage());
@@ -411,8 +605,134 @@ public class PeerConnectionClient {
     });
   }
 
+  /** Sets the timeline that records the SDP, ICE and DTLS milestones of the default peer. */
+  public void setCallSetupTimeline(@Nullable CallSetupTimeline callSetupTimeline) {
+    this.callSetupTimeline = callSetupTimeline;
+  }
+
+  /**
+   * Starts capture, creates the local tracks and a peer connection without ICE servers, so that
+   * all of it runs while the room is being joined. The peer connection gathers a pool of host
+   * candidates before any offer or answer exists. Complete the setup with
+   * createPeerConnection(SignalingParameters) once the signaling parameters are known.
+   *
+   * 방에 참가하는 동안 캡처를 시작하고 로컬 트랙과 ICE 서버 없는 피어 연결을 미리 만듭니다. 신호 매개변수가
+   * 도착하면 createPeerConnection(SignalingParameters)으로 설정을 완료합니다.
+   */
+  public void startLocalMedia(final VideoSink localRender, final List<VideoSink> remoteSinks,
+      @Nullable final VideoCapturer videoCapturer) {
+    if (peerConnectionParameters.videoCallEnabled && videoCapturer == null) {
+      Log.w(TAG, "Video call enabled but no video capturer provided.");
+    }
+    this.localRender = localRender;
+    this.remoteSinks = remoteSinks;
+    this.videoCapturer = videoCapturer;
+    executor.execute("startLocalMedia", () -> {
+      try {
+        loadNetworkBandwidthEstimate();
+        createMediaConstraintsInternal();
+        createLocalMediaInternal();
+        createPeerInternal(DEFAULT_PEER_ID, events, remoteSinks,
+            Collections.<PeerConnection.IceServer>emptyList());
+        localMediaStarted = true;
+      } catch (Exception e) {
+        reportError("Failed to start local media: " + e.getMessage());
+        throw e;
+      }
+    });
+  }
+
+  /**
+   * Attaches the ICE servers of |signalingParameters| to the peer connection created by
+   * startLocalMedia(). The candidate pool is gathered again with the new servers.
+   */
+  public void createPeerConnection(final SignalingParameters signalingParameters) {
+    this.signalingParameters = signalingParameters;
+    executor.execute("createPeerConnection", () -> {
+      RemotePeer peer = peers.get(DEFAULT_PEER_ID);
+      if (!localMediaStarted || peer == null || !peer.isUsable()) {
+        Log.e(TAG, "Local media is not started.");
+        return;
+      }
+      if (!signalingParameters.iceServers.isEmpty()
+          && !peer.peerConnection.setConfiguration(
+              createRtcConfiguration(signalingParameters.iceServers))) {
+        reportError("Failed to set ICE servers.");
+        return;
+      }
+      maybeCreateAndStartRtcEventLog();
+    });
+  }
+
+  /**
+   * Adds a remote participant for a mesh call. The new peer connection sends the local tracks
+   * created by createPeerConnection(), which must have been called before, and renders the remote
+   * video into |remoteSinks|. |peerEvents| receives the signaling and connection events of this
+   * peer only.
+   */
+  public void addPeer(final String peerId, final List<VideoSink> remoteSinks,
+      final List<PeerConnection.IceServer> iceServers, final PeerConnectionEvents peerEvents) {
+    executor.execute("addPeer", () -> {
+      if (peers.containsKey(peerId)) {
+        Log.e(TAG, "Peer " + peerId + " already exists.");
+        return;
+      }
+      createPeerInternal(peerId, peerEvents, remoteSinks, iceServers);
+    });
+  }
+
+  /** Closes the peer connection of |peerId|; the shared sources keep running. */
+  public void removePeer(final String peerId) {
+    executor.execute("removePeer", () -> {
+      RemotePeer peer = peers.remove(peerId);
+      if (peer != null) {
+        Log.d(TAG, "Remove peer " + peerId);
+        peer.dispose();
+      }
+    });
+  }
+
+  /**
+   * Sets the listener of the data channel of |kind| of all peers; null drops its messages. Each
+   * message is delivered to, and released by, a single listener.
+   */
+  public void setDataChannelListener(DataChannelKind kind, @Nullable DataChannelListener listener) {
+    dataChannelListeners.set(kind.ordinal(), listener);
+  }
+
+  /**
+   * Sends the remaining bytes of |data| on the default data channel of the default peer. May be
+   * called on any thread. Returns false if the channel is not open or its send buffer is full.
+   */
+  public boolean sendData(ByteBuffer data, boolean binary) {
+    return sendData(DEFAULT_PEER_ID, DataChannelKind.DEFAULT, data, binary);
+  }
+
+  /**
+   * Sends the remaining bytes of |data| on the data channel of |kind| to |peerId|. Also returns
+   * false if the message was dropped, see {@link DataChannelScheduler}.
+   */
+  public boolean sendData(String peerId, DataChannelKind kind, ByteBuffer data, boolean binary) {
+    final DataChannelScheduler scheduler = dataChannelSchedulers.get(peerId);
+    return scheduler != null && scheduler.send(kind, data, binary);
+  }
+
+  /**
+   * Returns the bytes queued for sending on the data channel of |kind| to |peerId|, 0 if there is
+   * none. For {@link DataChannelKind#BULK} this is the amount to pace bulk data by.
+   */
+  public long getDataChannelBufferedAmount(String peerId, DataChannelKind kind) {
+    final DataChannelScheduler scheduler = dataChannelSchedulers.get(peerId);
+    if (scheduler == null) {
+      return 0;
+    }
+    return kind == DataChannelKind.BULK ? scheduler.getBulkBufferedAmount()
+                                        : scheduler.getBufferedAmount(kind);
+  }
+
   public void close() {
-    executor.execute(this ::closeInternal);
+    executor.execute("close", this ::closeInternal);
+    executor.shutdown();
   }
 
   private boolean isVideoCallEnabled() {
@@ -423,7 +743,7 @@ public class PeerConnectionClient {
     isError = false;
 
     if (peerConnectionParameters.tracing) {
-      PeerConnectionFactory.startInternalTracingCapture(
+      factoryOwner.startTracingCapture(
           Environment.getExternalStorageDirectory().getAbsolutePath() + File.separator + "webrtc-trace.txt");
     }
 
@@ -450,36 +770,90 @@ public class PeerConnectionClient {
       }
     }
 
-    final AudioDeviceModule adm = createJavaAudioDevice();
-
     // Create peer connection factory.
     if (options != null) {
       Log.d(TAG, "Factory networkIgnoreMask option: " + options.networkIgnoreMask);
     }
+    final List<String> videoCodecOrder = getVideoCodecPreferenceOrder(peerConnectionParameters);
+    // The preference order always lists H264 High as a fallback; only a user who picked it gets
+    // the High profile encoder.
+    // 선호 순서에는 항상 H264 High 가 대체 코덱으로 포함되므로, 사용자가 선택한 경우에만 High 프로파일을 사용합니다.
     final boolean enableH264HighProfile =
         VIDEO_CODEC_H264_HIGH.equals(peerConnectionParameters.videoCodec);
     final VideoEncoderFactory encoderFactory;
     final VideoDecoderFactory decoderFactory;
+    final String codecConfiguration;
 
     if (peerConnectionParameters.videoCodecHwAcceleration) {
       encoderFactory = new DefaultVideoEncoderFactory(
           rootEglBase.getEglBaseContext(), true /* enableIntelVp8Encoder */, enableH264HighProfile);
       decoderFactory = new DefaultVideoDecoderFactory(rootEglBase.getEglBaseContext());
+      codecConfiguration = "hw_h264high=" + enableH264HighProfile;
     } else {
       encoderFactory = new SoftwareVideoEncoderFactory();
       decoderFactory = new SoftwareVideoDecoderFactory();
+      codecConfiguration = "sw";
+    }
+
+    // Probing the MediaCodec capabilities is slow, so the codec lists are only queried once per
+    // system and app build and then served from the cache.
+    // MediaCodec 기능 조회는 느리므로 코덱 목록은 시스템 및 앱 빌드마다 한 번만 조회하고 캐시에서 제공합니다.
+    CodecCapabilityCache.Capabilities capabilities = codecCapabilityCache.get(codecConfiguration);
+    if (capabilities == null) {
+      final long probeStartTimeMs = System.currentTimeMillis();
+      capabilities = new CodecCapabilityCache.Capabilities(encoderFactory.getSupportedCodecs(),
+          decoderFactory.getSupportedCodecs(),
+          peerConnectionParameters.videoCodecHwAcceleration
+              ? new HardwareVideoEncoderFactory(rootEglBase.getEglBaseContext(),
+                  true /* enableIntelVp8Encoder */, enableH264HighProfile)
+                    .getSupportedCodecs()
+              : new VideoCodecInfo[0]);
+      Log.d(TAG, "Probed video codec capabilities in "
+          + (System.currentTimeMillis() - probeStartTimeMs) + " ms.");
+      codecCapabilityCache.put(codecConfiguration, capabilities);
+    }
+    videoCodecPreferences = getSupportedVideoCodecPreferences(videoCodecOrder,
+        capabilities.encoderCodecs, capabilities.decoderCodecs,
+        capabilities.hardwareEncoderCodecs);
+    Log.d(TAG, "Supported video codec preferences: " + videoCodecPreferences);
+
+    factoryOwner.setAudioErrorListener(audioErrorListener);
+    // The factory of the previous call is reused unless this call records input audio or traces,
+    // which bind per-call state into the factory.
+    // 이 통화가 입력 오디오를 녹음하거나 추적하지 않으면 이전 통화의 팩토리를 재사용합니다.
+    factoryKey = saveRecordedAudioToFile == null && !peerConnectionParameters.tracing
+        ? getFactoryKey(codecConfiguration, options)
+        : null;
+    if (factoryKey != null) {
+      factory = factoryOwner.takeFactory(factoryKey);
+      if (factory != null) {
+        Log.d(TAG, "Reusing peer connection factory.");
+        return;
+      }
     }
-
+    final AudioDeviceModule adm = createJavaAudioDevice();
     factory = PeerConnectionFactory.builder()
                   .setOptions(options)
                   .setAudioDeviceModule(adm)
-                  .setVideoEncoderFactory(encoderFactory)
-                  .setVideoDecoderFactory(decoderFactory)
+                  .setVideoEncoderFactory(new CodecCapabilityCache.CachedVideoEncoderFactory(
+                      encoderFactory, capabilities.encoderCodecs))
+                  .setVideoDecoderFactory(new CodecCapabilityCache.CachedVideoDecoderFactory(
+                      decoderFactory, capabilities.decoderCodecs))
                   .createPeerConnectionFactory();
     Log.d(TAG, "Peer connection factory created.");
     adm.release();
   }
 
+  // Everything the factory is built from besides the per-call audio file recording.
+  private String getFactoryKey(
+      String codecConfiguration, @Nullable PeerConnectionFactory.Options options) {
+    return getFieldTrials(peerConnectionParameters) + "|" + codecConfiguration + "|"
+        + peerConnectionParameters.disableBuiltInAEC + "|"
+        + peerConnectionParameters.disableBuiltInNS + "|"
+        + (options == null ? "" : options.networkIgnoreMask + "," + options.disableEncryption
+            + "," + options.disableNetworkMonitor);
+  }
+
   AudioDeviceModule createJavaAudioDevice() {
     // Enable/disable OpenSL ES playback.
     if (!peerConnectionParameters.useOpenSLES) {
@@ -492,20 +866,20 @@ public class PeerConnectionClient {
       @Override
       public void onWebRtcAudioRecordInitError(String errorMessage) {
         Log.e(TAG, "onWebRtcAudioRecordInitError: " + errorMessage);
-        reportError(errorMessage);
+        factoryOwner.reportAudioError(errorMessage);
       }
 
       @Override
       public void onWebRtcAudioRecordStartError(
           JavaAudioDeviceModule.AudioRecordStartErrorCode errorCode, String errorMessage) {
         Log.e(TAG, "onWebRtcAudioRecordStartError: " + errorCode + ". " + errorMessage);
-        reportError(errorMessage);
+        factoryOwner.reportAudioError(errorMessage);
       }
 
       @Override
       public void onWebRtcAudioRecordError(String errorMessage) {
         Log.e(TAG, "onWebRtcAudioRecordError: " + errorMessage);
-        reportError(errorMessage);
+        factoryOwner.reportAudioError(errorMessage);
       }
     };
 
@@ -513,20 +887,20 @@ public class PeerConnectionClient {
       @Override
       public void onWebRtcAudioTrackInitError(String errorMessage) {
         Log.e(TAG, "onWebRtcAudioTrackInitError: " + errorMessage);
-        reportError(errorMessage);
+        factoryOwner.reportAudioError(errorMessage);
       }
 
       @Override
       public void onWebRtcAudioTrackStartError(
           JavaAudioDeviceModule.AudioTrackStartErrorCode errorCode, String errorMessage) {
         Log.e(TAG, "onWebRtcAudioTrackStartError: " + errorCode + ". " + errorMessage);
-        reportError(errorMessage);
+        factoryOwner.reportAudioError(errorMessage);
       }
 
       @Override
       public void onWebRtcAudioTrackError(String errorMessage) {
         Log.e(TAG, "onWebRtcAudioTrackError: " + errorMessage);
-        reportError(errorMessage);
+        factoryOwner.reportAudioError(errorMessage);
       }
     };
 
@@ -581,63 +955,21 @@ public class PeerConnectionClient {
         "OfferToReceiveVideo", Boolean.toString(isVideoCallEnabled())));
   }
 
-  private void createPeerConnectionInternal() {
+  // Creates the capturer pipeline, sources and local tracks shared by all peers.
+  // 모든 피어가 공유하는 캡처 파이프라인, 소스 및 로컬 트랙을 만듭니다.
+  private void createLocalMediaInternal() {
     if (factory == null || isError) {
       Log.e(TAG, "Peerconnection factory is not created");
       return;
     }
-    Log.d(TAG, "Create peer connection.");
-
-    queuedRemoteCandidates = new ArrayList<>();
-
-    PeerConnection.RTCConfiguration rtcConfig =
-        new PeerConnection.RTCConfiguration(signalingParameters.iceServers);
-    // TCP candidates are only useful when connecting to a server that supports ICE-TCP.
-    // TCP 후보는 ICE-TCP 를 지원하는 서버에 연결할 때만 유용합니다.
-    rtcConfig.tcpCandidatePolicy = PeerConnection.TcpCandidatePolicy.DISABLED;
-    rtcConfig.bundlePolicy = PeerConnection.BundlePolicy.MAXBUNDLE;
-    rtcConfig.rtcpMuxPolicy = PeerConnection.RtcpMuxPolicy.REQUIRE;
-    rtcConfig.continualGatheringPolicy = PeerConnection.ContinualGatheringPolicy.GATHER_CONTINUALLY;
-    // Use ECDSA encryption.
-    rtcConfig.keyType = PeerConnection.KeyType.ECDSA;
-    // Enable DTLS for normal calls and disable for loopback calls.
-    // 일반 호출에는 DTLS를, 루프백 호출에는 비활성화합니다.
-    rtcConfig.enableDtlsSrtp = !peerConnectionParameters.loopback;
-    rtcConfig.sdpSemantics = PeerConnection.SdpSemantics.UNIFIED_PLAN;
-
-    peerConnection = factory.createPeerConnection(rtcConfig, pcObserver);
-
-    if (dataChannelEnabled) {
-      DataChannel.Init init = new DataChannel.Init();
-      init.ordered = peerConnectionParameters.dataChannelParameters.ordered;
-      init.negotiated = peerConnectionParameters.dataChannelParameters.negotiated;
-      init.maxRetransmits = peerConnectionParameters.dataChannelParameters.maxRetransmits;
-      init.maxRetransmitTimeMs = peerConnectionParameters.dataChannelParameters.maxRetransmitTimeMs;
-      init.id = peerConnectionParameters.dataChannelParameters.id;
-      init.protocol = peerConnectionParameters.dataChannelParameters.protocol;
-      dataChannel = peerConnection.createDataChannel("ApprtcDemo data", init);
-    }
-    isInitiator = false;
-
     // Set INFO libjingle logging.
     // NOTE: this _must_ happen while |factory| is alive!
     Logging.enableLogToDebugOutput(Logging.Severity.LS_INFO);
 
-    List<String> mediaStreamLabels = Collections.singletonList("ARDAMS");
-    if (isVideoCallEnabled()) {
-      peerConnection.addTrack(createVideoTrack(videoCapturer), mediaStreamLabels);
-      // We can add the renderers right away because we don't need to wait for an answer to get the remote track.
-      // 원격 트랙을 얻기 위해 답변을 기다릴 필요가 없기 때문에 렌더러를 즉시 추가할 수 있습니다.
-      remoteVideoTrack = getRemoteVideoTrack();
-      remoteVideoTrack.setEnabled(renderVideo);
-      for (VideoSink remoteSink : remoteSinks) {
-        remoteVideoTrack.addSink(remoteSink);
-      }
-    }
-    peerConnection.addTrack(createAudioTrack(), mediaStreamLabels);
     if (isVideoCallEnabled()) {
-      findVideoSender();
+      createVideoTrack(videoCapturer);
     }
+    createAudioTrack();
 
     if (peerConnectionParameters.aecDump) {
       try {
@@ -657,7 +989,118 @@ public class PeerConnectionClient {
         Log.d(TAG, "Recording input audio to file is activated");
       }
     }
-    Log.d(TAG, "Peer connection created.");
+  }
+
+  private void createPeerInternal(String peerId, PeerConnectionEvents peerEvents,
+      List<VideoSink> peerRemoteSinks, List<PeerConnection.IceServer> iceServers) {
+    if (factory == null || isError) {
+      Log.e(TAG, "Peerconnection factory is not created");
+      return;
+    }
+    Log.d(TAG, "Create peer connection for " + peerId);
+
+    final RemotePeer peer = new RemotePeer(peerId, peerEvents, peerRemoteSinks);
+    peer.queuedRemoteCandidates = new ArrayList<>();
+
+    peer.peerConnection =
+        factory.createPeerConnection(createRtcConfiguration(iceServers), peer.pcObserver);
+    if (peer.peerConnection == null) {
+      reportError(peer, "Failed to create peer connection for " + peerId);
+      return;
+    }
+    peers.put(peerId, peer);
+
+    if (dataChannelEnabled) {
+      createDataChannels(peer);
+    }
+
+    // The same local tracks are added to every peer connection; each one gets its own sender.
+    // 동일한 로컬 트랙이 모든 피어 연결에 추가되며, 각 연결은 자체 송신자를 가집니다.
+    List<String> mediaStreamLabels = Collections.singletonList("ARDAMS");
+    if (isVideoCallEnabled() && localVideoTrack != null) {
+      peer.peerConnection.addTrack(localVideoTrack, mediaStreamLabels);
+      // We can add the renderers right away because we don't need to wait for an answer to get the remote track.
+      // 원격 트랙을 얻기 위해 답변을 기다릴 필요가 없기 때문에 렌더러를 즉시 추가할 수 있습니다.
+      peer.remoteVideoTrack = getRemoteVideoTrack(peer);
+      if (peer.remoteVideoTrack != null) {
+        peer.remoteVideoTrack.setEnabled(renderVideo);
+        for (VideoSink remoteSink : peer.remoteSinks) {
+          peer.remoteVideoTrack.addSink(remoteSink);
+        }
+      }
+    }
+    if (localAudioTrack != null) {
+      peer.peerConnection.addTrack(localAudioTrack, mediaStreamLabels);
+    }
+    if (isVideoCallEnabled()) {
+      findVideoSender(peer);
+    }
+    Log.d(TAG, "Peer connection created for " + peerId + ", " + peers.size() + " peer(s).");
+  }
+
+  // Creates a channel of every kind; the default one follows the settings. Negotiated channels
+  // take consecutive ids, starting with the one of the settings.
+  // 모든 종류의 채널을 생성하며, 기본 채널은 설정을 따릅니다. 협상된 채널은 설정의 id 부터 연속된 id 를
+  // 사용합니다.
+  private void createDataChannels(final RemotePeer peer) {
+    final DataChannelParameters parameters = peerConnectionParameters.dataChannelParameters;
+    for (DataChannelKind kind : DataChannelKind.values()) {
+      DataChannel.Init init = new DataChannel.Init();
+      init.negotiated = parameters.negotiated;
+      init.id = parameters.id < 0 ? -1 : parameters.id + kind.ordinal();
+      if (kind == DataChannelKind.DEFAULT) {
+        init.ordered = parameters.ordered;
+        init.maxRetransmits = parameters.maxRetransmits;
+        init.maxRetransmitTimeMs = parameters.maxRetransmitTimeMs;
+        init.protocol = parameters.protocol;
+      } else {
+        init.ordered = kind.ordered;
+        init.maxRetransmits = kind.maxRetransmits;
+      }
+      final DataChannel dataChannel = peer.peerConnection.createDataChannel(kind.label, init);
+      if (dataChannel == null) {
+        Log.e(TAG, "Failed to create data channel " + kind.label + " for " + peer.id);
+        continue;
+      }
+      peer.dataChannels[kind.ordinal()] = new DataChannelEndpoint(
+          peer.id, kind, dataChannel, dataChannelBufferPool, dataChannelDispatcher, true);
+    }
+    final DataChannelEndpoint[] endpoints = peer.dataChannels.clone();
+    peer.dataChannelScheduler = new DataChannelScheduler(new DataChannelScheduler.Channels() {
+      @Override
+      public boolean send(DataChannelKind kind, ByteBuffer data, boolean binary) {
+        final DataChannelEndpoint endpoint = endpoints[kind.ordinal()];
+        return endpoint != null && endpoint.send(data, binary);
+      }
+
+      @Override
+      public long getBufferedAmount(DataChannelKind kind) {
+        final DataChannelEndpoint endpoint = endpoints[kind.ordinal()];
+        return endpoint != null ? endpoint.getBufferedAmount() : 0;
+      }
+    });
+    dataChannelSchedulers.put(peer.id, peer.dataChannelScheduler);
+  }
+
+  private PeerConnection.RTCConfiguration createRtcConfiguration(
+      List<PeerConnection.IceServer> iceServers) {
+    PeerConnection.RTCConfiguration rtcConfig = new PeerConnection.RTCConfiguration(iceServers);
+    // TCP candidates are only useful when connecting to a server that supports ICE-TCP.
+    // TCP 후보는 ICE-TCP 를 지원하는 서버에 연결할 때만 유용합니다.
+    rtcConfig.tcpCandidatePolicy = PeerConnection.TcpCandidatePolicy.DISABLED;
+    rtcConfig.bundlePolicy = PeerConnection.BundlePolicy.MAXBUNDLE;
+    rtcConfig.rtcpMuxPolicy = PeerConnection.RtcpMuxPolicy.REQUIRE;
+    rtcConfig.continualGatheringPolicy = PeerConnection.ContinualGatheringPolicy.GATHER_CONTINUALLY;
+    // Use ECDSA encryption.
+    rtcConfig.keyType = PeerConnection.KeyType.ECDSA;
+    // Enable DTLS for normal calls and disable for loopback calls.
+    // 일반 호출에는 DTLS를, 루프백 호출에는 비활성화합니다.
+    rtcConfig.enableDtlsSrtp = !peerConnectionParameters.loopback;
+    rtcConfig.sdpSemantics = PeerConnection.SdpSemantics.UNIFIED_PLAN;
+    // Gather candidates ahead of the offer or answer, so that they are ready when it is applied.
+    // 오퍼 또는 답변 전에 후보를 미리 수집하여 적용 시점에 준비되도록 합니다.
+    rtcConfig.iceCandidatePoolSize = ICE_CANDIDATE_POOL_SIZE;
+    return rtcConfig;
   }
 
   private File createRtcEventLogOutputFile() {
@@ -669,14 +1112,15 @@ public class PeerConnectionClient {
   }
 
   private void maybeCreateAndStartRtcEventLog() {
-    if (appContext == null || peerConnection == null) {
+    RemotePeer peer = peers.get(DEFAULT_PEER_ID);
+    if (appContext == null || peer == null || peer.peerConnection == null) {
       return;
     }
     if (!peerConnectionParameters.enableRtcEventLog) {
       Log.d(TAG, "RtcEventLog is disabled.");
       return;
     }
-    rtcEventLog = new RtcEventLog(peerConnection);
+    rtcEventLog = new RtcEventLog(peer.peerConnection);
     rtcEventLog.start(createRtcEventLogOutputFile());
   }
 
@@ -685,21 +1129,18 @@ public class PeerConnectionClient {
       factory.stopAecDump();
     }
     Log.d(TAG, "Closing peer connection.");
-    statsTimer.cancel();
-    if (dataChannel != null) {
-      dataChannel.dispose();
-      dataChannel = null;
-    }
+    statsScheduler.release();
+    rememberNetworkBandwidthEstimate();
     if (rtcEventLog != null) {
       // RtcEventLog should stop before the peer connection is disposed.
       // RtcEventLog는 피어 연결을 삭제하기 전에 중지해야 합니다.
       rtcEventLog.stop();
       rtcEventLog = null;
     }
-    if (peerConnection != null) {
-      peerConnection.dispose();
-      peerConnection = null;
+    for (RemotePeer peer : peers.values()) {
+      peer.dispose();
     }
+    peers.clear();
     Log.d(TAG, "Closing audio source.");
     if (audioSource != null) {
       audioSource.dispose();
@@ -722,7 +1163,11 @@ public class PeerConnectionClient {
       videoSource = null;
     }
     if (surfaceTextureHelper != null) {
-      surfaceTextureHelper.dispose();
+      if (factoryOwner.isSharedEglBase(rootEglBase)) {
+        factoryOwner.offerSurfaceTextureHelper(surfaceTextureHelper);
+      } else {
+        surfaceTextureHelper.dispose();
+      }
       surfaceTextureHelper = null;
     }
     if (saveRecordedAudioToFile != null) {
@@ -732,52 +1177,121 @@ public class PeerConnectionClient {
     }
     localRender = null;
     remoteSinks = null;
-    Log.d(TAG, "Closing peer connection factory.");
     if (factory != null) {
-      factory.dispose();
+      if (factoryKey != null && !isError) {
+        Log.d(TAG, "Keeping peer connection factory for the next call.");
+        factoryOwner.offerFactory(factoryKey, factory);
+      } else {
+        Log.d(TAG, "Closing peer connection factory.");
+        factory.dispose();
+      }
       factory = null;
     }
-    rootEglBase.release();
-    Log.d(TAG, "Closing peer connection done.");
+    factoryOwner.removeAudioErrorListener(audioErrorListener);
+    factoryOwner.onClientClosed();
+    if (!factoryOwner.isSharedEglBase(rootEglBase)) {
+      rootEglBase.release();
+    }
+    Log.d(TAG, "Closing peer connection done. Executor " + executor.getStatsSummary());
+    factoryOwner.stopTracingCapture();
     events.onPeerConnectionClosed();
-    PeerConnectionFactory.stopInternalTracingCapture();
-    PeerConnectionFactory.shutdownInternalTracer();
   }
 
   public boolean isHDVideo() {
     return isVideoCallEnabled() && videoWidth * videoHeight >= 1280 * 720;
   }
 
-  @SuppressWarnings("deprecation") // TODO(sakal): getStats is deprecated.
   private void getStats() {
-    if (peerConnection == null || isError) {
+    int usablePeers = 0;
+    for (RemotePeer peer : peers.values()) {
+      if (peer.isUsable()) {
+        usablePeers++;
+      }
+    }
+    if (isError || usablePeers == 0) {
+      statsScheduler.onCollectionFinished();
       return;
     }
-    boolean success = peerConnection.getStats(reports -> events.onPeerConnectionStatsReady(reports), null);
-    if (!success) {
-      Log.e(TAG, "getStats() returns false!");
+    final AtomicInteger pendingCallbacks = new AtomicInteger(usablePeers);
+    pendingStatsCallbacks.set(pendingCallbacks);
+    for (final RemotePeer peer : peers.values()) {
+      if (!peer.isUsable()) {
+        continue;
+      }
+      peer.peerConnection.getStats(report -> {
+        final StatsSnapshot stats = peer.spareStats;
+        stats.update(report, peer.hasStats ? peer.lastStats : null);
+        peer.spareStats = peer.lastStats;
+        peer.lastStats = stats;
+        peer.hasStats = true;
+        if (peer.isDefault()) {
+          updateSendBandwidth(stats);
+        }
+        peer.events.onPeerConnectionStatsReady(stats);
+        if (pendingCallbacks.decrementAndGet() == 0
+            && pendingStatsCallbacks.compareAndSet(pendingCallbacks, null)) {
+          statsScheduler.onCollectionFinished();
+        }
+      });
+    }
+  }
+
+  // Seeds the video start bitrate with what previous calls on the same network converged to.
+  // 같은 네트워크에서 이전 통화가 수렴한 값으로 비디오 시작 비트레이트를 설정합니다.
+  private void loadNetworkBandwidthEstimate() {
+    networkKey = NetworkBandwidthMemory.getNetworkKey(appContext);
+    if (videoBandwidthEstimateKbps > 0) {
+      return;
+    }
+    int estimateKbps =
+        networkBandwidthMemory.getEstimateKbps(networkKey, System.currentTimeMillis());
+    Log.d(TAG, "Remembered bandwidth for " + networkKey + ": " + estimateKbps + " kbps");
+    videoBandwidthEstimateKbps = estimateKbps;
+  }
+
+  private void updateSendBandwidth(StatsSnapshot stats) {
+    if (!stats.candidatePair.present) {
+      return;
+    }
+    lastSendBandwidthKbps = stats.candidatePair.availableOutgoingBitrateKbps;
+    if (firstSendBandwidthTimeMs == 0 && lastSendBandwidthKbps > 0) {
+      firstSendBandwidthTimeMs = System.currentTimeMillis();
+    }
+  }
+
+  private void rememberNetworkBandwidthEstimate() {
+    final long nowMs = System.currentTimeMillis();
+    if (!isVideoCallEnabled() || firstSendBandwidthTimeMs == 0
+        || nowMs - firstSendBandwidthTimeMs < MIN_BANDWIDTH_ESTIMATE_DURATION_MS) {
+      return;
     }
+    networkBandwidthMemory.record(networkKey, lastSendBandwidthKbps, nowMs);
   }
 
-  public void enableStatsEvents(boolean enable, int periodMs) {
+  /**
+   * Starts or stops stats events. While enabled, stats are delivered every |idlePeriodMs|, or
+   * faster if a consumer asks for it with setStatsConsumer(). Stats events can be enabled again
+   * after they were disabled.
+   */
+  public void enableStatsEvents(boolean enable, int idlePeriodMs) {
     if (enable) {
-      try {
-        statsTimer.schedule(new TimerTask() {
-          @Override
-          public void run() {
-            executor.execute(() -> getStats());
-          }
-        }, 0, periodMs);
-      } catch (Exception e) {
-        Log.e(TAG, "Can not schedule statistics timer", e);
-      }
+      statsScheduler.start(idlePeriodMs);
     } else {
-      statsTimer.cancel();
+      statsScheduler.stop();
     }
   }
 
+  /** Asks for stats events at least every |periodMs| while |consumer| is registered. */
+  public void setStatsConsumer(String consumer, int periodMs) {
+    statsScheduler.setConsumer(consumer, periodMs);
+  }
+
+  public void removeStatsConsumer(String consumer) {
+    statsScheduler.removeConsumer(consumer);
+  }
+
   public void setAudioEnabled(final boolean enable) {
-    executor.execute(() -> {
+    executor.execute("setAudioEnabled", () -> {
       enableAudio = enable;
       if (localAudioTrack != null) {
         localAudioTrack.setEnabled(enableAudio);
@@ -786,86 +1300,115 @@ public class PeerConnectionClient {
   }
 
   public void setVideoEnabled(final boolean enable) {
-    executor.execute(() -> {
+    executor.execute("setVideoEnabled", () -> {
       renderVideo = enable;
       if (localVideoTrack != null) {
         localVideoTrack.setEnabled(renderVideo);
       }
-      if (remoteVideoTrack != null) {
-        remoteVideoTrack.setEnabled(renderVideo);
+      for (RemotePeer peer : peers.values()) {
+        if (peer.remoteVideoTrack != null) {
+          peer.remoteVideoTrack.setEnabled(renderVideo);
+        }
       }
     });
   }
 
   public void createOffer() {
-    executor.execute(() -> {
-      if (peerConnection != null && !isError) {
-        Log.d(TAG, "PC Create OFFER");
-        isInitiator = true;
-        peerConnection.createOffer(sdpObserver, sdpMediaConstraints);
+    createOffer(DEFAULT_PEER_ID);
+  }
+
+  public void createOffer(final String peerId) {
+    executor.execute("createOffer", () -> {
+      RemotePeer peer = peers.get(peerId);
+      if (peer != null && peer.isUsable()) {
+        Log.d(TAG, "PC Create OFFER for " + peerId);
+        peer.isInitiator = true;
+        peer.peerConnection.createOffer(peer.sdpObserver, sdpMediaConstraints);
       }
     });
   }
 
   public void createAnswer() {
-    executor.execute(() -> {
-      if (peerConnection != null && !isError) {
-        Log.d(TAG, "PC create ANSWER");
-        isInitiator = false;
-        peerConnection.createAnswer(sdpObserver, sdpMediaConstraints);
+    createAnswer(DEFAULT_PEER_ID);
+  }
+
+  public void createAnswer(final String peerId) {
+    executor.execute("createAnswer", () -> {
+      RemotePeer peer = peers.get(peerId);
+      if (peer != null && peer.isUsable()) {
+        Log.d(TAG, "PC create ANSWER for " + peerId);
+        peer.isInitiator = false;
+        peer.peerConnection.createAnswer(peer.sdpObserver, sdpMediaConstraints);
       }
     });
   }
 
   public void addRemoteIceCandidate(final IceCandidate candidate) {
-    executor.execute(() -> {
-      if (peerConnection != null && !isError) {
-        if (queuedRemoteCandidates != null) {
-          queuedRemoteCandidates.add(candidate);
+    addRemoteIceCandidate(DEFAULT_PEER_ID, candidate);
+  }
+
+  public void addRemoteIceCandidate(final String peerId, final IceCandidate candidate) {
+    executor.execute("addRemoteIceCandidate", () -> {
+      RemotePeer peer = peers.get(peerId);
+      if (peer != null && peer.isUsable()) {
+        if (peer.queuedRemoteCandidates != null) {
+          peer.queuedRemoteCandidates.add(candidate);
         } else {
-          peerConnection.addIceCandidate(candidate);
+          peer.peerConnection.addIceCandidate(candidate);
         }
       }
     });
   }
 
   public void removeRemoteIceCandidates(final IceCandidate[] candidates) {
-    executor.execute(() -> {
-      if (peerConnection == null || isError) {
+    removeRemoteIceCandidates(DEFAULT_PEER_ID, candidates);
+  }
+
+  public void removeRemoteIceCandidates(final String peerId, final IceCandidate[] candidates) {
+    executor.execute("removeRemoteIceCandidates", () -> {
+      RemotePeer peer = peers.get(peerId);
+      if (peer == null || !peer.isUsable()) {
         return;
       }
       // Drain the queued remote candidates if there is any so that they are processed in the proper order.
       // 대기 중인 원격 후보자가 올바른 순서로 처리되도록 배수합니다.
-      drainCandidates();
-      peerConnection.removeIceCandidates(candidates);
+      drainCandidates(peer);
+      peer.peerConnection.removeIceCandidates(candidates);
     });
   }
 
   public void setRemoteDescription(final SessionDescription sdp) {
-    executor.execute(() -> {
-      if (peerConnection == null || isError) {
+    setRemoteDescription(DEFAULT_PEER_ID, sdp);
+  }
+
+  public void setRemoteDescription(final String peerId, final SessionDescription sdp) {
+    executor.execute("setRemoteDescription", () -> {
+      RemotePeer peer = peers.get(peerId);
+      if (peer == null || !peer.isUsable()) {
         return;
       }
-      String sdpDescription = sdp.description;
+      // Parse once, apply all munging steps in place and serialize once.
+      // 한 번 파싱하고 모든 munging 단계를 제자리에서 적용한 뒤 한 번만 직렬화합니다.
+      final SdpSession sdpSession = SdpSession.parse(sdp.description);
       if (preferIsac) {
-        sdpDescription = preferCodec(sdpDescription, AUDIO_CODEC_ISAC, true);
+        preferCodec(sdpSession, AUDIO_CODEC_ISAC, true);
       }
       if (isVideoCallEnabled()) {
-        sdpDescription =
-            preferCodec(sdpDescription, getSdpVideoCodecName(peerConnectionParameters), false);
+        preferCodecs(sdpSession, videoCodecPreferences, false);
+        setVideoBitrates(sdpSession);
       }
       if (peerConnectionParameters.audioStartBitrate > 0) {
-        sdpDescription = setStartBitrate(
-            AUDIO_CODEC_OPUS, false, sdpDescription, peerConnectionParameters.audioStartBitrate);
+        setStartBitrate(
+            AUDIO_CODEC_OPUS, false, sdpSession, peerConnectionParameters.audioStartBitrate);
       }
-      Log.d(TAG, "Set remote SDP.");
-      SessionDescription sdpRemote = new SessionDescription(sdp.type, sdpDescription);
-      peerConnection.setRemoteDescription(sdpObserver, sdpRemote);
+      Log.d(TAG, "Set remote SDP for " + peerId);
+      SessionDescription sdpRemote = new SessionDescription(sdp.type, sdpSession.toString());
+      peer.peerConnection.setRemoteDescription(peer.sdpObserver, sdpRemote);
     });
   }
 
   public void stopVideoSource() {
-    executor.execute(() -> {
+    executor.execute("stopVideoSource", () -> {
       if (videoCapturer != null && !videoCapturerStopped) {
         Log.d(TAG, "Stop video source.");
         try {
@@ -878,7 +1421,7 @@ public class PeerConnectionClient {
   }
 
   public void startVideoSource() {
-    executor.execute(() -> {
+    executor.execute("startVideoSource", () -> {
       if (videoCapturer != null && videoCapturerStopped) {
         Log.d(TAG, "Restart video source.");
         videoCapturer.startCapture(videoWidth, videoHeight, videoFps);
@@ -887,32 +1430,45 @@ public class PeerConnectionClient {
     });
   }
 
+  /**
+   * Sets the send bandwidth measured on a previous call, used as the video start bitrate of the
+   * next offer or answer. 0 clears it.
+   */
+  public void setVideoBandwidthEstimate(int bandwidthKbps) {
+    videoBandwidthEstimateKbps = bandwidthKbps;
+  }
+
   public void setVideoMaxBitrate(@Nullable final Integer maxBitrateKbps) {
-    executor.execute(() -> {
-      if (peerConnection == null || localVideoSender == null || isError) {
-        return;
-      }
+    executor.execute("setVideoMaxBitrate", () -> {
       Log.d(TAG, "Requested max video bitrate: " + maxBitrateKbps);
-      if (localVideoSender == null) {
-        Log.w(TAG, "Sender is not ready.");
-        return;
+      for (RemotePeer peer : peers.values()) {
+        if (peer.isUsable()) {
+          setVideoMaxBitrate(peer, maxBitrateKbps);
+        }
       }
+    });
+  }
 
-      RtpParameters parameters = localVideoSender.getParameters();
-      if (parameters.encodings.size() == 0) {
-        Log.w(TAG, "RtpParameters are not ready.");
-        return;
-      }
+  private void setVideoMaxBitrate(RemotePeer peer, @Nullable Integer maxBitrateKbps) {
+    if (peer.localVideoSender == null) {
+      Log.w(TAG, "Sender is not ready.");
+      return;
+    }
 
-      for (RtpParameters.Encoding encoding : parameters.encodings) {
-        // Null value means no limit.
-        encoding.maxBitrateBps = maxBitrateKbps == null ? null : maxBitrateKbps * BPS_IN_KBPS;
-      }
-      if (!localVideoSender.setParameters(parameters)) {
-        Log.e(TAG, "RtpSender.setParameters failed.");
-      }
-      Log.d(TAG, "Configured max video bitrate to: " + maxBitrateKbps);
-    });
+    RtpParameters parameters = peer.localVideoSender.getParameters();
+    if (parameters.encodings.size() == 0) {
+      Log.w(TAG, "RtpParameters are not ready.");
+      return;
+    }
+
+    for (RtpParameters.Encoding encoding : parameters.encodings) {
+      // Null value means no limit.
+      encoding.maxBitrateBps = maxBitrateKbps == null ? null : maxBitrateKbps * BPS_IN_KBPS;
+    }
+    if (!peer.localVideoSender.setParameters(parameters)) {
+      Log.e(TAG, "RtpSender.setParameters failed.");
+    }
+    Log.d(TAG, "Configured max video bitrate of " + peer.id + " to: " + maxBitrateKbps);
   }
 
   private void reportError(final String errorMessage) {
@@ -925,6 +1481,22 @@ public class PeerConnectionClient {
     });
   }
 
+  // Errors of the default peer are fatal for the client; other peers only fail on their own.
+  // 기본 피어의 오류는 클라이언트 전체에 치명적이며, 다른 피어는 해당 피어만 실패합니다.
+  private void reportError(final RemotePeer peer, final String errorMessage) {
+    if (peer.isDefault()) {
+      reportError(errorMessage);
+      return;
+    }
+    Log.e(TAG, "Peerconnection error for " + peer.id + ": " + errorMessage);
+    executor.execute(() -> {
+      if (!peer.isError) {
+        peer.events.onPeerConnectionError(errorMessage);
+        peer.isError = true;
+      }
+    });
+  }
+
   @Nullable
   private AudioTrack createAudioTrack() {
     audioSource = factory.createAudioSource(audioConstraints);
@@ -935,8 +1507,13 @@ public class PeerConnectionClient {
 
   @Nullable
   private VideoTrack createVideoTrack(VideoCapturer capturer) {
-    surfaceTextureHelper =
-        SurfaceTextureHelper.create("CaptureThread", rootEglBase.getEglBaseContext());
+    if (factoryOwner.isSharedEglBase(rootEglBase)) {
+      surfaceTextureHelper = factoryOwner.takeSurfaceTextureHelper();
+    }
+    if (surfaceTextureHelper == null) {
+      surfaceTextureHelper =
+          SurfaceTextureHelper.create("CaptureThread", rootEglBase.getEglBaseContext());
+    }
     videoSource = factory.createVideoSource(capturer.isScreencast());
     capturer.initialize(surfaceTextureHelper, appContext, videoSource.getCapturerObserver());
     capturer.startCapture(videoWidth, videoHeight, videoFps);
@@ -947,22 +1524,22 @@ public class PeerConnectionClient {
     return localVideoTrack;
   }
 
-  private void findVideoSender() {
-    for (RtpSender sender : peerConnection.getSenders()) {
+  private void findVideoSender(RemotePeer peer) {
+    for (RtpSender sender : peer.peerConnection.getSenders()) {
       if (sender.track() != null) {
         String trackType = sender.track().kind();
         if (trackType.equals(VIDEO_TRACK_TYPE)) {
-          Log.d(TAG, "Found video sender.");
-          localVideoSender = sender;
+          Log.d(TAG, "Found video sender for " + peer.id);
+          peer.localVideoSender = sender;
         }
       }
     }
   }
 
-  // Returns the remote VideoTrack, assuming there is only one.
-  // 원격 VideoTrack 이 하나뿐이라고 가정하여 반환합니다.
-  private @Nullable VideoTrack getRemoteVideoTrack() {
-    for (RtpTransceiver transceiver : peerConnection.getTransceivers()) {
+  // Returns the remote VideoTrack of |peer|, assuming there is only one.
+  // |peer| 의 원격 VideoTrack 이 하나뿐이라고 가정하여 반환합니다.
+  private @Nullable VideoTrack getRemoteVideoTrack(RemotePeer peer) {
+    for (RtpTransceiver transceiver : peer.peerConnection.getTransceivers()) {
       MediaStreamTrack track = transceiver.getReceiver().track();
       if (track instanceof VideoTrack) {
         return (VideoTrack) track;
@@ -971,187 +1548,189 @@ public class PeerConnectionClient {
     return null;
   }
 
-  private static String getSdpVideoCodecName(PeerConnectionParameters parameters) {
-    switch (parameters.videoCodec) {
-      case VIDEO_CODEC_VP8:
-        return VIDEO_CODEC_VP8;
+  // Returns the selected video codec followed by the remaining codecs of the fallback order.
+  // 선택한 비디오 코덱과 그 뒤에 나머지 대체 코덱 순서를 반환합니다.
+  private static List<String> getVideoCodecPreferenceOrder(PeerConnectionParameters parameters) {
+    final List<String> order = new ArrayList<>(VIDEO_CODEC_FALLBACK_ORDER.size());
+    if (VIDEO_CODEC_FALLBACK_ORDER.contains(parameters.videoCodec)) {
+      order.add(parameters.videoCodec);
+    } else {
+      order.add(VIDEO_CODEC_VP8);
+    }
+    for (String codec : VIDEO_CODEC_FALLBACK_ORDER) {
+      if (!order.contains(codec)) {
+        order.add(codec);
+      }
+    }
+    return order;
+  }
+
+  private static SdpSession.CodecSpec getSdpVideoCodec(String codec) {
+    switch (codec) {
       case VIDEO_CODEC_VP9:
-        return VIDEO_CODEC_VP9;
+        return new SdpSession.CodecSpec(VIDEO_CODEC_VP9, null);
       case VIDEO_CODEC_H264_HIGH:
+        return new SdpSession.CodecSpec(VIDEO_CODEC_H264, H264_PROFILE_IDC_HIGH);
       case VIDEO_CODEC_H264_BASELINE:
-        return VIDEO_CODEC_H264;
+        return new SdpSession.CodecSpec(VIDEO_CODEC_H264, H264_PROFILE_IDC_BASELINE);
+      case VIDEO_CODEC_VP8:
       default:
-        return VIDEO_CODEC_VP8;
+        return new SdpSession.CodecSpec(VIDEO_CODEC_VP8, null);
+    }
+  }
+
+  private static boolean isVideoCodecSupported(
+      SdpSession.CodecSpec codec, VideoCodecInfo[] supportedCodecs) {
+    for (VideoCodecInfo info : supportedCodecs) {
+      if (!codec.name.equalsIgnoreCase(info.name)) {
+        continue;
+      }
+      if (codec.h264ProfileIdc == null) {
+        return true;
+      }
+      String profileLevelId = info.params.get(H264_PROFILE_LEVEL_ID);
+      if (profileLevelId != null
+          && profileLevelId.regionMatches(true, 0, codec.h264ProfileIdc, 0, 2)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Intersects |order| with the codecs the local encoder and decoder factories support. Apart from
+  // the selected codec, codecs with a hardware encoder are preferred over software-only ones so
+  // that a fallback does not end on a CPU-heavy software codec.
+  // |order| 를 로컬 인코더 및 디코더 팩토리가 지원하는 코덱과 교차합니다. 선택한 코덱을 제외하고,
+  // 하드웨어 인코더가 있는 코덱을 소프트웨어 전용 코덱보다 우선합니다.
+  private static List<SdpSession.CodecSpec> getSupportedVideoCodecPreferences(List<String> order,
+      VideoCodecInfo[] encoderCodecs, VideoCodecInfo[] decoderCodecs,
+      VideoCodecInfo[] hardwareEncoderCodecs) {
+    final List<SdpSession.CodecSpec> preferences = new ArrayList<>(order.size());
+    final List<SdpSession.CodecSpec> softwareOnly = new ArrayList<>(order.size());
+    for (int i = 0; i < order.size(); i++) {
+      SdpSession.CodecSpec codec = getSdpVideoCodec(order.get(i));
+      // Some decoder factories do not report their codecs; only the encoder is checked then.
+      if (!isVideoCodecSupported(codec, encoderCodecs)
+          || (decoderCodecs.length > 0 && !isVideoCodecSupported(codec, decoderCodecs))) {
+        Log.d(TAG, "Video codec is not supported locally: " + order.get(i));
+        continue;
+      }
+      if (i == 0 || isVideoCodecSupported(codec, hardwareEncoderCodecs)) {
+        preferences.add(codec);
+      } else {
+        softwareOnly.add(codec);
+      }
+    }
+    preferences.addAll(softwareOnly);
+    if (preferences.isEmpty()) {
+      Log.w(TAG, "No supported video codec reported, using the preference order as is.");
+      for (String codec : order) {
+        preferences.add(getSdpVideoCodec(codec));
+      }
     }
+    return preferences;
   }
 
   private static String getFieldTrials(PeerConnectionParameters peerConnectionParameters) {
+    return getFieldTrials(peerConnectionParameters.videoFlexfecEnabled,
+        peerConnectionParameters.disableWebRtcAGCAndHPF);
+  }
+
+  /**
+   * Returns the field trials of a call with these settings, e.g. to warm up
+   * {@link PeerConnectionFactoryOwner} before the call.
+   */
+  public static String getFieldTrials(boolean videoFlexfecEnabled, boolean disableWebRtcAGCAndHPF) {
     String fieldTrials = "";
-    if (peerConnectionParameters.videoFlexfecEnabled) {
+    if (videoFlexfecEnabled) {
       fieldTrials += VIDEO_FLEXFEC_FIELDTRIAL;
       Log.d(TAG, "Enable FlexFEC field trial.");
     }
     fieldTrials += VIDEO_VP8_INTEL_HW_ENCODER_FIELDTRIAL;
-    if (peerConnectionParameters.disableWebRtcAGCAndHPF) {
+    if (disableWebRtcAGCAndHPF) {
       fieldTrials += DISABLE_WEBRTC_AGC_FIELDTRIAL;
       Log.d(TAG, "Disable WebRTC AGC field trial.");
     }
     return fieldTrials;
   }
 
-  @SuppressWarnings("StringSplitter")
-  private static String setStartBitrate(
-      String codec, boolean isVideoCodec, String sdpDescription, int bitrateKbps) {
-    String[] lines = sdpDescription.split("\r\n");
-    int rtpmapLineIndex = -1;
-    boolean sdpFormatUpdated = false;
-    String codecRtpMap = null;
-    // Search for codec rtpmap in format
-    // a=rtpmap:<payload type> <encoding name>/<clock rate> [/<encoding parameters>]
-    String regex = "^a=rtpmap:(\\d+) " + codec + "(/\\d+)+[\r]?$";
-    Pattern codecPattern = Pattern.compile(regex);
-    for (int i = 0; i < lines.length; i++) {
-      Matcher codecMatcher = codecPattern.matcher(lines[i]);
-      if (codecMatcher.matches()) {
-        codecRtpMap = codecMatcher.group(1);
-        rtpmapLineIndex = i;
-        break;
-      }
-    }
-    if (codecRtpMap == null) {
+  private static void setStartBitrate(
+      String codec, boolean isVideoCodec, SdpSession sdpSession, int bitrateKbps) {
+    // Add the bitrate parameter to the a=fmtp line of the codec, or add a new a=fmtp line right
+    // after its rtpmap if the codec has none.
+    // 코덱의 a=fmtp 라인에 비트레이트 매개 변수를 추가하거나, 없으면 rtpmap 바로 뒤에 새 a=fmtp 라인을 추가합니다.
+    final String payloadType;
+    if (isVideoCodec) {
+      payloadType = sdpSession.setCodecParameter(
+          codec, VIDEO_CODEC_PARAM_START_BITRATE, Integer.toString(bitrateKbps));
+    } else {
+      payloadType = sdpSession.setCodecParameter(
+          codec, AUDIO_CODEC_PARAM_BITRATE, Integer.toString(bitrateKbps * 1000));
+    }
+    if (payloadType == null) {
       Log.w(TAG, "No rtpmap for " + codec + " codec");
-      return sdpDescription;
-    }
-    Log.d(TAG, "Found " + codec + " rtpmap " + codecRtpMap + " at " + lines[rtpmapLineIndex]);
-
-    // Check if a=fmtp string already exist in remote SDP for this codec and update it with new bitrate parameter.
-    // 이 코덱의 원격 SDP에 a=fmtp 문자열이 이미 있는지 확인하고 새 비트레이트 매개 변수로 업데이트합니다.
-    regex = "^a=fmtp:" + codecRtpMap + " \\w+=\\d+.*[\r]?$";
-    codecPattern = Pattern.compile(regex);
-    for (int i = 0; i < lines.length; i++) {
-      Matcher codecMatcher = codecPattern.matcher(lines[i]);
-      if (codecMatcher.matches()) {
-        Log.d(TAG, "Found " + codec + " " + lines[i]);
-        if (isVideoCodec) {
-          lines[i] += "; " + VIDEO_CODEC_PARAM_START_BITRATE + "=" + bitrateKbps;
-        } else {
-          lines[i] += "; " + AUDIO_CODEC_PARAM_BITRATE + "=" + (bitrateKbps * 1000);
-        }
-        Log.d(TAG, "Update remote SDP line: " + lines[i]);
-        sdpFormatUpdated = true;
-        break;
-      }
-    }
-
-    StringBuilder newSdpDescription = new StringBuilder();
-    for (int i = 0; i < lines.length; i++) {
-      newSdpDescription.append(lines[i]).append("\r\n");
-      // Append new a=fmtp line if no such line exist for a codec.
-      // 코덱에 대해 해당 라인이 없는 경우 새 a=fmtp 라인을 추가합니다.
-      if (!sdpFormatUpdated && i == rtpmapLineIndex) {
-        String bitrateSet;
-        if (isVideoCodec) {
-          bitrateSet =
-              "a=fmtp:" + codecRtpMap + " " + VIDEO_CODEC_PARAM_START_BITRATE + "=" + bitrateKbps;
-        } else {
-          bitrateSet = "a=fmtp:" + codecRtpMap + " " + AUDIO_CODEC_PARAM_BITRATE + "="
-              + (bitrateKbps * 1000);
-        }
-        Log.d(TAG, "Add remote SDP line: " + bitrateSet);
-        newSdpDescription.append(bitrateSet).append("\r\n");
-      }
+      return;
     }
-    return newSdpDescription.toString();
+    Log.d(TAG, "Set " + codec + " start bitrate " + bitrateKbps + " kbps for payload type "
+        + payloadType);
   }
 
-  /** Returns the line number containing "m=audio|video", or -1 if no such line exists. */
-  private static int findMediaDescriptionLine(boolean isAudio, String[] sdpLines) {
-    final String mediaDescription = isAudio ? "m=audio " : "m=video ";
-    for (int i = 0; i < sdpLines.length; ++i) {
-      if (sdpLines[i].startsWith(mediaDescription)) {
-        return i;
+  // Writes the min/start/max bitrate of every preferred video codec, so that whichever codec is
+  // negotiated starts close to its target instead of ramping up from the engine default.
+  // 협상되는 코덱이 엔진 기본값에서 올라가지 않고 목표 근처에서 시작하도록 선호하는 모든 비디오 코덱의
+  // 최소/시작/최대 비트레이트를 씁니다.
+  private void setVideoBitrates(SdpSession sdpSession) {
+    for (SdpSession.CodecSpec codec : videoCodecPreferences) {
+      VideoBitratePolicy.Bitrates bitrates = VideoBitratePolicy.compute(codec, videoWidth,
+          videoHeight, videoFps, peerConnectionParameters.videoMaxBitrate,
+          videoBandwidthEstimateKbps);
+      int updated = sdpSession.setFmtpParameter(
+          codec, false, VIDEO_CODEC_PARAM_MIN_BITRATE, Integer.toString(bitrates.minKbps));
+      if (updated == 0) {
+        continue;
       }
+      sdpSession.setFmtpParameter(
+          codec, false, VIDEO_CODEC_PARAM_START_BITRATE, Integer.toString(bitrates.startKbps));
+      sdpSession.setFmtpParameter(
+          codec, false, VIDEO_CODEC_PARAM_MAX_BITRATE, Integer.toString(bitrates.maxKbps));
+      Log.d(TAG, "Set " + codec + " bitrates " + bitrates);
     }
-    return -1;
   }
 
-  private static String joinString(
-      Iterable<? extends CharSequence> s, String delimiter, boolean delimiterAtEnd) {
-    Iterator<? extends CharSequence> iter = s.iterator();
-    if (!iter.hasNext()) {
-      return "";
-    }
-    StringBuilder buffer = new StringBuilder(iter.next());
-    while (iter.hasNext()) {
-      buffer.append(delimiter).append(iter.next());
-    }
-    if (delimiterAtEnd) {
-      buffer.append(delimiter);
-    }
-    return buffer.toString();
+  private static void preferCodec(SdpSession sdpSession, String codec, boolean isAudio) {
+    preferCodecs(
+        sdpSession, Collections.singletonList(new SdpSession.CodecSpec(codec, null)), isAudio);
   }
 
-  private static @Nullable String movePayloadTypesToFront(
-      List<String> preferredPayloadTypes, String mLine) {
-    // The format of the media description line should be: m=<media> <port> <proto> <fmt> ...
-    // 미디어 설명 라인의 형식은 다음과 같아야 합니다: m=<media > <port> <proto> <fmt>...
-    final List<String> origLineParts = Arrays.asList(mLine.split(" "));
-    if (origLineParts.size() <= 3) {
-      Log.e(TAG, "Wrong SDP media description format: " + mLine);
-      return null;
-    }
-    final List<String> header = origLineParts.subList(0, 3);
-    final List<String> unpreferredPayloadTypes =
-        new ArrayList<>(origLineParts.subList(3, origLineParts.size()));
-    unpreferredPayloadTypes.removeAll(preferredPayloadTypes);
-    // Reconstruct the line with |preferredPayloadTypes| moved to the beginning of the payload types.
-    // |preferredPayload로 라인을 재구성합니다.Types| payload type의 시작 부분으로 이동했습니다.
-    final List<String> newLineParts = new ArrayList<>();
-    newLineParts.addAll(header);
-    newLineParts.addAll(preferredPayloadTypes);
-    newLineParts.addAll(unpreferredPayloadTypes);
-    return joinString(newLineParts, " ", false /* delimiterAtEnd */);
-  }
-
-  private static String preferCodec(String sdpDescription, String codec, boolean isAudio) {
-    final String[] lines = sdpDescription.split("\r\n");
-    final int mLineIndex = findMediaDescriptionLine(isAudio, lines);
-    if (mLineIndex == -1) {
-      Log.w(TAG, "No mediaDescription line, so can't prefer " + codec);
-      return sdpDescription;
-    }
-    // A list with all the payload types with name |codec|. The payload types are integers in the range 96-127, but they are stored as strings here.
-    // 모든 페이로드 유형이 |코덱|인 목록입니다. 페이로드 유형은 96-127 범위의 정수이지만 여기서 문자열로 저장됩니다.
-    final List<String> codecPayloadTypes = new ArrayList<>();
-    // a=rtpmap:<payload type> <encoding name>/<clock rate> [/<encoding parameters>]
-    final Pattern codecPattern = Pattern.compile("^a=rtpmap:(\\d+) " + codec + "(/\\d+)+[\r]?$");
-    for (String line : lines) {
-      Matcher codecMatcher = codecPattern.matcher(line);
-      if (codecMatcher.matches()) {
-        codecPayloadTypes.add(codecMatcher.group(1));
-      }
+  private static void preferCodecs(
+      SdpSession sdpSession, List<SdpSession.CodecSpec> codecs, boolean isAudio) {
+    if (sdpSession.findMediaSection(isAudio) == null) {
+      Log.w(TAG, "No mediaDescription line, so can't prefer " + codecs);
+      return;
     }
-    if (codecPayloadTypes.isEmpty()) {
-      Log.w(TAG, "No payload types with name " + codec);
-      return sdpDescription;
+    if (!sdpSession.preferCodecs(codecs, isAudio)) {
+      Log.w(TAG, "No payload types with name " + codecs);
+      return;
     }
+    Log.d(TAG, "Prefer " + codecs + " in " + (isAudio ? "audio" : "video")
+        + " media description");
+  }
 
-    final String newMLine = movePayloadTypesToFront(codecPayloadTypes, lines[mLineIndex]);
-    if (newMLine == null) {
-      return sdpDescription;
+  private void markSetupMilestone(RemotePeer peer, CallSetupTimeline.Milestone milestone) {
+    final CallSetupTimeline timeline = callSetupTimeline;
+    if (timeline != null && peer.isDefault()) {
+      timeline.mark(milestone);
     }
-    Log.d(TAG, "Change media description from: " + lines[mLineIndex] + " to " + newMLine);
-    lines[mLineIndex] = newMLine;
-    return joinString(Arrays.asList(lines), "\r\n", true /* delimiterAtEnd */);
   }
 
-  private void drainCandidates() {
-    if (queuedRemoteCandidates != null) {
-      Log.d(TAG, "Add " + queuedRemoteCandidates.size() + " remote candidates");
-      for (IceCandidate candidate : queuedRemoteCandidates) {
-        peerConnection.addIceCandidate(candidate);
+  private void drainCandidates(RemotePeer peer) {
+    if (peer.queuedRemoteCandidates != null) {
+      Log.d(TAG, "Add " + peer.queuedRemoteCandidates.size() + " remote candidates for "
+          + peer.id);
+      for (IceCandidate candidate : peer.queuedRemoteCandidates) {
+        peer.peerConnection.addIceCandidate(candidate);
       }
-      queuedRemoteCandidates = null;
+      peer.queuedRemoteCandidates = null;
     }
   }
 
@@ -1171,11 +1750,12 @@ public class PeerConnectionClient {
   }
 
   public void switchCamera() {
-    executor.execute(this ::switchCameraInternal);
+    executor.execute("switchCamera", this ::switchCameraInternal);
   }
 
   public void changeCaptureFormat(final int width, final int height, final int framerate) {
-    executor.execute(() -> changeCaptureFormatInternal(width, height, framerate));
+    executor.execute(
+        "changeCaptureFormat", () -> changeCaptureFormatInternal(width, height, framerate));
   }
 
   private void changeCaptureFormatInternal(int width, int height, int framerate) {
@@ -1191,14 +1771,22 @@ public class PeerConnectionClient {
 
   // Implementation detail: observe ICE & stream changes and react accordingly.
   private class PCObserver implements PeerConnection.Observer {
+    private final RemotePeer peer;
+
+    PCObserver(RemotePeer peer) {
+      this.peer = peer;
+    }
+
     @Override
     public void onIceCandidate(final IceCandidate candidate) {
-      executor.execute(() -> events.onIceCandidate(candidate));
+      markSetupMilestone(peer, CallSetupTimeline.Milestone.FIRST_LOCAL_CANDIDATE);
+      executor.execute("onIceCandidate", () -> peer.events.onIceCandidate(candidate));
     }
 
     @Override
     public void onIceCandidatesRemoved(final IceCandidate[] candidates) {
-      executor.execute(() -> events.onIceCandidatesRemoved(candidates));
+      executor.execute(
+          "onIceCandidatesRemoved", () -> peer.events.onIceCandidatesRemoved(candidates));
     }
 
     @Override
@@ -1208,28 +1796,34 @@ public class PeerConnectionClient {
 
     @Override
     public void onIceConnectionChange(final PeerConnection.IceConnectionState newState) {
-      executor.execute(() -> {
-        Log.d(TAG, "IceConnectionState: " + newState);
+      if (newState == IceConnectionState.CONNECTED) {
+        markSetupMilestone(peer, CallSetupTimeline.Milestone.ICE_CONNECTED);
+      }
+      executor.execute("onIceConnectionChange", () -> {
+        Log.d(TAG, "IceConnectionState of " + peer.id + ": " + newState);
         if (newState == IceConnectionState.CONNECTED) {
-          events.onIceConnected();
+          peer.events.onIceConnected();
         } else if (newState == IceConnectionState.DISCONNECTED) {
-          events.onIceDisconnected();
+          peer.events.onIceDisconnected();
         } else if (newState == IceConnectionState.FAILED) {
-          reportError("ICE connection failed.");
+          reportError(peer, "ICE connection failed.");
         }
       });
     }
 
     @Override
     public void onConnectionChange(final PeerConnection.PeerConnectionState newState) {
-      executor.execute(() -> {
-        Log.d(TAG, "PeerConnectionState: " + newState);
+      if (newState == PeerConnectionState.CONNECTED) {
+        markSetupMilestone(peer, CallSetupTimeline.Milestone.DTLS_CONNECTED);
+      }
+      executor.execute("onConnectionChange", () -> {
+        Log.d(TAG, "PeerConnectionState of " + peer.id + ": " + newState);
         if (newState == PeerConnectionState.CONNECTED) {
-          events.onConnected();
+          peer.events.onConnected();
         } else if (newState == PeerConnectionState.DISCONNECTED) {
-          events.onDisconnected();
+          peer.events.onDisconnected();
         } else if (newState == PeerConnectionState.FAILED) {
-          reportError("DTLS connection failed.");
+          reportError(peer, "DTLS connection failed.");
         }
       });
     }
@@ -1257,30 +1851,34 @@ public class PeerConnectionClient {
       if (!dataChannelEnabled)
         return;
 
-      dc.registerObserver(new DataChannel.Observer() {
-        @Override
-        public void onBufferedAmountChange(long previousAmount) {
-          Log.d(TAG, "Data channel buffered amount changed: " + dc.label() + ": " + dc.state());
-        }
-
-        @Override
-        public void onStateChange() {
-          Log.d(TAG, "Data channel state changed: " + dc.label() + ": " + dc.state());
-        }
-
-        @Override
-        public void onMessage(final DataChannel.Buffer buffer) {
-          if (buffer.binary) {
-            Log.d(TAG, "Received binary msg over " + dc);
+      DataChannelKind kind = DataChannelKind.fromLabel(dc.label());
+      if (kind == null) {
+        // E.g. a peer of an older version; its messages are handled as those of the default one.
+        // 예를 들어 이전 버전의 피어이며, 메시지는 기본 채널의 메시지로 처리합니다.
+        Log.w(TAG, "Unknown data channel " + dc.label());
+        kind = DataChannelKind.DEFAULT;
+      }
+      final int index = kind.ordinal();
+      // Registered right away so that no message is missed; only kept on the executor.
+      // 메시지를 놓치지 않도록 바로 등록하며, 보관은 실행자 스레드에서 합니다.
+      final DataChannelEndpoint endpoint = new DataChannelEndpoint(
+          peer.id, kind, dc, dataChannelBufferPool, dataChannelDispatcher, false);
+      try {
+        executor.execute("onDataChannel", () -> {
+          if (peer.peerConnection == null) {
+            endpoint.dispose();
             return;
           }
-          ByteBuffer data = buffer.data;
-          final byte[] bytes = new byte[data.capacity()];
-          data.get(bytes);
-          String strData = new String(bytes, Charset.forName("UTF-8"));
-          Log.d(TAG, "Got msg: " + strData + " over " + dc);
-        }
-      });
+          if (peer.remoteDataChannels[index] != null) {
+            peer.remoteDataChannels[index].dispose();
+          }
+          peer.remoteDataChannels[index] = endpoint;
+        });
+      } catch (RejectedExecutionException e) {
+        // The client is closed, nobody else would dispose the endpoint.
+        // 클라이언트가 닫혔으므로 다른 곳에서 엔드포인트를 해제하지 않습니다.
+        endpoint.dispose();
+      }
     }
 
     @Override
@@ -1296,49 +1894,59 @@ public class PeerConnectionClient {
   // Implementation detail: handle offer creation/signaling and answer setting, as well as adding remote ICE candidates once the answer SDP is set.
   // 구현 세부 정보: SDP가 설정되면 생성/신호 및 응답 설정을 처리하고 원격 ICE 후보를 추가합니다.
   private class SDPObserver implements SdpObserver {
+    private final RemotePeer peer;
+
+    SDPObserver(RemotePeer peer) {
+      this.peer = peer;
+    }
+
     @Override
     public void onCreateSuccess(final SessionDescription origSdp) {
-      if (localSdp != null) {
-        reportError("Multiple SDP create.");
+      markSetupMilestone(peer, CallSetupTimeline.Milestone.LOCAL_SDP_CREATED);
+      if (peer.localSdp != null) {
+        reportError(peer, "Multiple SDP create.");
         return;
       }
-      String sdpDescription = origSdp.description;
+      final SdpSession sdpSession = SdpSession.parse(origSdp.description);
       if (preferIsac) {
-        sdpDescription = preferCodec(sdpDescription, AUDIO_CODEC_ISAC, true);
+        preferCodec(sdpSession, AUDIO_CODEC_ISAC, true);
       }
       if (isVideoCallEnabled()) {
-        sdpDescription =
-            preferCodec(sdpDescription, getSdpVideoCodecName(peerConnectionParameters), false);
-      }
-      final SessionDescription sdp = new SessionDescription(origSdp.type, sdpDescription);
-      localSdp = sdp;
-      executor.execute(() -> {
-        if (peerConnection != null && !isError) {
-          Log.d(TAG, "Set local SDP from " + sdp.type);
-          peerConnection.setLocalDescription(sdpObserver, sdp);
+        preferCodecs(sdpSession, videoCodecPreferences, false);
+        setVideoBitrates(sdpSession);
+      }
+      final SessionDescription sdp = new SessionDescription(origSdp.type, sdpSession.toString());
+      peer.localSdp = sdp;
+      executor.execute("setLocalDescription", () -> {
+        if (peer.isUsable()) {
+          Log.d(TAG, "Set local SDP from " + sdp.type + " for " + peer.id);
+          peer.peerConnection.setLocalDescription(this, sdp);
         }
       });
     }
 
     @Override
     public void onSetSuccess() {
-      executor.execute(() -> {
-        if (peerConnection == null || isError) {
+      executor.execute("onSetSuccess", () -> {
+        if (!peer.isUsable()) {
           return;
         }
-        if (isInitiator) {
+        final PeerConnection peerConnection = peer.peerConnection;
+        if (peer.isInitiator) {
           // For offering peer connection we first create offer and set local SDP, then after receiving answer set remote SDP.
           // 피어 연결을 제공하기 위해 먼저 오퍼링을 생성하고 로컬 SDP를 설정한 후 원격 SDP를 설정합니다.
           if (peerConnection.getRemoteDescription() == null) {
             // We've just set our local SDP so time to send it.
             // 방금 지역 SDP를 보내드릴 시간을 정했습니다.
             Log.d(TAG, "Local SDP set succesfully");
-            events.onLocalDescription(localSdp);
+            markSetupMilestone(peer, CallSetupTimeline.Milestone.LOCAL_SDP_SET);
+            peer.events.onLocalDescription(peer.localSdp);
           } else {
             // We've just set remote description, so drain remote and send local ICE candidates.
             // 방금 원격 설명을 설정했으므로 원격으로 원격으로 정보를 빼내고 지역 ICE 후보자들을 전송합니다.
             Log.d(TAG, "Remote SDP set succesfully");
-            drainCandidates();
+            markSetupMilestone(peer, CallSetupTimeline.Milestone.REMOTE_SDP_SET);
+            drainCandidates(peer);
           }
         } else {
           // For answering peer connection we set remote SDP and then create answer and set local SDP.
@@ -1347,12 +1955,14 @@ public class PeerConnectionClient {
             // We've just set our local SDP so time to send it, drain remote and send local ICE candidates.
             // 방금 지역 SDP 를 설정하여 전송하고 원격으로 배출하고 지역 ICE 후보를 보낼 시간을 정했습니다.
             Log.d(TAG, "Local SDP set succesfully");
-            events.onLocalDescription(localSdp);
-            drainCandidates();
+            markSetupMilestone(peer, CallSetupTimeline.Milestone.LOCAL_SDP_SET);
+            peer.events.onLocalDescription(peer.localSdp);
+            drainCandidates(peer);
           } else {
             // We've just set remote SDP - do nothing for now - answer will be created soon.
             // 방금 원격 SDP를 설정했는데, 지금은 아무것도 하지 않습니다. 곧 답이 만들어집니다.
             Log.d(TAG, "Remote SDP set succesfully");
+            markSetupMilestone(peer, CallSetupTimeline.Milestone.REMOTE_SDP_SET);
           }
         }
       });
@@ -1360,12 +1970,12 @@ public class PeerConnectionClient {
 
     @Override
     public void onCreateFailure(final String error) {
-      reportError("createSDP error: " + error);
+      reportError(peer, "createSDP error: " + error);
     }
 
     @Override
     public void onSetFailure(final String error) {
-      reportError("setSDP error: " + error);
+      reportError(peer, "setSDP error: " + error);
     }
   }
 }
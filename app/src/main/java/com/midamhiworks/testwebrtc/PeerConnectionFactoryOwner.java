@@ -0,0 +1,249 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.util.Log;
+import androidx.annotation.Nullable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.webrtc.EglBase;
+import org.webrtc.PeerConnectionFactory;
+import org.webrtc.SurfaceTextureHelper;
+
+/**
+ * Process-wide owner of the WebRTC objects that are expensive to create and can outlive a call:
+ * the native library initialization, the root EGL context, the peer connection factory and the
+ * capture SurfaceTextureHelper.
+ *
+ * <p>A closing PeerConnectionClient hands its factory back instead of disposing it, and the next
+ * client with the same factory configuration takes it over. {@link #warmUp(String)} loads the
+ * native library and creates the EGL context before the first call. Cached objects are released
+ * by {@link #trimMemory(int)} while no call is active.
+ *
+ * 통화보다 오래 유지될 수 있는 생성 비용이 큰 WebRTC 객체(네이티브 라이브러리 초기화, 루트 EGL 컨텍스트,
+ * 피어 연결 팩토리, SurfaceTextureHelper)를 프로세스 단위로 소유합니다. 통화가 없을 때 메모리 부족
+ * 신호를 받으면 캐시된 객체를 해제합니다.
+ */
+public class PeerConnectionFactoryOwner {
+  private static final String TAG = "PCFactoryOwner";
+
+  @Nullable private static PeerConnectionFactoryOwner instance;
+
+  /** Receives audio device errors of the shared factory on behalf of the active client. */
+  public interface AudioErrorListener {
+    void onAudioDeviceError(String errorMessage);
+  }
+
+  private final Context appContext;
+  // Runs warm-up work off the main thread.
+  private final ExecutorService warmUpExecutor = Executors.newSingleThreadExecutor();
+
+  @Nullable private EglBase rootEglBase;
+  @Nullable private String initializedFieldTrials;
+  @Nullable private PeerConnectionFactory cachedFactory;
+  @Nullable private String cachedFactoryKey;
+  @Nullable private SurfaceTextureHelper cachedSurfaceTextureHelper;
+  @Nullable private volatile AudioErrorListener audioErrorListener;
+  private int activeClients;
+  private boolean tracingCapture;
+
+  private PeerConnectionFactoryOwner(Context appContext) {
+    this.appContext = appContext;
+  }
+
+  public static synchronized PeerConnectionFactoryOwner get(Context context) {
+    if (instance == null) {
+      instance = new PeerConnectionFactoryOwner(context.getApplicationContext());
+    }
+    return instance;
+  }
+
+  /**
+   * Loads the native library with the |fieldTrials| of the next call and creates the root EGL
+   * context in the background, so that the first call does not pay for it.
+   */
+  public void warmUp(String fieldTrials) {
+    warmUpExecutor.execute(() -> {
+      final long startTimeMs = System.currentTimeMillis();
+      getRootEglBase();
+      initialize(fieldTrials);
+      Log.d(TAG, "Warm-up done in " + (System.currentTimeMillis() - startTimeMs) + " ms.");
+    });
+  }
+
+  /** Returns the shared root EGL context, creating it if needed. */
+  public synchronized EglBase getRootEglBase() {
+    if (rootEglBase == null) {
+      rootEglBase = EglBase.create();
+    }
+    return rootEglBase;
+  }
+
+  /** Returns true if |eglBase| is the shared context; it must not be released by its users. */
+  public synchronized boolean isSharedEglBase(EglBase eglBase) {
+    return eglBase != null && eglBase == rootEglBase;
+  }
+
+  /**
+   * Initializes WebRTC with |fieldTrials|. This is a no-op if it was already initialized with the
+   * same field trials; otherwise the cached factory, which was created with other trials, is
+   * dropped first. The internal tracer is set up by the first initialization and kept for the
+   * lifetime of the process; calls only start and stop its capture.
+   *
+   * <p>The field trials are process-wide and read by live factories, so they are only changed
+   * while no client is active; otherwise the current ones are kept until a later initialization.
+   */
+  public void initialize(String fieldTrials) {
+    initialize(fieldTrials, 0);
+  }
+
+  /** Like {@link #initialize}, for a client that already called {@link #onClientStarted}. */
+  public void initializeForClient(String fieldTrials) {
+    initialize(fieldTrials, 1);
+  }
+
+  private synchronized void initialize(String fieldTrials, int ownClients) {
+    if (fieldTrials.equals(initializedFieldTrials)) {
+      return;
+    }
+    if (initializedFieldTrials != null && activeClients > ownClients) {
+      Log.w(TAG, "Another call is active, keeping field trials: " + initializedFieldTrials);
+      return;
+    }
+    disposeCachedFactory();
+    Log.d(TAG, "Initialize WebRTC. Field trials: " + fieldTrials);
+    PeerConnectionFactory.initialize(PeerConnectionFactory.InitializationOptions.builder(appContext)
+                                         .setFieldTrials(fieldTrials)
+                                         .setEnableInternalTracer(true)
+                                         .createInitializationOptions());
+    initializedFieldTrials = fieldTrials;
+  }
+
+  /** Captures the internal trace of WebRTC to |filePath| until {@link #stopTracingCapture}. */
+  public synchronized void startTracingCapture(String filePath) {
+    if (initializedFieldTrials == null) {
+      Log.e(TAG, "Tracing requested before WebRTC is initialized.");
+      return;
+    }
+    if (PeerConnectionFactory.startInternalTracingCapture(filePath)) {
+      tracingCapture = true;
+    } else {
+      Log.e(TAG, "Failed to start tracing to " + filePath);
+    }
+  }
+
+  /** Stops a capture started by {@link #startTracingCapture}; the tracer itself stays set up. */
+  public synchronized void stopTracingCapture() {
+    if (tracingCapture) {
+      PeerConnectionFactory.stopInternalTracingCapture();
+      tracingCapture = false;
+    }
+  }
+
+  /** Called by a client when it starts and closes, so that nothing is trimmed during a call. */
+  public synchronized void onClientStarted() {
+    activeClients++;
+  }
+
+  public synchronized void onClientClosed() {
+    activeClients = Math.max(0, activeClients - 1);
+  }
+
+  /** Returns the cached factory if it was created with |factoryKey|, or null. */
+  public synchronized @Nullable PeerConnectionFactory takeFactory(String factoryKey) {
+    if (cachedFactory == null) {
+      return null;
+    }
+    if (!factoryKey.equals(cachedFactoryKey)) {
+      Log.d(TAG, "Cached factory has a different configuration.");
+      disposeCachedFactory();
+      return null;
+    }
+    PeerConnectionFactory factory = cachedFactory;
+    cachedFactory = null;
+    cachedFactoryKey = null;
+    return factory;
+  }
+
+  /** Keeps |factory| for the next client with the same |factoryKey|. */
+  public synchronized void offerFactory(String factoryKey, PeerConnectionFactory factory) {
+    disposeCachedFactory();
+    cachedFactory = factory;
+    cachedFactoryKey = factoryKey;
+  }
+
+  /** Returns a SurfaceTextureHelper bound to the shared EGL context, or null if none is cached. */
+  public synchronized @Nullable SurfaceTextureHelper takeSurfaceTextureHelper() {
+    SurfaceTextureHelper helper = cachedSurfaceTextureHelper;
+    cachedSurfaceTextureHelper = null;
+    return helper;
+  }
+
+  public synchronized void offerSurfaceTextureHelper(SurfaceTextureHelper helper) {
+    if (cachedSurfaceTextureHelper != null) {
+      cachedSurfaceTextureHelper.dispose();
+    }
+    cachedSurfaceTextureHelper = helper;
+  }
+
+  public synchronized void setAudioErrorListener(AudioErrorListener listener) {
+    audioErrorListener = listener;
+  }
+
+  /** Clears |listener| unless another client has registered since. */
+  public synchronized void removeAudioErrorListener(AudioErrorListener listener) {
+    if (audioErrorListener == listener) {
+      audioErrorListener = null;
+    }
+  }
+
+  public void reportAudioError(String errorMessage) {
+    AudioErrorListener listener = audioErrorListener;
+    if (listener != null) {
+      listener.onAudioDeviceError(errorMessage);
+    } else {
+      Log.e(TAG, "Audio device error without active client: " + errorMessage);
+    }
+  }
+
+  /**
+   * Releases cached objects according to a ComponentCallbacks2 trim |level|. The factory and the
+   * capture helper go when memory runs low or the app is in the background, the EGL context only
+   * when the process is likely to be killed. Nothing is released during a call.
+   */
+  public synchronized void trimMemory(int level) {
+    if (activeClients > 0 || level == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+        || level < ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+      return;
+    }
+    Log.d(TAG, "Trim memory, level " + level);
+    disposeCachedFactory();
+    if (cachedSurfaceTextureHelper != null) {
+      cachedSurfaceTextureHelper.dispose();
+      cachedSurfaceTextureHelper = null;
+    }
+    if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE && rootEglBase != null) {
+      rootEglBase.release();
+      rootEglBase = null;
+    }
+  }
+
+  private void disposeCachedFactory() {
+    if (cachedFactory != null) {
+      Log.d(TAG, "Dispose cached peer connection factory.");
+      cachedFactory.dispose();
+      cachedFactory = null;
+      cachedFactoryKey = null;
+    }
+  }
+}
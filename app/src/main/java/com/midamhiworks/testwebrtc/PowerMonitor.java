@@ -0,0 +1,164 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import android.annotation.TargetApi;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.annotation.Nullable;
+import java.util.Locale;
+
+/**
+ * Caches the battery level, charge state and temperature of the device and feeds them to a
+ * {@link PowerPolicy}.
+ *
+ * <p>The battery broadcast is subscribed once in {@link #start} instead of reading the sticky
+ * intent whenever a value is needed, so the getters are plain field reads that can be called from
+ * any thread. On Android Q and later the thermal status of the device is followed as well. The
+ * listener is called on the main thread when the power mode changes.
+ *
+ * 기기의 배터리 잔량, 충전 상태, 온도를 캐시하여 PowerPolicy 에 전달합니다. 배터리 브로드캐스트를 한 번만
+ * 구독하므로 값을 읽을 때마다 시스템 호출을 하지 않습니다.
+ */
+class PowerMonitor {
+  private static final String TAG = "PowerMonitor";
+
+  /** Receives power mode changes on the main thread. */
+  public interface Listener {
+    void onPowerModeChanged(PowerPolicy.Mode mode);
+  }
+
+  private final Context appContext;
+  private final Listener listener;
+  private final PowerPolicy policy = new PowerPolicy();
+  private final BroadcastReceiver batteryReceiver = new BroadcastReceiver() {
+    @Override
+    public void onReceive(Context context, Intent intent) {
+      onBatteryChanged(intent);
+    }
+  };
+  @Nullable private Object thermalListener;
+  private boolean started;
+
+  public PowerMonitor(Context context, Listener listener) {
+    this.appContext = context.getApplicationContext();
+    this.listener = listener;
+  }
+
+  /** Subscribes to the battery and thermal state. The current state arrives right away. */
+  public void start() {
+    if (started) {
+      return;
+    }
+    started = true;
+    // The battery broadcast is sticky, so the current state is delivered on registration.
+    appContext.registerReceiver(
+        batteryReceiver, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+      startThermalListener();
+    }
+  }
+
+  public void stop() {
+    if (!started) {
+      return;
+    }
+    started = false;
+    appContext.unregisterReceiver(batteryReceiver);
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+      stopThermalListener();
+    }
+  }
+
+  /** Measures the drain of a call that starts now. */
+  public void onCallStarted() {
+    policy.resetDrain(SystemClock.elapsedRealtime());
+  }
+
+  /** Returns the cached battery level in percent, -1 if not known. */
+  public int getBatteryLevel() {
+    return policy.getLevelPercent();
+  }
+
+  public boolean isCharging() {
+    return policy.isCharging();
+  }
+
+  public PowerPolicy.Mode getMode() {
+    return policy.getMode();
+  }
+
+  public double getDrainPercentPerMinute() {
+    return policy.getDrainPercentPerMinute();
+  }
+
+  @Override
+  public String toString() {
+    return "Battery: " + policy.getLevelPercent() + "%" + (policy.isCharging() ? " charging" : "")
+        + ", " + (policy.getTemperatureTenths() / 10f) + " C, drain "
+        + String.format(Locale.US, "%.2f", policy.getDrainPercentPerMinute()) + " %/min, mode "
+        + policy.getMode();
+  }
+
+  private void onBatteryChanged(Intent intent) {
+    final int scale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, 100);
+    final int level = scale > 0
+        ? (int) (100f * intent.getIntExtra(BatteryManager.EXTRA_LEVEL, 0) / scale)
+        : 0;
+    final boolean charging = intent.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+    final int temperature = intent.getIntExtra(BatteryManager.EXTRA_TEMPERATURE, 0);
+    if (policy.onBatteryState(level, charging, temperature, SystemClock.elapsedRealtime())) {
+      notifyModeChanged();
+    }
+  }
+
+  private void notifyModeChanged() {
+    final PowerPolicy.Mode mode = policy.getMode();
+    Log.d(TAG, "Power mode " + mode + ". " + this);
+    listener.onPowerModeChanged(mode);
+  }
+
+  @TargetApi(Build.VERSION_CODES.Q)
+  private void startThermalListener() {
+    final PowerManager powerManager =
+        (PowerManager) appContext.getSystemService(Context.POWER_SERVICE);
+    if (powerManager == null) {
+      return;
+    }
+    final PowerManager.OnThermalStatusChangedListener thermalStatusListener = status -> {
+      if (policy.onThermalState(status >= PowerManager.THERMAL_STATUS_MODERATE,
+              status >= PowerManager.THERMAL_STATUS_SEVERE)) {
+        notifyModeChanged();
+      }
+    };
+    // The listener is called with the current status right away, on the main thread.
+    powerManager.addThermalStatusListener(thermalStatusListener);
+    thermalListener = thermalStatusListener;
+  }
+
+  @TargetApi(Build.VERSION_CODES.Q)
+  private void stopThermalListener() {
+    final PowerManager powerManager =
+        (PowerManager) appContext.getSystemService(Context.POWER_SERVICE);
+    if (powerManager != null && thermalListener != null) {
+      powerManager.removeThermalStatusListener(
+          (PowerManager.OnThermalStatusChangedListener) thermalListener);
+    }
+    thermalListener = null;
+  }
+}
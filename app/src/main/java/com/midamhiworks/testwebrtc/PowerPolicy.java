@@ -0,0 +1,160 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+/**
+ * Decides how much the call should save power from the battery state reported by
+ * {@link PowerMonitor}, and computes the battery drain of the call.
+ *
+ * <p>On battery, a level below {@link #LOW_BATTERY_PERCENT} selects {@link Mode#SAVING} and a
+ * level at or below {@link #CRITICAL_BATTERY_PERCENT} selects {@link Mode#CRITICAL}; a hot battery
+ * or thermal throttling does the same whether charging or not. A mode is only left once the level
+ * rose or the temperature fell past the threshold by a hysteresis, so a level that flickers
+ * between two values does not flip the capture format.
+ *
+ * <p>The drain is measured from the call start, or from the last time the charger was plugged or
+ * unplugged, since a drain across a charge change means nothing.
+ *
+ * PowerMonitor 가 보고한 배터리 상태로 통화의 절전 수준을 정하고 통화 중 배터리 소모율을 계산합니다.
+ * 배터리 잔량이 적거나 온도가 높으면 프레임 레이트를 낮추고, 히스테리시스를 넘어 회복해야 원래대로 돌아갑니다.
+ */
+public class PowerPolicy {
+  public static final int LOW_BATTERY_PERCENT = 20;
+  public static final int CRITICAL_BATTERY_PERCENT = 10;
+  static final int BATTERY_HYSTERESIS_PERCENT = 3;
+  // Battery temperatures in tenths of a degree Celsius, as reported by BatteryManager.
+  public static final int HOT_TEMPERATURE_TENTHS = 420;
+  public static final int CRITICAL_TEMPERATURE_TENTHS = 450;
+  static final int TEMPERATURE_HYSTERESIS_TENTHS = 20;
+  // Drains measured over less time than this are too coarse with whole percent levels.
+  static final long MIN_DRAIN_PERIOD_MS = 60000;
+
+  /** How much to save, with the frame rate the capture is capped at. */
+  public enum Mode {
+    NORMAL(0),
+    SAVING(15),
+    CRITICAL(10);
+
+    // 0 means no cap.
+    public final int framerateCap;
+
+    Mode(int framerateCap) {
+      this.framerateCap = framerateCap;
+    }
+  }
+
+  private Mode mode = Mode.NORMAL;
+  private int levelPercent = -1;
+  private boolean charging;
+  private int temperatureTenths;
+  private boolean thermalThrottling;
+  private boolean thermalSevere;
+  // Level and time the drain is measured from, -1 if not known yet.
+  private int drainStartLevel = -1;
+  private long drainStartMs;
+  private long lastUpdateMs;
+
+  /** Feeds a battery state. Returns true if the mode changed. */
+  public synchronized boolean onBatteryState(
+      int levelPercent, boolean charging, int temperatureTenths, long nowMs) {
+    if (drainStartLevel < 0 || charging != this.charging) {
+      drainStartLevel = levelPercent;
+      drainStartMs = nowMs;
+    }
+    this.levelPercent = levelPercent;
+    this.charging = charging;
+    this.temperatureTenths = temperatureTenths;
+    this.lastUpdateMs = nowMs;
+    return updateMode();
+  }
+
+  /**
+   * Feeds the thermal state of the device, e.g. from the thermal status of PowerManager.
+   * Throttling selects at least {@link Mode#SAVING}, severe throttling {@link Mode#CRITICAL}.
+   * Returns true if the mode changed.
+   */
+  public synchronized boolean onThermalState(boolean throttling, boolean severe) {
+    thermalThrottling = throttling || severe;
+    thermalSevere = severe;
+    return updateMode();
+  }
+
+  /** Measures the drain from the current level again, e.g. when a call starts. */
+  public synchronized void resetDrain(long nowMs) {
+    drainStartLevel = levelPercent;
+    drainStartMs = nowMs;
+  }
+
+  public synchronized Mode getMode() {
+    return mode;
+  }
+
+  /** Returns the last battery level in percent, -1 before the first state. */
+  public synchronized int getLevelPercent() {
+    return levelPercent;
+  }
+
+  public synchronized boolean isCharging() {
+    return charging;
+  }
+
+  public synchronized int getTemperatureTenths() {
+    return temperatureTenths;
+  }
+
+  /**
+   * Returns the battery used per minute on battery since the drain start, up to the last state,
+   * or 0 while charging or before {@link #MIN_DRAIN_PERIOD_MS}.
+   */
+  public synchronized double getDrainPercentPerMinute() {
+    final long elapsedMs = lastUpdateMs - drainStartMs;
+    if (charging || drainStartLevel < 0 || elapsedMs < MIN_DRAIN_PERIOD_MS) {
+      return 0;
+    }
+    return Math.max(0, drainStartLevel - levelPercent) * 60000.0 / elapsedMs;
+  }
+
+  private boolean updateMode() {
+    final Mode newMode;
+    if (isCritical()) {
+      newMode = Mode.CRITICAL;
+    } else if (isSaving()) {
+      newMode = Mode.SAVING;
+    } else {
+      newMode = Mode.NORMAL;
+    }
+    if (newMode == mode) {
+      return false;
+    }
+    mode = newMode;
+    return true;
+  }
+
+  private boolean isCritical() {
+    // Thresholds are moved by the hysteresis while the mode is active.
+    final boolean active = mode == Mode.CRITICAL;
+    final int batteryThreshold =
+        CRITICAL_BATTERY_PERCENT + (active ? BATTERY_HYSTERESIS_PERCENT : 0);
+    final int temperatureThreshold =
+        CRITICAL_TEMPERATURE_TENTHS - (active ? TEMPERATURE_HYSTERESIS_TENTHS : 0);
+    return thermalSevere || temperatureTenths >= temperatureThreshold
+        || (!charging && levelPercent >= 0 && levelPercent <= batteryThreshold);
+  }
+
+  private boolean isSaving() {
+    final boolean active = mode != Mode.NORMAL;
+    final int batteryThreshold = LOW_BATTERY_PERCENT + (active ? BATTERY_HYSTERESIS_PERCENT : 0);
+    final int temperatureThreshold =
+        HOT_TEMPERATURE_TENTHS - (active ? TEMPERATURE_HYSTERESIS_TENTHS : 0);
+    return thermalThrottling || temperatureTenths >= temperatureThreshold
+        || (!charging && levelPercent >= 0 && levelPercent < batteryThreshold);
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import androidx.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+
+/**
+ * Reads a small /proc or sysfs file again and again without allocating.
+ *
+ * <p>The file stays open between reads and is read from offset 0 into a fixed buffer, which
+ * makes the kernel generate fresh contents. If a read fails, e.g. because a CPU core went
+ * offline, the descriptor is closed and reopened on the next read. Numbers are parsed straight
+ * from the bytes with a cursor that never crosses a line end; content beyond the buffer size is
+ * ignored.
+ *
+ * 작은 /proc 또는 sysfs 파일을 메모리 할당 없이 반복해서 읽습니다. 파일을 열어 둔 채로 오프셋 0 부터
+ * 고정 버퍼로 읽고, 숫자는 문자열을 만들지 않고 바이트에서 바로 파싱합니다.
+ */
+class ProcFileReader implements Closeable {
+  private final File file;
+  private final byte[] buffer;
+  @Nullable private RandomAccessFile descriptor;
+  private int length;
+  private int position;
+
+  ProcFileReader(File file, int capacity) {
+    this.file = file;
+    this.buffer = new byte[capacity];
+  }
+
+  /** Reads the file from the start and moves the cursor there. Returns false on failure. */
+  boolean read() {
+    length = 0;
+    position = 0;
+    try {
+      if (descriptor == null) {
+        // Checked first so that missing files, e.g. of offline cores, do not throw every time.
+        if (!file.exists()) {
+          return false;
+        }
+        descriptor = new RandomAccessFile(file, "r");
+      }
+      descriptor.seek(0);
+      int read;
+      while (length < buffer.length
+          && (read = descriptor.read(buffer, length, buffer.length - length)) > 0) {
+        length += read;
+      }
+    } catch (IOException e) {
+      close();
+      return false;
+    }
+    return length > 0;
+  }
+
+  @Override
+  public void close() {
+    if (descriptor != null) {
+      try {
+        descriptor.close();
+      } catch (IOException e) {
+        // Nothing to do for a read-only descriptor.
+      }
+      descriptor = null;
+    }
+  }
+
+  /** Moves the cursor to the start of the next line. Returns false if there is none. */
+  boolean nextLine() {
+    while (position < length && buffer[position] != '\n') {
+      position++;
+    }
+    if (position >= length) {
+      return false;
+    }
+    position++;
+    return position < length;
+  }
+
+  /** Returns true if the text at the cursor starts with |prefix|, which must be ASCII. */
+  boolean startsWith(String prefix) {
+    if (length - position < prefix.length()) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length(); i++) {
+      if (buffer[position + i] != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Moves the cursor |count| bytes forward within the line. */
+  void skip(int count) {
+    for (int i = 0; i < count && position < length && buffer[position] != '\n'; i++) {
+      position++;
+    }
+  }
+
+  /** Skips |count| space separated fields of the line, whatever they contain. */
+  void skipFields(int count) {
+    for (int i = 0; i < count; i++) {
+      while (position < length && (buffer[position] == ' ' || buffer[position] == '\t')) {
+        position++;
+      }
+      while (position < length && buffer[position] != ' ' && buffer[position] != '\t'
+          && buffer[position] != '\n') {
+        position++;
+      }
+    }
+  }
+
+  /**
+   * Returns the text between the first '(' and the last ')' of the line, like the command name
+   * in /proc/[pid]/stat which may contain both, and moves the cursor past it. Returns null if
+   * there is none. Allocates, so use it only when something new was found.
+   */
+  @Nullable
+  String nextParenthesized() {
+    int end = position;
+    while (end < length && buffer[end] != '\n') {
+      end++;
+    }
+    int open = position;
+    while (open < end && buffer[open] != '(') {
+      open++;
+    }
+    int close = end - 1;
+    while (close > open && buffer[close] != ')') {
+      close--;
+    }
+    if (open >= end || close <= open) {
+      return null;
+    }
+    position = close + 1;
+    return new String(buffer, open + 1, close - open - 1, Charset.forName("UTF-8"));
+  }
+
+  /** Moves the cursor past the last ')' of the line, without creating a String. */
+  boolean skipParenthesized() {
+    int end = position;
+    while (end < length && buffer[end] != '\n') {
+      end++;
+    }
+    for (int close = end - 1; close >= position; close--) {
+      if (buffer[close] == ')') {
+        position = close + 1;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Returns the byte at the cursor, or -1 at the end of the buffer. */
+  int peek() {
+    return position < length ? buffer[position] : -1;
+  }
+
+  /**
+   * Skips spaces and parses the unsigned decimal number at the cursor. Returns -1 and leaves the
+   * cursor at the next non-space byte if there is no number before the end of the line.
+   */
+  long nextLong() {
+    while (position < length && (buffer[position] == ' ' || buffer[position] == '\t')) {
+      position++;
+    }
+    if (position >= length || buffer[position] < '0' || buffer[position] > '9') {
+      return -1;
+    }
+    long value = 0;
+    while (position < length && buffer[position] >= '0' && buffer[position] <= '9') {
+      value = value * 10 + (buffer[position] - '0');
+      position++;
+    }
+    return value;
+  }
+}
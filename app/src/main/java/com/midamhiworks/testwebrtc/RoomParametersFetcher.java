@@ -11,6 +11,7 @@
 package com.midamhiworks.testwebrtc;
 
 import android.util.Log;
+import androidx.annotation.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
@@ -47,6 +48,7 @@ public class RoomParametersFetcher {
   private final RoomParametersFetcherEvents events;
   private final String roomUrl;
   private final String roomMessage;
+  @Nullable private final CallSetupTimeline timeline;
 
   /**
    * Room parameters fetcher callbacks.
@@ -66,13 +68,20 @@ public class RoomParametersFetcher {
 
   public RoomParametersFetcher(
       String roomUrl, String roomMessage, final RoomParametersFetcherEvents events) {
+    this(roomUrl, roomMessage, events, null);
+  }
+
+  public RoomParametersFetcher(String roomUrl, String roomMessage,
+      final RoomParametersFetcherEvents events, @Nullable CallSetupTimeline timeline) {
     this.roomUrl = roomUrl;
     this.roomMessage = roomMessage;
     this.events = events;
+    this.timeline = timeline;
   }
 
   public void makeRequest() {
     Log.d(TAG, "Connecting to room: " + roomUrl);
+    markSetupMilestone(CallSetupTimeline.Milestone.ROOM_REQUEST_SENT);
     AsyncHttpURLConnection httpConnection =
         new AsyncHttpURLConnection("POST", roomUrl, roomMessage, new AsyncHttpEvents() {
           @Override
@@ -83,12 +92,19 @@ public class RoomParametersFetcher {
 
           @Override
           public void onHttpComplete(String response) {
+            markSetupMilestone(CallSetupTimeline.Milestone.ROOM_RESPONSE_RECEIVED);
             roomHttpResponseParse(response);
           }
         });
     httpConnection.send();
   }
 
+  private void markSetupMilestone(CallSetupTimeline.Milestone milestone) {
+    if (timeline != null) {
+      timeline.mark(milestone);
+    }
+  }
+
   private void roomHttpResponseParse(String response) {
     Log.d(TAG, "Room response: " + response);
     try {
@@ -150,6 +166,7 @@ public class RoomParametersFetcher {
       if (!isTurnPresent && !roomJson.optString("ice_server_url").isEmpty()) {
         List<PeerConnection.IceServer> turnServers =
             requestTurnServers(roomJson.getString("ice_server_url"));
+        markSetupMilestone(CallSetupTimeline.Milestone.TURN_SERVERS_FETCHED);
         for (PeerConnection.IceServer turnServer : turnServers) {
           Log.d(TAG, "TurnServer: " + turnServer);
           iceServers.add(turnServer);
@@ -0,0 +1,472 @@
+/*
+ *  Copyright 2014 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Structured view of an SDP blob used for munging offers and answers.
+ *
+ * <p>The description is split into lines once, media sections keep their rtpmap, fmtp and
+ * rtcp-fb attributes indexed by payload type, every munging step modifies the model in place and
+ * toString() serializes it once. Lines that are not understood are kept verbatim.
+ * This class is not thread-safe; it is only used on the peer connection executor thread.
+ *
+ * SDP 를 한 번만 파싱하여 munging 단계마다 제자리에서 수정하고, 마지막에 한 번만 문자열로 직렬화합니다.
+ * 이해하지 못한 라인은 그대로 유지됩니다.
+ */
+public class SdpSession {
+  private static final String LINE_DELIMITER = "\r\n";
+  private static final String MEDIA_PREFIX = "m=";
+  private static final String RTPMAP_PREFIX = "a=rtpmap:";
+  private static final String FMTP_PREFIX = "a=fmtp:";
+  private static final String RTCP_FB_PREFIX = "a=rtcp-fb:";
+  private static final String PROFILE_LEVEL_ID = "profile-level-id";
+
+  private final List<String> sessionLines = new ArrayList<>();
+  private final List<MediaSection> mediaSections = new ArrayList<>();
+  private final int originalLength;
+
+  // Single mutable SDP line, so that indexes can point at lines while they are being edited.
+  // 편집 중에도 인덱스가 라인을 가리킬 수 있도록 변경 가능한 SDP 라인입니다.
+  private static class Line {
+    String value;
+
+    Line(String value) {
+      this.value = value;
+    }
+  }
+
+  /**
+   * Codec to look up in a media section: an encoding name and, for H264, an optional profile.
+   */
+  public static class CodecSpec {
+    public final String name;
+    // First byte of the H264 profile-level-id in hex, e.g. "42" for (constrained) baseline or
+    // "64" for high. Null matches any profile.
+    @Nullable public final String h264ProfileIdc;
+
+    public CodecSpec(String name, @Nullable String h264ProfileIdc) {
+      this.name = name;
+      this.h264ProfileIdc = h264ProfileIdc;
+    }
+
+    @Override
+    public String toString() {
+      return h264ProfileIdc == null ? name : name + " (profile_idc " + h264ProfileIdc + ")";
+    }
+  }
+
+  /**
+   * A single "m=" section with its attributes.
+   */
+  public static class MediaSection {
+    private final String media;
+    // "m=<media> <port> <proto>" part of the media description line.
+    private final String header;
+    private final List<String> payloadTypes;
+    private final List<Line> lines = new ArrayList<>();
+    // Payload type -> encoding name, e.g. "96" -> "VP8".
+    private final Map<String, String> encodingNames = new HashMap<>();
+    private final Map<String, Line> rtpmapLines = new HashMap<>();
+    private final Map<String, Line> fmtpLines = new HashMap<>();
+    private final Map<String, List<Line>> rtcpFeedbackLines = new HashMap<>();
+
+    private MediaSection(String media, String header, List<String> payloadTypes) {
+      this.media = media;
+      this.header = header;
+      this.payloadTypes = payloadTypes;
+    }
+
+    public String getMedia() {
+      return media;
+    }
+
+    public boolean isAudio() {
+      return "audio".equals(media);
+    }
+
+    public boolean isVideo() {
+      return "video".equals(media);
+    }
+
+    /** Returns the payload types in m-line order. The list is read-only. */
+    public List<String> getPayloadTypes() {
+      return Collections.unmodifiableList(payloadTypes);
+    }
+
+    /** Returns the encoding name of |payloadType| as found in its rtpmap, or null. */
+    public @Nullable String getEncodingName(String payloadType) {
+      return encodingNames.get(payloadType);
+    }
+
+    /** Returns the fmtp parameters of |payloadType| (without "a=fmtp:<pt> "), or null. */
+    public @Nullable String getFmtp(String payloadType) {
+      Line fmtp = fmtpLines.get(payloadType);
+      if (fmtp == null) {
+        return null;
+      }
+      int separator = fmtp.value.indexOf(' ');
+      return separator < 0 ? "" : fmtp.value.substring(separator + 1);
+    }
+
+    /** Returns the rtcp-fb values of |payloadType|, e.g. "nack pli". */
+    public List<String> getRtcpFeedback(String payloadType) {
+      List<Line> feedbackLines = rtcpFeedbackLines.get(payloadType);
+      if (feedbackLines == null) {
+        return Collections.emptyList();
+      }
+      List<String> feedback = new ArrayList<>(feedbackLines.size());
+      for (Line line : feedbackLines) {
+        int separator = line.value.indexOf(' ');
+        feedback.add(separator < 0 ? "" : line.value.substring(separator + 1));
+      }
+      return feedback;
+    }
+
+    /** Returns the payload types with encoding name |codec|, in m-line order. */
+    public List<String> findPayloadTypes(String codec) {
+      List<String> codecPayloadTypes = new ArrayList<>();
+      for (String payloadType : payloadTypes) {
+        if (codec.equals(encodingNames.get(payloadType))) {
+          codecPayloadTypes.add(payloadType);
+        }
+      }
+      return codecPayloadTypes;
+    }
+
+    /** Returns the payload types matching |codec|, in m-line order. */
+    public List<String> findPayloadTypes(CodecSpec codec) {
+      List<String> codecPayloadTypes = findPayloadTypes(codec.name);
+      if (codec.h264ProfileIdc == null) {
+        return codecPayloadTypes;
+      }
+      for (int i = codecPayloadTypes.size() - 1; i >= 0; i--) {
+        String fmtp = getFmtp(codecPayloadTypes.get(i));
+        int index = fmtp == null ? -1 : fmtp.indexOf(PROFILE_LEVEL_ID + "=");
+        int start = index + PROFILE_LEVEL_ID.length() + 1;
+        if (index < 0 || fmtp.length() < start + 2
+            || !fmtp.regionMatches(true, start, codec.h264ProfileIdc, 0, 2)) {
+          codecPayloadTypes.remove(i);
+        }
+      }
+      return codecPayloadTypes;
+    }
+
+    /**
+     * Moves |preferredPayloadTypes| to the beginning of the m-line, keeping the relative order of
+     * the other payload types. Payload types not present in this section are ignored.
+     * Returns false if nothing was moved.
+     */
+    public boolean movePayloadTypesToFront(List<String> preferredPayloadTypes) {
+      List<String> reordered = new ArrayList<>(payloadTypes.size());
+      for (String payloadType : preferredPayloadTypes) {
+        if (payloadTypes.contains(payloadType) && !reordered.contains(payloadType)) {
+          reordered.add(payloadType);
+        }
+      }
+      if (reordered.isEmpty()) {
+        return false;
+      }
+      for (String payloadType : payloadTypes) {
+        if (!reordered.contains(payloadType)) {
+          reordered.add(payloadType);
+        }
+      }
+      if (reordered.equals(payloadTypes)) {
+        return false;
+      }
+      payloadTypes.clear();
+      payloadTypes.addAll(reordered);
+      return true;
+    }
+
+    /**
+     * Sets |name|=|value| in the fmtp line of |payloadType|. An existing parameter with the same
+     * name is replaced, otherwise the parameter is appended. A new fmtp line is added right after
+     * the rtpmap line if the payload type has none.
+     */
+    public void setFmtpParameter(String payloadType, String name, String value) {
+      Line fmtp = fmtpLines.get(payloadType);
+      if (fmtp == null) {
+        fmtp = new Line(FMTP_PREFIX + payloadType + " " + name + "=" + value);
+        Line rtpmap = rtpmapLines.get(payloadType);
+        int index = rtpmap == null ? -1 : lines.indexOf(rtpmap);
+        lines.add(index < 0 ? lines.size() : index + 1, fmtp);
+        fmtpLines.put(payloadType, fmtp);
+        return;
+      }
+      int separator = fmtp.value.indexOf(' ');
+      if (separator < 0) {
+        fmtp.value += " " + name + "=" + value;
+        return;
+      }
+      String[] parameters = fmtp.value.substring(separator + 1).split(";");
+      int replaceIndex = -1;
+      for (int i = 0; i < parameters.length; i++) {
+        String parameter = parameters[i].trim();
+        int equals = parameter.indexOf('=');
+        if ((equals < 0 ? parameter : parameter.substring(0, equals)).equals(name)) {
+          replaceIndex = i;
+          break;
+        }
+      }
+      if (replaceIndex < 0) {
+        // Keep the remote formatting untouched and append the new parameter.
+        fmtp.value += "; " + name + "=" + value;
+        return;
+      }
+      StringBuilder builder = new StringBuilder(fmtp.value.length() + 16);
+      builder.append(fmtp.value, 0, separator + 1);
+      for (int i = 0; i < parameters.length; i++) {
+        if (i > 0) {
+          builder.append(';');
+        }
+        if (i == replaceIndex) {
+          builder.append(i > 0 ? " " : "").append(name).append('=').append(value);
+        } else {
+          builder.append(parameters[i]);
+        }
+      }
+      fmtp.value = builder.toString();
+    }
+
+    private void addLine(String value) {
+      Line line = new Line(value);
+      lines.add(line);
+      if (value.startsWith(RTPMAP_PREFIX)) {
+        // a=rtpmap:<payload type> <encoding name>/<clock rate> [/<encoding parameters>]
+        int space = value.indexOf(' ', RTPMAP_PREFIX.length());
+        if (space < 0) {
+          return;
+        }
+        int slash = value.indexOf('/', space);
+        String payloadType = value.substring(RTPMAP_PREFIX.length(), space);
+        rtpmapLines.put(payloadType, line);
+        encodingNames.put(payloadType, value.substring(space + 1, slash < 0 ? value.length() : slash));
+      } else if (value.startsWith(FMTP_PREFIX)) {
+        fmtpLines.put(payloadTypeOf(value, FMTP_PREFIX.length()), line);
+      } else if (value.startsWith(RTCP_FB_PREFIX)) {
+        String payloadType = payloadTypeOf(value, RTCP_FB_PREFIX.length());
+        List<Line> feedbackLines = rtcpFeedbackLines.get(payloadType);
+        if (feedbackLines == null) {
+          feedbackLines = new ArrayList<>(4);
+          rtcpFeedbackLines.put(payloadType, feedbackLines);
+        }
+        feedbackLines.add(line);
+      }
+    }
+
+    // Keeps |value| in place without looking at it, e.g. a line of a malformed m-section.
+    private void addVerbatimLine(String value) {
+      lines.add(new Line(value));
+    }
+
+    private void appendTo(StringBuilder builder) {
+      builder.append(header);
+      for (String payloadType : payloadTypes) {
+        builder.append(' ').append(payloadType);
+      }
+      builder.append(LINE_DELIMITER);
+      for (Line line : lines) {
+        builder.append(line.value).append(LINE_DELIMITER);
+      }
+    }
+
+    private static String payloadTypeOf(String value, int start) {
+      int space = value.indexOf(' ', start);
+      return value.substring(start, space < 0 ? value.length() : space);
+    }
+  }
+
+  private SdpSession(int originalLength) {
+    this.originalLength = originalLength;
+  }
+
+  /**
+   * Parses |sdpDescription|. Both "\r\n" and "\n" line endings are accepted, the serialized form
+   * always uses "\r\n".
+   */
+  public static SdpSession parse(String sdpDescription) {
+    SdpSession session = new SdpSession(sdpDescription.length());
+    MediaSection currentSection = null;
+    // Set after a malformed m-line, whose section is kept verbatim in the position it came in.
+    boolean verbatimSection = false;
+    int start = 0;
+    final int length = sdpDescription.length();
+    while (start < length) {
+      int end = sdpDescription.indexOf('\n', start);
+      if (end < 0) {
+        end = length;
+      }
+      int lineEnd = end;
+      if (lineEnd > start && sdpDescription.charAt(lineEnd - 1) == '\r') {
+        lineEnd--;
+      }
+      if (lineEnd > start) {
+        String line = sdpDescription.substring(start, lineEnd);
+        if (line.startsWith(MEDIA_PREFIX)) {
+          currentSection = parseMediaLine(line);
+          verbatimSection = currentSection == null;
+          if (currentSection != null) {
+            session.mediaSections.add(currentSection);
+          } else {
+            // Keep malformed m-lines verbatim.
+            session.addVerbatimLine(line);
+          }
+        } else if (verbatimSection) {
+          // The lines of a malformed m-line stay with it instead of moving to the session part.
+          // 잘못된 m-라인의 라인은 세션 부분으로 옮기지 않고 그 m-라인 뒤에 둡니다.
+          session.addVerbatimLine(line);
+        } else if (currentSection != null) {
+          currentSection.addLine(line);
+        } else {
+          session.sessionLines.add(line);
+        }
+      }
+      start = end + 1;
+    }
+    return session;
+  }
+
+  // The format of the media description line should be: m=<media> <port> <proto> <fmt> ...
+  // 미디어 설명 라인의 형식은 다음과 같아야 합니다: m=<media> <port> <proto> <fmt>...
+  private static @Nullable MediaSection parseMediaLine(String line) {
+    int mediaEnd = line.indexOf(' ');
+    int portEnd = mediaEnd < 0 ? -1 : line.indexOf(' ', mediaEnd + 1);
+    int protoEnd = portEnd < 0 ? -1 : line.indexOf(' ', portEnd + 1);
+    if (protoEnd < 0) {
+      return null;
+    }
+    List<String> payloadTypes = new ArrayList<>();
+    int start = protoEnd + 1;
+    while (start < line.length()) {
+      int end = line.indexOf(' ', start);
+      if (end < 0) {
+        end = line.length();
+      }
+      if (end > start) {
+        payloadTypes.add(line.substring(start, end));
+      }
+      start = end + 1;
+    }
+    if (payloadTypes.isEmpty()) {
+      return null;
+    }
+    return new MediaSection(
+        line.substring(MEDIA_PREFIX.length(), mediaEnd), line.substring(0, protoEnd), payloadTypes);
+  }
+
+  private void addVerbatimLine(String line) {
+    if (mediaSections.isEmpty()) {
+      sessionLines.add(line);
+    } else {
+      mediaSections.get(mediaSections.size() - 1).addVerbatimLine(line);
+    }
+  }
+
+  public List<MediaSection> getMediaSections() {
+    return Collections.unmodifiableList(mediaSections);
+  }
+
+  /** Returns the first "m=audio" or "m=video" section, or null if there is none. */
+  public @Nullable MediaSection findMediaSection(boolean isAudio) {
+    for (MediaSection section : mediaSections) {
+      if (isAudio ? section.isAudio() : section.isVideo()) {
+        return section;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Moves all payload types named |codec| to the front of every audio or video m-line.
+   * Returns false if no m-line has a payload type with that name.
+   */
+  public boolean preferCodec(String codec, boolean isAudio) {
+    return preferCodecs(Collections.singletonList(new CodecSpec(codec, null)), isAudio);
+  }
+
+  /**
+   * Reorders every audio or video m-line so that the payload types of |codecs| come first, in the
+   * order of the list. Each m-line is rewritten at most once. Returns false if no m-line has a
+   * payload type matching any of the codecs.
+   */
+  public boolean preferCodecs(List<CodecSpec> codecs, boolean isAudio) {
+    boolean found = false;
+    for (MediaSection section : mediaSections) {
+      if (isAudio ? !section.isAudio() : !section.isVideo()) {
+        continue;
+      }
+      List<String> preferredPayloadTypes = new ArrayList<>();
+      for (CodecSpec codec : codecs) {
+        preferredPayloadTypes.addAll(section.findPayloadTypes(codec));
+      }
+      if (!preferredPayloadTypes.isEmpty()) {
+        found = true;
+        section.movePayloadTypesToFront(preferredPayloadTypes);
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Sets |name|=|value| on the fmtp line of the first payload type named |codec|.
+   * Returns the payload type that was updated, or null if there is no rtpmap for |codec|.
+   */
+  public @Nullable String setCodecParameter(String codec, String name, String value) {
+    for (MediaSection section : mediaSections) {
+      List<String> codecPayloadTypes = section.findPayloadTypes(codec);
+      if (!codecPayloadTypes.isEmpty()) {
+        String payloadType = codecPayloadTypes.get(0);
+        section.setFmtpParameter(payloadType, name, value);
+        return payloadType;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Sets |name|=|value| on the fmtp lines of all payload types matching |codec| in every audio or
+   * video m-line. Returns the number of payload types that were updated.
+   */
+  public int setFmtpParameter(CodecSpec codec, boolean isAudio, String name, String value) {
+    int updated = 0;
+    for (MediaSection section : mediaSections) {
+      if (isAudio ? !section.isAudio() : !section.isVideo()) {
+        continue;
+      }
+      for (String payloadType : section.findPayloadTypes(codec)) {
+        section.setFmtpParameter(payloadType, name, value);
+        updated++;
+      }
+    }
+    return updated;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder(originalLength + 256);
+    for (String line : sessionLines) {
+      builder.append(line).append(LINE_DELIMITER);
+    }
+    for (MediaSection section : mediaSections) {
+      section.appendTo(builder);
+    }
+    return builder.toString();
+  }
+}
@@ -62,6 +62,7 @@ public class SettingsActivity extends Activity implements OnSharedPreferenceChan
   private String keyPrefDisplayHud;
   private String keyPrefTracing;
   private String keyprefEnabledRtcEventLog;
+  private String keyprefRecordStats;
 
   private String keyprefEnableDataChannel;
   private String keyprefOrdered;
@@ -70,6 +71,7 @@ public class SettingsActivity extends Activity implements OnSharedPreferenceChan
   private String keyprefDataProtocol;
   private String keyprefNegotiated;
   private String keyprefDataId;
+  private String keyprefLatencyProbeIntervalMs;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -108,11 +110,13 @@ public class SettingsActivity extends Activity implements OnSharedPreferenceChan
     keyprefDataProtocol = getString(R.string.pref_data_protocol_key);
     keyprefNegotiated = getString(R.string.pref_negotiated_key);
     keyprefDataId = getString(R.string.pref_data_id_key);
+    keyprefLatencyProbeIntervalMs = getString(R.string.pref_latency_probe_interval_ms_key);
 
     keyPrefRoomServerUrl = getString(R.string.pref_room_server_url_key);
     keyPrefDisplayHud = getString(R.string.pref_displayhud_key);
     keyPrefTracing = getString(R.string.pref_tracing_key);
     keyprefEnabledRtcEventLog = getString(R.string.pref_enable_rtceventlog_key);
+    keyprefRecordStats = getString(R.string.pref_record_stats_key);
 
     // Display the fragment as the main content.
     settingsFragment = new SettingsFragment();
@@ -163,12 +167,14 @@ public class SettingsActivity extends Activity implements OnSharedPreferenceChan
     updateSummary(sharedPreferences, keyprefDataProtocol);
     updateSummaryB(sharedPreferences, keyprefNegotiated);
     updateSummary(sharedPreferences, keyprefDataId);
+    updateSummary(sharedPreferences, keyprefLatencyProbeIntervalMs);
     setDataChannelEnable(sharedPreferences);
 
     updateSummary(sharedPreferences, keyPrefRoomServerUrl);
     updateSummaryB(sharedPreferences, keyPrefDisplayHud);
     updateSummaryB(sharedPreferences, keyPrefTracing);
     updateSummaryB(sharedPreferences, keyprefEnabledRtcEventLog);
+    updateSummaryB(sharedPreferences, keyprefRecordStats);
 
     if (!Camera2Enumerator.isSupported(this)) {
       Preference camera2Preference = settingsFragment.findPreference(keyprefCamera2);
@@ -221,7 +227,8 @@ public class SettingsActivity extends Activity implements OnSharedPreferenceChan
         || key.equals(keyprefMaxRetransmitTimeMs)
         || key.equals(keyprefMaxRetransmits)
         || key.equals(keyprefDataProtocol)
-        || key.equals(keyprefDataId)) {
+        || key.equals(keyprefDataId)
+        || key.equals(keyprefLatencyProbeIntervalMs)) {
       updateSummary(sharedPreferences, key);
     } else if (key.equals(keyprefMaxVideoBitrateValue)
         || key.equals(keyprefStartAudioBitrateValue)) {
@@ -246,7 +253,8 @@ public class SettingsActivity extends Activity implements OnSharedPreferenceChan
         || key.equals(keyprefEnableDataChannel)
         || key.equals(keyprefOrdered)
         || key.equals(keyprefNegotiated)
-        || key.equals(keyprefEnabledRtcEventLog)) {
+        || key.equals(keyprefEnabledRtcEventLog)
+        || key.equals(keyprefRecordStats)) {
       updateSummaryB(sharedPreferences, key);
     } else if (key.equals(keyprefSpeakerphone)) {
       updateSummaryList(sharedPreferences, key);
@@ -320,5 +328,6 @@ public class SettingsActivity extends Activity implements OnSharedPreferenceChan
     settingsFragment.findPreference(keyprefDataProtocol).setEnabled(enabled);
     settingsFragment.findPreference(keyprefNegotiated).setEnabled(enabled);
     settingsFragment.findPreference(keyprefDataId).setEnabled(enabled);
+    settingsFragment.findPreference(keyprefLatencyProbeIntervalMs).setEnabled(enabled);
   }
 }
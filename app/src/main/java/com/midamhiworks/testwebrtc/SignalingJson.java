@@ -0,0 +1,58 @@
+/*
+ *  Copyright 2016 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.webrtc.IceCandidate;
+import org.webrtc.SessionDescription;
+
+/**
+ * JSON encoding of SDP and ICE candidate signaling messages shared by WebSocketRTCClient and
+ * DirectRTCClient.
+ *
+ * WebSocketRTCClient 와 DirectRTCClient 가 공유하는 SDP 및 ICE 후보 신호 메시지의 JSON 인코딩입니다.
+ */
+final class SignalingJson {
+  private SignalingJson() {}
+
+  // Put a |key|->|value| mapping in |json|.
+  static void jsonPut(JSONObject json, String key, Object value) {
+    try {
+      json.put(key, value);
+    } catch (JSONException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  // Converts a session description to a JSONObject of the given canonical |type|.
+  static JSONObject toJsonSdp(final SessionDescription sdp, String type) {
+    JSONObject json = new JSONObject();
+    jsonPut(json, "sdp", sdp.description);
+    jsonPut(json, "type", type);
+    return json;
+  }
+
+  // Converts a Java candidate to a JSONObject.
+  static JSONObject toJsonCandidate(final IceCandidate candidate) {
+    JSONObject json = new JSONObject();
+    jsonPut(json, "label", candidate.sdpMLineIndex);
+    jsonPut(json, "id", candidate.sdpMid);
+    jsonPut(json, "candidate", candidate.sdp);
+    return json;
+  }
+
+  // Converts a JSON candidate to a Java object.
+  static IceCandidate toJavaCandidate(JSONObject json) throws JSONException {
+    return new IceCandidate(
+        json.getString("id"), json.getInt("label"), json.getString("candidate"));
+  }
+}
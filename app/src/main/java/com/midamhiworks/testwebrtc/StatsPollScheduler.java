@@ -0,0 +1,176 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import android.util.Log;
+import androidx.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restartable stats polling timer whose period follows its consumers.
+ *
+ * <p>Each consumer, e.g. a visible HUD, asks for a period and the shortest one wins; without
+ * consumers the idle period given to {@link #start(int)} is used, which can be long for calls in
+ * the background. A tick is skipped while the previous collection has not reported
+ * {@link #onCollectionFinished()}, so a busy client never gets a backlog of stats requests.
+ *
+ * 재시작할 수 있는 통계 폴링 타이머로, 주기는 소비자 요청 중 가장 짧은 값을 따릅니다. 소비자가 없으면 유휴
+ * 주기를 사용하고, 이전 수집이 끝나지 않았으면 해당 틱을 건너뜁니다.
+ */
+public class StatsPollScheduler {
+  private static final String TAG = "StatsPollScheduler";
+  // A collection that did not finish within this many periods is considered lost.
+  private static final int MAX_PERIODS_IN_FLIGHT = 3;
+
+  /** A monotonic clock in milliseconds. */
+  interface Clock {
+    long nowMs();
+  }
+
+  private final ScheduledExecutorService timer;
+  private final Clock clock;
+  private final Runnable collector;
+  private final Map<String, Integer> consumerPeriodsMs = new HashMap<>();
+  @Nullable private ScheduledFuture<?> tickFuture;
+  private int idlePeriodMs;
+  private int periodMs;
+  private boolean started;
+  private long collectionStartMs;
+  private boolean inFlight;
+  private long ticks;
+  private long skippedTicks;
+
+  /** |collector| runs on the timer thread and must lead to a call of onCollectionFinished(). */
+  public StatsPollScheduler(final String name, Runnable collector) {
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+      Thread thread = new Thread(runnable, name);
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.setRemoveOnCancelPolicy(true);
+    this.timer = executor;
+    this.clock = () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    this.collector = collector;
+  }
+
+  /** Ticks on |timer| and measures collections with |clock|, e.g. both driven by a test. */
+  StatsPollScheduler(ScheduledExecutorService timer, Clock clock, Runnable collector) {
+    this.timer = timer;
+    this.clock = clock;
+    this.collector = collector;
+  }
+
+  /** Starts polling with |idlePeriodMs| while no consumer is registered. */
+  public synchronized void start(int idlePeriodMs) {
+    this.idlePeriodMs = idlePeriodMs;
+    started = true;
+    reschedule(true);
+  }
+
+  /** Stops polling; consumers are kept for the next start(). */
+  public synchronized void stop() {
+    started = false;
+    cancelTick();
+  }
+
+  /** Stops polling for good and ends the timer thread. */
+  public synchronized void release() {
+    stop();
+    timer.shutdownNow();
+  }
+
+  /** Asks for stats at least every |periodMs| on behalf of |consumer|. */
+  public synchronized void setConsumer(String consumer, int periodMs) {
+    Integer previous = consumerPeriodsMs.put(consumer, periodMs);
+    if (previous == null || previous != periodMs) {
+      reschedule(false);
+    }
+  }
+
+  public synchronized void removeConsumer(String consumer) {
+    if (consumerPeriodsMs.remove(consumer) != null) {
+      reschedule(false);
+    }
+  }
+
+  /** Called when the collection started by the last tick has delivered its results. */
+  public synchronized void onCollectionFinished() {
+    inFlight = false;
+  }
+
+  /** Returns the current period, or 0 if stopped. */
+  public synchronized int getPeriodMs() {
+    return started ? periodMs : 0;
+  }
+
+  public synchronized long getTicks() {
+    return ticks;
+  }
+
+  public synchronized long getSkippedTicks() {
+    return skippedTicks;
+  }
+
+  private int computePeriodMs() {
+    int result = idlePeriodMs;
+    for (int consumerPeriodMs : consumerPeriodsMs.values()) {
+      result = Math.min(result, consumerPeriodMs);
+    }
+    return result;
+  }
+
+  private void reschedule(boolean force) {
+    if (!started || timer.isShutdown()) {
+      return;
+    }
+    final int newPeriodMs = computePeriodMs();
+    if (!force && newPeriodMs == periodMs && tickFuture != null) {
+      return;
+    }
+    // A consumer that wants faster updates gets one right away instead of after the old period.
+    // 더 빠른 갱신을 원하는 소비자는 이전 주기를 기다리지 않고 즉시 받습니다.
+    final long initialDelayMs = force || newPeriodMs < periodMs ? 0 : newPeriodMs;
+    Log.d(TAG, "Stats period " + periodMs + " -> " + newPeriodMs + " ms");
+    periodMs = newPeriodMs;
+    cancelTick();
+    tickFuture = timer.scheduleAtFixedRate(
+        this::onTick, initialDelayMs, newPeriodMs, TimeUnit.MILLISECONDS);
+  }
+
+  private void cancelTick() {
+    if (tickFuture != null) {
+      tickFuture.cancel(false);
+      tickFuture = null;
+    }
+  }
+
+  private void onTick() {
+    synchronized (this) {
+      if (!started) {
+        return;
+      }
+      final long nowMs = clock.nowMs();
+      if (inFlight && nowMs - collectionStartMs < (long) MAX_PERIODS_IN_FLIGHT * periodMs) {
+        skippedTicks++;
+        return;
+      }
+      inFlight = true;
+      collectionStartMs = nowMs;
+      ticks++;
+    }
+    collector.run();
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import android.util.Log;
+import androidx.annotation.Nullable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Records a stats time series for one call into a preallocated ring buffer and writes it to a
+ * {@link StatsRecording} file when the call ends.
+ *
+ * <p>{@link #record} only copies a few ints and does not allocate, so it can run on every stats
+ * callback. The buffer keeps the latest {@code capacity} samples; older ones are overwritten and
+ * counted as dropped. {@link #flush} keeps the recordings directory under a size limit by
+ * deleting the oldest files.
+ *
+ * 통화 하나의 통계 시계열을 미리 할당된 링 버퍼에 기록하고 통화가 끝나면 파일로 기록합니다. record()
+ * 는 메모리를 할당하지 않으며, flush() 는 오래된 파일을 삭제하여 디렉터리 크기를 제한합니다.
+ */
+public class StatsRecorder {
+  private static final String TAG = "StatsRecorder";
+  public static final String DIRECTORY_NAME = "stats_recordings";
+  // One hour of samples at one sample per second.
+  public static final int DEFAULT_CAPACITY = 3600;
+  // Default size limit of the recordings directory.
+  public static final long DEFAULT_MAX_TOTAL_BYTES = 4 * 1024 * 1024;
+  private static final int HEADER_BYTES = 4 + 2 + 8 + 4 + 4 + 2;
+  private static final int COLUMN_HEADER_BYTES = 2 + 4;
+  private static final int MAX_VARINT_BYTES = 5;
+
+  private static final StatsRecording.Column[] COLUMNS = StatsRecording.Column.values();
+
+  private final int capacity;
+  private final int[][] samples;
+  private long startTimeMs;
+  private long firstSampleMs;
+  // Index of the next sample to write and the number of valid samples in the ring.
+  private int next;
+  private int size;
+  private int droppedSamples;
+
+  public StatsRecorder() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public StatsRecorder(int capacity) {
+    this.capacity = capacity;
+    this.samples = new int[COLUMNS.length][capacity];
+  }
+
+  /** Adds a sample taken from |stats| and the current CPU usage |cpuPercent|. */
+  public synchronized void record(StatsSnapshot stats, int cpuPercent, long nowMs) {
+    final StatsSnapshot.CandidatePair pair = stats.candidatePair;
+    final StatsSnapshot.OutboundRtp outbound = stats.videoOutbound;
+    final StatsSnapshot.InboundRtp inbound = stats.videoInbound;
+    if (!beginSample(nowMs)) {
+      return;
+    }
+    set(StatsRecording.Column.SEND_BITRATE_KBPS, pair.sendBitrateKbps);
+    set(StatsRecording.Column.RECEIVE_BITRATE_KBPS, pair.receiveBitrateKbps);
+    set(StatsRecording.Column.SEND_FPS, (int) Math.round(outbound.encodedFps));
+    set(StatsRecording.Column.RECEIVE_FPS, (int) Math.round(inbound.decodedFps));
+    set(StatsRecording.Column.SEND_WIDTH, outbound.frameWidth);
+    set(StatsRecording.Column.SEND_HEIGHT, outbound.frameHeight);
+    set(StatsRecording.Column.RECEIVE_WIDTH, inbound.frameWidth);
+    set(StatsRecording.Column.RECEIVE_HEIGHT, inbound.frameHeight);
+    set(StatsRecording.Column.RTT_MS, (int) Math.round(pair.roundTripTimeMs));
+    set(StatsRecording.Column.LOSS_PERMILLE, (int) Math.round(inbound.packetLossPercent * 10));
+    set(StatsRecording.Column.JITTER_MS, (int) Math.round(inbound.jitterMs));
+    set(StatsRecording.Column.BANDWIDTH_ESTIMATE_KBPS, pair.availableOutgoingBitrateKbps);
+    set(StatsRecording.Column.CPU_PERCENT, cpuPercent);
+    advance();
+  }
+
+  public synchronized int getSampleCount() {
+    return size;
+  }
+
+  public synchronized int getDroppedSamples() {
+    return droppedSamples;
+  }
+
+  /**
+   * Writes the recorded samples to a new file in |directory|, deletes the oldest recordings until
+   * the directory is below |maxTotalBytes| and clears the buffer. Returns the new file, or null if
+   * there was nothing to write or writing failed.
+   */
+  public @Nullable File flush(File directory, long maxTotalBytes) {
+    final byte[] data;
+    final long fileStartTimeMs;
+    synchronized (this) {
+      if (size == 0) {
+        return null;
+      }
+      data = encode();
+      fileStartTimeMs = startTimeMs;
+      next = 0;
+      size = 0;
+      droppedSamples = 0;
+    }
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      Log.e(TAG, "Failed to create " + directory);
+      return null;
+    }
+    final File file = new File(directory, "stats_" + fileStartTimeMs + StatsRecording.FILE_SUFFIX);
+    final File tmpFile = new File(directory, file.getName() + ".tmp");
+    try (OutputStream out = new FileOutputStream(tmpFile)) {
+      out.write(data);
+    } catch (IOException e) {
+      Log.e(TAG, "Failed to write " + tmpFile, e);
+      tmpFile.delete();
+      return null;
+    }
+    // Readers never see a partially written recording.
+    // 리더가 일부만 기록된 파일을 보지 않도록 이름을 바꿔 완성합니다.
+    if (!tmpFile.renameTo(file)) {
+      Log.e(TAG, "Failed to rename " + tmpFile);
+      tmpFile.delete();
+      return null;
+    }
+    Log.d(TAG, "Wrote " + data.length + " bytes to " + file);
+    enforceRetention(directory, maxTotalBytes);
+    return file;
+  }
+
+  static void enforceRetention(File directory, long maxTotalBytes) {
+    final File[] files = StatsRecording.listFiles(directory);
+    long totalBytes = 0;
+    for (File file : files) {
+      totalBytes += file.length();
+    }
+    // Files are sorted by start time, so the oldest go first. The newest one is always kept.
+    for (int i = 0; i < files.length - 1 && totalBytes > maxTotalBytes; i++) {
+      totalBytes -= files[i].length();
+      if (!files[i].delete()) {
+        Log.w(TAG, "Failed to delete " + files[i]);
+      }
+    }
+  }
+
+  private boolean beginSample(long nowMs) {
+    if (capacity == 0) {
+      return false;
+    }
+    if (size == 0) {
+      startTimeMs = System.currentTimeMillis();
+      firstSampleMs = nowMs;
+    }
+    set(StatsRecording.Column.TIME_MS, (int) (nowMs - firstSampleMs));
+    return true;
+  }
+
+  private void set(StatsRecording.Column column, int value) {
+    samples[column.ordinal()][next] = value;
+  }
+
+  private void advance() {
+    next = (next + 1) % capacity;
+    if (size < capacity) {
+      size++;
+    } else {
+      droppedSamples++;
+    }
+  }
+
+  private byte[] encode() {
+    final int first = (next - size + capacity) % capacity;
+    final byte[] columnBytes = new byte[size * MAX_VARINT_BYTES];
+    final ByteBuffer out = ByteBuffer.allocate(
+        HEADER_BYTES + COLUMNS.length * (COLUMN_HEADER_BYTES + columnBytes.length));
+    out.putInt(StatsRecording.MAGIC);
+    out.putShort(StatsRecording.FORMAT_VERSION);
+    out.putLong(startTimeMs);
+    out.putInt(size);
+    out.putInt(droppedSamples);
+    out.putShort((short) COLUMNS.length);
+    for (StatsRecording.Column column : COLUMNS) {
+      final int[] values = samples[column.ordinal()];
+      int length = 0;
+      int previous = 0;
+      for (int i = 0; i < size; i++) {
+        final int value = values[(first + i) % capacity];
+        length += StatsRecording.encodeValue(columnBytes, length, value, previous);
+        previous = value;
+      }
+      out.putShort((short) column.ordinal());
+      out.putInt(length);
+      out.put(columnBytes, 0, length);
+    }
+    final byte[] result = new byte[out.position()];
+    System.arraycopy(out.array(), 0, result, 0, result.length);
+    return result;
+  }
+}
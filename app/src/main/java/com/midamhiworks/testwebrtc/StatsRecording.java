@@ -0,0 +1,204 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import androidx.annotation.Nullable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Per-call stats time series written by {@link StatsRecorder}, and the reader for its files.
+ *
+ * <p>The reader only uses plain Java, so the same class loads recordings pulled from devices in a
+ * JVM analysis tool. A file is read with one bulk read and decoded from memory; columns that were
+ * not asked for are skipped by their length without decoding.
+ *
+ * <p>File layout, big-endian: magic, version (short), start wall time in ms (long), sample count
+ * (int), dropped sample count (int), column count (short), then per column its id (short), its
+ * byte length (int) and its values. Values are delta coded against the previous sample of the
+ * column, zigzag mapped and written as unsigned LEB128 varints, so slowly changing metrics take
+ * about one byte per sample. Readers skip unknown column ids.
+ *
+ * StatsRecorder 가 기록한 통화별 통계 시계열과 그 파일 리더입니다. 순수 Java 만 사용하므로 JVM 분석
+ * 도구에서도 사용할 수 있으며, 열 단위로 델타+지그재그 varint 로 저장됩니다.
+ */
+public class StatsRecording {
+  static final int MAGIC = 0x57525453; // "WRTS"
+  static final short FORMAT_VERSION = 1;
+  public static final String FILE_SUFFIX = ".wrts";
+
+  /** Recorded metrics. The ordinal is the column id in files, so only append new values. */
+  public enum Column {
+    // Time since the recording started, which is |startTimeMs| in wall time.
+    TIME_MS,
+    SEND_BITRATE_KBPS,
+    RECEIVE_BITRATE_KBPS,
+    SEND_FPS,
+    RECEIVE_FPS,
+    SEND_WIDTH,
+    SEND_HEIGHT,
+    RECEIVE_WIDTH,
+    RECEIVE_HEIGHT,
+    RTT_MS,
+    // Receive packet loss in 1/1000.
+    LOSS_PERMILLE,
+    JITTER_MS,
+    BANDWIDTH_ESTIMATE_KBPS,
+    CPU_PERCENT
+  }
+
+  private static final Column[] COLUMNS = Column.values();
+
+  public final long startTimeMs;
+  public final int sampleCount;
+  // Samples overwritten in the ring buffer because the call was longer than its capacity.
+  public final int droppedSamples;
+  private final int[][] columns;
+
+  StatsRecording(long startTimeMs, int sampleCount, int droppedSamples, int[][] columns) {
+    this.startTimeMs = startTimeMs;
+    this.sampleCount = sampleCount;
+    this.droppedSamples = droppedSamples;
+    this.columns = columns;
+  }
+
+  /** Returns the values of |column|, or null if it was not recorded or not read. */
+  public @Nullable int[] getColumn(Column column) {
+    return columns[column.ordinal()];
+  }
+
+  public static StatsRecording read(File file) throws IOException {
+    return read(file, EnumSet.allOf(Column.class));
+  }
+
+  /** Reads |file|, decoding only |wanted| columns. */
+  public static StatsRecording read(File file, Set<Column> wanted) throws IOException {
+    return decode(readFile(file), wanted);
+  }
+
+  /**
+   * Reads all recordings in |directory|, oldest first, decoding only |wanted| columns. Files that
+   * are not valid recordings are skipped.
+   */
+  public static List<StatsRecording> readAll(File directory, Set<Column> wanted) {
+    File[] files = listFiles(directory);
+    List<StatsRecording> recordings = new ArrayList<>(files.length);
+    for (File file : files) {
+      try {
+        recordings.add(read(file, wanted));
+      } catch (IOException e) {
+        // A truncated or foreign file does not stop the analysis of the others.
+      }
+    }
+    return recordings;
+  }
+
+  /** Returns the recording files in |directory| sorted by name, i.e. by start time. */
+  static File[] listFiles(File directory) {
+    File[] files = directory.listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+    if (files == null) {
+      return new File[0];
+    }
+    Arrays.sort(files);
+    return files;
+  }
+
+  static StatsRecording decode(byte[] data, Set<Column> wanted) throws IOException {
+    final ByteBuffer buffer = ByteBuffer.wrap(data);
+    try {
+      if (buffer.getInt() != MAGIC) {
+        throw new IOException("Not a stats recording");
+      }
+      final short version = buffer.getShort();
+      if (version != FORMAT_VERSION) {
+        throw new IOException("Unsupported stats recording version " + version);
+      }
+      final long startTimeMs = buffer.getLong();
+      final int sampleCount = buffer.getInt();
+      final int droppedSamples = buffer.getInt();
+      final int columnCount = buffer.getShort();
+      if (sampleCount < 0 || columnCount < 0) {
+        throw new IOException("Corrupt stats recording header");
+      }
+      final int[][] columns = new int[COLUMNS.length][];
+      for (int i = 0; i < columnCount; i++) {
+        final int id = buffer.getShort();
+        final int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+          throw new IOException("Corrupt stats recording column " + id);
+        }
+        final int end = buffer.position() + length;
+        if (id >= 0 && id < COLUMNS.length && wanted.contains(COLUMNS[id])) {
+          columns[id] = decodeColumn(buffer, sampleCount);
+        }
+        buffer.position(end);
+      }
+      return new StatsRecording(startTimeMs, sampleCount, droppedSamples, columns);
+    } catch (BufferUnderflowException e) {
+      throw new IOException("Truncated stats recording");
+    }
+  }
+
+  private static int[] decodeColumn(ByteBuffer buffer, int sampleCount) {
+    final int[] values = new int[sampleCount];
+    int previous = 0;
+    for (int i = 0; i < sampleCount; i++) {
+      int zigzag = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = buffer.get();
+        zigzag |= (b & 0x7f) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      previous += (zigzag >>> 1) ^ -(zigzag & 1);
+      values[i] = previous;
+    }
+    return values;
+  }
+
+  /** Appends |value| to |out| as a zigzag varint of its delta to |previous|; returns the size. */
+  static int encodeValue(byte[] out, int offset, int value, int previous) {
+    final int delta = value - previous;
+    int zigzag = (delta << 1) ^ (delta >> 31);
+    int position = offset;
+    while ((zigzag & ~0x7f) != 0) {
+      out[position++] = (byte) ((zigzag & 0x7f) | 0x80);
+      zigzag >>>= 7;
+    }
+    out[position++] = (byte) zigzag;
+    return position - offset;
+  }
+
+  private static byte[] readFile(File file) throws IOException {
+    byte[] data = new byte[(int) file.length()];
+    try (InputStream in = new FileInputStream(file)) {
+      int offset = 0;
+      while (offset < data.length) {
+        int read = in.read(data, offset, data.length - offset);
+        if (read < 0) {
+          throw new IOException("Unexpected end of " + file);
+        }
+        offset += read;
+      }
+    }
+    return data;
+  }
+}
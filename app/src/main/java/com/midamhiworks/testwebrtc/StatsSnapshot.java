@@ -0,0 +1,392 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import androidx.annotation.Nullable;
+import java.util.Map;
+import org.webrtc.RTCStats;
+import org.webrtc.RTCStatsReport;
+
+/**
+ * Typed view of the standard WebRTC statistics of one peer connection: outbound and inbound RTP
+ * per media kind, the selected candidate pair and the media sources, with rates computed over the
+ * interval since the previous snapshot.
+ *
+ * <p>Snapshots are meant to be reused: {@link #update} overwrites all fields in place and only
+ * keeps references to strings of the report, so filling one costs a single pass over the report
+ * without parsing or allocating. Consumers must treat the fields as read-only.
+ *
+ * 한 피어 연결의 표준 WebRTC 통계를 미디어 종류별 송수신 RTP, 선택된 후보 쌍, 미디어 소스로 정리한
+ * 스냅샷입니다. 이전 스냅샷 이후 구간의 전송률을 계산하며, 재사용하여 파싱과 할당 없이 갱신됩니다.
+ */
+public class StatsSnapshot {
+  private static final String KIND_VIDEO = "video";
+  private static final String CANDIDATE_PAIR_SUCCEEDED = "succeeded";
+
+  /** Sent RTP streams of one media kind; counters are summed over simulcast layers. */
+  public static class OutboundRtp {
+    public boolean present;
+    public long bytesSent;
+    public long packetsSent;
+    public long retransmittedBytesSent;
+    public long framesEncoded;
+    public long nackCount;
+    public long pliCount;
+    public double totalEncodeTimeS;
+    public int frameWidth;
+    public int frameHeight;
+    public double framesPerSecond;
+    // Bitrate the encoder currently aims for.
+    public int targetBitrateKbps;
+    // "none", "cpu", "bandwidth" or "other"; null if not reported.
+    @Nullable public String qualityLimitationReason;
+    // Rates over the last interval.
+    public int bitrateKbps;
+    public int retransmitBitrateKbps;
+    public double encodedFps;
+    public double encodeTimeMsPerFrame;
+
+    void clear() {
+      present = false;
+      bytesSent = 0;
+      packetsSent = 0;
+      retransmittedBytesSent = 0;
+      framesEncoded = 0;
+      nackCount = 0;
+      pliCount = 0;
+      totalEncodeTimeS = 0;
+      frameWidth = 0;
+      frameHeight = 0;
+      framesPerSecond = 0;
+      targetBitrateKbps = 0;
+      qualityLimitationReason = null;
+      bitrateKbps = 0;
+      retransmitBitrateKbps = 0;
+      encodedFps = 0;
+      encodeTimeMsPerFrame = 0;
+    }
+
+    void add(Map<String, Object> members) {
+      present = true;
+      bytesSent += getLong(members, "bytesSent");
+      packetsSent += getLong(members, "packetsSent");
+      retransmittedBytesSent += getLong(members, "retransmittedBytesSent");
+      framesEncoded += getLong(members, "framesEncoded");
+      nackCount += getLong(members, "nackCount");
+      pliCount += getLong(members, "pliCount");
+      totalEncodeTimeS += getDouble(members, "totalEncodeTime");
+      targetBitrateKbps += (int) (getDouble(members, "targetBitrate") / 1000);
+      // The largest layer describes what the receiver can get at best.
+      final int width = (int) getLong(members, "frameWidth");
+      if (width >= frameWidth) {
+        frameWidth = width;
+        frameHeight = (int) getLong(members, "frameHeight");
+        framesPerSecond = getDouble(members, "framesPerSecond");
+      }
+      final String reason = getString(members, "qualityLimitationReason");
+      if (reason != null) {
+        qualityLimitationReason = reason;
+      }
+    }
+
+    void computeRates(OutboundRtp previous, long intervalMs) {
+      bitrateKbps = kbps(bytesSent - previous.bytesSent, intervalMs);
+      retransmitBitrateKbps =
+          kbps(retransmittedBytesSent - previous.retransmittedBytesSent, intervalMs);
+      final long frames = framesEncoded - previous.framesEncoded;
+      encodedFps = perSecond(frames, intervalMs);
+      encodeTimeMsPerFrame =
+          frames > 0 ? (totalEncodeTimeS - previous.totalEncodeTimeS) * 1000 / frames : 0;
+    }
+  }
+
+  /** Received RTP stream of one media kind. */
+  public static class InboundRtp {
+    public boolean present;
+    public long bytesReceived;
+    public long packetsReceived;
+    public long packetsLost;
+    public double jitterMs;
+    public long framesDecoded;
+    public long framesDropped;
+    public long nackCount;
+    public long pliCount;
+    public long freezeCount;
+    public double totalDecodeTimeS;
+    public int frameWidth;
+    public int frameHeight;
+    public double framesPerSecond;
+    // Rates over the last interval.
+    public int bitrateKbps;
+    public double decodedFps;
+    public double packetLossPercent;
+    public double decodeTimeMsPerFrame;
+
+    void clear() {
+      present = false;
+      bytesReceived = 0;
+      packetsReceived = 0;
+      packetsLost = 0;
+      jitterMs = 0;
+      framesDecoded = 0;
+      framesDropped = 0;
+      nackCount = 0;
+      pliCount = 0;
+      freezeCount = 0;
+      totalDecodeTimeS = 0;
+      frameWidth = 0;
+      frameHeight = 0;
+      framesPerSecond = 0;
+      bitrateKbps = 0;
+      decodedFps = 0;
+      packetLossPercent = 0;
+      decodeTimeMsPerFrame = 0;
+    }
+
+    void set(Map<String, Object> members) {
+      present = true;
+      bytesReceived = getLong(members, "bytesReceived");
+      packetsReceived = getLong(members, "packetsReceived");
+      packetsLost = getLong(members, "packetsLost");
+      jitterMs = getDouble(members, "jitter") * 1000;
+      framesDecoded = getLong(members, "framesDecoded");
+      framesDropped = getLong(members, "framesDropped");
+      nackCount = getLong(members, "nackCount");
+      pliCount = getLong(members, "pliCount");
+      freezeCount = getLong(members, "freezeCount");
+      totalDecodeTimeS = getDouble(members, "totalDecodeTime");
+      frameWidth = (int) getLong(members, "frameWidth");
+      frameHeight = (int) getLong(members, "frameHeight");
+      framesPerSecond = getDouble(members, "framesPerSecond");
+    }
+
+    void computeRates(InboundRtp previous, long intervalMs) {
+      bitrateKbps = kbps(bytesReceived - previous.bytesReceived, intervalMs);
+      final long frames = framesDecoded - previous.framesDecoded;
+      decodedFps = perSecond(frames, intervalMs);
+      decodeTimeMsPerFrame =
+          frames > 0 ? (totalDecodeTimeS - previous.totalDecodeTimeS) * 1000 / frames : 0;
+      final long received = Math.max(0, packetsReceived - previous.packetsReceived);
+      final long lost = Math.max(0, packetsLost - previous.packetsLost);
+      packetLossPercent = received + lost > 0 ? 100.0 * lost / (received + lost) : 0;
+    }
+  }
+
+  /** The candidate pair the transport currently sends on. */
+  public static class CandidatePair {
+    public boolean present;
+    @Nullable public String state;
+    public double roundTripTimeMs;
+    public int availableOutgoingBitrateKbps;
+    public int availableIncomingBitrateKbps;
+    public long bytesSent;
+    public long bytesReceived;
+    // "host", "srflx", "prflx" or "relay".
+    @Nullable public String localCandidateType;
+    @Nullable public String remoteCandidateType;
+    // "wifi", "cellular", "ethernet", "vpn" or "unknown".
+    @Nullable public String networkType;
+    @Nullable public String protocol;
+    // Rates over the last interval.
+    public int sendBitrateKbps;
+    public int receiveBitrateKbps;
+
+    void clear() {
+      present = false;
+      state = null;
+      roundTripTimeMs = 0;
+      availableOutgoingBitrateKbps = 0;
+      availableIncomingBitrateKbps = 0;
+      bytesSent = 0;
+      bytesReceived = 0;
+      localCandidateType = null;
+      remoteCandidateType = null;
+      networkType = null;
+      protocol = null;
+      sendBitrateKbps = 0;
+      receiveBitrateKbps = 0;
+    }
+
+    void set(Map<String, Object> members, Map<String, RTCStats> statsMap) {
+      present = true;
+      state = getString(members, "state");
+      roundTripTimeMs = getDouble(members, "currentRoundTripTime") * 1000;
+      availableOutgoingBitrateKbps = (int) (getDouble(members, "availableOutgoingBitrate") / 1000);
+      availableIncomingBitrateKbps = (int) (getDouble(members, "availableIncomingBitrate") / 1000);
+      bytesSent = getLong(members, "bytesSent");
+      bytesReceived = getLong(members, "bytesReceived");
+      final RTCStats local = lookup(statsMap, getString(members, "localCandidateId"));
+      if (local != null) {
+        localCandidateType = getString(local.getMembers(), "candidateType");
+        networkType = getString(local.getMembers(), "networkType");
+        protocol = getString(local.getMembers(), "protocol");
+      }
+      final RTCStats remote = lookup(statsMap, getString(members, "remoteCandidateId"));
+      if (remote != null) {
+        remoteCandidateType = getString(remote.getMembers(), "candidateType");
+      }
+    }
+
+    void computeRates(CandidatePair previous, long intervalMs) {
+      sendBitrateKbps = kbps(bytesSent - previous.bytesSent, intervalMs);
+      receiveBitrateKbps = kbps(bytesReceived - previous.bytesReceived, intervalMs);
+    }
+  }
+
+  /** Local capture source of one media kind, before encoding. */
+  public static class MediaSource {
+    public boolean present;
+    public int width;
+    public int height;
+    public double framesPerSecond;
+    public double audioLevel;
+
+    void clear() {
+      present = false;
+      width = 0;
+      height = 0;
+      framesPerSecond = 0;
+      audioLevel = 0;
+    }
+
+    void set(Map<String, Object> members) {
+      present = true;
+      width = (int) getLong(members, "width");
+      height = (int) getLong(members, "height");
+      framesPerSecond = getDouble(members, "framesPerSecond");
+      audioLevel = getDouble(members, "audioLevel");
+    }
+  }
+
+  public final OutboundRtp videoOutbound = new OutboundRtp();
+  public final OutboundRtp audioOutbound = new OutboundRtp();
+  public final InboundRtp videoInbound = new InboundRtp();
+  public final InboundRtp audioInbound = new InboundRtp();
+  public final CandidatePair candidatePair = new CandidatePair();
+  public final MediaSource videoSource = new MediaSource();
+  public final MediaSource audioSource = new MediaSource();
+  public long timestampUs;
+  // Time since |previous| in update(), 0 for the first snapshot; rates are 0 in that case.
+  public long intervalMs;
+
+  /**
+   * Overwrites this snapshot with |report|. Rates are computed against |previous|, which must be
+   * a different instance holding the report before, or null.
+   */
+  public void update(RTCStatsReport report, @Nullable StatsSnapshot previous) {
+    clear();
+    timestampUs = (long) report.getTimestampUs();
+    final Map<String, RTCStats> statsMap = report.getStatsMap();
+    String selectedPairId = null;
+    RTCStats nominatedPair = null;
+    for (RTCStats stats : statsMap.values()) {
+      final Map<String, Object> members = stats.getMembers();
+      switch (stats.getType()) {
+        case "outbound-rtp":
+          (isVideo(members) ? videoOutbound : audioOutbound).add(members);
+          break;
+        case "inbound-rtp":
+          (isVideo(members) ? videoInbound : audioInbound).set(members);
+          break;
+        case "media-source":
+          (isVideo(members) ? videoSource : audioSource).set(members);
+          break;
+        case "transport":
+          if (selectedPairId == null) {
+            selectedPairId = getString(members, "selectedCandidatePairId");
+          }
+          break;
+        case "candidate-pair":
+          if (nominatedPair == null && getBoolean(members, "nominated")
+              && CANDIDATE_PAIR_SUCCEEDED.equals(getString(members, "state"))) {
+            nominatedPair = stats;
+          }
+          break;
+        default:
+          break;
+      }
+    }
+    RTCStats pair = lookup(statsMap, selectedPairId);
+    if (pair == null) {
+      pair = nominatedPair;
+    }
+    if (pair != null) {
+      candidatePair.set(pair.getMembers(), statsMap);
+    }
+
+    if (previous == null || previous.timestampUs >= timestampUs) {
+      return;
+    }
+    intervalMs = (timestampUs - previous.timestampUs) / 1000;
+    if (intervalMs <= 0) {
+      intervalMs = 0;
+      return;
+    }
+    videoOutbound.computeRates(previous.videoOutbound, intervalMs);
+    audioOutbound.computeRates(previous.audioOutbound, intervalMs);
+    videoInbound.computeRates(previous.videoInbound, intervalMs);
+    audioInbound.computeRates(previous.audioInbound, intervalMs);
+    candidatePair.computeRates(previous.candidatePair, intervalMs);
+  }
+
+  private void clear() {
+    videoOutbound.clear();
+    audioOutbound.clear();
+    videoInbound.clear();
+    audioInbound.clear();
+    candidatePair.clear();
+    videoSource.clear();
+    audioSource.clear();
+    timestampUs = 0;
+    intervalMs = 0;
+  }
+
+  // Older WebRTC versions report "mediaType" instead of "kind".
+  private static boolean isVideo(Map<String, Object> members) {
+    final String kind = getString(members, "kind");
+    return KIND_VIDEO.equals(kind != null ? kind : getString(members, "mediaType"));
+  }
+
+  @Nullable
+  private static RTCStats lookup(Map<String, RTCStats> statsMap, @Nullable String id) {
+    return id != null ? statsMap.get(id) : null;
+  }
+
+  // Counters are delivered as Long or BigInteger depending on their width.
+  private static long getLong(Map<String, Object> members, String name) {
+    final Object value = members.get(name);
+    return value instanceof Number ? ((Number) value).longValue() : 0;
+  }
+
+  private static double getDouble(Map<String, Object> members, String name) {
+    final Object value = members.get(name);
+    return value instanceof Number ? ((Number) value).doubleValue() : 0;
+  }
+
+  private static boolean getBoolean(Map<String, Object> members, String name) {
+    return Boolean.TRUE.equals(members.get(name));
+  }
+
+  @Nullable
+  private static String getString(Map<String, Object> members, String name) {
+    final Object value = members.get(name);
+    return value instanceof String ? (String) value : null;
+  }
+
+  // Counters that went backwards, e.g. after a stream was replaced, give a rate of 0.
+  private static int kbps(long bytes, long intervalMs) {
+    return bytes > 0 ? (int) (bytes * 8 / intervalMs) : 0;
+  }
+
+  private static double perSecond(long count, long intervalMs) {
+    return count > 0 ? count * 1000.0 / intervalMs : 0;
+  }
+}
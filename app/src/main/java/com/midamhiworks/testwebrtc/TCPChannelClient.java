@@ -154,6 +154,9 @@ public class TCPChannelClient {
     public abstract boolean isServer();
 
     TCPSocket() {
+      // Named so that its CPU time can be told apart from other threads.
+      // 다른 스레드와 CPU 시간을 구분할 수 있도록 이름을 붙입니다.
+      super("TCPChannel");
       rawSocketLock = new Object();
     }
 
@@ -0,0 +1,329 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import androidx.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Attributes the CPU time of this process to groups of threads, e.g. capture or encoding.
+ *
+ * <p>Each {@link #sample} lists /proc/self/task, reads the user and system time of every thread
+ * from its stat file and adds the time used since the previous sample to the group of the
+ * thread. A thread is classified by its name once, when it is first seen; its stat file then
+ * stays open. Usages are in percent of one core, so a busy process can exceed 100. The files are
+ * read without holding the lock of the getters, so a reader such as the HUD never waits for a
+ * sample; samples should be taken on a thread of their own.
+ *
+ * 이 프로세스의 CPU 시간을 캡처, 인코딩 등의 스레드 그룹별로 나눕니다. 스레드 이름으로 그룹을 정하고,
+ * 이전 샘플 이후 사용한 시간을 그룹에 더합니다. 사용률은 코어 하나 기준의 백분율입니다.
+ */
+public class ThreadCpuSampler implements Closeable {
+  private static final File TASK_DIRECTORY = new File("/proc/self/task");
+  // Clock ticks per second of /proc times on Android and most Linux systems.
+  public static final int DEFAULT_TICKS_PER_SECOND = 100;
+  private static final int STAT_BUFFER_SIZE = 512;
+
+  /** Thread groups, in the order names are matched. */
+  public enum Group {
+    MAIN("Main"),
+    PC_EXECUTOR("PC executor"),
+    // The stats polling timer and the sampling of the resource use, i.e. the cost of measuring.
+    STATS("Stats"),
+    CAPTURE("Capture"),
+    ENCODER("Encoder"),
+    DECODER("Decoder"),
+    AUDIO("Audio"),
+    RENDER("Render"),
+    TCP_CHANNEL("TCP channel"),
+    SIGNALING("Signaling"),
+    NETWORK("Network"),
+    WORKER("Worker"),
+    OTHER("Other");
+
+    public final String label;
+
+    Group(String label) {
+      this.label = label;
+    }
+  }
+
+  private static class ThreadEntry {
+    final ProcFileReader reader;
+    final Group group;
+    long lastTicks;
+    boolean seen;
+
+    ThreadEntry(ProcFileReader reader, Group group, long ticks) {
+      this.reader = reader;
+      this.group = group;
+      this.lastTicks = ticks;
+    }
+  }
+
+  private static final Group[] GROUPS = Group.values();
+
+  private final File taskDirectory;
+  private final int mainThreadId;
+  private final int ticksPerSecond;
+  // Guards the stat files and the tick counts, which only sample() and close() use. The usages
+  // are guarded by this.
+  private final Object sampleLock = new Object();
+  private final Map<Integer, ThreadEntry> threads = new HashMap<>();
+  private final long[] groupTicks = new long[GROUPS.length];
+  private long lastSampleMs = -1;
+  private boolean closed;
+  private final int[] groupUsagePercent = new int[GROUPS.length];
+
+  /** Samples the threads of this process, whose main thread has the id |mainThreadId|. */
+  public ThreadCpuSampler(int mainThreadId, int ticksPerSecond) {
+    this(TASK_DIRECTORY, mainThreadId, ticksPerSecond);
+  }
+
+  ThreadCpuSampler(File taskDirectory, int mainThreadId, int ticksPerSecond) {
+    this.taskDirectory = taskDirectory;
+    this.mainThreadId = mainThreadId;
+    this.ticksPerSecond = ticksPerSecond;
+  }
+
+  /** Returns the group of a thread named |name|. Thread names are cut to 15 bytes by Linux. */
+  static Group classify(String name, boolean mainThread) {
+    if (mainThread) {
+      return Group.MAIN;
+    }
+    if (name.startsWith("PCStats-") || name.equals("ResourceSampler")) {
+      return Group.STATS;
+    }
+    if (name.startsWith("PCClient-")) {
+      return Group.PC_EXECUTOR;
+    }
+    if (name.contains("Capture") || name.startsWith("Camera")) {
+      return Group.CAPTURE;
+    }
+    if (name.contains("Encod")) {
+      return Group.ENCODER;
+    }
+    if (name.contains("Decod")) {
+      return Group.DECODER;
+    }
+    if (name.startsWith("Audio") || name.contains("AudioRecord") || name.contains("AudioTrack")) {
+      return Group.AUDIO;
+    }
+    if (name.contains("EglRenderer") || name.equals("RenderThread")) {
+      return Group.RENDER;
+    }
+    if (name.startsWith("TCPChannel")) {
+      return Group.TCP_CHANNEL;
+    }
+    if (name.startsWith("signaling") || name.startsWith("WebSocket")) {
+      return Group.SIGNALING;
+    }
+    if (name.startsWith("network")) {
+      return Group.NETWORK;
+    }
+    if (name.startsWith("worker")) {
+      return Group.WORKER;
+    }
+    return Group.OTHER;
+  }
+
+  /**
+   * Reads all threads and updates the group usages over the time since the last sample. Does
+   * nothing once closed, so that a late sample does not open the stat files again. Returns true
+   * if the usages cover an interval, i.e. not for the first sample, when closed or if
+   * /proc/self/task cannot be read.
+   */
+  public boolean sample(long nowMs) {
+    synchronized (sampleLock) {
+      if (closed || !readThreads()) {
+        return false;
+      }
+      final long elapsedMs = lastSampleMs < 0 ? 0 : nowMs - lastSampleMs;
+      lastSampleMs = nowMs;
+      synchronized (this) {
+        for (int i = 0; i < GROUPS.length; i++) {
+          groupUsagePercent[i] = elapsedMs > 0
+              ? (int) (groupTicks[i] * 100 * 1000 / (ticksPerSecond * elapsedMs))
+              : 0;
+        }
+      }
+      return elapsedMs > 0;
+    }
+  }
+
+  // Adds the ticks of every thread since the last sample to |groupTicks|. Returns false if the
+  // threads cannot be listed.
+  private boolean readThreads() {
+    for (int i = 0; i < groupTicks.length; i++) {
+      groupTicks[i] = 0;
+    }
+    final String[] taskIds = taskDirectory.list();
+    if (taskIds == null) {
+      return false;
+    }
+    for (String taskId : taskIds) {
+      final int threadId;
+      try {
+        threadId = Integer.parseInt(taskId);
+      } catch (NumberFormatException e) {
+        continue;
+      }
+      ThreadEntry entry = threads.get(threadId);
+      if (entry == null) {
+        entry = addThread(threadId);
+        if (entry != null) {
+          // Time used before the thread was first seen does not belong to this interval.
+          entry.seen = true;
+        }
+        continue;
+      }
+      final long ticks = readTicks(entry.reader);
+      if (ticks < 0) {
+        continue;
+      }
+      groupTicks[entry.group.ordinal()] += Math.max(0, ticks - entry.lastTicks);
+      entry.lastTicks = ticks;
+      entry.seen = true;
+    }
+    // Threads that ended are forgotten.
+    for (Iterator<ThreadEntry> it = threads.values().iterator(); it.hasNext();) {
+      final ThreadEntry entry = it.next();
+      if (!entry.seen) {
+        entry.reader.close();
+        it.remove();
+      } else {
+        entry.seen = false;
+      }
+    }
+    return true;
+  }
+
+  /** Returns the usage of |group| in percent of one core over the last sample interval. */
+  public synchronized int getUsagePercent(Group group) {
+    return groupUsagePercent[group.ordinal()];
+  }
+
+  /** Returns the usage of the whole process in percent of one core over the last interval. */
+  public synchronized int getProcessUsagePercent() {
+    int usage = 0;
+    for (int groupUsage : groupUsagePercent) {
+      usage += groupUsage;
+    }
+    return usage;
+  }
+
+  /**
+   * Fills |top| with the busiest groups that used any CPU, busiest first, and returns how many
+   * were filled in.
+   */
+  public synchronized int getTopGroups(Group[] top) {
+    int count = 0;
+    for (Group group : GROUPS) {
+      final int usage = groupUsagePercent[group.ordinal()];
+      if (usage <= 0) {
+        continue;
+      }
+      // Insertion into the short sorted array.
+      int index = 0;
+      while (index < count && groupUsagePercent[top[index].ordinal()] >= usage) {
+        index++;
+      }
+      if (index >= top.length) {
+        continue;
+      }
+      for (int i = Math.min(count, top.length - 1); i > index; i--) {
+        top[i] = top[i - 1];
+      }
+      top[index] = group;
+      count = Math.min(count + 1, top.length);
+    }
+    return count;
+  }
+
+  /** Appends the busiest groups, e.g. "Encoder 35% Capture 12%", to |builder|. */
+  public synchronized void appendTopGroups(StringBuilder builder, Group[] top) {
+    final int count = getTopGroups(top);
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        builder.append(' ');
+      }
+      builder.append(top[i].label).append(' ').append(groupUsagePercent[top[i].ordinal()])
+          .append('%');
+    }
+  }
+
+  @Override
+  public synchronized String toString() {
+    final StringBuilder builder = new StringBuilder("Thread CPU:");
+    for (Group group : GROUPS) {
+      builder.append(' ').append(group.label).append(' ')
+          .append(groupUsagePercent[group.ordinal()]).append('%');
+    }
+    return builder.toString();
+  }
+
+  @Override
+  public void close() {
+    synchronized (sampleLock) {
+      closed = true;
+      for (ThreadEntry entry : threads.values()) {
+        entry.reader.close();
+      }
+      threads.clear();
+    }
+  }
+
+  private @Nullable ThreadEntry addThread(int threadId) {
+    final ProcFileReader reader = new ProcFileReader(
+        new File(taskDirectory, threadId + "/stat"), STAT_BUFFER_SIZE);
+    if (!reader.read()) {
+      return null;
+    }
+    reader.nextLong();
+    final String name = reader.nextParenthesized();
+    if (name == null) {
+      reader.close();
+      return null;
+    }
+    final long ticks = parseTicks(reader);
+    if (ticks < 0) {
+      reader.close();
+      return null;
+    }
+    final ThreadEntry entry =
+        new ThreadEntry(reader, classify(name, threadId == mainThreadId), ticks);
+    threads.put(threadId, entry);
+    return entry;
+  }
+
+  private static long readTicks(ProcFileReader reader) {
+    if (!reader.read() || !reader.skipParenthesized()) {
+      return -1;
+    }
+    return parseTicks(reader);
+  }
+
+  // Parses utime + stime, fields 14 and 15, with the cursor just after the command name.
+  private static long parseTicks(ProcFileReader reader) {
+    // Fields 3 to 13: state, ppid, pgrp, session, tty_nr, tpgid, flags and four fault counters.
+    reader.skipFields(11);
+    final long userTicks = reader.nextLong();
+    final long systemTicks = reader.nextLong();
+    if (userTicks < 0 || systemTicks < 0) {
+      return -1;
+    }
+    return userTicks + systemTicks;
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ *  Copyright 2019 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+/**
+ * Chooses the x-google-min/start/max-bitrate values of a video codec.
+ *
+ * <p>Without a start bitrate the engine starts at its default of a few hundred kbps and needs
+ * 10-20 seconds to ramp up to HD quality. The target is derived from the capture format and the
+ * coding efficiency of the codec; the start value is the bandwidth measured on the last call when
+ * there is one, otherwise a fraction of the target.
+ *
+ * 시작 비트레이트가 없으면 엔진은 기본값에서 시작하여 HD 품질까지 10~20초가 걸립니다. 목표값은 캡처 형식과
+ * 코덱 효율에서 구하고, 시작값은 지난 통화에서 측정한 대역폭이 있으면 그 값을, 없으면 목표의 일부를 사용합니다.
+ */
+public class VideoBitratePolicy {
+  // Bits per pixel per frame that give good VP8 quality for camera content.
+  private static final double BITS_PER_PIXEL = 0.07;
+  // Relative bitrate needed for the same quality as VP8.
+  private static final double VP9_EFFICIENCY = 0.7;
+  private static final double H264_HIGH_EFFICIENCY = 0.8;
+  private static final String H264_PROFILE_IDC_HIGH = "64";
+  private static final int MIN_TARGET_BITRATE_KBPS = 150;
+  private static final int MIN_BITRATE_KBPS = 30;
+  private static final int MAX_MIN_BITRATE_KBPS = 300;
+  // Start below a measured estimate so that the first seconds do not overshoot the link.
+  private static final double MEASURED_BANDWIDTH_FACTOR = 0.9;
+  private static final double UNMEASURED_START_FACTOR = 0.6;
+  private static final double MAX_TO_TARGET_RATIO = 1.5;
+  private static final int MAX_MEASURED_TO_TARGET_RATIO = 2;
+
+  /** Bitrates in kbps; min <= start <= max always holds. */
+  public static class Bitrates {
+    public final int minKbps;
+    public final int startKbps;
+    public final int maxKbps;
+
+    Bitrates(int minKbps, int startKbps, int maxKbps) {
+      this.minKbps = minKbps;
+      this.startKbps = startKbps;
+      this.maxKbps = maxKbps;
+    }
+
+    @Override
+    public String toString() {
+      return "min " + minKbps + " / start " + startKbps + " / max " + maxKbps + " kbps";
+    }
+  }
+
+  private VideoBitratePolicy() {}
+
+  /**
+   * Returns the bitrates for sending |codec| at |width|x|height|@|fps|. |maxBitrateKbps| is the
+   * user configured limit and |measuredBandwidthKbps| the estimate of a previous call; both are
+   * ignored when 0.
+   */
+  public static Bitrates compute(SdpSession.CodecSpec codec, int width, int height, int fps,
+      int maxBitrateKbps, int measuredBandwidthKbps) {
+    final double pixelsPerSecond = (double) width * height * fps;
+    final int targetKbps = Math.max(MIN_TARGET_BITRATE_KBPS,
+        (int) (pixelsPerSecond * BITS_PER_PIXEL * getEfficiency(codec) / 1000));
+
+    int maxKbps = maxBitrateKbps > 0 ? maxBitrateKbps : (int) (targetKbps * MAX_TO_TARGET_RATIO);
+    if (maxBitrateKbps <= 0 && measuredBandwidthKbps > maxKbps) {
+      // The network is known to carry more, allow some extra quality on top of the target.
+      maxKbps = Math.min(measuredBandwidthKbps, targetKbps * MAX_MEASURED_TO_TARGET_RATIO);
+    }
+    maxKbps = Math.max(MIN_BITRATE_KBPS, maxKbps);
+    final int minKbps =
+        Math.min(maxKbps, clamp(targetKbps / 10, MIN_BITRATE_KBPS, MAX_MIN_BITRATE_KBPS));
+    final int startKbps = measuredBandwidthKbps > 0
+        ? (int) (measuredBandwidthKbps * MEASURED_BANDWIDTH_FACTOR)
+        : (int) (targetKbps * UNMEASURED_START_FACTOR);
+    return new Bitrates(minKbps, clamp(startKbps, minKbps, maxKbps), maxKbps);
+  }
+
+  private static double getEfficiency(SdpSession.CodecSpec codec) {
+    if ("VP9".equalsIgnoreCase(codec.name)) {
+      return VP9_EFFICIENCY;
+    }
+    if ("H264".equalsIgnoreCase(codec.name) && H264_PROFILE_IDC_HIGH.equals(codec.h264ProfileIdc)) {
+      return H264_HIGH_EFFICIENCY;
+    }
+    return 1.0;
+  }
+
+  private static int clamp(int value, int min, int max) {
+    return Math.max(min, Math.min(max, value));
+  }
+}
@@ -55,6 +55,7 @@ public class WebSocketChannelClient {
   private static final int CLOSE_TIMEOUT = 1000;
   private final WebSocketChannelEvents events;
   private final Handler handler;
+  @Nullable private final CallSetupTimeline timeline;
   private WebSocketConnection ws;
   private String wsServerUrl;
   private String postServerUrl;
@@ -88,8 +89,14 @@ public class WebSocketChannelClient {
   }
 
   public WebSocketChannelClient(Handler handler, WebSocketChannelEvents events) {
+    this(handler, events, null);
+  }
+
+  public WebSocketChannelClient(
+      Handler handler, WebSocketChannelEvents events, @Nullable CallSetupTimeline timeline) {
     this.handler = handler;
     this.events = events;
+    this.timeline = timeline;
     roomID = null;
     clientID = null;
     state = WebSocketConnectionState.NEW;
@@ -138,6 +145,9 @@ public class WebSocketChannelClient {
       Log.d(TAG, "C->WSS: " + json.toString());
       ws.sendTextMessage(json.toString());
       state = WebSocketConnectionState.REGISTERED;
+      if (timeline != null) {
+        timeline.mark(CallSetupTimeline.Milestone.WEBSOCKET_REGISTERED);
+      }
       // Send any previously accumulated messages.
       for (String sendMessage : wsSendQueue) {
         send(sendMessage);
@@ -27,6 +27,11 @@ import org.json.JSONObject;
 import org.webrtc.IceCandidate;
 import org.webrtc.SessionDescription;
 
+import static com.midamhiworks.testwebrtc.SignalingJson.jsonPut;
+import static com.midamhiworks.testwebrtc.SignalingJson.toJavaCandidate;
+import static com.midamhiworks.testwebrtc.SignalingJson.toJsonCandidate;
+import static com.midamhiworks.testwebrtc.SignalingJson.toJsonSdp;
+
 /**
  * Negotiates signaling for chatting with https://appr.tc "rooms".
  * Uses the client<->server specifics of the apprtc AppEngine webapp.
@@ -65,6 +70,7 @@ public class WebSocketRTCClient implements AppRTCClient, WebSocketChannelEvents
   private enum MessageType { MESSAGE, LEAVE }
 
   private final Handler handler;
+  @Nullable private final CallSetupTimeline timeline;
   private boolean initiator;
   private SignalingEvents events;
   private WebSocketChannelClient wsClient;
@@ -74,7 +80,13 @@ public class WebSocketRTCClient implements AppRTCClient, WebSocketChannelEvents
   private String leaveUrl;
 
   public WebSocketRTCClient(SignalingEvents events) {
+    this(events, null);
+  }
+
+  /** |timeline|, if not null, receives the room and WebSocket milestones of the call setup. */
+  public WebSocketRTCClient(SignalingEvents events, @Nullable CallSetupTimeline timeline) {
     this.events = events;
+    this.timeline = timeline;
     roomState = ConnectionState.NEW;
     final HandlerThread handlerThread = new HandlerThread(TAG);
     handlerThread.start();
@@ -105,7 +117,7 @@ public class WebSocketRTCClient implements AppRTCClient, WebSocketChannelEvents
     String connectionUrl = getConnectionUrl(connectionParameters);
     Log.d(TAG, "Connect to room: " + connectionUrl);
     roomState = ConnectionState.NEW;
-    wsClient = new WebSocketChannelClient(handler, this);
+    wsClient = new WebSocketChannelClient(handler, this, timeline);
 
     RoomParametersFetcherEvents callbacks = new RoomParametersFetcherEvents() {
       @Override
@@ -119,7 +131,7 @@ public class WebSocketRTCClient implements AppRTCClient, WebSocketChannelEvents
       }
     };
 
-    new RoomParametersFetcher(connectionUrl, null, callbacks).makeRequest();
+    new RoomParametersFetcher(connectionUrl, null, callbacks, timeline).makeRequest();
   }
 
   // Disconnect from room and send bye messages - runs on a local looper thread.
@@ -201,9 +213,7 @@ public class WebSocketRTCClient implements AppRTCClient, WebSocketChannelEvents
         reportError("Sending offer SDP in non connected state.");
         return;
       }
-      JSONObject json = new JSONObject();
-      jsonPut(json, "sdp", sdp.description);
-      jsonPut(json, "type", "offer");
+      JSONObject json = toJsonSdp(sdp, "offer");
       sendPostMessage(MessageType.MESSAGE, messageUrl, json.toString());
       if (connectionParameters.loopback) {
         // In loopback mode rename this offer to answer and route it back.
@@ -223,9 +233,7 @@ public class WebSocketRTCClient implements AppRTCClient, WebSocketChannelEvents
         Log.e(TAG, "Sending answer in loopback mode.");
         return;
       }
-      JSONObject json = new JSONObject();
-      jsonPut(json, "sdp", sdp.description);
-      jsonPut(json, "type", "answer");
+      JSONObject json = toJsonSdp(sdp, "answer");
       wsClient.send(json.toString());
     });
   }
@@ -366,15 +374,6 @@ public class WebSocketRTCClient implements AppRTCClient, WebSocketChannelEvents
     });
   }
 
-  // Put a |key|->|value| mapping in |json|.
-  private static void jsonPut(JSONObject json, String key, Object value) {
-    try {
-      json.put(key, value);
-    } catch (JSONException e) {
-      throw new RuntimeException(e);
-    }
-  }
-
   // Send SDP or ICE candidate to a room server.
   private void sendPostMessage(
       final MessageType messageType, final String url, @Nullable final String message) {
@@ -407,19 +406,4 @@ public class WebSocketRTCClient implements AppRTCClient, WebSocketChannelEvents
         });
     httpConnection.send();
   }
-
-  // Converts a Java candidate to a JSONObject.
-  private JSONObject toJsonCandidate(final IceCandidate candidate) {
-    JSONObject json = new JSONObject();
-    jsonPut(json, "label", candidate.sdpMLineIndex);
-    jsonPut(json, "id", candidate.sdpMid);
-    jsonPut(json, "candidate", candidate.sdp);
-    return json;
-  }
-
-  // Converts a JSON candidate to a Java object.
-  IceCandidate toJavaCandidate(JSONObject json) throws JSONException {
-    return new IceCandidate(
-        json.getString("id"), json.getInt("label"), json.getString("candidate"));
-  }
 }
@@ -0,0 +1,93 @@
+package com.midamhiworks.testwebrtc;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link AdaptiveCaptureController}.
+ */
+public class AdaptiveCaptureControllerTest {
+    private static StatsSnapshot stats(int targetBitrateKbps, int estimateKbps) {
+        StatsSnapshot stats = new StatsSnapshot();
+        stats.videoOutbound.targetBitrateKbps = targetBitrateKbps;
+        stats.candidatePair.present = true;
+        stats.candidatePair.availableOutgoingBitrateKbps = estimateKbps;
+        return stats;
+    }
+
+    @Test
+    public void onStats_downgradesToFittingFormatAfterTwoSamples() {
+        AdaptiveCaptureController controller = new AdaptiveCaptureController(0, 0, 0, 0, 0);
+        assertEquals(1280, controller.getCurrent().width);
+        assertNull(controller.getCurrent().maxBitrateKbps);
+
+        // 640x480@30 needs 737 kbps, 480x360@30 needs 414 kbps.
+        assertNull(controller.onStats(stats(600, 2000), 10, 1000));
+        AdaptiveCaptureController.Decision decision =
+                controller.onStats(stats(2000, 600), 10, 2000);
+        assertNotNull(decision);
+        assertEquals(480, decision.width);
+        assertEquals(360, decision.height);
+        assertEquals(30, decision.framerate);
+        assertNotNull(decision.maxBitrateKbps);
+        assertTrue(decision.maxBitrateKbps > 737 * 1.3);
+    }
+
+    @Test
+    public void onStats_upgradesOnlyWithStableBudgetAndSpareCpu() {
+        AdaptiveCaptureController controller = new AdaptiveCaptureController(640, 480, 30, 0, 0);
+        controller.onStats(stats(50, 50), 10, 1000);
+        assertEquals(256, controller.onStats(stats(50, 50), 10, 2000).width);
+        assertEquals(15, controller.getCurrent().framerate);
+
+        long nowMs = 2000;
+        // A busy CPU holds the format however good the bandwidth is.
+        for (int i = 0; i < 20; i++) {
+            nowMs += 1000;
+            assertNull(controller.onStats(stats(3000, 3000), 90, nowMs));
+        }
+        for (int i = 0; i < AdaptiveCaptureController.UPGRADE_SAMPLES - 1; i++) {
+            nowMs += 1000;
+            assertNull(controller.onStats(stats(3000, 3000), 10, nowMs));
+        }
+        nowMs += 1000;
+        AdaptiveCaptureController.Decision decision =
+                controller.onStats(stats(3000, 3000), 10, nowMs);
+        assertEquals(256, decision.width);
+        assertEquals(30, decision.framerate);
+    }
+
+    @Test
+    public void onCpuOveruse_capsFormatUntilUnderuse() {
+        AdaptiveCaptureController controller = new AdaptiveCaptureController(0, 0, 0, 0, 0);
+        controller.onStats(stats(5000, 5000), 10, 1000);
+        assertEquals(960, controller.onCpuOveruse(2000).width);
+
+        // Plenty of bandwidth does not undo a CPU step.
+        long nowMs = 2000;
+        for (int i = 0; i < 20; i++) {
+            nowMs += 1000;
+            assertNull(controller.onStats(stats(5000, 5000), 10, nowMs));
+        }
+        assertEquals(1280, controller.onCpuUnderuse(nowMs).width);
+        assertNull(controller.onCpuUnderuse(nowMs));
+    }
+
+    @Test
+    public void setFramerateCap_lowersFramerateOfCurrentFormat() {
+        AdaptiveCaptureController controller = new AdaptiveCaptureController(640, 480, 30, 0, 0);
+        AdaptiveCaptureController.Decision decision = controller.setFramerateCap(15);
+        assertNotNull(decision);
+        assertEquals(640, decision.width);
+        assertEquals(15, decision.framerate);
+        assertNull(controller.setFramerateCap(15));
+
+        // The last rung already runs at 15 fps.
+        controller.onStats(stats(50, 50), 10, 1000);
+        decision = controller.onStats(stats(50, 50), 10, 2000);
+        assertEquals(256, decision.width);
+        assertEquals(15, decision.framerate);
+        assertNull(controller.setFramerateCap(0));
+    }
+}
@@ -0,0 +1,250 @@
+package com.midamhiworks.testwebrtc;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link BulkTransferSender} and {@link BulkTransferReceiver} over an
+ * in-memory channel pair.
+ */
+public class BulkTransferTest {
+    private static final int CHUNK_SIZE = 1000;
+    private static final long HIGH_WATERMARK = 8000;
+    private static final long LOW_WATERMARK = 2000;
+    private static final Executor DIRECT = Runnable::run;
+
+    // One direction of a channel: sent messages wait until they are delivered.
+    private static class FakeChannel implements BulkTransfer.Channel {
+        final ArrayDeque<byte[]> queue = new ArrayDeque<>();
+        long bufferedAmount;
+        long maxBufferedAmount;
+        boolean open = true;
+
+        @Override
+        public boolean send(ByteBuffer data) {
+            if (!open) {
+                return false;
+            }
+            byte[] message = new byte[data.remaining()];
+            data.get(message);
+            queue.add(message);
+            bufferedAmount += message.length;
+            maxBufferedAmount = Math.max(maxBufferedAmount, bufferedAmount);
+            return true;
+        }
+
+        @Override
+        public long getBufferedAmount() {
+            return bufferedAmount;
+        }
+
+        byte[] poll() {
+            byte[] message = queue.poll();
+            if (message != null) {
+                bufferedAmount -= message.length;
+            }
+            return message;
+        }
+    }
+
+    private static class MemorySource implements BulkTransferSender.Source {
+        final byte[] data;
+        boolean closed;
+
+        MemorySource(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public long size() {
+            return data.length;
+        }
+
+        @Override
+        public int read(long offset, ByteBuffer destination) {
+            int length = Math.min(destination.remaining(), data.length - (int) offset);
+            destination.put(data, (int) offset, length);
+            return length;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static class MemorySink implements BulkTransferReceiver.Sink {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final List<Integer> completed = new ArrayList<>();
+
+        @Override
+        public void onStart(int id, long size) {}
+
+        @Override
+        public void write(int id, long offset, ByteBuffer data) throws IOException {
+            assertEquals(output.size(), offset);
+            while (data.hasRemaining()) {
+                output.write(data.get());
+            }
+        }
+
+        @Override
+        public void onComplete(int id, long size) {
+            completed.add(id);
+        }
+
+        @Override
+        public void onError(int id, String description) {
+            fail(description);
+        }
+    }
+
+    private final FakeChannel forward = new FakeChannel();
+    private final FakeChannel backward = new FakeChannel();
+    private final List<String> events = new ArrayList<>();
+    private final MemorySink sink = new MemorySink();
+    private final BulkTransferReceiver receiver = new BulkTransferReceiver(backward, sink);
+    private final BulkTransferSender sender = new BulkTransferSender(forward, DIRECT,
+            new BulkTransferSender.Listener() {
+                @Override
+                public void onProgress(int id, long acknowledged, long total, long rate) {
+                    events.add("progress " + acknowledged);
+                }
+
+                @Override
+                public void onComplete(int id, long total) {
+                    events.add("complete " + id + " " + total);
+                }
+
+                @Override
+                public void onError(int id, String description) {
+                    events.add("error " + description);
+                }
+            }, CHUNK_SIZE, HIGH_WATERMARK, LOW_WATERMARK);
+
+    private static byte[] data(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return data;
+    }
+
+    // Delivers up to |count| messages in both directions, like the network would.
+    private void deliver(int count) {
+        for (int i = 0; i < count; i++) {
+            byte[] message = forward.poll();
+            if (message == null) {
+                break;
+            }
+            assertTrue(receiver.onMessage(ByteBuffer.wrap(message)));
+            sender.onBufferedAmountChange(forward.getBufferedAmount());
+            byte[] ack;
+            while ((ack = backward.poll()) != null) {
+                assertTrue(sender.onMessage(ByteBuffer.wrap(ack)));
+            }
+        }
+    }
+
+    @Test
+    public void send_pacesAgainstWatermarksAndCompletes() {
+        byte[] data = data(600 * 1024 + 123);
+        MemorySource source = new MemorySource(data);
+        sender.onChannelOpen();
+        assertEquals(1, sender.send(source));
+        // Sending stops at the high watermark until the buffer drains.
+        assertTrue(forward.getBufferedAmount() >= HIGH_WATERMARK);
+        assertTrue(forward.getBufferedAmount() < HIGH_WATERMARK + CHUNK_SIZE * 2);
+
+        deliver(Integer.MAX_VALUE);
+        assertTrue(forward.maxBufferedAmount < HIGH_WATERMARK + CHUNK_SIZE * 2);
+        assertArrayEquals(data, sink.output.toByteArray());
+        assertEquals(Arrays.asList(1), sink.completed);
+        assertTrue(source.closed);
+        // Acknowledged at the first chunk end past the ACK interval.
+        assertEquals("progress 263000", events.get(0));
+        assertEquals("complete 1 " + data.length, events.get(events.size() - 1));
+    }
+
+    @Test
+    public void send_splitsIntoChunksThatReassembleDespiteDuplicates() {
+        byte[] data = data(CHUNK_SIZE * 3 + 17);
+        sender.onChannelOpen();
+        sender.send(new MemorySource(data));
+
+        // A START with the size, then chunks at contiguous offsets, the last one short.
+        List<byte[]> messages = new ArrayList<>(forward.queue);
+        assertEquals(5, messages.size());
+        ByteBuffer start = ByteBuffer.wrap(messages.get(0));
+        assertEquals(BulkTransfer.TYPE_START, BulkTransfer.getType(start));
+        assertEquals(data.length, BulkTransfer.getValue(start));
+        for (int i = 1; i < messages.size(); i++) {
+            ByteBuffer chunk = ByteBuffer.wrap(messages.get(i));
+            assertEquals(BulkTransfer.TYPE_CHUNK, BulkTransfer.getType(chunk));
+            assertEquals(1, BulkTransfer.getId(chunk));
+            assertEquals((i - 1) * CHUNK_SIZE, BulkTransfer.getValue(chunk));
+        }
+        assertEquals(BulkTransfer.HEADER_SIZE + CHUNK_SIZE, messages.get(1).length);
+        assertEquals(BulkTransfer.HEADER_SIZE + 17, messages.get(4).length);
+
+        // A chunk that arrives twice, as after a resume, is written once.
+        deliver(3);
+        assertTrue(receiver.onMessage(ByteBuffer.wrap(messages.get(1))));
+        assertTrue(receiver.onMessage(ByteBuffer.wrap(messages.get(2))));
+        deliver(Integer.MAX_VALUE);
+        assertArrayEquals(data, sink.output.toByteArray());
+        assertEquals(Arrays.asList(1), sink.completed);
+        assertEquals("complete 1 " + data.length, events.get(events.size() - 1));
+    }
+
+    @Test
+    public void onChannelOpen_resumesFromAcknowledgedBytes() {
+        byte[] data = data(700 * 1024);
+        sender.onChannelOpen();
+        sender.send(new MemorySource(data));
+        deliver(300);
+
+        // The connection drops with messages in flight.
+        forward.open = false;
+        sender.onChannelClosed();
+        forward.queue.clear();
+        forward.bufferedAmount = 0;
+        assertTrue(sink.output.size() > 256 * 1024);
+        assertTrue(events.contains("progress 263000"));
+
+        forward.open = true;
+        sender.onChannelOpen();
+        deliver(Integer.MAX_VALUE);
+        assertArrayEquals(data, sink.output.toByteArray());
+        assertEquals("complete 1 " + data.length, events.get(events.size() - 1));
+    }
+
+    @Test
+    public void send_runsTransfersInOrderIncludingEmptyOnes() {
+        sender.onChannelOpen();
+        sender.send(new MemorySource(new byte[0]));
+        sender.send(new MemorySource(data(5000)));
+        deliver(Integer.MAX_VALUE);
+        assertEquals(Arrays.asList(1, 2), sink.completed);
+        assertTrue(events.contains("complete 1 0"));
+        assertEquals("complete 2 5000", events.get(events.size() - 1));
+        assertEquals(5000, sink.output.size());
+    }
+
+    @Test
+    public void onMessage_ignoresForeignMessages() {
+        ByteBuffer message = ByteBuffer.wrap("hello, not a bulk transfer".getBytes());
+        assertFalse(receiver.onMessage(message));
+        assertFalse(sender.onMessage(message));
+    }
+}
@@ -0,0 +1,93 @@
+package com.midamhiworks.testwebrtc;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link ByteBufferPool}.
+ */
+public class ByteBufferPoolTest {
+    private final ByteBufferPool pool = new ByteBufferPool(2);
+
+    private static ByteBuffer bytes(int size) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+        for (int i = 0; i < size; i++) {
+            buffer.put((byte) i);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    @Test
+    public void copyOf_copiesRemainingBytesIntoReadOnlyView() {
+        ByteBuffer source = bytes(100);
+        source.position(10);
+        ByteBufferPool.PooledBuffer pooled = pool.copyOf(source);
+        assertEquals(10, source.position());
+
+        ByteBuffer data = pooled.getData();
+        assertTrue(data.isReadOnly());
+        assertEquals(0, data.position());
+        assertEquals(90, data.remaining());
+        assertEquals(10, data.get(0));
+        assertEquals(ByteBufferPool.MIN_CAPACITY, pooled.capacity());
+        try {
+            data.put(0, (byte) 1);
+            fail();
+        } catch (ReadOnlyBufferException e) {
+            // Expected.
+        }
+        pooled.release();
+    }
+
+    @Test
+    public void release_reusesBuffersOfTheSameSize() {
+        ByteBufferPool.PooledBuffer first = pool.copyOf(bytes(2000));
+        assertEquals(2048, first.capacity());
+        first.release();
+        ByteBufferPool.PooledBuffer second = pool.copyOf(bytes(1500));
+        assertSame(first, second);
+        assertEquals(1500, second.getData().remaining());
+        assertEquals(1, pool.getAllocationCount());
+
+        // A different size class needs its own buffer.
+        pool.copyOf(bytes(100)).release();
+        assertEquals(2, pool.getAllocationCount());
+        second.release();
+    }
+
+    @Test
+    public void release_keepsAtMostMaxFreeBuffers() {
+        ByteBufferPool.PooledBuffer[] buffers = new ByteBufferPool.PooledBuffer[3];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = pool.copyOf(bytes(10));
+        }
+        for (ByteBufferPool.PooledBuffer buffer : buffers) {
+            buffer.release();
+        }
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = pool.copyOf(bytes(10));
+        }
+        assertEquals(4, pool.getAllocationCount());
+    }
+
+    @Test
+    public void largeBuffersAreNotPooled() {
+        int size = ByteBufferPool.MAX_POOLED_CAPACITY + 1;
+        ByteBufferPool.PooledBuffer pooled = pool.copyOf(bytes(size));
+        assertEquals(size, pooled.capacity());
+        pooled.release();
+        assertNotSame(pooled, pool.copyOf(bytes(size)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void release_twiceThrows() {
+        ByteBufferPool.PooledBuffer pooled = pool.copyOf(bytes(10));
+        pooled.release();
+        pooled.release();
+    }
+}
@@ -0,0 +1,85 @@
+package com.midamhiworks.testwebrtc;
+
+import com.midamhiworks.testwebrtc.CallSetupTimeline.Milestone;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link CallSetupStats}.
+ */
+public class CallSetupStatsTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static CallSetupTimeline timeline(long iceConnectedMs) {
+        CallSetupTimeline timeline = new CallSetupTimeline();
+        timeline.mark(Milestone.CALL_STARTED, 0);
+        timeline.mark(Milestone.ROOM_REQUEST_SENT, TimeUnit.MILLISECONDS.toNanos(10));
+        timeline.mark(Milestone.ICE_CONNECTED, TimeUnit.MILLISECONDS.toNanos(iceConnectedMs));
+        return timeline;
+    }
+
+    @Test
+    public void add_isReadBackByTheNextRun() {
+        File file = new File(folder.getRoot(), "stats.json");
+        CallSetupStats stats = new CallSetupStats(file, null);
+        stats.add(timeline(300));
+        stats.add(timeline(500));
+
+        CallSetupStats restored = new CallSetupStats(file, null);
+        LatencyHistogram phase = restored.getPhaseHistogram(Milestone.ICE_CONNECTED);
+        assertEquals(2, phase.getCount());
+        assertEquals(290 + 490, phase.getSumMs());
+        assertEquals(490, phase.getMaxMs());
+        assertArrayEquals(stats.getPhaseHistogram(Milestone.ICE_CONNECTED).getBucketCounts(),
+                phase.getBucketCounts());
+        LatencyHistogram total = restored.getTotalHistogram(Milestone.ICE_CONNECTED);
+        assertEquals(2, total.getCount());
+        assertEquals(500, total.getMaxMs());
+        assertEquals(0, restored.getTotalHistogram(Milestone.CALL_STARTED).getCount());
+        assertEquals(0, restored.getPhaseHistogram(Milestone.DTLS_CONNECTED).getCount());
+    }
+
+    @Test
+    public void load_discardsAnUnreadableFile() throws IOException {
+        File file = new File(folder.getRoot(), "stats.json");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("{\"version\": 1, \"calls\": ".getBytes("UTF-8"));
+        }
+        CallSetupStats stats = new CallSetupStats(file, null);
+        assertEquals(0, stats.getPhaseHistogram(Milestone.ROOM_REQUEST_SENT).getCount());
+
+        stats.add(timeline(300));
+        CallSetupStats restored = new CallSetupStats(file, null);
+        assertEquals(1, restored.getPhaseHistogram(Milestone.ROOM_REQUEST_SENT).getCount());
+    }
+
+    @Test
+    public void export_writesOneCsvRowPerMilestone() throws IOException {
+        File exportFile = new File(folder.getRoot(), "stats.csv");
+        CallSetupStats stats =
+                new CallSetupStats(new File(folder.getRoot(), "stats.json"), exportFile);
+        stats.add(timeline(300));
+
+        assertEquals(exportFile, stats.export());
+        List<String> lines = Files.readAllLines(exportFile.toPath());
+        assertEquals(1 + Milestone.values().length, lines.size());
+        assertTrue(lines.get(0).startsWith("milestone,calls,phase_n,"));
+        assertTrue(lines.get(1 + Milestone.ICE_CONNECTED.ordinal())
+                .startsWith("ICE_CONNECTED,1,1,290,"));
+        assertTrue(lines.get(1 + Milestone.DTLS_CONNECTED.ordinal())
+                .startsWith("DTLS_CONNECTED,1,0,"));
+        assertNull(new CallSetupStats(new File(folder.getRoot(), "other.json"), null).export());
+    }
+}
@@ -0,0 +1,51 @@
+package com.midamhiworks.testwebrtc;
+
+import com.midamhiworks.testwebrtc.CallSetupTimeline.Milestone;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link CallSetupTimeline}.
+ */
+public class CallSetupTimelineTest {
+    private static long ms(long value) {
+        return TimeUnit.MILLISECONDS.toNanos(value);
+    }
+
+    @Test
+    public void phases_measureFromPreviouslyReachedMilestone() {
+        CallSetupTimeline timeline = new CallSetupTimeline();
+        timeline.mark(Milestone.CALL_STARTED, ms(1000));
+        timeline.mark(Milestone.ROOM_REQUEST_SENT, ms(1010));
+        timeline.mark(Milestone.ROOM_RESPONSE_RECEIVED, ms(1300));
+        // An answerer sets the remote offer before it creates its answer.
+        timeline.mark(Milestone.REMOTE_SDP_SET, ms(1350));
+        timeline.mark(Milestone.LOCAL_SDP_CREATED, ms(1400));
+        // Only the first mark counts.
+        timeline.mark(Milestone.ROOM_RESPONSE_RECEIVED, ms(2000));
+
+        assertEquals(290, timeline.getPhaseMs(Milestone.ROOM_RESPONSE_RECEIVED));
+        assertEquals(50, timeline.getPhaseMs(Milestone.REMOTE_SDP_SET));
+        assertEquals(50, timeline.getPhaseMs(Milestone.LOCAL_SDP_CREATED));
+        assertEquals(400, timeline.getElapsedMs(Milestone.LOCAL_SDP_CREATED));
+        assertEquals(-1, timeline.getPhaseMs(Milestone.CALL_STARTED));
+        assertEquals(-1, timeline.getPhaseMs(Milestone.TURN_SERVERS_FETCHED));
+        assertEquals(-1, timeline.getElapsedMs(Milestone.ICE_CONNECTED));
+        assertFalse(timeline.isReached(Milestone.ICE_CONNECTED));
+    }
+
+    @Test
+    public void phases_ofSimultaneousMilestonesAreZero() {
+        CallSetupTimeline timeline = new CallSetupTimeline();
+        timeline.mark(Milestone.CALL_STARTED, ms(0));
+        timeline.mark(Milestone.ICE_CONNECTED, ms(500));
+        timeline.mark(Milestone.DTLS_CONNECTED, ms(500));
+
+        assertEquals(500, timeline.getPhaseMs(Milestone.ICE_CONNECTED));
+        assertEquals(0, timeline.getPhaseMs(Milestone.DTLS_CONNECTED));
+    }
+}
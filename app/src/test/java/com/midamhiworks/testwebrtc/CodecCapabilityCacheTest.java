@@ -0,0 +1,82 @@
+package com.midamhiworks.testwebrtc;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.webrtc.VideoCodecInfo;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link CodecCapabilityCache}.
+ */
+public class CodecCapabilityCacheTest {
+    private static final String BUILD_KEY = "fingerprint|1000";
+    private static final String CONFIGURATION = "hw_h264high=true";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static CodecCapabilityCache.Capabilities capabilities() {
+        Map<String, String> h264 = new HashMap<>();
+        h264.put("profile-level-id", "640c1f");
+        h264.put("packetization-mode", "1");
+        VideoCodecInfo[] encoders = {
+                new VideoCodecInfo("VP8", Collections.<String, String>emptyMap()),
+                new VideoCodecInfo("H264", h264)};
+        VideoCodecInfo[] decoders = {
+                new VideoCodecInfo("VP8", Collections.<String, String>emptyMap())};
+        return new CodecCapabilityCache.Capabilities(
+                encoders, decoders, new VideoCodecInfo[] {encoders[1]});
+    }
+
+    private File file() {
+        return new File(folder.getRoot(), "codec_capabilities.json");
+    }
+
+    @Test
+    public void get_hitsWhatAnEarlierRunStored() {
+        CodecCapabilityCache cache = new CodecCapabilityCache(file(), BUILD_KEY);
+        assertNull(cache.get(CONFIGURATION));
+        cache.put(CONFIGURATION, capabilities());
+
+        CodecCapabilityCache.Capabilities cached =
+                new CodecCapabilityCache(file(), BUILD_KEY).get(CONFIGURATION);
+        assertNotNull(cached);
+        assertEquals(2, cached.encoderCodecs.length);
+        assertEquals("VP8", cached.encoderCodecs[0].name);
+        assertTrue(cached.encoderCodecs[0].params.isEmpty());
+        assertEquals("H264", cached.encoderCodecs[1].name);
+        assertEquals(capabilities().encoderCodecs[1].params, cached.encoderCodecs[1].params);
+        assertEquals(1, cached.decoderCodecs.length);
+        assertEquals("H264", cached.hardwareEncoderCodecs[0].name);
+    }
+
+    @Test
+    public void get_missesOtherConfigurationsAndBuilds() {
+        new CodecCapabilityCache(file(), BUILD_KEY).put(CONFIGURATION, capabilities());
+
+        assertNull(new CodecCapabilityCache(file(), BUILD_KEY).get("sw"));
+        // A system or app update invalidates the whole file.
+        assertNull(new CodecCapabilityCache(file(), "fingerprint|2000").get(CONFIGURATION));
+    }
+
+    @Test
+    public void get_missesOnAnUnreadableFile() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file())) {
+            out.write("{\"version\": 1, \"build\": ".getBytes("UTF-8"));
+        }
+        CodecCapabilityCache cache = new CodecCapabilityCache(file(), BUILD_KEY);
+        assertNull(cache.get(CONFIGURATION));
+
+        cache.put(CONFIGURATION, capabilities());
+        assertNotNull(new CodecCapabilityCache(file(), BUILD_KEY).get(CONFIGURATION));
+    }
+}
@@ -0,0 +1,60 @@
+package com.midamhiworks.testwebrtc;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link CpuOveruseDetector}.
+ */
+public class CpuOveruseDetectorTest {
+    private final List<String> events = new ArrayList<>();
+    private final CpuOveruseDetector detector = new CpuOveruseDetector(
+            new CpuOveruseDetector.Listener() {
+                @Override
+                public void onCpuOveruse(int loadPercent) {
+                    events.add("over " + loadPercent);
+                }
+
+                @Override
+                public void onCpuUnderuse(int loadPercent) {
+                    events.add("under " + loadPercent);
+                }
+            }, 80, 40, 4000, 10000);
+
+    @Test
+    public void onLoad_reportsOveruseAfterDwellTimeAndRepeats() {
+        detector.onLoad(90, 0);
+        detector.onLoad(90, 2000);
+        assertTrue(events.isEmpty());
+        detector.onLoad(95, 4000);
+        assertEquals("over 95", events.get(0));
+        assertTrue(detector.isOverusing());
+
+        detector.onLoad(90, 6000);
+        detector.onLoad(90, 8000);
+        assertEquals(2, events.size());
+
+        // A load between the watermarks restarts the dwell time.
+        detector.onLoad(60, 10000);
+        detector.onLoad(90, 12000);
+        detector.onLoad(90, 14000);
+        assertEquals(2, events.size());
+        assertTrue(detector.isOverusing());
+    }
+
+    @Test
+    public void onLoad_reportsUnderuseOnlyAfterLongerDwellTime() {
+        detector.onLoad(90, 0);
+        detector.onLoad(90, 4000);
+        detector.onLoad(30, 6000);
+        assertFalse(detector.isOverusing());
+        detector.onLoad(30, 14000);
+        assertEquals(1, events.size());
+        detector.onLoad(20, 16000);
+        assertEquals("under 20", events.get(1));
+    }
+}
@@ -0,0 +1,76 @@
+package com.midamhiworks.testwebrtc;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link CpuStatSampler} against fake /proc and sysfs files.
+ */
+public class CpuStatSamplerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void write(File file, String contents) throws IOException {
+        file.getParentFile().mkdirs();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(contents.getBytes(Charset.forName("UTF-8")));
+        }
+    }
+
+    @Test
+    public void readProcStat_parsesAggregateAndCoreLinesAgain() throws IOException {
+        File procStat = new File(folder.getRoot(), "stat");
+        write(procStat, "cpu  100 20 30 400 5 6 7 0 0 0\n"
+                + "cpu0 60 10 20 200 5 6 7 0 0 0\n"
+                + "cpu2 40 10 10 200 0 0 0 0 0 0\n"
+                + "intr 12345 1 2 3\n"
+                + "ctxt 999\n");
+        CpuStatSampler sampler = new CpuStatSampler(procStat, folder.getRoot(), 3);
+        assertTrue(sampler.readProcStat());
+        assertEquals(125, sampler.userTime);
+        assertEquals(43, sampler.systemTime);
+        assertEquals(400, sampler.idleTime);
+        assertEquals(108, sampler.coreBusyTime[0]);
+        assertEquals(308, sampler.coreTotalTime[0]);
+        // cpu1 is offline.
+        assertEquals(0, sampler.coreTotalTime[1]);
+        assertEquals(60, sampler.coreBusyTime[2]);
+
+        // The open descriptor sees the new contents.
+        write(procStat, "cpu  200 20 30 500\ncpu1 1 2 3 4\n");
+        assertTrue(sampler.readProcStat());
+        assertEquals(220, sampler.userTime);
+        assertEquals(500, sampler.idleTime);
+        assertEquals(0, sampler.coreTotalTime[0]);
+        assertEquals(6, sampler.coreBusyTime[1]);
+        sampler.close();
+    }
+
+    @Test
+    public void readFrequencies_handleOfflineCores() throws IOException {
+        File cpuDirectory = folder.getRoot();
+        write(new File(cpuDirectory, "present"), "0-1\n");
+        write(new File(cpuDirectory, "cpu0/cpufreq/cpuinfo_max_freq"), "1800000\n");
+        write(new File(cpuDirectory, "cpu0/cpufreq/scaling_cur_freq"), "900000\n");
+        assertEquals(2, CpuStatSampler.readCpusPresent(cpuDirectory));
+
+        CpuStatSampler sampler =
+                new CpuStatSampler(new File(cpuDirectory, "stat"), cpuDirectory, 2);
+        assertFalse(sampler.readProcStat());
+        assertEquals(1800000, sampler.readMaxFrequency(0));
+        assertEquals(900000, sampler.readCurrentFrequency(0));
+        assertEquals(0, sampler.readCurrentFrequency(1));
+
+        write(new File(cpuDirectory, "cpu1/cpufreq/scaling_cur_freq"), "300000\n");
+        assertEquals(300000, sampler.readCurrentFrequency(1));
+        sampler.close();
+    }
+}
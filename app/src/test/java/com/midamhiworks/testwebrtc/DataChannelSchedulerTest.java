@@ -0,0 +1,106 @@
+package com.midamhiworks.testwebrtc;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link DataChannelScheduler}.
+ */
+public class DataChannelSchedulerTest {
+    private static final long DROP_THRESHOLD = 1000;
+
+    // Buffers everything that is sent until the test drains it.
+    private static class FakeChannels implements DataChannelScheduler.Channels {
+        final long[] bufferedAmounts = new long[DataChannelKind.values().length];
+        final List<DataChannelKind> sent = new ArrayList<>();
+        boolean open = true;
+
+        @Override
+        public boolean send(DataChannelKind kind, ByteBuffer data, boolean binary) {
+            if (!open) {
+                return false;
+            }
+            bufferedAmounts[kind.ordinal()] += data.remaining();
+            data.position(data.limit());
+            sent.add(kind);
+            return true;
+        }
+
+        @Override
+        public long getBufferedAmount(DataChannelKind kind) {
+            return bufferedAmounts[kind.ordinal()];
+        }
+    }
+
+    private final FakeChannels channels = new FakeChannels();
+    private final DataChannelScheduler scheduler =
+            new DataChannelScheduler(channels, DROP_THRESHOLD);
+
+    private static ByteBuffer bytes(int size) {
+        return ByteBuffer.allocate(size);
+    }
+
+    private void drain(DataChannelKind kind) {
+        channels.bufferedAmounts[kind.ordinal()] = 0;
+        scheduler.onBufferedAmountChange(kind, 0);
+    }
+
+    @Test
+    public void send_tracksBufferedAmountOfAllChannels() {
+        assertTrue(scheduler.send(DataChannelKind.BULK, bytes(600), true));
+        assertTrue(scheduler.send(DataChannelKind.DEFAULT, bytes(100), false));
+        assertEquals(600, scheduler.getBufferedAmount(DataChannelKind.BULK));
+        assertEquals(700, scheduler.getTotalBufferedAmount());
+        assertEquals(1, scheduler.getSentMessages(DataChannelKind.BULK));
+    }
+
+    @Test
+    public void send_dropsTelemetryWhileChannelsAreBackedUp() {
+        assertTrue(scheduler.send(DataChannelKind.BULK, bytes(1000), true));
+        assertFalse(scheduler.send(DataChannelKind.TELEMETRY, bytes(10), true));
+        assertEquals(1, scheduler.getDroppedMessages(DataChannelKind.TELEMETRY));
+
+        drain(DataChannelKind.BULK);
+        assertTrue(scheduler.send(DataChannelKind.TELEMETRY, bytes(10), true));
+        assertEquals(1, scheduler.getSentMessages(DataChannelKind.TELEMETRY));
+    }
+
+    @Test
+    public void send_neverDropsControlMessages() {
+        assertTrue(scheduler.send(DataChannelKind.BULK, bytes(5000), true));
+        assertTrue(scheduler.send(DataChannelKind.CONTROL, bytes(10), false));
+        assertEquals(0, scheduler.getDroppedMessages(DataChannelKind.CONTROL));
+    }
+
+    @Test
+    public void getBulkBufferedAmount_reportsFullWhileLatencySensitiveChannelIsBacklogged() {
+        scheduler.send(DataChannelKind.BULK, bytes(300), true);
+        assertEquals(300, scheduler.getBulkBufferedAmount());
+
+        scheduler.send(DataChannelKind.CONTROL, bytes(10), false);
+        assertEquals(Long.MAX_VALUE, scheduler.getBulkBufferedAmount());
+
+        drain(DataChannelKind.CONTROL);
+        assertEquals(300, scheduler.getBulkBufferedAmount());
+    }
+
+    @Test
+    public void onChannelClosed_forgetsBufferedAmount() {
+        scheduler.send(DataChannelKind.CONTROL, bytes(10), false);
+        scheduler.onChannelClosed(DataChannelKind.CONTROL);
+        assertEquals(0, scheduler.getBulkBufferedAmount());
+    }
+
+    @Test
+    public void send_failsOnClosedChannel() {
+        channels.open = false;
+        assertFalse(scheduler.send(DataChannelKind.CONTROL, bytes(10), false));
+        assertEquals(0, scheduler.getSentMessages(DataChannelKind.CONTROL));
+        assertTrue(scheduler.toString().contains("control: sent 0 (0 KB) failed 1"));
+    }
+}
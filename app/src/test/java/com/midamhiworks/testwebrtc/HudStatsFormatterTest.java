@@ -0,0 +1,47 @@
+package com.midamhiworks.testwebrtc;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link HudStatsFormatter}.
+ */
+public class HudStatsFormatterTest {
+    private static final int ENCODER = 1 << HudStatsFormatter.FIELD_ENCODER;
+    private static final int VIDEO_SEND = 1 << HudStatsFormatter.FIELD_VIDEO_SEND;
+
+    private static StatsSnapshot snapshot(int bitrateKbps) {
+        StatsSnapshot stats = new StatsSnapshot();
+        stats.videoOutbound.present = true;
+        stats.videoOutbound.frameWidth = 640;
+        stats.videoOutbound.frameHeight = 480;
+        stats.videoOutbound.bitrateKbps = bitrateKbps;
+        return stats;
+    }
+
+    @Test
+    public void format_reportsOnlyChangedFields() {
+        HudStatsFormatter formatter = new HudStatsFormatter(true);
+        assertEquals(ENCODER | VIDEO_SEND,
+                formatter.format(snapshot(500), true, -1, 0, 0, null, null, null));
+        String encoderText = formatter.getText(HudStatsFormatter.FIELD_ENCODER);
+        assertTrue(encoderText.contains("Actual BR: 500"));
+
+        assertEquals(0, formatter.format(snapshot(500), true, -1, 0, 0, null, null, null));
+        assertSame(encoderText, formatter.getText(HudStatsFormatter.FIELD_ENCODER));
+
+        assertEquals(ENCODER, formatter.format(snapshot(500), true, 20, 15, 80, null, null, null));
+        assertTrue(formatter.getText(HudStatsFormatter.FIELD_ENCODER).contains("CPU%: 20/15"));
+    }
+
+    @Test
+    public void format_skipsDetailsWhenHidden() {
+        HudStatsFormatter formatter = new HudStatsFormatter(true);
+        assertEquals(ENCODER, formatter.format(snapshot(500), false, -1, 0, 0, null, null, null));
+        assertEquals("", formatter.getText(HudStatsFormatter.FIELD_VIDEO_SEND));
+
+        assertEquals(VIDEO_SEND, formatter.format(snapshot(500), true, -1, 0, 0, null, null, null));
+        assertTrue(formatter.getText(HudStatsFormatter.FIELD_VIDEO_SEND).contains("Size=640x480"));
+    }
+}
@@ -0,0 +1,51 @@
+package com.midamhiworks.testwebrtc;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link InstrumentedExecutor} and {@link LatencyHistogram}.
+ */
+public class InstrumentedExecutorTest {
+    @Test
+    public void histogram_reportsBucketUpperBounds() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        for (int i = 0; i < 90; i++) {
+            histogram.record(3);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(100);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(3, histogram.getPercentileMs(50));
+        assertEquals(100, histogram.getPercentileMs(95));
+        assertEquals(12, histogram.getMeanMs());
+        histogram.reset();
+        assertEquals(0, histogram.getPercentileMs(50));
+    }
+
+    @Test
+    public void executor_measuresTasksAndDropsAfterShutdown() throws InterruptedException {
+        InstrumentedExecutor executor = new InstrumentedExecutor("test", 1000);
+        final CountDownLatch blocker = new CountDownLatch(1);
+        executor.execute("block", () -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute("queued", () -> {});
+        assertEquals(1, executor.getQueueDepth());
+        blocker.countDown();
+        executor.shutdown();
+        executor.execute("late", () -> fail("Task ran after shutdown"));
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(2, executor.getRunTimeHistogram().getCount());
+        assertEquals(2, executor.getWaitTimeHistogram().getCount());
+    }
+}
@@ -0,0 +1,94 @@
+package com.midamhiworks.testwebrtc;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link LatencyProbe}.
+ */
+public class LatencyProbeTest {
+    // The remote clock runs 5 s ahead of the local one.
+    private static final long REMOTE_OFFSET_MICROS = 5000000;
+
+    private long nowMicros = 1000000;
+    private final ArrayDeque<ByteBuffer> toRemote = new ArrayDeque<>();
+    private final ArrayDeque<ByteBuffer> toLocal = new ArrayDeque<>();
+    private final LatencyProbe local = new LatencyProbe(
+            message -> toRemote.add(copy(message)), () -> nowMicros);
+    private final LatencyProbe remote = new LatencyProbe(
+            message -> toLocal.add(copy(message)), () -> nowMicros + REMOTE_OFFSET_MICROS);
+
+    private static ByteBuffer copy(ByteBuffer message) {
+        ByteBuffer copy = ByteBuffer.allocate(message.remaining());
+        copy.put(message);
+        copy.flip();
+        return copy;
+    }
+
+    // Sends a ping that takes |upMicros| to the peer, waits |processingMicros| there to be
+    // answered and takes |downMicros| back.
+    private void roundTrip(long upMicros, long processingMicros, long downMicros) {
+        assertTrue(local.sendPing());
+        nowMicros += upMicros;
+        long receivedMicros = nowMicros + REMOTE_OFFSET_MICROS;
+        nowMicros += processingMicros;
+        assertTrue(remote.onMessage(toRemote.remove(), receivedMicros));
+        ByteBuffer pong = toLocal.remove();
+        nowMicros += downMicros;
+        assertTrue(local.onMessage(pong, nowMicros));
+    }
+
+    @Test
+    public void onMessage_measuresRoundTripWithoutRemoteProcessing() {
+        roundTrip(10000, 3000, 10000);
+        assertEquals(20000, local.getLastRttMicros());
+        assertEquals(20, local.getRttHistogram().getMaxMs());
+        assertEquals(1, local.getSentPings());
+        assertEquals(1, local.getReceivedPongs());
+    }
+
+    @Test
+    public void onMessage_estimatesClockOffsetFromFastestSample() {
+        // Asymmetric queuing skews the offset of slow samples.
+        roundTrip(80000, 0, 10000);
+        assertEquals(REMOTE_OFFSET_MICROS + 35000, local.getClockOffsetMicros());
+        roundTrip(5000, 0, 5000);
+        roundTrip(10000, 0, 90000);
+        assertTrue(local.hasClockOffset());
+        assertEquals(REMOTE_OFFSET_MICROS, local.getClockOffsetMicros());
+        assertEquals(nowMicros, local.toLocalMicros(nowMicros + REMOTE_OFFSET_MICROS));
+    }
+
+    @Test
+    public void onMessage_forgetsSamplesOutsideFilter() {
+        roundTrip(1000, 0, 1000);
+        for (int i = 0; i < LatencyProbe.FILTER_SIZE; i++) {
+            roundTrip(20000, 0, 10000);
+        }
+        assertEquals(REMOTE_OFFSET_MICROS + 5000, local.getClockOffsetMicros());
+    }
+
+    @Test
+    public void onMessage_ignoresForeignMessages() {
+        assertFalse(local.onMessage(ByteBuffer.allocate(LatencyProbe.MESSAGE_SIZE), nowMicros));
+        assertFalse(local.onMessage(ByteBuffer.wrap(new byte[] {LatencyProbe.MAGIC}), nowMicros));
+        assertFalse(local.hasClockOffset());
+        assertTrue(toRemote.isEmpty());
+    }
+
+    @Test
+    public void appendTo_formatsRoundTripAndOffset() {
+        StringBuilder builder = new StringBuilder();
+        local.appendTo(builder);
+        assertEquals("ProbeRtt=- (0 sent)\n", builder.toString());
+
+        roundTrip(6000, 0, 6000);
+        builder.setLength(0);
+        local.appendTo(builder);
+        assertEquals("ProbeRtt=12 ms p50=12 p95=12\nClockOffset=5000.0 ms\n", builder.toString());
+    }
+}
@@ -0,0 +1,96 @@
+package com.midamhiworks.testwebrtc;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link MemoryMonitor}.
+ */
+public class MemoryMonitorTest {
+    private static final long MB = 1024 * 1024;
+
+    private static class FakeReader implements MemoryMonitor.Reader {
+        final MemoryMonitor.Sample values = new MemoryMonitor.Sample();
+        int pssReads;
+
+        @Override
+        public void read(MemoryMonitor.Sample sample, boolean readPss) {
+            sample.javaHeapUsedBytes = values.javaHeapUsedBytes;
+            sample.javaHeapMaxBytes = values.javaHeapMaxBytes;
+            sample.nativeHeapBytes = values.nativeHeapBytes;
+            sample.gcCount = values.gcCount;
+            sample.gcTimeMs = values.gcTimeMs;
+            sample.bytesAllocated = values.bytesAllocated;
+            if (readPss) {
+                sample.pssKb = values.pssKb;
+                pssReads++;
+            }
+        }
+    }
+
+    private final FakeReader reader = new FakeReader();
+    private final MemoryMonitor monitor = new MemoryMonitor(reader, 10000);
+
+    private void set(long javaMb, long nativeMb, long gcCount, long gcTimeMs, long allocatedMb) {
+        reader.values.javaHeapUsedBytes = javaMb * MB;
+        reader.values.javaHeapMaxBytes = 256 * MB;
+        reader.values.nativeHeapBytes = nativeMb * MB;
+        reader.values.pssKb = (javaMb + nativeMb) * 1024;
+        reader.values.gcCount = gcCount;
+        reader.values.gcTimeMs = gcTimeMs;
+        reader.values.bytesAllocated = allocatedMb * MB;
+    }
+
+    @Test
+    public void sample_computesIntervalValues() {
+        set(30, 80, 10, 100, 500);
+        monitor.sample(0);
+        assertEquals(-1, monitor.getIntervalGcCount());
+        assertEquals(-1, monitor.getAllocationRateKbPerSecond());
+
+        set(20, 82, 12, 130, 502);
+        monitor.sample(2000);
+        assertEquals(2, monitor.getIntervalGcCount());
+        assertEquals(30, monitor.getIntervalGcTimeMs());
+        assertEquals(1024, monitor.getAllocationRateKbPerSecond());
+        assertEquals(20 * MB, monitor.getJavaHeapUsedBytes());
+        assertEquals("Mem: Java 20/256 Native 82 PSS 110 MB GC 2 30 ms Alloc 1024 KB/s",
+                monitor.toString());
+    }
+
+    @Test
+    public void sample_readsPssOnlyEveryPeriod() {
+        set(30, 80, 0, 0, 0);
+        monitor.sample(0);
+        set(40, 80, 0, 0, 0);
+        monitor.sample(5000);
+        assertEquals(1, reader.pssReads);
+        assertEquals(110 * 1024, monitor.getPssKb());
+        monitor.sample(10000);
+        assertEquals(2, reader.pssReads);
+        assertEquals(120 * 1024, monitor.getPssKb());
+    }
+
+    @Test
+    public void getSummary_reportsPeaksAndTotals() {
+        set(30, 80, 10, 100, 500);
+        monitor.sample(0);
+        set(60, 90, 15, 180, 560);
+        monitor.sample(30000);
+        set(20, 85, 20, 250, 620);
+        monitor.sample(60000);
+        assertEquals("Memory over 60 s: peak Java 60 MB, native 90 MB, PSS 150 MB, GC 10 times"
+                + " in 150 ms, allocated 120 MB at 2048 KB/s", monitor.getSummary());
+    }
+
+    @Test
+    public void unavailableCountersAreLeftOut() {
+        set(30, 80, -1, -1, 0);
+        reader.values.bytesAllocated = -1;
+        monitor.sample(0);
+        monitor.sample(1000);
+        assertEquals(-1, monitor.getIntervalGcCount());
+        assertEquals("Mem: Java 30/256 Native 80 PSS 110 MB", monitor.toString());
+    }
+}
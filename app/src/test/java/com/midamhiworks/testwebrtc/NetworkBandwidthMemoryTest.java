@@ -0,0 +1,168 @@
+package com.midamhiworks.testwebrtc;
+
+import android.content.SharedPreferences;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link NetworkBandwidthMemory}.
+ */
+public class NetworkBandwidthMemoryTest {
+    private static final long DAY_MS = 24 * 60 * 60 * 1000;
+
+    // Only the string values are used by NetworkBandwidthMemory.
+    private static class MemoryPreferences implements SharedPreferences {
+        final Map<String, String> values = new HashMap<>();
+
+        @Override
+        public Map<String, ?> getAll() {
+            return values;
+        }
+
+        @Override
+        public String getString(String key, String defValue) {
+            return values.containsKey(key) ? values.get(key) : defValue;
+        }
+
+        @Override
+        public Set<String> getStringSet(String key, Set<String> defValues) {
+            return defValues;
+        }
+
+        @Override
+        public int getInt(String key, int defValue) {
+            return defValue;
+        }
+
+        @Override
+        public long getLong(String key, long defValue) {
+            return defValue;
+        }
+
+        @Override
+        public float getFloat(String key, float defValue) {
+            return defValue;
+        }
+
+        @Override
+        public boolean getBoolean(String key, boolean defValue) {
+            return defValue;
+        }
+
+        @Override
+        public boolean contains(String key) {
+            return values.containsKey(key);
+        }
+
+        @Override
+        public Editor edit() {
+            return new Editor() {
+                @Override
+                public Editor putString(String key, String value) {
+                    values.put(key, value);
+                    return this;
+                }
+
+                @Override
+                public Editor putStringSet(String key, Set<String> value) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public Editor putInt(String key, int value) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public Editor putLong(String key, long value) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public Editor putFloat(String key, float value) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public Editor putBoolean(String key, boolean value) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public Editor remove(String key) {
+                    values.remove(key);
+                    return this;
+                }
+
+                @Override
+                public Editor clear() {
+                    values.clear();
+                    return this;
+                }
+
+                @Override
+                public boolean commit() {
+                    return true;
+                }
+
+                @Override
+                public void apply() {}
+            };
+        }
+
+        @Override
+        public void registerOnSharedPreferenceChangeListener(
+                OnSharedPreferenceChangeListener listener) {}
+
+        @Override
+        public void unregisterOnSharedPreferenceChangeListener(
+                OnSharedPreferenceChangeListener listener) {}
+    }
+
+    private final MemoryPreferences preferences = new MemoryPreferences();
+    private final NetworkBandwidthMemory memory = new NetworkBandwidthMemory(preferences);
+
+    @Test
+    public void decay_halvesEveryWeekAndForgetsAfterAMonth() {
+        assertEquals(1000, NetworkBandwidthMemory.decay(1000, 0));
+        assertEquals(1000, NetworkBandwidthMemory.decay(1000, -DAY_MS));
+        assertEquals(500, NetworkBandwidthMemory.decay(1000, 7 * DAY_MS));
+        assertEquals(250, NetworkBandwidthMemory.decay(1000, 14 * DAY_MS));
+        assertEquals(707, NetworkBandwidthMemory.decay(1000, 7 * DAY_MS / 2));
+        assertTrue(NetworkBandwidthMemory.decay(1000, 30 * DAY_MS) > 0);
+        assertEquals(0, NetworkBandwidthMemory.decay(1000, 30 * DAY_MS + 1));
+    }
+
+    @Test
+    public void record_blendsWithTheDecayedEstimate() {
+        memory.record("wifi:1", 1000, 0);
+        assertEquals(1000, memory.getEstimateKbps("wifi:1", 0));
+        assertEquals(500, memory.getEstimateKbps("wifi:1", 7 * DAY_MS));
+        assertEquals(0, memory.getEstimateKbps("cellular:13", 0));
+
+        // 0.7 * 2000 + 0.3 * 500.
+        memory.record("wifi:1", 2000, 7 * DAY_MS);
+        assertEquals(1550, memory.getEstimateKbps("wifi:1", 7 * DAY_MS));
+
+        // An expired estimate is replaced rather than blended.
+        memory.record("wifi:1", 800, 40 * DAY_MS);
+        assertEquals(800, memory.getEstimateKbps("wifi:1", 40 * DAY_MS));
+    }
+
+    @Test
+    public void record_ignoresUnknownNetworksAndEmptyEstimates() {
+        memory.record(null, 1000, 0);
+        memory.record("wifi:1", 0, 0);
+        assertTrue(preferences.values.isEmpty());
+        assertEquals(0, memory.getEstimateKbps(null, 0));
+
+        preferences.values.put("wifi:1", "garbage");
+        assertEquals(0, memory.getEstimateKbps("wifi:1", 0));
+    }
+}
@@ -0,0 +1,76 @@
+package com.midamhiworks.testwebrtc;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link PowerPolicy}.
+ */
+public class PowerPolicyTest {
+    private final PowerPolicy policy = new PowerPolicy();
+
+    @Test
+    public void onBatteryState_savesOnLowBatteryOnlyWhenNotCharging() {
+        assertFalse(policy.onBatteryState(50, false, 300, 0));
+        assertEquals(PowerPolicy.Mode.NORMAL, policy.getMode());
+
+        assertTrue(policy.onBatteryState(19, false, 300, 1000));
+        assertEquals(PowerPolicy.Mode.SAVING, policy.getMode());
+        assertEquals(15, policy.getMode().framerateCap);
+
+        assertTrue(policy.onBatteryState(19, true, 300, 2000));
+        assertEquals(PowerPolicy.Mode.NORMAL, policy.getMode());
+
+        assertTrue(policy.onBatteryState(10, false, 300, 3000));
+        assertEquals(PowerPolicy.Mode.CRITICAL, policy.getMode());
+    }
+
+    @Test
+    public void onBatteryState_leavesModeOnlyPastHysteresis() {
+        policy.onBatteryState(19, false, 300, 0);
+        assertFalse(policy.onBatteryState(20, false, 300, 1000));
+        assertFalse(policy.onBatteryState(22, false, 300, 2000));
+        assertEquals(PowerPolicy.Mode.SAVING, policy.getMode());
+        assertTrue(policy.onBatteryState(23, false, 300, 3000));
+        assertEquals(PowerPolicy.Mode.NORMAL, policy.getMode());
+
+        assertTrue(policy.onBatteryState(80, true, 450, 4000));
+        assertEquals(PowerPolicy.Mode.CRITICAL, policy.getMode());
+        assertFalse(policy.onBatteryState(80, true, 431, 5000));
+        assertTrue(policy.onBatteryState(80, true, 429, 5500));
+        assertEquals(PowerPolicy.Mode.SAVING, policy.getMode());
+        assertFalse(policy.onBatteryState(80, true, 401, 6000));
+        assertTrue(policy.onBatteryState(80, true, 399, 7000));
+        assertEquals(PowerPolicy.Mode.NORMAL, policy.getMode());
+    }
+
+    @Test
+    public void onThermalState_overridesBatteryState() {
+        policy.onBatteryState(80, true, 300, 0);
+        assertTrue(policy.onThermalState(true, false));
+        assertEquals(PowerPolicy.Mode.SAVING, policy.getMode());
+        assertTrue(policy.onThermalState(true, true));
+        assertEquals(PowerPolicy.Mode.CRITICAL, policy.getMode());
+        assertTrue(policy.onThermalState(false, false));
+        assertEquals(PowerPolicy.Mode.NORMAL, policy.getMode());
+    }
+
+    @Test
+    public void getDrainPercentPerMinute_measuresSinceCallStartOnBattery() {
+        policy.onBatteryState(90, false, 300, 0);
+        policy.resetDrain(10000);
+        policy.onBatteryState(89, false, 300, 40000);
+        // Less than a minute is too short to tell.
+        assertEquals(0, policy.getDrainPercentPerMinute(), 0);
+        policy.onBatteryState(87, false, 300, 130000);
+        assertEquals(1.5, policy.getDrainPercentPerMinute(), 1e-9);
+
+        // Plugging the charger restarts the measurement.
+        policy.onBatteryState(87, true, 300, 140000);
+        assertEquals(0, policy.getDrainPercentPerMinute(), 0);
+        policy.onBatteryState(88, false, 300, 150000);
+        policy.onBatteryState(87, false, 300, 270000);
+        assertEquals(0.5, policy.getDrainPercentPerMinute(), 1e-9);
+    }
+}
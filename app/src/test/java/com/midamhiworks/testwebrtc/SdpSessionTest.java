@@ -0,0 +1,116 @@
+package com.midamhiworks.testwebrtc;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link SdpSession}.
+ */
+public class SdpSessionTest {
+    private static final String SDP = "v=0\r\n"
+            + "o=- 4611731400430051336 2 IN IP4 127.0.0.1\r\n"
+            + "s=-\r\n"
+            + "t=0 0\r\n"
+            + "a=group:BUNDLE 0 1\r\n"
+            + "m=audio 9 UDP/TLS/RTP/SAVPF 111 103 9\r\n"
+            + "c=IN IP4 0.0.0.0\r\n"
+            + "a=mid:0\r\n"
+            + "a=rtpmap:111 opus/48000/2\r\n"
+            + "a=rtcp-fb:111 transport-cc\r\n"
+            + "a=fmtp:111 minptime=10;useinbandfec=1\r\n"
+            + "a=rtpmap:103 ISAC/16000\r\n"
+            + "a=rtpmap:9 G722/8000\r\n"
+            + "m=video 9 UDP/TLS/RTP/SAVPF 96 97 98 99 100\r\n"
+            + "c=IN IP4 0.0.0.0\r\n"
+            + "a=mid:1\r\n"
+            + "a=rtpmap:96 VP8/90000\r\n"
+            + "a=rtcp-fb:96 nack\r\n"
+            + "a=rtcp-fb:96 nack pli\r\n"
+            + "a=rtpmap:97 rtx/90000\r\n"
+            + "a=fmtp:97 apt=96\r\n"
+            + "a=rtpmap:98 VP9/90000\r\n"
+            + "a=rtpmap:99 rtx/90000\r\n"
+            + "a=fmtp:99 apt=98\r\n"
+            + "a=rtpmap:100 H264/90000\r\n"
+            + "a=fmtp:100 level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=42e01f\r\n";
+
+    @Test
+    public void unmodifiedRoundTrip_isIdentical() {
+        assertEquals(SDP, SdpSession.parse(SDP).toString());
+    }
+
+    @Test
+    public void parse_indexesAttributesByPayloadType() {
+        SdpSession.MediaSection video = SdpSession.parse(SDP).findMediaSection(false);
+        assertNotNull(video);
+        assertEquals(Arrays.asList("96", "97", "98", "99", "100"), video.getPayloadTypes());
+        assertEquals("VP9", video.getEncodingName("98"));
+        assertEquals("apt=98", video.getFmtp("99"));
+        assertEquals(Arrays.asList("nack", "nack pli"), video.getRtcpFeedback("96"));
+        assertEquals(Arrays.asList("100"), video.findPayloadTypes("H264"));
+    }
+
+    @Test
+    public void preferCodec_movesPayloadTypesToFront() {
+        SdpSession session = SdpSession.parse(SDP);
+        assertTrue(session.preferCodec("H264", false));
+        assertTrue(session.preferCodec("ISAC", true));
+        assertFalse(session.preferCodec("AV1X", false));
+        String sdp = session.toString();
+        assertTrue(sdp.contains("m=video 9 UDP/TLS/RTP/SAVPF 100 96 97 98 99\r\n"));
+        assertTrue(sdp.contains("m=audio 9 UDP/TLS/RTP/SAVPF 103 111 9\r\n"));
+    }
+
+    @Test
+    public void preferCodecs_keepsListOrderAndMatchesH264Profile() {
+        SdpSession session = SdpSession.parse(SDP);
+        assertTrue(session.preferCodecs(Arrays.asList(
+                new SdpSession.CodecSpec("H264", "64"),
+                new SdpSession.CodecSpec("VP9", null),
+                new SdpSession.CodecSpec("H264", "42")), false));
+        assertTrue(session.toString().contains("m=video 9 UDP/TLS/RTP/SAVPF 98 100 96 97 99\r\n"));
+        assertFalse(session.preferCodecs(Arrays.asList(
+                new SdpSession.CodecSpec("H264", "64")), false));
+    }
+
+    @Test
+    public void setCodecParameter_updatesOrAddsFmtp() {
+        SdpSession session = SdpSession.parse(SDP);
+        assertEquals("111", session.setCodecParameter("opus", "maxaveragebitrate", "32000"));
+        assertEquals("96", session.setCodecParameter("VP8", "x-google-start-bitrate", "1000"));
+        assertEquals("111", session.setCodecParameter("opus", "maxaveragebitrate", "64000"));
+        assertNull(session.setCodecParameter("AV1X", "x-google-start-bitrate", "1000"));
+        String sdp = session.toString();
+        assertTrue(sdp.contains(
+            "a=fmtp:111 minptime=10;useinbandfec=1; maxaveragebitrate=64000\r\n"));
+        assertTrue(sdp.contains(
+            "a=rtpmap:96 VP8/90000\r\na=fmtp:96 x-google-start-bitrate=1000\r\n"));
+    }
+
+    @Test
+    public void parse_acceptsBareNewlines() {
+        assertEquals(SDP, SdpSession.parse(SDP.replace("\r\n", "\n")).toString());
+    }
+
+    @Test
+    public void parse_keepsLinesOfMalformedMediaLineInPlace() {
+        String malformed = "m=application 9\r\n"
+                + "c=IN IP4 0.0.0.0\r\n"
+                + "a=rtpmap:111 unknown/8000\r\n";
+        int videoStart = SDP.indexOf("m=video");
+        String sdp = SDP.substring(0, videoStart) + malformed + SDP.substring(videoStart);
+
+        SdpSession session = SdpSession.parse(sdp);
+        assertEquals(sdp, session.toString());
+        assertEquals(2, session.getMediaSections().size());
+        // The lines of the malformed section are not taken as those of the audio section.
+        assertEquals("opus", session.findMediaSection(true).getEncodingName("111"));
+
+        assertTrue(session.preferCodec("VP9", false));
+        String munged = session.toString();
+        assertTrue(munged.contains(malformed + "m=video 9 UDP/TLS/RTP/SAVPF 98 96 97 99 100\r\n"));
+    }
+}
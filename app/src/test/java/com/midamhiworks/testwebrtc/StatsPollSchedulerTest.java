@@ -0,0 +1,87 @@
+package com.midamhiworks.testwebrtc;
+
+import org.junit.Test;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link StatsPollScheduler}.
+ */
+public class StatsPollSchedulerTest {
+    // Keeps the tick instead of running it, so that the test decides when it runs.
+    private static class ManualTimer extends ScheduledThreadPoolExecutor {
+        Runnable tick;
+        long periodMs;
+
+        ManualTimer() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(
+                Runnable command, long initialDelay, long period, TimeUnit unit) {
+            tick = command;
+            periodMs = unit.toMillis(period);
+            return schedule(() -> {}, 1, TimeUnit.DAYS);
+        }
+    }
+
+    private final ManualTimer timer = new ManualTimer();
+    private long nowMs;
+    private int collections;
+    private final StatsPollScheduler scheduler =
+            new StatsPollScheduler(timer, () -> nowMs, () -> collections++);
+
+    private void tickAt(long timeMs) {
+        nowMs = timeMs;
+        timer.tick.run();
+    }
+
+    @Test
+    public void period_followsShortestConsumer() {
+        assertEquals(0, scheduler.getPeriodMs());
+        scheduler.start(30000);
+        assertEquals(30000, scheduler.getPeriodMs());
+        scheduler.setConsumer("foreground", 5000);
+        scheduler.setConsumer("hud", 1000);
+        assertEquals(1000, scheduler.getPeriodMs());
+        assertEquals(1000, timer.periodMs);
+        scheduler.removeConsumer("hud");
+        assertEquals(5000, scheduler.getPeriodMs());
+        scheduler.stop();
+        assertEquals(0, scheduler.getPeriodMs());
+        scheduler.start(30000);
+        assertEquals(5000, scheduler.getPeriodMs());
+        assertEquals(5000, timer.periodMs);
+        scheduler.release();
+    }
+
+    @Test
+    public void ticks_areSkippedWhileCollecting() {
+        scheduler.start(100);
+        tickAt(0);
+        assertEquals(1, collections);
+        // Never finishing the first collection holds back further ones.
+        tickAt(100);
+        tickAt(200);
+        assertEquals(1, collections);
+        assertEquals(2, scheduler.getSkippedTicks());
+
+        scheduler.onCollectionFinished();
+        tickAt(300);
+        assertEquals(2, collections);
+        assertEquals(2, scheduler.getTicks());
+
+        // A collection that never finishes is given up after three periods.
+        tickAt(400);
+        tickAt(500);
+        assertEquals(2, collections);
+        tickAt(600);
+        assertEquals(3, collections);
+        scheduler.release();
+    }
+}
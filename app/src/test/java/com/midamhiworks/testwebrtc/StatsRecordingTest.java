@@ -0,0 +1,94 @@
+package com.midamhiworks.testwebrtc;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link StatsRecorder} and {@link StatsRecording}.
+ */
+public class StatsRecordingTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static StatsSnapshot snapshot(int sendKbps, int receiveKbps, int width, int height) {
+        StatsSnapshot stats = new StatsSnapshot();
+        stats.candidatePair.sendBitrateKbps = sendKbps;
+        stats.candidatePair.receiveBitrateKbps = receiveKbps;
+        stats.videoOutbound.encodedFps = 30;
+        stats.videoInbound.decodedFps = 29;
+        stats.videoOutbound.frameWidth = width;
+        stats.videoOutbound.frameHeight = height;
+        return stats;
+    }
+
+    @Test
+    public void flush_roundTripsRingBuffer() throws IOException {
+        StatsRecorder recorder = new StatsRecorder(3);
+        for (int i = 0; i < 5; i++) {
+            recorder.record(snapshot(1000 + i, -i, 640, 480), 10 * i, 10000 + i * 1000);
+        }
+        assertEquals(3, recorder.getSampleCount());
+        assertEquals(2, recorder.getDroppedSamples());
+
+        File file = recorder.flush(folder.getRoot(), Long.MAX_VALUE);
+        assertNotNull(file);
+        assertEquals(0, recorder.getSampleCount());
+
+        StatsRecording recording = StatsRecording.read(file);
+        assertEquals(3, recording.sampleCount);
+        assertEquals(2, recording.droppedSamples);
+        assertArrayEquals(new int[] {2000, 3000, 4000},
+                recording.getColumn(StatsRecording.Column.TIME_MS));
+        assertArrayEquals(new int[] {1002, 1003, 1004},
+                recording.getColumn(StatsRecording.Column.SEND_BITRATE_KBPS));
+        assertArrayEquals(new int[] {-2, -3, -4},
+                recording.getColumn(StatsRecording.Column.RECEIVE_BITRATE_KBPS));
+        assertArrayEquals(new int[] {30, 30, 30},
+                recording.getColumn(StatsRecording.Column.SEND_FPS));
+        assertArrayEquals(new int[] {20, 30, 40},
+                recording.getColumn(StatsRecording.Column.CPU_PERCENT));
+
+        StatsRecording partial =
+                StatsRecording.read(file, EnumSet.of(StatsRecording.Column.SEND_WIDTH));
+        assertNull(partial.getColumn(StatsRecording.Column.TIME_MS));
+        assertArrayEquals(new int[] {640, 640, 640},
+                partial.getColumn(StatsRecording.Column.SEND_WIDTH));
+    }
+
+    @Test
+    public void flush_deletesOldestRecordingsAndReadAllSkipsBadFiles() throws IOException {
+        File directory = folder.getRoot();
+        // Older recordings named after wall times in 2001, 2004 and 2007.
+        for (long startTimeMs = 1000000000000L; startTimeMs <= 1200000000000L;
+                startTimeMs += 100000000000L) {
+            File file = new File(directory, "stats_" + startTimeMs + StatsRecording.FILE_SUFFIX);
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                out.write(new byte[100]);
+            }
+        }
+        StatsRecorder recorder = new StatsRecorder();
+        recorder.record(snapshot(500, 0, 0, 0), 0, 0);
+        // The new recording takes 123 bytes, so only the oldest file has to go.
+        File newest = recorder.flush(directory, 350);
+        assertEquals(123, newest.length());
+
+        assertFalse(new File(directory, "stats_1000000000000.wrts").exists());
+        assertTrue(new File(directory, "stats_1100000000000.wrts").exists());
+        assertTrue(newest.exists());
+
+        List<StatsRecording> recordings =
+                StatsRecording.readAll(directory, EnumSet.allOf(StatsRecording.Column.class));
+        assertEquals(1, recordings.size());
+        assertArrayEquals(new int[] {500},
+                recordings.get(0).getColumn(StatsRecording.Column.SEND_BITRATE_KBPS));
+    }
+}
@@ -0,0 +1,81 @@
+package com.midamhiworks.testwebrtc;
+
+import org.junit.Test;
+import org.webrtc.RTCStats;
+import org.webrtc.RTCStatsReport;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link StatsSnapshot}.
+ */
+public class StatsSnapshotTest {
+    private static RTCStats stats(long timestampUs, String type, String id, Object... members) {
+        Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < members.length; i += 2) {
+            map.put((String) members[i], members[i + 1]);
+        }
+        return new RTCStats(timestampUs, type, id, map);
+    }
+
+    private static RTCStatsReport report(long timestampUs, long bytesSent, long framesEncoded,
+            long packetsReceived, int packetsLost) {
+        Map<String, RTCStats> map = new HashMap<>();
+        map.put("OV", stats(timestampUs, "outbound-rtp", "OV", "kind", "video",
+                "bytesSent", BigInteger.valueOf(bytesSent), "framesEncoded", framesEncoded,
+                "frameWidth", 640L, "frameHeight", 480L, "qualityLimitationReason", "cpu"));
+        map.put("IV", stats(timestampUs, "inbound-rtp", "IV", "mediaType", "video",
+                "packetsReceived", packetsReceived, "packetsLost", packetsLost,
+                "jitter", 0.012));
+        map.put("T", stats(timestampUs, "transport", "T", "selectedCandidatePairId", "CP2"));
+        map.put("CP1", stats(timestampUs, "candidate-pair", "CP1", "state", "succeeded",
+                "nominated", true, "localCandidateId", "L"));
+        map.put("CP2", stats(timestampUs, "candidate-pair", "CP2", "state", "succeeded",
+                "currentRoundTripTime", 0.05, "availableOutgoingBitrate", 1500000.0,
+                "localCandidateId", "L", "remoteCandidateId", "R"));
+        map.put("L", stats(timestampUs, "local-candidate", "L", "candidateType", "srflx",
+                "networkType", "wifi", "protocol", "udp"));
+        map.put("R", stats(timestampUs, "remote-candidate", "R", "candidateType", "relay"));
+        return new RTCStatsReport(timestampUs, map);
+    }
+
+    @Test
+    public void update_readsTypedFieldsAndSelectedPair() {
+        StatsSnapshot snapshot = new StatsSnapshot();
+        snapshot.update(report(1000000, 100000, 30, 100, 0), null);
+
+        assertTrue(snapshot.videoOutbound.present);
+        assertFalse(snapshot.audioOutbound.present);
+        assertEquals(640, snapshot.videoOutbound.frameWidth);
+        assertEquals("cpu", snapshot.videoOutbound.qualityLimitationReason);
+        assertEquals(12.0, snapshot.videoInbound.jitterMs, 1e-9);
+        assertEquals(50.0, snapshot.candidatePair.roundTripTimeMs, 1e-9);
+        assertEquals(1500, snapshot.candidatePair.availableOutgoingBitrateKbps);
+        assertEquals("srflx", snapshot.candidatePair.localCandidateType);
+        assertEquals("relay", snapshot.candidatePair.remoteCandidateType);
+        assertEquals(0, snapshot.intervalMs);
+        assertEquals(0, snapshot.videoOutbound.bitrateKbps);
+    }
+
+    @Test
+    public void update_computesRatesOverInterval() {
+        StatsSnapshot first = new StatsSnapshot();
+        StatsSnapshot second = new StatsSnapshot();
+        first.update(report(1000000, 100000, 30, 100, 0), null);
+        second.update(report(3000000, 350000, 90, 280, 20), first);
+
+        assertEquals(2000, second.intervalMs);
+        assertEquals(1000, second.videoOutbound.bitrateKbps);
+        assertEquals(30.0, second.videoOutbound.encodedFps, 1e-9);
+        assertEquals(10.0, second.videoInbound.packetLossPercent, 1e-9);
+
+        // The older snapshot is reused for the next report.
+        first.update(report(4000000, 350000, 90, 380, 20), second);
+        assertEquals(0, first.videoOutbound.bitrateKbps);
+        assertEquals(0.0, first.videoInbound.packetLossPercent, 1e-9);
+    }
+}
@@ -0,0 +1,82 @@
+package com.midamhiworks.testwebrtc;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link ThreadCpuSampler} against a fake /proc/self/task.
+ */
+public class ThreadCpuSamplerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private void writeThread(int tid, String name, long utime, long stime) throws IOException {
+        File stat = new File(folder.getRoot(), tid + "/stat");
+        stat.getParentFile().mkdirs();
+        String contents = tid + " (" + name + ") S 1 1 0 0 -1 4194624 100 0 0 0 " + utime + " "
+                + stime + " 0 0 20 0 40 0 12345\n";
+        try (FileOutputStream out = new FileOutputStream(stat)) {
+            out.write(contents.getBytes(Charset.forName("UTF-8")));
+        }
+    }
+
+    @Test
+    public void classify_groupsKnownThreadNames() {
+        assertEquals(ThreadCpuSampler.Group.MAIN, ThreadCpuSampler.classify("midamhiworks", true));
+        assertEquals(ThreadCpuSampler.Group.PC_EXECUTOR,
+                ThreadCpuSampler.classify("PCClient-1", false));
+        assertEquals(ThreadCpuSampler.Group.STATS, ThreadCpuSampler.classify("PCStats-1", false));
+        assertEquals(ThreadCpuSampler.Group.STATS,
+                ThreadCpuSampler.classify("ResourceSampler", false));
+        assertEquals(ThreadCpuSampler.Group.CAPTURE,
+                ThreadCpuSampler.classify("CaptureThread", false));
+        assertEquals(ThreadCpuSampler.Group.RENDER,
+                ThreadCpuSampler.classify("viewEglRenderer", false));
+        assertEquals(ThreadCpuSampler.Group.AUDIO,
+                ThreadCpuSampler.classify("AudioRecordJava", false));
+        assertEquals(ThreadCpuSampler.Group.TCP_CHANNEL,
+                ThreadCpuSampler.classify("TCPChannel", false));
+        assertEquals(ThreadCpuSampler.Group.OTHER, ThreadCpuSampler.classify("Binder:1234_2", false));
+    }
+
+    @Test
+    public void sample_attributesTicksToGroups() throws IOException {
+        writeThread(100, "app) (name", 50, 10);
+        writeThread(101, "CaptureThread", 20, 5);
+        writeThread(102, "PCClient-1", 0, 0);
+        ThreadCpuSampler sampler = new ThreadCpuSampler(folder.getRoot(), 100, 100);
+        assertFalse(sampler.sample(0));
+        assertEquals(0, sampler.getUsagePercent(ThreadCpuSampler.Group.CAPTURE));
+
+        // Over 2 s: capture 60 ticks (30%), main 20 ticks (10%), the executor 100 ticks (50%).
+        writeThread(100, "app) (name", 60, 20);
+        writeThread(101, "CaptureThread", 60, 25);
+        writeThread(102, "PCClient-1", 70, 30);
+        writeThread(103, "EncoderQueue", 500, 0);
+        assertTrue(sampler.sample(2000));
+        assertEquals(10, sampler.getUsagePercent(ThreadCpuSampler.Group.MAIN));
+        assertEquals(30, sampler.getUsagePercent(ThreadCpuSampler.Group.CAPTURE));
+        assertEquals(50, sampler.getUsagePercent(ThreadCpuSampler.Group.PC_EXECUTOR));
+        // A new thread starts counting from when it was first seen.
+        assertEquals(0, sampler.getUsagePercent(ThreadCpuSampler.Group.ENCODER));
+        assertEquals(90, sampler.getProcessUsagePercent());
+
+        StringBuilder top = new StringBuilder();
+        sampler.appendTopGroups(top, new ThreadCpuSampler.Group[2]);
+        assertEquals("PC executor 50% Capture 30%", top.toString());
+        sampler.close();
+
+        // A late sample after closing neither reopens the stat files nor changes the usage.
+        writeThread(102, "PCClient-1", 170, 30);
+        assertFalse(sampler.sample(4000));
+        assertEquals(50, sampler.getUsagePercent(ThreadCpuSampler.Group.PC_EXECUTOR));
+    }
+}
@@ -0,0 +1,34 @@
+package com.midamhiworks.testwebrtc;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link VideoBitratePolicy}.
+ */
+public class VideoBitratePolicyTest {
+    private static final SdpSession.CodecSpec VP8 = new SdpSession.CodecSpec("VP8", null);
+    private static final SdpSession.CodecSpec VP9 = new SdpSession.CodecSpec("VP9", null);
+
+    @Test
+    public void compute_scalesWithFormatAndCodec() {
+        VideoBitratePolicy.Bitrates hd = VideoBitratePolicy.compute(VP8, 1280, 720, 30, 0, 0);
+        VideoBitratePolicy.Bitrates vga = VideoBitratePolicy.compute(VP8, 640, 480, 30, 0, 0);
+        VideoBitratePolicy.Bitrates hdVp9 = VideoBitratePolicy.compute(VP9, 1280, 720, 30, 0, 0);
+        assertTrue(hd.startKbps > vga.startKbps);
+        assertTrue(hdVp9.maxKbps < hd.maxKbps);
+        assertTrue(hd.minKbps <= hd.startKbps && hd.startKbps <= hd.maxKbps);
+    }
+
+    @Test
+    public void compute_usesMeasuredBandwidthWithinConfiguredMax() {
+        VideoBitratePolicy.Bitrates measured =
+                VideoBitratePolicy.compute(VP8, 1280, 720, 30, 0, 1000);
+        assertEquals(900, measured.startKbps);
+        VideoBitratePolicy.Bitrates capped =
+                VideoBitratePolicy.compute(VP8, 1280, 720, 30, 500, 5000);
+        assertEquals(500, capped.maxKbps);
+        assertEquals(500, capped.startKbps);
+    }
+}
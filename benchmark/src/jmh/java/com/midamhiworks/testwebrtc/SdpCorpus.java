@@ -0,0 +1,41 @@
+/*
+ *  Copyright 2014 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Loads the SDP corpus under src/jmh/resources/sdp. The files were captured from Chrome, Firefox
+ * and this app on Android, with addresses and keys replaced.
+ */
+final class SdpCorpus {
+  private SdpCorpus() {}
+
+  static String load(String name) {
+    try (InputStream stream = SdpCorpus.class.getResourceAsStream("/sdp/" + name + ".sdp")) {
+      if (stream == null) {
+        throw new IllegalArgumentException("Unknown SDP corpus entry: " + name);
+      }
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      int read;
+      while ((read = stream.read(buffer)) != -1) {
+        bytes.write(buffer, 0, read);
+      }
+      return new String(bytes.toByteArray(), Charset.forName("UTF-8"));
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
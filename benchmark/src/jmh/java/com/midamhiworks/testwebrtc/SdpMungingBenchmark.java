@@ -0,0 +1,75 @@
+/*
+ *  Copyright 2014 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * SDP munging steps done by PeerConnectionClient on offer/answer creation and on
+ * setRemoteDescription. Every operation starts from the raw SDP string, like the client does.
+ */
+@State(Scope.Thread)
+public class SdpMungingBenchmark {
+  @Param({"chrome_offer", "firefox_offer", "android_answer"})
+  public String corpus;
+
+  private String sdpDescription;
+
+  @Setup
+  public void setUp() {
+    sdpDescription = SdpCorpus.load(corpus);
+  }
+
+  @Benchmark
+  public String parseAndSerialize() {
+    return SdpSession.parse(sdpDescription).toString();
+  }
+
+  @Benchmark
+  public String preferCodec() {
+    SdpSession sdpSession = SdpSession.parse(sdpDescription);
+    sdpSession.preferCodec("ISAC", true);
+    sdpSession.preferCodec("H264", false);
+    return sdpSession.toString();
+  }
+
+  @Benchmark
+  public String setStartBitrate() {
+    SdpSession sdpSession = SdpSession.parse(sdpDescription);
+    sdpSession.setCodecParameter("opus", "maxaveragebitrate", "32000");
+    sdpSession.setCodecParameter("VP8", "x-google-start-bitrate", "1000");
+    return sdpSession.toString();
+  }
+
+  @Benchmark
+  public String movePayloadTypesToFront() {
+    SdpSession sdpSession = SdpSession.parse(sdpDescription);
+    SdpSession.MediaSection video = sdpSession.findMediaSection(false /* isAudio */);
+    List<String> payloadTypes = video.getPayloadTypes();
+    video.movePayloadTypesToFront(payloadTypes.subList(payloadTypes.size() / 2, payloadTypes.size()));
+    return sdpSession.toString();
+  }
+
+  // Same sequence of steps as PeerConnectionClient.setRemoteDescription().
+  @Benchmark
+  public String remoteDescriptionMunging() {
+    SdpSession sdpSession = SdpSession.parse(sdpDescription);
+    sdpSession.preferCodec("ISAC", true);
+    sdpSession.preferCodec("VP9", false);
+    sdpSession.setCodecParameter("opus", "maxaveragebitrate", "32000");
+    return sdpSession.toString();
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ *  Copyright 2016 The WebRTC Project Authors. All rights reserved.
+ *
+ *  Use of this source code is governed by a BSD-style license
+ *  that can be found in the LICENSE file in the root of the source
+ *  tree. An additional intellectual property rights grant can be found
+ *  in the file PATENTS.  All contributing project authors may
+ *  be found in the AUTHORS file in the root of the source tree.
+ */
+
+package com.midamhiworks.testwebrtc;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.webrtc.IceCandidate;
+import org.webrtc.SessionDescription;
+
+/**
+ * JSON encoding and decoding of signaling messages, as done by WebSocketRTCClient and by
+ * DirectRTCClient.onTCPMessage().
+ */
+@State(Scope.Thread)
+public class SignalingJsonBenchmark {
+  private static final IceCandidate CANDIDATE = new IceCandidate("0", 0,
+      "candidate:842163049 1 udp 1677729535 203.0.113.7 46154 typ srflx raddr 192.168.1.23 "
+          + "rport 46154 generation 0 ufrag Jq2b network-id 3 network-cost 10");
+
+  @Param({"chrome_offer", "android_answer"})
+  public String corpus;
+
+  private SessionDescription sdp;
+  private String candidateMessage;
+  private String sdpMessage;
+  private DirectRTCClient directClient;
+  private BlackholeSignalingEvents events;
+
+  // Forwards every decoded event to the JMH blackhole.
+  private static class BlackholeSignalingEvents implements AppRTCClient.SignalingEvents {
+    Blackhole blackhole;
+
+    @Override
+    public void onConnectedToRoom(AppRTCClient.SignalingParameters params) {
+      blackhole.consume(params);
+    }
+
+    @Override
+    public void onRemoteDescription(SessionDescription sdp) {
+      blackhole.consume(sdp);
+    }
+
+    @Override
+    public void onRemoteIceCandidate(IceCandidate candidate) {
+      blackhole.consume(candidate);
+    }
+
+    @Override
+    public void onRemoteIceCandidatesRemoved(IceCandidate[] candidates) {
+      blackhole.consume(candidates);
+    }
+
+    @Override
+    public void onChannelClose() {}
+
+    @Override
+    public void onChannelError(String description) {
+      throw new IllegalStateException(description);
+    }
+  }
+
+  @Setup
+  public void setUp(Blackhole blackhole) {
+    sdp = new SessionDescription(SessionDescription.Type.OFFER, SdpCorpus.load(corpus));
+    JSONObject candidateJson = SignalingJson.toJsonCandidate(CANDIDATE);
+    SignalingJson.jsonPut(candidateJson, "type", "candidate");
+    candidateMessage = candidateJson.toString();
+    sdpMessage = SignalingJson.toJsonSdp(sdp, "answer").toString();
+    events = new BlackholeSignalingEvents();
+    events.blackhole = blackhole;
+    directClient = new DirectRTCClient(events);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    directClient.disconnectFromRoom();
+  }
+
+  @Benchmark
+  public String toJsonCandidate() {
+    return SignalingJson.toJsonCandidate(CANDIDATE).toString();
+  }
+
+  @Benchmark
+  public IceCandidate toJavaCandidate() throws JSONException {
+    return SignalingJson.toJavaCandidate(new JSONObject(candidateMessage));
+  }
+
+  @Benchmark
+  public String toJsonSdp() {
+    return SignalingJson.toJsonSdp(sdp, "offer").toString();
+  }
+
+  @Benchmark
+  public void onTCPMessageCandidate() {
+    directClient.onTCPMessage(candidateMessage);
+  }
+
+  @Benchmark
+  public void onTCPMessageAnswer() {
+    directClient.onTCPMessage(sdpMessage);
+  }
+}
@@ -0,0 +1,17 @@
+/*
+ *  JVM stand-in for org.webrtc.IceCandidate with the fields used by the signaling code.
+ */
+
+package org.webrtc;
+
+public class IceCandidate {
+  public final String sdpMid;
+  public final int sdpMLineIndex;
+  public final String sdp;
+
+  public IceCandidate(String sdpMid, int sdpMLineIndex, String sdp) {
+    this.sdpMid = sdpMid;
+    this.sdpMLineIndex = sdpMLineIndex;
+    this.sdp = sdp;
+  }
+}
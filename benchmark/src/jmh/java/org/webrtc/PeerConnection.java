@@ -0,0 +1,9 @@
+/*
+ *  JVM stand-in for org.webrtc.PeerConnection; only IceServer is referenced by the signaling code.
+ */
+
+package org.webrtc;
+
+public class PeerConnection {
+  public static class IceServer {}
+}
@@ -0,0 +1,31 @@
+/*
+ *  JVM stand-in for org.webrtc.SessionDescription with the API used by the signaling code.
+ */
+
+package org.webrtc;
+
+import java.util.Locale;
+
+public class SessionDescription {
+  public enum Type {
+    OFFER,
+    PRANSWER,
+    ANSWER;
+
+    public String canonicalForm() {
+      return name().toLowerCase(Locale.US);
+    }
+
+    public static Type fromCanonicalForm(String canonical) {
+      return valueOf(canonical.toUpperCase(Locale.US));
+    }
+  }
+
+  public final Type type;
+  public final String description;
+
+  public SessionDescription(Type type, String description) {
+    this.type = type;
+    this.description = description;
+  }
+}
@@ -0,0 +1,24 @@
+/*
+ *  JVM stand-in for org.webrtc.ThreadUtils with the ThreadChecker used by TCPChannelClient.
+ */
+
+package org.webrtc;
+
+public class ThreadUtils {
+  public static class ThreadChecker {
+    private Thread thread = Thread.currentThread();
+
+    public void checkIsOnValidThread() {
+      if (thread == null) {
+        thread = Thread.currentThread();
+      }
+      if (Thread.currentThread() != thread) {
+        throw new IllegalStateException("Wrong thread");
+      }
+    }
+
+    public void detachThread() {
+      thread = null;
+    }
+  }
+}